@@ -0,0 +1,125 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2013 - 2018 Steffen Bondorf
+ * Copyright (C) 2017 - 2018 The DiscoDNC contributors
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.algebra;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.networkcalculus.dnc.AlgDncBackend;
+import org.networkcalculus.dnc.AlgDncBackend_DNC_Affine;
+import org.networkcalculus.dnc.AlgDncBackend_DNC_ConPwAffine;
+import org.networkcalculus.dnc.Calculator;
+import org.networkcalculus.dnc.curves.Curve;
+import org.networkcalculus.dnc.curves.ServiceCurve;
+
+/**
+ * The n-ary convolution of service curves has to equal folding the pairwise convolution.
+ */
+class ConvolutionListTest {
+    private static final double EPSILON = 1e-9;
+
+    @AfterEach
+    void resetBackend() {
+        Calculator.getInstance().setCurveBackend(AlgDncBackend_DNC_ConPwAffine.DISCO_CONPWAFFINE);
+    }
+
+    @Test
+    void rateLatenciesAffine() throws Exception {
+        checkRateLatencies(AlgDncBackend_DNC_Affine.DISCO_AFFINE);
+    }
+
+    @Test
+    void rateLatenciesPwAffine() throws Exception {
+        checkRateLatencies(AlgDncBackend_DNC_ConPwAffine.DISCO_CONPWAFFINE);
+    }
+
+    private void checkRateLatencies(AlgDncBackend backend) throws Exception {
+        Calculator.getInstance().setCurveBackend(backend);
+
+        List<ServiceCurve> service_curves = Arrays.asList(
+                Curve.getFactory().createRateLatency(10, 1),
+                Curve.getFactory().createRateLatency(5, 0.5),
+                Curve.getFactory().createRateLatency(20, 0),
+                Curve.getFactory().createDelayedInfiniteBurst(2),
+                Curve.getFactory().createRateLatency(5, 3));
+
+        assertConvolutionEqualsFolding(service_curves);
+    }
+
+    @Test
+    void convexCurvesPwAffine() throws Exception {
+        Calculator.getInstance().setCurveBackend(AlgDncBackend_DNC_ConPwAffine.DISCO_CONPWAFFINE);
+
+        // The maximum of rate-latency curves is convex.
+        ServiceCurve convex_1 = Curve.max(Curve.getFactory().createRateLatency(10, 1), Curve.getFactory().createRateLatency(20, 2));
+        ServiceCurve convex_2 = Curve.max(Curve.getFactory().createRateLatency(5, 0.5), Curve.getFactory().createRateLatency(15, 4));
+
+        List<ServiceCurve> service_curves = new LinkedList<ServiceCurve>();
+        service_curves.add(convex_1);
+        service_curves.add(Curve.getFactory().createRateLatency(12, 1.5));
+        service_curves.add(convex_2);
+        service_curves.add(Curve.getFactory().createDelayedInfiniteBurst(0.5));
+
+        assertConvolutionEqualsFolding(service_curves);
+    }
+
+    @Test
+    void singleCurve() throws Exception {
+        for (AlgDncBackend backend : Arrays.asList(AlgDncBackend_DNC_Affine.DISCO_AFFINE, AlgDncBackend_DNC_ConPwAffine.DISCO_CONPWAFFINE)) {
+            Calculator.getInstance().setCurveBackend(backend);
+
+            ServiceCurve service_curve = Curve.getFactory().createRateLatency(10, 1);
+            assertCurveEquals(service_curve, Calculator.getInstance().getMinPlus().convolve(Arrays.asList(service_curve)));
+        }
+    }
+
+    private static void assertConvolutionEqualsFolding(List<ServiceCurve> service_curves) throws Exception {
+        MinPlus min_plus = Calculator.getInstance().getMinPlus();
+
+        ServiceCurve folded = service_curves.get(0);
+        for (ServiceCurve service_curve : service_curves.subList(1, service_curves.size())) {
+            folded = min_plus.convolve(folded, service_curve);
+        }
+
+        assertCurveEquals(folded, min_plus.convolve(service_curves));
+    }
+
+    private static void assertCurveEquals(Curve expected, Curve actual) {
+        assertEquals(expected.getUltAffineRate().doubleValue(), actual.getUltAffineRate().doubleValue(), EPSILON,
+                "Rates differ, expected " + expected + " but was " + actual);
+        assertTrue(Curve.getMaxVerticalDeviation(expected, actual).doubleValue() <= EPSILON,
+                "Expected " + expected + " but was " + actual);
+        assertTrue(Curve.getMaxVerticalDeviation(actual, expected).doubleValue() <= EPSILON,
+                "Expected " + expected + " but was " + actual);
+    }
+}
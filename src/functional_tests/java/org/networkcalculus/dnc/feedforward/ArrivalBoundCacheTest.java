@@ -0,0 +1,165 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2013 - 2018 Steffen Bondorf
+ * Copyright (C) 2017 - 2018 The DiscoDNC contributors
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.feedforward;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.networkcalculus.dnc.AnalysisConfig;
+import org.networkcalculus.dnc.AnalysisConfig.Multiplexing;
+import org.networkcalculus.dnc.curves.ArrivalCurve;
+import org.networkcalculus.dnc.curves.Curve;
+import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+
+/**
+ * Cached and stored arrival bounds have to equal the ones computed from scratch.
+ */
+class ArrivalBoundCacheTest {
+	private static final double EPSILON = 1e-9;
+
+	private ServerGraph server_graph;
+	private Server s0, s1, s2, s3;
+
+	/**
+	 * The tandem s0 -> s1 -> s2 -> s3 with cross-flows entering at s0 and s1 and the bounded flows at s3.
+	 */
+	@BeforeEach
+	void createServerGraph() throws Exception {
+		ArrivalBoundDispatch.clearAllCaches();
+		ArrivalBoundDispatch.setArrivalBoundStore( null );
+
+		server_graph = new ServerGraph();
+		s0 = server_graph.addServer( Curve.getFactory().createRateLatency( 100, 0.1 ) );
+		s1 = server_graph.addServer( Curve.getFactory().createRateLatency( 80, 0.2 ) );
+		s2 = server_graph.addServer( Curve.getFactory().createRateLatency( 120, 0.05 ) );
+		s3 = server_graph.addServer( Curve.getFactory().createRateLatency( 90, 0.1 ) );
+
+		server_graph.addTurn( s0, s1 );
+		server_graph.addTurn( s1, s2 );
+		server_graph.addTurn( s2, s3 );
+
+		server_graph.addFlow( Curve.getFactory().createTokenBucket( 5, 10 ), s0, s3 );
+		server_graph.addFlow( Curve.getFactory().createTokenBucket( 3, 2 ), s0, s1 );
+		server_graph.addFlow( Curve.getFactory().createTokenBucket( 7, 4 ), s1, s3 );
+		server_graph.addFlow( Curve.getFactory().createTokenBucket( 6, 3 ), s0, s2 );
+	}
+
+	@AfterEach
+	void resetStore() {
+		ArrivalBoundDispatch.setArrivalBoundStore( null );
+		ArrivalBoundDispatch.clearAllCaches();
+	}
+
+	@Test
+	void cacheHitEqualsRecomputation() throws Exception {
+		AnalysisConfig configuration = new AnalysisConfig();
+
+		Set<ArrivalCurve> arrival_bounds = ArrivalBoundDispatch.computeArrivalBounds( server_graph, configuration, s3 );
+		long hits = countHits();
+
+		Set<ArrivalCurve> arrival_bounds_cached = ArrivalBoundDispatch.computeArrivalBounds( server_graph, configuration, s3 );
+		assertTrue( countHits() > hits );
+		assertArrivalBoundsEqual( arrival_bounds, arrival_bounds_cached );
+
+		AnalysisConfig configuration_uncached = configuration.copy();
+		configuration_uncached.setUseArrivalBoundsCache( false );
+		assertArrivalBoundsEqual( arrival_bounds, ArrivalBoundDispatch.computeArrivalBounds( server_graph, configuration_uncached, s3 ) );
+	}
+
+	@Test
+	void changedServerIsNotServedFromCache() throws Exception {
+		AnalysisConfig configuration = new AnalysisConfig();
+		AnalysisConfig configuration_uncached = configuration.copy();
+		configuration_uncached.setUseArrivalBoundsCache( false );
+
+		ArrivalBoundDispatch.computeArrivalBounds( server_graph, configuration, s3 );
+
+		s1.setMultiplexing( Multiplexing.FIFO );
+
+		assertArrivalBoundsEqual( ArrivalBoundDispatch.computeArrivalBounds( server_graph, configuration_uncached, s3 ),
+				ArrivalBoundDispatch.computeArrivalBounds( server_graph, configuration, s3 ) );
+	}
+
+	@Test
+	void storedArrivalBoundsRoundTrip() throws Exception {
+		AnalysisConfig configuration = new AnalysisConfig();
+		File file = File.createTempFile( "arrival_bounds", ".store" );
+		file.deleteOnExit();
+
+		ArrivalBoundStore store = new ArrivalBoundStore( file );
+		ArrivalBoundDispatch.setArrivalBoundStore( store );
+		Set<ArrivalCurve> arrival_bounds = ArrivalBoundDispatch.computeArrivalBounds( server_graph, configuration, s3 );
+		ArrivalBoundDispatch.setArrivalBoundStore( null );
+		assertTrue( store.size() > 0 );
+		store.close();
+
+		ArrivalBoundDispatch.clearAllCaches();
+		store = new ArrivalBoundStore( file );
+		try {
+			ArrivalBoundDispatch.setArrivalBoundStore( store );
+			assertArrivalBoundsEqual( arrival_bounds, ArrivalBoundDispatch.computeArrivalBounds( server_graph, configuration, s3 ) );
+		} finally {
+			ArrivalBoundDispatch.setArrivalBoundStore( null );
+			store.close();
+			file.delete();
+		}
+	}
+
+	private static long countHits() {
+		long hits = 0;
+		for ( ArrivalBoundCache.Statistics statistics : ArrivalBoundDispatch.getCacheStatistics().values() ) {
+			hits += statistics.getHits();
+		}
+		return hits;
+	}
+
+	/**
+	 * Arrival bounds are compared by their rates and their maximum vertical deviation in both directions.
+	 */
+	private static void assertArrivalBoundsEqual( Set<ArrivalCurve> expected, Set<ArrivalCurve> actual ) {
+		assertEquals( expected.size(), actual.size() );
+		for ( ArrivalCurve arrival_curve_expected : expected ) {
+			boolean found = false;
+			for ( ArrivalCurve arrival_curve_actual : actual ) {
+				if ( Math.abs( arrival_curve_expected.getUltAffineRate().doubleValue() - arrival_curve_actual.getUltAffineRate().doubleValue() ) <= EPSILON
+						&& Curve.getMaxVerticalDeviation( arrival_curve_expected, arrival_curve_actual ).doubleValue() <= EPSILON
+						&& Curve.getMaxVerticalDeviation( arrival_curve_actual, arrival_curve_expected ).doubleValue() <= EPSILON ) {
+					found = true;
+					break;
+				}
+			}
+			assertTrue( found, "Arrival bound " + arrival_curve_expected + " not found in " + actual );
+		}
+	}
+}
@@ -0,0 +1,336 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2013 - 2018 Steffen Bondorf
+ * Copyright (C) 2017 - 2018 The DiscoDNC contributors
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.linear_constraints;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.networkcalculus.dnc.Calculator;
+import org.networkcalculus.num.Num;
+
+/**
+ * Writes a linear program in every format and parses it back to the objective and the constraints.
+ */
+class LinearProgramWriterTest {
+	private static final double EPSILON = 1e-9;
+
+	@Test
+	void lpSolve() throws Exception {
+		LinearProgram expected = new LinearProgram();
+		String output = write( LinearProgramFormat.LP_SOLVE, expected );
+		assertEquals( expected, parseLpSolve( output ) );
+	}
+
+	@Test
+	void cplex() throws Exception {
+		LinearProgram expected = new LinearProgram();
+		String output = write( LinearProgramFormat.CPLEX, expected );
+		assertTrue( output.trim().endsWith( "End" ) );
+		assertEquals( expected, parseCplex( output ) );
+	}
+
+	@Test
+	void mps() throws Exception {
+		LinearProgram expected = new LinearProgram();
+		String output = write( LinearProgramFormat.MPS, expected );
+		assertTrue( output.trim().endsWith( "ENDATA" ) );
+		assertEquals( expected, parseMps( output ) );
+	}
+
+	/**
+	 * Writes max: 2 x + 3 y - z subject to constraints covering every relation,
+	 * single-variable rows, negative and zero right-hand sides as well as a zero coefficient.
+	 * The expected linear program is filled with the written rows, strict relations as non-strict ones.
+	 */
+	private static String write( LinearProgramFormat format, LinearProgram expected ) throws Exception {
+		StringWriter output = new StringWriter();
+		LinearProgramWriter writer = LinearProgramWriter.create( output, format );
+
+		Map<String,Num> objective = new LinkedHashMap<String,Num>();
+		LinearProgramWriter.addTerm( objective, "x", Operator.PLUS, num( 2 ) );
+		LinearProgramWriter.addTerm( objective, "y", Operator.PLUS, num( 3 ) );
+		LinearProgramWriter.addTerm( objective, "z", Operator.MINUS );
+		writer.objective( true, objective );
+		expected.maximize = true;
+		expected.objective.put( "x", 2.0 );
+		expected.objective.put( "y", 3.0 );
+		expected.objective.put( "z", -1.0 );
+
+		Map<String,Num> lhs = new LinkedHashMap<String,Num>();
+		LinearProgramWriter.addTerm( lhs, "x", Operator.PLUS );
+		LinearProgramWriter.addTerm( lhs, "y", Operator.PLUS );
+		writer.constraint( lhs, Relation.LE, num( 4 ) );
+		expected.addRow( 'L', 4, "x", 1, "y", 1 );
+
+		lhs = new LinkedHashMap<String,Num>();
+		LinearProgramWriter.addTerm( lhs, "x", Operator.MINUS );
+		LinearProgramWriter.addTerm( lhs, "z", Operator.MINUS, num( 2.5 ) );
+		writer.constraint( lhs, Relation.GE, num( -1 ) );
+		expected.addRow( 'G', -1, "x", -1, "z", -2.5 );
+
+		writer.comment( "Single-variable rows" );
+
+		lhs = new LinkedHashMap<String,Num>();
+		LinearProgramWriter.addTerm( lhs, "y", Operator.PLUS );
+		writer.constraint( lhs, Relation.E, num( 2 ) );
+		expected.addRow( 'E', 2, "y", 1 );
+
+		lhs = new LinkedHashMap<String,Num>();
+		LinearProgramWriter.addTerm( lhs, "z", Operator.PLUS, num( 1.5 ) );
+		LinearProgramWriter.addTerm( lhs, "x", Operator.PLUS, num( 0 ) );
+		writer.constraint( lhs, Relation.L, num( 3 ) );
+		expected.addRow( 'L', 3, "z", 1.5 );
+
+		lhs = new LinkedHashMap<String,Num>();
+		LinearProgramWriter.addTerm( lhs, "x", Operator.PLUS );
+		LinearProgramWriter.addTerm( lhs, "y", Operator.MINUS );
+		LinearProgramWriter.addTerm( lhs, "z", Operator.PLUS );
+		writer.constraint( lhs, Relation.G, num( 0 ) );
+		expected.addRow( 'G', 0, "x", 1, "y", -1, "z", 1 );
+
+		writer.close();
+		return output.toString();
+	}
+
+	private static Num num( double value ) {
+		return Num.getFactory( Calculator.getInstance().getNumBackend() ).create( value );
+	}
+
+	// --------------------------------------------------------------------------------------------------------------
+	// Parsing
+	// --------------------------------------------------------------------------------------------------------------
+
+	private static LinearProgram parseLpSolve( String output ) {
+		LinearProgram lp = new LinearProgram();
+		for ( String line : output.split( "\n" ) ) {
+			line = line.trim();
+			if ( line.isEmpty() || line.startsWith( "/*" ) ) {
+				continue;
+			}
+			assertTrue( line.endsWith( ";" ), line );
+			line = line.substring( 0, line.length() - 1 );
+
+			if ( line.startsWith( "max: " ) || line.startsWith( "min: " ) ) {
+				lp.maximize = line.startsWith( "max: " );
+				lp.objective = parseTerms( line.substring( 5 ) );
+			} else {
+				lp.rows.add( parseRow( line.replaceFirst( "^R[0-9]+: ", "" ) ) );
+			}
+		}
+		return lp;
+	}
+
+	private static LinearProgram parseCplex( String output ) {
+		LinearProgram lp = new LinearProgram();
+		boolean objective = false;
+		for ( String line : output.split( "\n" ) ) {
+			line = line.trim();
+			if ( line.isEmpty() || line.startsWith( "\\" ) || line.equals( "Subject To" ) || line.equals( "End" ) ) {
+				continue;
+			}
+			if ( line.equals( "Maximize" ) || line.equals( "Minimize" ) ) {
+				lp.maximize = line.equals( "Maximize" );
+				objective = true;
+			} else if ( objective ) {
+				assertTrue( line.startsWith( "obj: " ), line );
+				lp.objective = parseTerms( line.substring( 5 ) );
+				objective = false;
+			} else {
+				assertTrue( line.matches( "^R[0-9]+: .*" ), line );
+				lp.rows.add( parseRow( line.substring( line.indexOf( ": " ) + 2 ) ) );
+			}
+		}
+		return lp;
+	}
+
+	private static LinearProgram parseMps( String output ) {
+		LinearProgram lp = new LinearProgram();
+		Map<String,Row> map__name__row = new HashMap<String,Row>();
+		String section = "";
+		for ( String line : output.split( "\n" ) ) {
+			if ( !line.startsWith( " " ) ) {
+				section = line.split( " " )[0];
+				continue;
+			}
+			String[] fields = line.trim().split( "\\s+" );
+			switch ( section ) {
+				case "OBJSENSE":
+					lp.maximize = fields[0].equals( "MAX" );
+					break;
+				case "ROWS":
+					if ( !fields[0].equals( "N" ) ) {
+						Row row = new Row( fields[0].charAt( 0 ), 0 );
+						map__name__row.put( fields[1], row );
+						lp.rows.add( row );
+					}
+					break;
+				case "COLUMNS":
+					double coefficient = Double.parseDouble( fields[2] );
+					if ( fields[1].equals( "obj" ) ) {
+						lp.objective.put( fields[0], coefficient );
+					} else {
+						map__name__row.get( fields[1] ).lhs.put( fields[0], coefficient );
+					}
+					break;
+				case "RHS":
+					map__name__row.get( fields[1] ).rhs = Double.parseDouble( fields[2] );
+					break;
+				default:
+					throw new IllegalStateException( "Unexpected line in section " + section + ": " + line );
+			}
+		}
+		return lp;
+	}
+
+	private static Row parseRow( String line ) {
+		String[] relations = { " <= ", " >= ", " = " };
+		char[] types = { 'L', 'G', 'E' };
+		for ( int i = 0; i < relations.length; i++ ) {
+			int index = line.indexOf( relations[i] );
+			if ( index >= 0 ) {
+				Row row = new Row( types[i], Double.parseDouble( line.substring( index + relations[i].length() ) ) );
+				row.lhs = parseTerms( line.substring( 0, index ) );
+				return row;
+			}
+		}
+		throw new IllegalStateException( "No relation in " + line );
+	}
+
+	/**
+	 * Parses terms written like <code>-2.0 x + y - 0.5 z</code>.
+	 */
+	private static Map<String,Double> parseTerms( String terms ) {
+		Map<String,Double> parsed = new HashMap<String,Double>();
+		double sign = 1;
+		Double coefficient = null;
+		for ( String token : terms.trim().split( " " ) ) {
+			if ( token.equals( "+" ) || token.equals( "-" ) ) {
+				sign = token.equals( "-" ) ? -1 : 1;
+				continue;
+			}
+			if ( token.startsWith( "-" ) ) {
+				sign = -1;
+				token = token.substring( 1 );
+			}
+			if ( coefficient == null && Character.isDigit( token.charAt( 0 ) ) ) {
+				coefficient = Double.parseDouble( token );
+				continue;
+			}
+			parsed.merge( token, sign * ( coefficient == null ? 1 : coefficient ), Double::sum );
+			sign = 1;
+			coefficient = null;
+		}
+		return parsed;
+	}
+
+	// --------------------------------------------------------------------------------------------------------------
+	// Model
+	// --------------------------------------------------------------------------------------------------------------
+
+	private static class Row {
+		char type;
+		double rhs;
+		Map<String,Double> lhs = new HashMap<String,Double>();
+
+		Row( char type, double rhs ) {
+			this.type = type;
+			this.rhs = rhs;
+		}
+
+		@Override
+		public boolean equals( Object obj ) {
+			if ( !( obj instanceof Row ) ) {
+				return false;
+			}
+			Row row = (Row) obj;
+			return type == row.type && Math.abs( rhs - row.rhs ) <= EPSILON && termsEqual( lhs, row.lhs );
+		}
+
+		@Override
+		public int hashCode() {
+			return type;
+		}
+
+		@Override
+		public String toString() {
+			return lhs + " " + type + " " + rhs;
+		}
+	}
+
+	private static class LinearProgram {
+		boolean maximize;
+		Map<String,Double> objective = new HashMap<String,Double>();
+		List<Row> rows = new ArrayList<Row>();
+
+		void addRow( char type, double rhs, Object... terms ) {
+			Row row = new Row( type, rhs );
+			for ( int i = 0; i < terms.length; i += 2 ) {
+				row.lhs.put( (String) terms[i], ( (Number) terms[i + 1] ).doubleValue() );
+			}
+			rows.add( row );
+		}
+
+		@Override
+		public boolean equals( Object obj ) {
+			if ( !( obj instanceof LinearProgram ) ) {
+				return false;
+			}
+			LinearProgram lp = (LinearProgram) obj;
+			return maximize == lp.maximize && termsEqual( objective, lp.objective ) && rows.equals( lp.rows );
+		}
+
+		@Override
+		public int hashCode() {
+			return rows.size();
+		}
+
+		@Override
+		public String toString() {
+			return ( maximize ? "max " : "min " ) + objective + " s.t. " + rows;
+		}
+	}
+
+	private static boolean termsEqual( Map<String,Double> terms1, Map<String,Double> terms2 ) {
+		if ( !terms1.keySet().equals( terms2.keySet() ) ) {
+			return false;
+		}
+		for ( Map.Entry<String,Double> term : terms1.entrySet() ) {
+			if ( Math.abs( term.getValue() - terms2.get( term.getKey() ) ) > EPSILON ) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2013 - 2018 Steffen Bondorf
+ * Copyright (C) 2017 - 2018 The DiscoDNC contributors
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.network.server_graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.networkcalculus.dnc.curves.ArrivalCurve;
+import org.networkcalculus.dnc.curves.Curve;
+import org.networkcalculus.dnc.feedforward.ArrivalBoundDispatch;
+import org.networkcalculus.dnc.tandem.TandemAnalysis;
+import org.networkcalculus.dnc.tandem.analyses.AggregatedAnalysis;
+import org.networkcalculus.dnc.tandem.analyses.TotalFlowAnalysis;
+
+/**
+ * Aggregating the flows that share a path must not change the bounds and has to map back to the original flows.
+ */
+class FlowAggregationTest {
+	private static final double EPSILON = 1e-9;
+
+	private ServerGraph server_graph;
+	private Server s0, s1, s2;
+	private Flow f0, f1, f2, f3;
+
+	/**
+	 * The tandem s0 -> s1 -> s2 with the flows f1 and f2 sharing their path.
+	 */
+	@BeforeEach
+	void createServerGraph() throws Exception {
+		ArrivalBoundDispatch.clearAllCaches();
+
+		server_graph = new ServerGraph();
+		s0 = server_graph.addServer( Curve.getFactory().createRateLatency( 100, 0.1 ) );
+		s1 = server_graph.addServer( Curve.getFactory().createRateLatency( 80, 0.2 ) );
+		s2 = server_graph.addServer( Curve.getFactory().createRateLatency( 120, 0.05 ) );
+
+		server_graph.addTurn( s0, s1 );
+		server_graph.addTurn( s1, s2 );
+
+		f0 = server_graph.addFlow( Curve.getFactory().createTokenBucket( 5, 10 ), s0, s2 );
+		f1 = server_graph.addFlow( Curve.getFactory().createTokenBucket( 3, 2 ), s0, s1 );
+		f2 = server_graph.addFlow( Curve.getFactory().createTokenBucket( 7, 4 ), s0, s1 );
+		f3 = server_graph.addFlow( Curve.getFactory().createTokenBucket( 6, 3 ), s1, s2 );
+	}
+
+	@Test
+	void flowsSharingAPathAreAggregated() throws Exception {
+		FlowAggregation aggregation = new FlowAggregation( server_graph, f0 );
+
+		assertEquals( 1, aggregation.numFlowsRemoved() );
+		assertEquals( 3, aggregation.getAggregatedServerGraph().numFlows() );
+
+		Flow f_aggregated = aggregation.getAggregatedFlow( f1 );
+		assertSame( f_aggregated, aggregation.getAggregatedFlow( f2 ) );
+		assertNotEquals( f_aggregated, aggregation.getAggregatedFlow( f3 ) );
+
+		Set<Flow> flows_expected = new HashSet<Flow>();
+		flows_expected.add( f1 );
+		flows_expected.add( f2 );
+		assertEquals( flows_expected, aggregation.getFlows( f_aggregated ) );
+		assertEquals( 2, f_aggregated.getAggregatedFlowsCount() );
+
+		ArrivalCurve arrival_curve = f_aggregated.getArrivalCurve();
+		assertEquals( 10, arrival_curve.getUltAffineRate().doubleValue(), EPSILON );
+		assertEquals( 6, arrival_curve.getBurst().doubleValue(), EPSILON );
+	}
+
+	@Test
+	void flowOfInterestIsKeptSeparate() throws Exception {
+		FlowAggregation aggregation = new FlowAggregation( server_graph, f1 );
+
+		Flow foi_aggregated = aggregation.getFlowOfInterest();
+		assertSame( foi_aggregated, aggregation.getAggregatedFlow( f1 ) );
+		assertNotEquals( foi_aggregated, aggregation.getAggregatedFlow( f2 ) );
+		assertEquals( f1.getArrivalCurve(), foi_aggregated.getArrivalCurve() );
+		assertEquals( 0, aggregation.numFlowsRemoved() );
+	}
+
+	@Test
+	void serversMapBack() throws Exception {
+		FlowAggregation aggregation = new FlowAggregation( server_graph );
+
+		assertEquals( Flow.NULL_FLOW, aggregation.getFlowOfInterest() );
+		for ( Server server : server_graph.getServers() ) {
+			Server server_aggregated = aggregation.getAggregatedServer( server );
+			assertSame( server, aggregation.getServer( server_aggregated ) );
+			assertEquals( server.getServiceCurve(), server_aggregated.getServiceCurve() );
+			assertEquals( server.multiplexing(), server_aggregated.multiplexing() );
+		}
+
+		for ( Flow flow : server_graph.getFlows() ) {
+			Flow flow_aggregated = aggregation.getAggregatedFlow( flow );
+			assertEquals( flow.getPath().numServers(), flow_aggregated.getPath().numServers() );
+			assertSame( flow.getSource(), aggregation.getServer( flow_aggregated.getSource() ) );
+			assertSame( flow.getSink(), aggregation.getServer( flow_aggregated.getSink() ) );
+		}
+	}
+
+	@Test
+	void aggregatedAnalysisMapsBoundsBack() throws Exception {
+		AggregatedAnalysis aggregated_analysis = new AggregatedAnalysis( server_graph );
+		aggregated_analysis.performAnalysis( TandemAnalysis.Analyses.TFA );
+
+		ArrivalBoundDispatch.clearAllCaches();
+		for ( Flow flow : server_graph.getFlows() ) {
+			TotalFlowAnalysis tfa = new TotalFlowAnalysis( server_graph );
+			tfa.performAnalysis( flow );
+
+			assertEquals( tfa.getDelayBound().doubleValue(), aggregated_analysis.getDelayBound( flow ).doubleValue(), EPSILON );
+			assertEquals( tfa.getBacklogBound().doubleValue(), aggregated_analysis.getBacklogBound( flow ).doubleValue(), EPSILON );
+		}
+	}
+}
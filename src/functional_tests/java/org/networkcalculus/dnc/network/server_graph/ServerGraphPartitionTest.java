@@ -0,0 +1,133 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2013 - 2018 Steffen Bondorf
+ * Copyright (C) 2017 - 2018 The DiscoDNC contributors
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.network.server_graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.networkcalculus.dnc.curves.Curve;
+import org.networkcalculus.dnc.feedforward.ArrivalBoundDispatch;
+import org.networkcalculus.dnc.tandem.TandemAnalysis;
+import org.networkcalculus.dnc.tandem.analyses.PartitionedAnalysis;
+import org.networkcalculus.dnc.tandem.analyses.TotalFlowAnalysis;
+
+/**
+ * The components of a partition and the bounds derived in them have to map back to the partitioned server graph.
+ */
+class ServerGraphPartitionTest {
+	private static final double EPSILON = 1e-9;
+
+	private ServerGraph server_graph;
+	private Server s0, s1, s2, s3, s4, s_unused;
+	private Flow f0, f1, f2, f3;
+
+	/**
+	 * Two tandems s0 -> s1 -> s2 and s3 -> s4 that do not share a flow and a server without flows.
+	 * The turn s2 -> s3 connects the tandems but no flow takes it.
+	 */
+	@BeforeEach
+	void createServerGraph() throws Exception {
+		ArrivalBoundDispatch.clearAllCaches();
+
+		server_graph = new ServerGraph();
+		s0 = server_graph.addServer( Curve.getFactory().createRateLatency( 100, 0.1 ) );
+		s1 = server_graph.addServer( Curve.getFactory().createRateLatency( 80, 0.2 ) );
+		s2 = server_graph.addServer( Curve.getFactory().createRateLatency( 120, 0.05 ) );
+		s3 = server_graph.addServer( Curve.getFactory().createRateLatency( 50, 0.3 ) );
+		s4 = server_graph.addServer( Curve.getFactory().createRateLatency( 60, 0.1 ) );
+		s_unused = server_graph.addServer( Curve.getFactory().createRateLatency( 10, 1 ) );
+
+		server_graph.addTurn( s0, s1 );
+		server_graph.addTurn( s1, s2 );
+		server_graph.addTurn( s2, s3 );
+		server_graph.addTurn( s3, s4 );
+
+		f0 = server_graph.addFlow( Curve.getFactory().createTokenBucket( 5, 10 ), s0, s2 );
+		f1 = server_graph.addFlow( Curve.getFactory().createTokenBucket( 3, 2 ), s1, s2 );
+		f2 = server_graph.addFlow( Curve.getFactory().createTokenBucket( 7, 4 ), s0, s1 );
+		f3 = server_graph.addFlow( Curve.getFactory().createTokenBucket( 6, 3 ), s3, s4 );
+	}
+
+	@Test
+	void components() throws Exception {
+		ServerGraphPartition partition = new ServerGraphPartition( server_graph );
+
+		assertEquals( 2, partition.numComponents() );
+		assertNull( partition.getComponent( s_unused ) );
+
+		ServerGraphPartition.Component component_0 = partition.getComponent( f0 );
+		ServerGraphPartition.Component component_1 = partition.getComponent( f3 );
+		assertSame( component_0, partition.getComponent( f1 ) );
+		assertSame( component_0, partition.getComponent( f2 ) );
+		assertSame( component_0, partition.getComponent( s1 ) );
+		assertSame( component_1, partition.getComponent( s4 ) );
+
+		assertEquals( 3, component_0.getServerGraph().numServers() );
+		assertEquals( 3, component_0.getServerGraph().numFlows() );
+		assertEquals( 2, component_1.getServerGraph().numServers() );
+		assertEquals( 1, component_1.getServerGraph().numFlows() );
+	}
+
+	@Test
+	void mapping() throws Exception {
+		ServerGraphPartition partition = new ServerGraphPartition( server_graph );
+
+		for ( Flow flow : server_graph.getFlows() ) {
+			ServerGraphPartition.Component component = partition.getComponent( flow );
+			Flow component_flow = component.getComponentFlow( flow );
+			assertNotNull( component_flow );
+			assertSame( flow, component.getFlow( component_flow ) );
+			assertEquals( flow.getArrivalCurve(), component_flow.getArrivalCurve() );
+			assertEquals( flow.getPath().numServers(), component_flow.getPath().numServers() );
+
+			for ( Server server : flow.getPath().getServers() ) {
+				Server component_server = component.getComponentServer( server );
+				assertSame( server, component.getServer( component_server ) );
+				assertEquals( server.getServiceCurve(), component_server.getServiceCurve() );
+			}
+		}
+	}
+
+	@Test
+	void partitionedAnalysisMapsBoundsBack() throws Exception {
+		PartitionedAnalysis partitioned_analysis = new PartitionedAnalysis( server_graph );
+		partitioned_analysis.performAnalysis( TandemAnalysis.Analyses.TFA );
+
+		ArrivalBoundDispatch.clearAllCaches();
+		for ( Flow flow : server_graph.getFlows() ) {
+			TotalFlowAnalysis tfa = new TotalFlowAnalysis( server_graph );
+			tfa.performAnalysis( flow );
+
+			assertEquals( tfa.getDelayBound().doubleValue(), partitioned_analysis.getDelayBound( flow ).doubleValue(), EPSILON );
+			assertEquals( tfa.getBacklogBound().doubleValue(), partitioned_analysis.getBacklogBound( flow ).doubleValue(), EPSILON );
+		}
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2013 - 2018 Steffen Bondorf
+ * Copyright (C) 2017 - 2018 The DiscoDNC contributors
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.sinktree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.networkcalculus.dnc.curves.ArrivalCurve;
+import org.networkcalculus.dnc.curves.Curve;
+import org.networkcalculus.dnc.network.server_graph.Flow;
+import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+import org.networkcalculus.dnc.network.server_graph.Turn;
+import org.networkcalculus.dnc.sinktree.arrivalbounds.SinkTree_AffineCurves;
+
+/**
+ * The single traversal of SinkTree_AffineEngine has to derive the same arrival bounds
+ * as bounding the flows of every turn with SinkTree_AffineCurves.computeArrivalBoundDirect.
+ */
+class SinkTree_AffineEngineTest {
+    private static final double EPSILON = 1e-9;
+
+    private ServerGraph tree;
+    private List<Server> servers;
+
+    /**
+     * s0 -> s2, s1 -> s2, s2 -> s4, s3 -> s4 with flows ending at inner servers and at the root.
+     */
+    @BeforeEach
+    void createTree() throws Exception {
+        tree = new ServerGraph();
+        Server s0 = tree.addServer(Curve.getFactory().createRateLatency(100, 0.1));
+        Server s1 = tree.addServer(Curve.getFactory().createRateLatency(80, 0.2));
+        Server s2 = tree.addServer(Curve.getFactory().createRateLatency(200, 0.05));
+        Server s3 = tree.addServer(Curve.getFactory().createRateLatency(50, 0.3));
+        Server s4 = tree.addServer(Curve.getFactory().createRateLatency(300, 0.02));
+        servers = Arrays.asList(s0, s1, s2, s3, s4);
+
+        tree.addTurn(s0, s2);
+        tree.addTurn(s1, s2);
+        tree.addTurn(s2, s4);
+        tree.addTurn(s3, s4);
+
+        tree.addFlow(Curve.getFactory().createTokenBucket(5, 10), s0, s4);
+        tree.addFlow(Curve.getFactory().createTokenBucket(3, 2), s0, s2);
+        tree.addFlow(Curve.getFactory().createTokenBucket(7, 4), s1, s4);
+        tree.addFlow(Curve.getFactory().createTokenBucket(2, 8), s1, s2);
+        tree.addFlow(Curve.getFactory().createTokenBucket(4, 1), s2, s4);
+        tree.addFlow(Curve.getFactory().createTokenBucket(6, 3), s3, s4);
+        tree.addFlow(Curve.getFactory().createTokenBucket(1, 5), s4);
+    }
+
+    @Test
+    void arrivalBoundsMatchDirectComputation() throws Exception {
+        SinkTree_AffineEngine engine = new SinkTree_AffineEngine(tree);
+        engine.performAnalysis();
+
+        SinkTree_AffineCurves sink_tree_affine = new SinkTree_AffineCurves(tree);
+        for (Server server : servers) {
+            double rate = 0.0;
+            double burst = 0.0;
+            for (Turn turn : tree.getInTurns(server)) {
+                ArrivalCurve arrival_bound_turn = sink_tree_affine.computeArrivalBoundDirect(turn, tree.getFlows(turn), Flow.NULL_FLOW);
+                rate += arrival_bound_turn.getUltAffineRate().doubleValue();
+                burst += arrival_bound_turn.getBurst().doubleValue();
+            }
+
+            ArrivalCurve arrival_bound = engine.getArrivalBound(server);
+            assertEquals(rate, arrival_bound.getUltAffineRate().doubleValue(), EPSILON, "Rate at " + server);
+            assertEquals(burst, arrival_bound.getBurst().doubleValue(), EPSILON, "Burst at " + server);
+        }
+    }
+
+    @Test
+    void backlogBoundsMatchDirectComputation() throws Exception {
+        SinkTree_AffineEngine engine = new SinkTree_AffineEngine(tree);
+        engine.performAnalysis();
+
+        SinkTree_AffineCurves sink_tree_affine = new SinkTree_AffineCurves(tree);
+        for (Server server : servers) {
+            ArrivalCurve arrivals = tree.getSourceFlowArrivalCurve(server);
+            for (Turn turn : tree.getInTurns(server)) {
+                arrivals = Curve.add(arrivals, sink_tree_affine.computeArrivalBoundDirect(turn, tree.getFlows(turn), Flow.NULL_FLOW));
+            }
+
+            assertEquals(Curve.getMaxVerticalDeviation(arrivals, server.getServiceCurve()).doubleValue(),
+                    engine.getBacklogBound(server), EPSILON, "Backlog bound at " + server);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2013 - 2018 Steffen Bondorf
+ * Copyright (C) 2017 - 2018 The DiscoDNC contributors
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.tandem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.EnumSet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.networkcalculus.dnc.AnalysisConfig;
+import org.networkcalculus.dnc.AnalysisConfig.ArrivalBoundMethod;
+import org.networkcalculus.dnc.curves.Curve;
+import org.networkcalculus.dnc.feedforward.ArrivalBoundDispatch;
+import org.networkcalculus.dnc.network.server_graph.Flow;
+import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+import org.networkcalculus.dnc.tandem.analyses.TandemMatchingAnalysis;
+import org.networkcalculus.dnc.tandem.analyses.TotalFlowAnalysis;
+
+/**
+ * Budgets only mark results as truncated where an analysis skipped work and truncated results remain sound.
+ */
+class AnalysisBudgetTest {
+    private static final double EPSILON = 1e-9;
+
+    private ServerGraph server_graph;
+    private Flow foi;
+
+    /**
+     * The tandem s0 -> s1 -> s2 -> s3 with the flow of interest crossing s1 to s3
+     * and cross-flows entering at every server, i.e., cross-flows whose arrival bounds span several servers.
+     */
+    @BeforeEach
+    void createServerGraph() throws Exception {
+        ArrivalBoundDispatch.clearAllCaches();
+
+        server_graph = new ServerGraph();
+        Server s0 = server_graph.addServer(Curve.getFactory().createRateLatency(100, 0.1));
+        Server s1 = server_graph.addServer(Curve.getFactory().createRateLatency(80, 0.2));
+        Server s2 = server_graph.addServer(Curve.getFactory().createRateLatency(120, 0.05));
+        Server s3 = server_graph.addServer(Curve.getFactory().createRateLatency(90, 0.1));
+
+        server_graph.addTurn(s0, s1);
+        server_graph.addTurn(s1, s2);
+        server_graph.addTurn(s2, s3);
+
+        foi = server_graph.addFlow(Curve.getFactory().createTokenBucket(5, 10), s1, s3);
+        server_graph.addFlow(Curve.getFactory().createTokenBucket(3, 2), s0, s3);
+        server_graph.addFlow(Curve.getFactory().createTokenBucket(7, 4), s0, s2);
+        server_graph.addFlow(Curve.getFactory().createTokenBucket(6, 3), s1, s2);
+        server_graph.addFlow(Curve.getFactory().createTokenBucket(4, 5), s2, s3);
+    }
+
+    @Test
+    void deadlines() {
+        assertFalse(new AnalysisBudget(Long.MAX_VALUE).isExhausted());
+        assertEquals(Long.MAX_VALUE, new AnalysisBudget(Long.MAX_VALUE).getRemainingMillis());
+        assertTrue(new AnalysisBudget(0).isExhausted());
+        assertTrue(new AnalysisBudget(-1).isExhausted());
+        assertFalse(new AnalysisBudget().isExhausted());
+    }
+
+    @Test
+    void cancellation() {
+        AnalysisBudget parent = new AnalysisBudget();
+        AnalysisBudget child = new AnalysisBudget(parent);
+
+        child.cancel();
+        assertTrue(child.isExhausted());
+        assertFalse(parent.isExhausted());
+
+        parent.cancel();
+        assertTrue(new AnalysisBudget(parent).isExhausted());
+        assertEquals(0, new AnalysisBudget(parent).getRemainingMillis());
+    }
+
+    @Test
+    void truncation() {
+        AnalysisBudget parent = new AnalysisBudget();
+        AnalysisBudget child = new AnalysisBudget(parent);
+        AnalysisBudget child_cancelled = new AnalysisBudget(parent);
+        child_cancelled.cancel();
+
+        child_cancelled.markTruncated();
+        assertTrue(child_cancelled.isTruncated());
+        assertFalse(parent.isTruncated());
+
+        child.markTruncated();
+        assertTrue(child.isTruncated());
+        assertTrue(parent.isTruncated());
+
+        AnalysisBudget parent_cancelled = new AnalysisBudget();
+        AnalysisBudget child_of_cancelled = new AnalysisBudget(parent_cancelled);
+        child_of_cancelled.cancel();
+        parent_cancelled.cancel();
+        child_of_cancelled.markTruncated();
+        assertTrue(parent_cancelled.isTruncated());
+    }
+
+    @Test
+    void tfaSkipsNoWork() throws Exception {
+        TotalFlowAnalysis tfa = new TotalFlowAnalysis(server_graph);
+        tfa.performAnalysis(foi);
+
+        ArrivalBoundDispatch.clearAllCaches();
+        AnalysisBudget budget = new AnalysisBudget();
+        budget.cancel();
+        TotalFlowAnalysis tfa_cancelled = new TotalFlowAnalysis(server_graph);
+        tfa_cancelled.setBudget(budget);
+        tfa_cancelled.performAnalysis(foi);
+
+        assertFalse(tfa_cancelled.isTruncated());
+        assertFalse(budget.isTruncated());
+        assertEquals(tfa.getDelayBound().doubleValue(), tfa_cancelled.getDelayBound().doubleValue(), EPSILON);
+        assertEquals(tfa.getBacklogBound().doubleValue(), tfa_cancelled.getBacklogBound().doubleValue(), EPSILON);
+    }
+
+    @Test
+    void tmaTruncation() throws Exception {
+        TandemMatchingAnalysis tma = new TandemMatchingAnalysis(server_graph);
+        tma.setBudget(new AnalysisBudget());
+        tma.performAnalysis(foi);
+        assertFalse(tma.isTruncated());
+
+        ArrivalBoundDispatch.clearAllCaches();
+        TandemMatchingAnalysis tma_exhaustive = new TandemMatchingAnalysis(server_graph);
+        tma_exhaustive.performAnalysis(foi);
+        assertEquals(tma_exhaustive.getDelayBound().doubleValue(), tma.getDelayBound().doubleValue(), EPSILON);
+        assertEquals(tma_exhaustive.getBacklogBound().doubleValue(), tma.getBacklogBound().doubleValue(), EPSILON);
+
+        ArrivalBoundDispatch.clearAllCaches();
+        AnalysisBudget budget = new AnalysisBudget();
+        budget.cancel();
+        TandemMatchingAnalysis tma_truncated = new TandemMatchingAnalysis(server_graph);
+        tma_truncated.setBudget(budget);
+        tma_truncated.performAnalysis(foi);
+        assertTrue(tma_truncated.isTruncated());
+        assertTrue(budget.isTruncated());
+        assertTrue(tma_truncated.getDelayBound().doubleValue() >= tma_exhaustive.getDelayBound().doubleValue() - EPSILON);
+
+        // A reused analysis does not report the previous run's truncation.
+        tma_truncated.setBudget(null);
+        tma_truncated.performAnalysis(foi);
+        assertFalse(tma_truncated.isTruncated());
+    }
+
+    @Test
+    void raceWithinBudget() throws Exception {
+        AnalysisConfig configuration = createRaceConfiguration();
+        TotalFlowAnalysis tfa = new TotalFlowAnalysis(server_graph, configuration);
+        tfa.performAnalysis(foi);
+
+        ArrivalBoundDispatch.clearAllCaches();
+        AnalysisConfig configuration_raced = configuration.copy();
+        configuration_raced.setArrivalBoundRace(60000);
+        TotalFlowAnalysis tfa_raced = new TotalFlowAnalysis(server_graph, configuration_raced);
+        tfa_raced.performAnalysis(foi);
+
+        assertEquals(tfa.getDelayBound().doubleValue(), tfa_raced.getDelayBound().doubleValue(), EPSILON);
+        assertEquals(tfa.getBacklogBound().doubleValue(), tfa_raced.getBacklogBound().doubleValue(), EPSILON);
+    }
+
+    @Test
+    void raceExceedingBudget() throws Exception {
+        AnalysisConfig configuration = createRaceConfiguration();
+        TotalFlowAnalysis tfa = new TotalFlowAnalysis(server_graph, configuration);
+        tfa.performAnalysis(foi);
+
+        ArrivalBoundDispatch.clearAllCaches();
+        AnalysisConfig configuration_pboo = configuration.copy();
+        configuration_pboo.setArrivalBoundMethods(EnumSet.of(ArrivalBoundMethod.AGGR_PBOO_CONCATENATION));
+        TotalFlowAnalysis tfa_pboo = new TotalFlowAnalysis(server_graph, configuration_pboo);
+        tfa_pboo.performAnalysis(foi);
+
+        // Either method may finish first, the cancelled one's bounds are dropped.
+        ArrivalBoundDispatch.clearAllCaches();
+        AnalysisConfig configuration_raced = configuration.copy();
+        configuration_raced.setArrivalBoundRace(0);
+        TotalFlowAnalysis tfa_raced = new TotalFlowAnalysis(server_graph, configuration_raced);
+        tfa_raced.performAnalysis(foi);
+
+        double delay_raced = tfa_raced.getDelayBound().doubleValue();
+        assertTrue(delay_raced >= tfa.getDelayBound().doubleValue() - EPSILON);
+        assertTrue(delay_raced <= tfa_pboo.getDelayBound().doubleValue() + EPSILON);
+        assertFalse(tfa_raced.isTruncated());
+    }
+
+    private static AnalysisConfig createRaceConfiguration() {
+        AnalysisConfig configuration = new AnalysisConfig();
+        configuration.setArrivalBoundMethods(EnumSet.of(ArrivalBoundMethod.AGGR_PBOO_CONCATENATION, ArrivalBoundMethod.AGGR_TM));
+        configuration.disableArrivalBoundRace();
+        return configuration;
+    }
+}
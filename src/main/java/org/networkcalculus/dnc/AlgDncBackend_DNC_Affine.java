@@ -30,7 +30,7 @@ import org.networkcalculus.dnc.algebra.disco.MinPlus_Disco_Affine;
 import org.networkcalculus.dnc.bounds.BoundingCurves;
 import org.networkcalculus.dnc.bounds.Bounds;
 import org.networkcalculus.dnc.bounds.disco.BoundingCurves_Disco_ConPwAffine;
-import org.networkcalculus.dnc.bounds.disco.Bounds_Disco_PwAffine;
+import org.networkcalculus.dnc.bounds.disco.Bounds_Disco_Affine;
 import org.networkcalculus.dnc.curves.Curve;
 import org.networkcalculus.dnc.curves.LinearSegment;
 import org.networkcalculus.dnc.curves.disco.LinearSegment_Disco;
@@ -51,7 +51,7 @@ public enum AlgDncBackend_DNC_Affine implements AlgDncBackend {
 
 	@Override
 	public Bounds getBounds() {
-		return Bounds_Disco_PwAffine.BOUNDS_DISCO_PWAFFINE;
+		return Bounds_Disco_Affine.BOUNDS_DISCO_AFFINE;
 	}
 
 	@Override
@@ -73,6 +73,12 @@ public class AnalysisConfig {
 	private boolean arrival_bounds_caching = true;
     private boolean flow_prolongation = false;
     private boolean server_backlog_arrival_bound = false;
+
+    /**
+     * Time budget in milliseconds for racing the arrival bound methods concurrently,
+     * a negative value computes them one after another.
+     */
+    private long arrival_bound_race_budget = -1;
     
     public AnalysisConfig() {
     }
@@ -188,16 +194,44 @@ public class AnalysisConfig {
         flow_prolongation = prolong_flows;
     }
 
+    public boolean raceArrivalBoundMethods() {
+        return arrival_bound_race_budget >= 0;
+    }
+
+    public long arrivalBoundRaceBudget() {
+        return arrival_bound_race_budget;
+    }
+
+    /**
+     * Computes the arrival bound methods concurrently. Once the budget is exceeded,
+     * the expensive methods still running are cancelled and the bounds derived so far are used.
+     * Only the outermost arrival bounds race, the ones a racing method depends on are computed by it.
+     *
+     * @param budget_millis The time budget in milliseconds.
+     */
+    public void setArrivalBoundRace(long budget_millis) {
+        if (budget_millis < 0) {
+            throw new IllegalArgumentException("The arrival bound race budget must not be negative.");
+        }
+        arrival_bound_race_budget = budget_millis;
+    }
+
+    public void disableArrivalBoundRace() {
+        arrival_bound_race_budget = -1;
+    }
+
     /**
      * Returns a deep copy of this analysis configuration.
      *
      * @return The copy.
      */
     public AnalysisConfig copy() { // deep copy as primitive data types are copied by value
-        return new AnalysisConfig(multiplexing_enforcement, enforce_max_sc, enforce_max_sc_output_rate, 
+        AnalysisConfig copy = new AnalysisConfig(multiplexing_enforcement, enforce_max_sc, enforce_max_sc_output_rate, 
 					        		arrival_bound_methods,
 					                convolve_alternative_arrival_bounds, arrival_bounds_caching,
 					                server_backlog_arrival_bound);
+        copy.arrival_bound_race_budget = arrival_bound_race_budget;
+        return copy;
     }
 
     @Override
@@ -256,6 +290,11 @@ public class AnalysisConfig {
             analysis_config_str.append("flow_prolongation");
         }
 
+        if (raceArrivalBoundMethods()) {
+            analysis_config_str.append(", ");
+            analysis_config_str.append("race_ABs_" + arrivalBoundRaceBudget() + "ms");
+        }
+
         return analysis_config_str.toString();
     }
 }
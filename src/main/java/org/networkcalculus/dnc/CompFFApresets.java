@@ -25,13 +25,19 @@
 
 package org.networkcalculus.dnc;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Set;
 
 import org.networkcalculus.dnc.AnalysisConfig.ArrivalBoundMethod;
 import org.networkcalculus.dnc.AnalysisConfig.MaxScEnforcement;
 import org.networkcalculus.dnc.AnalysisConfig.MultiplexingEnforcement;
+import org.networkcalculus.dnc.network.server_graph.Flow;
 import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+import org.networkcalculus.dnc.tandem.TandemAnalysis;
 import org.networkcalculus.dnc.tandem.analyses.PmooAnalysis;
 import org.networkcalculus.dnc.tandem.analyses.SeparateFlowAnalysis;
 import org.networkcalculus.dnc.tandem.analyses.TandemMatchingAnalysis;
@@ -177,6 +183,40 @@ public class CompFFApresets {
 		pmoo_MMB18AB = new PmooAnalysis( server_graph, pmoo_MMB_config );
 	}
 	
+	public List<TandemAnalysis> getAnalyses() {
+		return Arrays.asList( tf_analysis, sf_analysis, pmoo_analysis,
+				tfa_segrPBOOAB, sfa_segrPBOOAB, pmoo_segrPMOOAB,
+				sfa_aggrAB, pmoo_aggrAB,
+				tandem_matching_analysis, tandem_matching_bcap_analysis,
+				sfa_MMB18AB, pmoo_MMB18AB );
+	}
+	
+	/**
+	 * Performs all preset analyses of the flow of interest concurrently.
+	 * Analyses with the same arrival bounding share the cached arrival bounds.
+	 * Analyses using the same segregated arrival bounding method share its per-flow bounds
+	 * regardless of their other methods, the aggregate methods' bounds are not shared across method sets.
+	 * The results can be accessed via the analyses.
+	 * 
+	 * @param flow_of_interest The flow to analyze.
+	 * @throws Exception The first exception raised by an analysis, after all analyses finished.
+	 */
+	public void performAnalyses( Flow flow_of_interest ) throws Exception {
+		List<Exception> exceptions = Collections.synchronizedList( new LinkedList<Exception>() );
+		
+		getAnalyses().parallelStream().forEach( analysis -> {
+			try {
+				analysis.performAnalysis( flow_of_interest );
+			} catch ( Exception e ) {
+				exceptions.add( e );
+			}
+		} );
+		
+		if( !exceptions.isEmpty() ) {
+			throw exceptions.get( 0 );
+		}
+	}
+	
 	public ServerGraph getServerGraph() {
 		return server_graph;
 	}
@@ -25,6 +25,7 @@
 
 package org.networkcalculus.dnc.algebra;
 
+import java.util.List;
 import java.util.Set;
 
 import org.networkcalculus.dnc.curves.ArrivalCurve;
@@ -44,6 +45,8 @@ public interface MinPlus {
 	Set<ServiceCurve> convolve(Set<ServiceCurve> service_curves_1, Set<ServiceCurve> service_curves_2)
 			throws Exception;
 
+	ServiceCurve convolve(List<ServiceCurve> service_curves) throws Exception;
+
 	// Arrival Curves
 	ArrivalCurve convolve(ArrivalCurve arrival_curve_1, ArrivalCurve arrival_curve_2) throws Exception;
 
@@ -28,6 +28,7 @@
 package org.networkcalculus.dnc.algebra.disco.affine;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.networkcalculus.dnc.Calculator;
@@ -36,6 +37,7 @@ import org.networkcalculus.dnc.curves.Curve;
 import org.networkcalculus.dnc.curves.Curve_ConstantPool;
 import org.networkcalculus.dnc.curves.MaxServiceCurve;
 import org.networkcalculus.dnc.curves.ServiceCurve;
+import org.networkcalculus.dnc.curves.disco.affine.AffineParameters;
 import org.networkcalculus.dnc.utils.CheckUtils;
 import org.networkcalculus.num.Num;
 
@@ -57,6 +59,14 @@ public abstract class Convolution_Disco_Affine {
                 break;
         }
 
+        AffineParameters rate_latency_1 = AffineParameters.ofRateLatency(service_curve_1);
+        AffineParameters rate_latency_2 = AffineParameters.ofRateLatency(service_curve_2);
+        if (rate_latency_1 != null && rate_latency_2 != null) {
+            return Curve.getFactory().createRateLatency(
+                    Num.getUtils(Calculator.getInstance().getNumBackend()).min(rate_latency_1.getRate(), rate_latency_2.getRate()),
+                    Num.getUtils(Calculator.getInstance().getNumBackend()).add(rate_latency_1.getLatency(), rate_latency_2.getLatency()));
+        }
+
         Num rate;
         switch (CheckUtils.inputDelayedInfiniteBurstCheck(service_curve_1, service_curve_2)) {
             case 1:
@@ -78,6 +88,29 @@ public abstract class Convolution_Disco_Affine {
                 Num.getUtils(Calculator.getInstance().getNumBackend()).add(service_curve_1.getLatency(), service_curve_2.getLatency()));
     }
 
+    /**
+     * Returns the convolution of all given rate-latency curves,
+     * i.e., the rate-latency curve with the minimum rate and the sum of latencies.
+     *
+     * @param service_curves The curves to convolve. Null elements are ignored.
+     * @return The convolved curve, the zero-delay infinite burst curve for an empty list.
+     */
+    public static ServiceCurve convolve(List<ServiceCurve> service_curves) {
+        Num rate = Num.getFactory(Calculator.getInstance().getNumBackend()).createPositiveInfinity();
+        Num latency = Num.getFactory(Calculator.getInstance().getNumBackend()).createZero();
+
+        for (ServiceCurve service_curve : service_curves) {
+            if (service_curve == null) {
+                continue;
+            }
+            latency = Num.getUtils(Calculator.getInstance().getNumBackend()).add(latency, service_curve.getLatency());
+            if (!service_curve.isDelayedInfiniteBurst()) {
+                rate = Num.getUtils(Calculator.getInstance().getNumBackend()).min(rate, service_curve.getUltAffineRate());
+            }
+        }
+
+        return Curve.getFactory().createRateLatency(rate, latency);
+    }
 
     // Java won't let me call this method "convolve" because it does not care about
     // the Sets' types; tells that there's already another method taking the same
@@ -35,6 +35,7 @@ import org.networkcalculus.dnc.curves.ArrivalCurve;
 import org.networkcalculus.dnc.curves.Curve;
 import org.networkcalculus.dnc.curves.Curve_ConstantPool;
 import org.networkcalculus.dnc.curves.ServiceCurve;
+import org.networkcalculus.dnc.curves.disco.affine.AffineParameters;
 import org.networkcalculus.dnc.utils.CheckUtils;
 import org.networkcalculus.num.Num;
 
@@ -115,6 +116,15 @@ public abstract class Deconvolution_Disco_Affine {
             default:
         }
 
+        // Token bucket and rate-latency curve with positive rate: gamma_{r,b+r*T} from the parameters.
+        AffineParameters token_bucket = AffineParameters.ofTokenBucket(arrival_curve);
+        AffineParameters rate_latency = AffineParameters.ofRateLatency(service_curve);
+        if (token_bucket != null && rate_latency != null && rate_latency.getRate().gtZero()) {
+            return Curve.getFactory().createTokenBucket(token_bucket.getRate(),
+                    Num.getUtils(Calculator.getInstance().getNumBackend()).add(token_bucket.getBurst(),
+                            Num.getUtils(Calculator.getInstance().getNumBackend()).mult(token_bucket.getRate(), rate_latency.getLatency())));
+        }
+
         if (service_curve.equals(Curve_ConstantPool.INFINITE_SERVICE_CURVE.get())
                 || (service_curve.isDelayedInfiniteBurst() && service_curve.getLatency().doubleValue() == 0.0)
                 || (arrival_curve.equals(Curve_ConstantPool.ZERO_ARRIVAL_CURVE.get()))) {
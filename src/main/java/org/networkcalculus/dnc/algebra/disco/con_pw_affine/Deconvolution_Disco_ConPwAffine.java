@@ -41,6 +41,7 @@ import org.networkcalculus.dnc.curves.Curve_PwAffine;
 import org.networkcalculus.dnc.curves.LinearSegment;
 import org.networkcalculus.dnc.curves.ServiceCurve;
 import org.networkcalculus.dnc.utils.CheckUtils;
+import org.networkcalculus.dnc.utils.Diagnostics;
 import org.networkcalculus.num.Num;
 
 /**
@@ -366,8 +367,9 @@ public abstract class Deconvolution_Disco_ConPwAffine {
         Curve sup_curve, additional_curve;
 
         if (!candidates_iter.hasNext()) {
-            System.out.println("Deconvolution of " + curve_1.toString() + "\nand " + curve_2.toString() + " failed.");
-            System.exit(0);
+            String failure = "Deconvolution of " + curve_1.toString() + "\nand " + curve_2.toString() + " failed.";
+            Diagnostics.report(Diagnostics.Event.DECONVOLUTION_FAILED, () -> failure);
+            throw new RuntimeException(failure);
         }
 
         sup_curve = candidates_iter.next();
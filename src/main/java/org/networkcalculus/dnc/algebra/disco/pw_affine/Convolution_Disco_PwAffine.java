@@ -27,13 +27,17 @@
 
 package org.networkcalculus.dnc.algebra.disco.pw_affine;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
 import java.util.Set;
 
 import org.networkcalculus.dnc.Calculator;
 import org.networkcalculus.dnc.algebra.disco.MinPlus_Disco_Configuration;
 import org.networkcalculus.dnc.curves.ArrivalCurve;
 import org.networkcalculus.dnc.curves.Curve;
+import org.networkcalculus.dnc.curves.Curve_Affine;
 import org.networkcalculus.dnc.curves.Curve_ConstantPool;
 import org.networkcalculus.dnc.curves.LinearSegment;
 import org.networkcalculus.dnc.curves.MaxServiceCurve;
@@ -159,6 +163,128 @@ public abstract class Convolution_Disco_PwAffine {
         return result;
     }
 
+    /**
+     * Returns the convolution of all given curves, which must be convex, e.g., the
+     * service curves of a tandem's servers.
+     * <p>
+     * Instead of folding convolve(ServiceCurve, ServiceCurve), the segments of all curves
+     * are merged at once in the order of increasing gradient, using a heap of the curves'
+     * current segments. The result is identical to the pairwise convolution.
+     *
+     * @param service_curves The curves to convolve. Null elements are ignored.
+     * @return The convolved curve, the zero-delay infinite burst curve for an empty list.
+     */
+    public static ServiceCurve convolve(List<ServiceCurve> service_curves) {
+        List<ServiceCurve> service_curves_convolve = new ArrayList<ServiceCurve>(service_curves.size());
+        Num latency_dibs = Num.getFactory(Calculator.getInstance().getNumBackend()).createZero();
+        boolean rate_latencies_only = true;
+
+        // Delayed infinite bursts are a shift by their latency.
+        ServiceCurve zero_service = Curve_ConstantPool.ZERO_SERVICE_CURVE.get();
+        for (ServiceCurve service_curve : service_curves) {
+            if (service_curve == null) {
+                continue;
+            }
+            if (service_curve.isDelayedInfiniteBurst()) {
+                latency_dibs = Num.getUtils(Calculator.getInstance().getNumBackend()).add(latency_dibs, service_curve.getLatency());
+                continue;
+            }
+            if (service_curve.equals(zero_service)) {
+                return zero_service;
+            }
+            rate_latencies_only = rate_latencies_only
+                    && service_curve instanceof Curve_Affine && ((Curve_Affine) service_curve).isRateLatency();
+            service_curves_convolve.add(service_curve);
+        }
+
+        if (service_curves_convolve.isEmpty()) {
+            return Curve.getFactory().createDelayedInfiniteBurst(latency_dibs);
+        }
+        if (service_curves_convolve.size() == 1) {
+            return Curve.getFactory().createServiceCurve(Curve.shiftRight(service_curves_convolve.get(0), latency_dibs));
+        }
+
+        // Fast path: rate-latency curves convolve to the sum of latencies and the minimum rate.
+        if (rate_latencies_only) {
+            Num latency = latency_dibs;
+            Num rate = Num.getFactory(Calculator.getInstance().getNumBackend()).createPositiveInfinity();
+            for (ServiceCurve service_curve : service_curves_convolve) {
+                latency = Num.getUtils(Calculator.getInstance().getNumBackend()).add(latency, service_curve.getLatency());
+                rate = Num.getUtils(Calculator.getInstance().getNumBackend()).min(rate, service_curve.getUltAffineRate());
+            }
+            return Curve.getFactory().createRateLatency(rate, latency);
+        }
+
+        int curve_count = service_curves_convolve.size();
+        int[] segment_idx = new int[curve_count];
+        Num y_burst = Num.getFactory(Calculator.getInstance().getNumBackend()).createZero();
+        boolean burst = false;
+        for (int i = 0; i < curve_count; i++) {
+            ServiceCurve service_curve = service_curves_convolve.get(i);
+            if (service_curve.isRealDiscontinuity(0)) {
+                segment_idx[i] = 1;
+                burst = true;
+                y_burst = Num.getUtils(Calculator.getInstance().getNumBackend()).add(y_burst,
+                        service_curve.fLimitRight(Num.getFactory(Calculator.getInstance().getNumBackend()).getZero()));
+            }
+        }
+
+        ServiceCurve result = Curve.getFactory().createServiceCurve();
+        result.addSegment(LinearSegment.createLinearSegment(
+                Num.getFactory(Calculator.getInstance().getNumBackend()).createZero(),
+                Num.getFactory(Calculator.getInstance().getNumBackend()).createZero(),
+                Num.getFactory(Calculator.getInstance().getNumBackend()).createZero(), false));
+        if (burst) {
+            result.addSegment(LinearSegment.createLinearSegment(
+                    Num.getFactory(Calculator.getInstance().getNumBackend()).createZero(), y_burst,
+                    Num.getFactory(Calculator.getInstance().getNumBackend()).createZero(), true));
+        }
+
+        // Curves ordered by the gradient of their current segment.
+        PriorityQueue<Integer> curves_by_grad = new PriorityQueue<Integer>(curve_count,
+                (i, j) -> {
+                    Num grad_i = service_curves_convolve.get(i).getSegment(segment_idx[i]).getGrad();
+                    Num grad_j = service_curves_convolve.get(j).getSegment(segment_idx[j]).getGrad();
+                    return grad_i.lt(grad_j) ? -1 : (grad_j.lt(grad_i) ? 1 : Integer.compare(i, j));
+                });
+        for (int i = 0; i < curve_count; i++) {
+            curves_by_grad.add(i);
+        }
+
+        LinearSegment segment_last = result.getSegment(result.getSegmentCount() - 1);
+        while (!curves_by_grad.isEmpty()) {
+            int i = curves_by_grad.poll();
+            ServiceCurve service_curve = service_curves_convolve.get(i);
+            LinearSegment segment = service_curve.getSegment(segment_idx[i]);
+
+            segment_last.setGrad(segment.getGrad());
+
+            // The last segment is unbounded, all remaining segments have a larger gradient.
+            if (segment_idx[i] + 1 >= service_curve.getSegmentCount()) {
+                break;
+            }
+
+            LinearSegment segment_next = service_curve.getSegment(segment_idx[i] + 1);
+            segment_last = LinearSegment.createLinearSegment(
+                    Num.getUtils(Calculator.getInstance().getNumBackend()).add(segment_last.getX(),
+                            Num.getUtils(Calculator.getInstance().getNumBackend()).sub(segment_next.getX(), segment.getX())),
+                    Num.getUtils(Calculator.getInstance().getNumBackend()).add(segment_last.getY(),
+                            Num.getUtils(Calculator.getInstance().getNumBackend()).sub(segment_next.getY(), segment.getY())),
+                    Num.getFactory(Calculator.getInstance().getNumBackend()).createZero(), true);
+            result.addSegment(segment_last);
+
+            segment_idx[i]++;
+            curves_by_grad.add(i);
+        }
+
+        Curve.beautify(result);
+
+        if (latency_dibs.gtZero()) {
+            return Curve.getFactory().createServiceCurve(Curve.shiftRight(result, latency_dibs));
+        }
+        return result;
+    }
+
     public static Set<ServiceCurve> convolve(Set<ServiceCurve> service_curves_1, Set<ServiceCurve> service_curves_2) {
         Set<ServiceCurve> results = new HashSet<ServiceCurve>();
 
@@ -24,6 +24,8 @@
 
 package org.networkcalculus.dnc.bounds;
 
+import java.util.List;
+
 import org.networkcalculus.dnc.curves.ArrivalCurve;
 import org.networkcalculus.dnc.curves.ServiceCurve;
 import org.networkcalculus.num.Num;
@@ -35,6 +37,8 @@ public interface Bounds {
     // --------------------------------------------------------------------------------------------------------------
 
     Num backlog(ArrivalCurve arrival_curve, ServiceCurve service_curve);
+
+    List<Num> backlog(List<ArrivalCurve> arrival_curves, ServiceCurve service_curve);
     
     // --------------------------------------------------------------------------------------------------------------
     // Delay
@@ -43,4 +47,8 @@ public interface Bounds {
     Num delayARB(ArrivalCurve arrival_curve, ServiceCurve service_curve);
 
     Num delayFIFO(ArrivalCurve arrival_curve, ServiceCurve service_curve);
+
+    List<Num> delayARB(List<ArrivalCurve> arrival_curves, ServiceCurve service_curve);
+
+    List<Num> delayFIFO(List<ArrivalCurve> arrival_curves, ServiceCurve service_curve);
 }
@@ -0,0 +1,156 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2017 - 2018 The DiscoDNC contributors
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+
+package org.networkcalculus.dnc.bounds.disco;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.networkcalculus.dnc.Calculator;
+import org.networkcalculus.dnc.bounds.Bounds;
+import org.networkcalculus.dnc.bounds.disco.pw_affine.Backlog_Disco_PwAffine;
+import org.networkcalculus.dnc.bounds.disco.pw_affine.Delay_Disco_PwAffine;
+import org.networkcalculus.dnc.curves.ArrivalCurve;
+import org.networkcalculus.dnc.curves.ServiceCurve;
+import org.networkcalculus.dnc.curves.disco.affine.AffineParameters;
+import org.networkcalculus.num.Num;
+
+/**
+ * Bounds of token bucket arrival curves at rate-latency service curves in closed form,
+ * other curves are bounded by the piecewise affine computations.
+ * For a token bucket with rate r and burst b and a rate-latency curve with rate R and latency T
+ * (r &lt;= R, R &gt; 0, arrivals not zero):
+ * <ul>
+ * <li>backlog = b + r * T,</li>
+ * <li>FIFO delay = T + b / R,</li>
+ * <li>arbitrary multiplexing delay = (b + R * T) / (R - r) if r &lt; R.</li>
+ * </ul>
+ */
+public enum Bounds_Disco_Affine implements Bounds {
+    BOUNDS_DISCO_AFFINE;
+
+    // --------------------------------------------------------------------------------------------------------------
+    // Backlog
+    // --------------------------------------------------------------------------------------------------------------
+
+    public Num backlog(ArrivalCurve arrival_curve, ServiceCurve service_curve) {
+        Num result = backlogTB_RL(AffineParameters.ofTokenBucket(arrival_curve), AffineParameters.ofRateLatency(service_curve));
+        return result != null ? result : Backlog_Disco_PwAffine.derive(arrival_curve, service_curve);
+    }
+
+    public List<Num> backlog(List<ArrivalCurve> arrival_curves, ServiceCurve service_curve) {
+        AffineParameters rate_latency = AffineParameters.ofRateLatency(service_curve);
+        if (rate_latency == null) {
+            return Backlog_Disco_PwAffine.derive(arrival_curves, service_curve);
+        }
+
+        List<Num> results = new ArrayList<Num>(arrival_curves.size());
+        for (ArrivalCurve arrival_curve : arrival_curves) {
+            Num result = backlogTB_RL(AffineParameters.ofTokenBucket(arrival_curve), rate_latency);
+            results.add(result != null ? result : Backlog_Disco_PwAffine.derive(arrival_curve, service_curve));
+        }
+        return results;
+    }
+
+    // --------------------------------------------------------------------------------------------------------------
+    // Delay
+    // --------------------------------------------------------------------------------------------------------------
+
+    public Num delayARB(ArrivalCurve arrival_curve, ServiceCurve service_curve) {
+        Num result = delayARB_TB_RL(AffineParameters.ofTokenBucket(arrival_curve), AffineParameters.ofRateLatency(service_curve));
+        return result != null ? result : Delay_Disco_PwAffine.deriveARB(arrival_curve, service_curve);
+    }
+
+    public Num delayFIFO(ArrivalCurve arrival_curve, ServiceCurve service_curve) {
+        Num result = delayFIFO_TB_RL(AffineParameters.ofTokenBucket(arrival_curve), AffineParameters.ofRateLatency(service_curve));
+        return result != null ? result : Delay_Disco_PwAffine.deriveFIFO(arrival_curve, service_curve);
+    }
+
+    public List<Num> delayARB(List<ArrivalCurve> arrival_curves, ServiceCurve service_curve) {
+        AffineParameters rate_latency = AffineParameters.ofRateLatency(service_curve);
+        if (rate_latency == null) {
+            return Delay_Disco_PwAffine.deriveARB(arrival_curves, service_curve);
+        }
+
+        List<Num> results = new ArrayList<Num>(arrival_curves.size());
+        for (ArrivalCurve arrival_curve : arrival_curves) {
+            Num result = delayARB_TB_RL(AffineParameters.ofTokenBucket(arrival_curve), rate_latency);
+            results.add(result != null ? result : Delay_Disco_PwAffine.deriveARB(arrival_curve, service_curve));
+        }
+        return results;
+    }
+
+    public List<Num> delayFIFO(List<ArrivalCurve> arrival_curves, ServiceCurve service_curve) {
+        AffineParameters rate_latency = AffineParameters.ofRateLatency(service_curve);
+        if (rate_latency == null) {
+            return Delay_Disco_PwAffine.deriveFIFO(arrival_curves, service_curve);
+        }
+
+        List<Num> results = new ArrayList<Num>(arrival_curves.size());
+        for (ArrivalCurve arrival_curve : arrival_curves) {
+            Num result = delayFIFO_TB_RL(AffineParameters.ofTokenBucket(arrival_curve), rate_latency);
+            results.add(result != null ? result : Delay_Disco_PwAffine.deriveFIFO(arrival_curve, service_curve));
+        }
+        return results;
+    }
+
+    // --------------------------------------------------------------------------------------------------------------
+    // Closed forms, null if the curves do not qualify
+    // --------------------------------------------------------------------------------------------------------------
+
+    private static boolean qualifies(AffineParameters token_bucket, AffineParameters rate_latency) {
+        return token_bucket != null && rate_latency != null
+                && rate_latency.getRate().gtZero()
+                && token_bucket.getRate().leq(rate_latency.getRate())
+                && (token_bucket.getRate().gtZero() || token_bucket.getBurst().gtZero()); // Zero arrivals have zero bounds.
+    }
+
+    private static Num backlogTB_RL(AffineParameters token_bucket, AffineParameters rate_latency) {
+        if (!qualifies(token_bucket, rate_latency)) {
+            return null;
+        }
+        return Num.getUtils(Calculator.getInstance().getNumBackend()).add(token_bucket.getBurst(),
+                Num.getUtils(Calculator.getInstance().getNumBackend()).mult(token_bucket.getRate(), rate_latency.getLatency()));
+    }
+
+    private static Num delayFIFO_TB_RL(AffineParameters token_bucket, AffineParameters rate_latency) {
+        if (!qualifies(token_bucket, rate_latency)) {
+            return null;
+        }
+        return Num.getUtils(Calculator.getInstance().getNumBackend()).add(rate_latency.getLatency(),
+                Num.getUtils(Calculator.getInstance().getNumBackend()).div(token_bucket.getBurst(), rate_latency.getRate()));
+    }
+
+    private static Num delayARB_TB_RL(AffineParameters token_bucket, AffineParameters rate_latency) {
+        if (!qualifies(token_bucket, rate_latency) || token_bucket.getRate().eq(rate_latency.getRate())) {
+            return null;
+        }
+        return Num.getUtils(Calculator.getInstance().getNumBackend()).div(
+                Num.getUtils(Calculator.getInstance().getNumBackend()).add(token_bucket.getBurst(),
+                        Num.getUtils(Calculator.getInstance().getNumBackend()).mult(rate_latency.getRate(), rate_latency.getLatency())),
+                Num.getUtils(Calculator.getInstance().getNumBackend()).sub(rate_latency.getRate(), token_bucket.getRate()));
+    }
+}
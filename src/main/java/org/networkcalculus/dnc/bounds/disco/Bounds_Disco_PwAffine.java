@@ -25,6 +25,8 @@
 
 package org.networkcalculus.dnc.bounds.disco;
 
+import java.util.List;
+
 import org.networkcalculus.dnc.bounds.Bounds;
 import org.networkcalculus.dnc.bounds.disco.pw_affine.Backlog_Disco_PwAffine;
 import org.networkcalculus.dnc.bounds.disco.pw_affine.Delay_Disco_PwAffine;
@@ -42,6 +44,10 @@ public enum Bounds_Disco_PwAffine implements Bounds {
     public Num backlog(ArrivalCurve arrival_curve, ServiceCurve service_curve) {
         return Backlog_Disco_PwAffine.derive(arrival_curve,service_curve);
     }
+
+    public List<Num> backlog(List<ArrivalCurve> arrival_curves, ServiceCurve service_curve) {
+        return Backlog_Disco_PwAffine.derive(arrival_curves, service_curve);
+    }
     
     // --------------------------------------------------------------------------------------------------------------
     // Delay
@@ -54,4 +60,12 @@ public enum Bounds_Disco_PwAffine implements Bounds {
     public Num delayFIFO(ArrivalCurve arrival_curve, ServiceCurve service_curve) {
         return Delay_Disco_PwAffine.deriveFIFO(arrival_curve, service_curve);
     }
+
+    public List<Num> delayARB(List<ArrivalCurve> arrival_curves, ServiceCurve service_curve) {
+        return Delay_Disco_PwAffine.deriveARB(arrival_curves, service_curve);
+    }
+
+    public List<Num> delayFIFO(List<ArrivalCurve> arrival_curves, ServiceCurve service_curve) {
+        return Delay_Disco_PwAffine.deriveFIFO(arrival_curves, service_curve);
+    }
 }
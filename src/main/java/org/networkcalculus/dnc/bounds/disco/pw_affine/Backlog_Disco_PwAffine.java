@@ -28,6 +28,7 @@
 package org.networkcalculus.dnc.bounds.disco.pw_affine;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import org.networkcalculus.dnc.Calculator;
 import org.networkcalculus.dnc.curves.ArrivalCurve;
@@ -50,6 +51,40 @@ public final class Backlog_Disco_PwAffine {
 			return Num.getFactory(Calculator.getInstance().getNumBackend()).createPositiveInfinity();
 		}
 
+		return deriveAtInflectionPoints(arrival_curve, service_curve);
+	}
+
+	/**
+	 * Derives the backlog bounds of all given arrival curves at the same service curve.
+	 * The service curve's special cases are checked only once for the entire list.
+	 *
+	 * @param arrival_curves The arrival curves.
+	 * @param service_curve The service curve.
+	 * @return The backlog bounds in the order of the arrival curves.
+	 */
+	public static List<Num> derive(List<ArrivalCurve> arrival_curves, ServiceCurve service_curve) {
+		List<Num> results = new ArrayList<Num>(arrival_curves.size());
+
+		boolean sc_delayed_infinite_burst = service_curve.isDelayedInfiniteBurst();
+		Num sc_latency = service_curve.getLatency();
+		boolean sc_zero = service_curve.equals(Curve_ConstantPool.ZERO_SERVICE_CURVE.get());
+		Num sc_rate = service_curve.getUltAffineRate();
+
+		for (ArrivalCurve arrival_curve : arrival_curves) {
+			if (arrival_curve.equals(Curve_ConstantPool.ZERO_ARRIVAL_CURVE.get())) {
+				results.add(Num.getFactory(Calculator.getInstance().getNumBackend()).createZero());
+			} else if (sc_delayed_infinite_burst) {
+				results.add(arrival_curve.f(sc_latency));
+			} else if (sc_zero || arrival_curve.getUltAffineRate().gt(sc_rate)) {
+				results.add(Num.getFactory(Calculator.getInstance().getNumBackend()).createPositiveInfinity());
+			} else {
+				results.add(deriveAtInflectionPoints(arrival_curve, service_curve));
+			}
+		}
+		return results;
+	}
+
+	private static Num deriveAtInflectionPoints(ArrivalCurve arrival_curve, ServiceCurve service_curve) {
 		// The computeInflectionPoints based method does not work for
 		// single rate service curves (without latency)
 		// in conjunction with token bucket arrival curves
@@ -63,13 +98,6 @@ public final class Backlog_Disco_PwAffine {
 
 		Num result = arrival_curve.fLimitRight(Num.getFactory(Calculator.getInstance().getNumBackend()).getZero());
 
-		ArrayList<Num> xcoords = Curve.computeInflectionPointsX(arrival_curve, service_curve);
-		for (int i = 0; i < xcoords.size(); i++) {
-			Num ip_x = xcoords.get(i);
-
-			Num backlog = Num.getUtils(Calculator.getInstance().getNumBackend()).sub(arrival_curve.f(ip_x), service_curve.f(ip_x));
-			result = Num.getUtils(Calculator.getInstance().getNumBackend()).max(result, backlog);
-		}
-		return result;
+		return Curve.getMaxVerticalDeviationAtInflectionPoints(arrival_curve, service_curve, result);
 	}
 }
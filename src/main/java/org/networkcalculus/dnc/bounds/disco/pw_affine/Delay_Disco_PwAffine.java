@@ -27,6 +27,9 @@
 
 package org.networkcalculus.dnc.bounds.disco.pw_affine;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.networkcalculus.dnc.Calculator;
 import org.networkcalculus.dnc.curves.ArrivalCurve;
 import org.networkcalculus.dnc.curves.Curve;
@@ -36,18 +39,22 @@ import org.networkcalculus.num.Num;
 
 public final class Delay_Disco_PwAffine {
     private static Num deriveForSpecialCurves(ArrivalCurve arrival_curve, ServiceCurve service_curve) {
+        return deriveForSpecialCurves(arrival_curve, new ServiceCurveProperties(service_curve));
+    }
+
+    private static Num deriveForSpecialCurves(ArrivalCurve arrival_curve, ServiceCurveProperties service_curve) {
         if (arrival_curve.equals(Curve_ConstantPool.ZERO_ARRIVAL_CURVE.get())) {
             return Num.getFactory(Calculator.getInstance().getNumBackend()).createZero();
         }
-        if (service_curve.isDelayedInfiniteBurst()) {
+        if (service_curve.delayed_infinite_burst) {
             // Assumption: the arrival curve does not have an initial latency.
             // Otherwise its sub-additive closure would be zero, i.e., the arrival curve
             // would not be sensible.
-            return service_curve.getLatency().copy();
+            return service_curve.latency.copy();
         }
-        if (service_curve.equals(Curve_ConstantPool.ZERO_SERVICE_CURVE.get()) // We know from above that the
+        if (service_curve.zero_service // We know from above that the
                 // arrivals are not zero.
-                || arrival_curve.getUltAffineRate().gt(service_curve.getUltAffineRate())) {
+                || arrival_curve.getUltAffineRate().gt(service_curve.ult_affine_rate)) {
             return Num.getFactory(Calculator.getInstance().getNumBackend()).createPositiveInfinity();
         }
         return null;
@@ -62,6 +69,26 @@ public final class Delay_Disco_PwAffine {
         return Curve.getXIntersection(arrival_curve, service_curve);
     }
 
+    /**
+     * Derives the delay bounds of all given arrival curves at the same service curve
+     * under arbitrary multiplexing. The service curve's special cases are checked only
+     * once for the entire list.
+     *
+     * @param arrival_curves The arrival curves.
+     * @param service_curve The service curve.
+     * @return The delay bounds in the order of the arrival curves.
+     */
+    public static List<Num> deriveARB(List<ArrivalCurve> arrival_curves, ServiceCurve service_curve) {
+        ServiceCurveProperties sc_properties = new ServiceCurveProperties(service_curve);
+        List<Num> results = new ArrayList<Num>(arrival_curves.size());
+
+        for (ArrivalCurve arrival_curve : arrival_curves) {
+            Num result = deriveForSpecialCurves(arrival_curve, sc_properties);
+            results.add(result != null ? result : Curve.getXIntersection(arrival_curve, service_curve));
+        }
+        return results;
+    }
+
     // Single flow to be bound, i.e., fifo per micro flow holds
     public static Num deriveFIFO(ArrivalCurve arrival_curve, ServiceCurve service_curve) {
 
@@ -70,20 +97,49 @@ public final class Delay_Disco_PwAffine {
             return result;
         }
 
-        result = Num.getFactory(Calculator.getInstance().getNumBackend()).createNegativeInfinity();
-        for (int i = 0; i < arrival_curve.getSegmentCount(); i++) {
-            Num ip_y = arrival_curve.getSegment(i).getY();
+        return deriveFIFOAtInflectionPoints(arrival_curve, service_curve);
+    }
 
-            Num delay = Num.getUtils(Calculator.getInstance().getNumBackend()).sub(service_curve.f_inv(ip_y, true), arrival_curve.f_inv(ip_y, false));
-            result = Num.getUtils(Calculator.getInstance().getNumBackend()).max(result, delay);
-        }
-        for (int i = 0; i < service_curve.getSegmentCount(); i++) {
-            Num ip_y = service_curve.getSegment(i).getY();
+    /**
+     * Derives the delay bounds of all given arrival curves at the same service curve
+     * under FIFO multiplexing. The service curve's special cases are checked only
+     * once for the entire list.
+     *
+     * @param arrival_curves The arrival curves.
+     * @param service_curve The service curve.
+     * @return The delay bounds in the order of the arrival curves.
+     */
+    public static List<Num> deriveFIFO(List<ArrivalCurve> arrival_curves, ServiceCurve service_curve) {
+        ServiceCurveProperties sc_properties = new ServiceCurveProperties(service_curve);
+        List<Num> results = new ArrayList<Num>(arrival_curves.size());
 
-            Num delay = Num.getUtils(Calculator.getInstance().getNumBackend()).sub(service_curve.f_inv(ip_y, true), arrival_curve.f_inv(ip_y, false));
-            result = Num.getUtils(Calculator.getInstance().getNumBackend()).max(result, delay);
+        for (ArrivalCurve arrival_curve : arrival_curves) {
+            Num result = deriveForSpecialCurves(arrival_curve, sc_properties);
+            results.add(result != null ? result : deriveFIFOAtInflectionPoints(arrival_curve, service_curve));
         }
+        return results;
+    }
+
+    private static Num deriveFIFOAtInflectionPoints(ArrivalCurve arrival_curve, ServiceCurve service_curve) {
+        Num result = Curve.getMaxHorizontalDeviationAtInflectionPoints(arrival_curve, service_curve);
 
         return Num.getUtils(Calculator.getInstance().getNumBackend()).max(Num.getFactory(Calculator.getInstance().getNumBackend()).getZero(), result);
     }
+
+    /**
+     * The properties of a service curve that decide about the special cases.
+     */
+    private static final class ServiceCurveProperties {
+        private final boolean delayed_infinite_burst;
+        private final boolean zero_service;
+        private final Num latency;
+        private final Num ult_affine_rate;
+
+        private ServiceCurveProperties(ServiceCurve service_curve) {
+            delayed_infinite_burst = service_curve.isDelayedInfiniteBurst();
+            zero_service = service_curve.equals(Curve_ConstantPool.ZERO_SERVICE_CURVE.get());
+            latency = service_curve.getLatency();
+            ult_affine_rate = service_curve.getUltAffineRate();
+        }
+    }
 }
@@ -42,6 +42,7 @@ import org.networkcalculus.dnc.curves.ArrivalCurve;
 import org.networkcalculus.dnc.curves.Curve;
 import org.networkcalculus.dnc.curves.Curve_ConstantPool;
 import org.networkcalculus.dnc.curves.ServiceCurve;
+import org.networkcalculus.dnc.curves.disco.affine.AffineParameters;
 import org.networkcalculus.dnc.network.server_graph.Server;
 import org.networkcalculus.num.Num;
 
@@ -160,9 +161,39 @@ public final class LeftOverService_Disco_PwAffine {
     	if(special_cases.getFirst().booleanValue() == true) {
     		return special_cases.getSecond(); 
     	} else {
+    		ServiceCurve tb_rl_result = arbMuxTB_RL(service_curve, arrival_curve);
+    		if(tb_rl_result != null) {
+    			return tb_rl_result;
+    		}
             return Curve.getFactory().createServiceCurve(Curve.boundAtXAxis(Curve.sub(service_curve, arrival_curve)));
     	}
     }
+
+    /**
+     * The closed form of [beta_{R,T} - gamma_{r,b}]^+:
+     * beta_{R-r,(b+R*T)/(R-r)} if r &lt; R, zero service otherwise.
+     * It replaces the curve subtraction, the parameters are read from the given curves.
+     *
+     * @param service_curve The service curve to be subtracted from.
+     * @param arrival_curve The arrival curve to subtract from the service curve.
+     * @return The left-over service curve or <code>null</code> if the closed form does not apply.
+     */
+    private static ServiceCurve arbMuxTB_RL(ServiceCurve service_curve, ArrivalCurve arrival_curve) {
+    	AffineParameters rate_latency = AffineParameters.ofRateLatency(service_curve);
+    	AffineParameters token_bucket = AffineParameters.ofTokenBucket(arrival_curve);
+    	if(rate_latency == null || token_bucket == null) {
+    		return null;
+    	}
+    	if(!token_bucket.getRate().lt(rate_latency.getRate())) {
+    		return Curve_ConstantPool.ZERO_SERVICE_CURVE.get();
+    	}
+    	Num rate = Num.getUtils(Calculator.getInstance().getNumBackend()).sub(rate_latency.getRate(), token_bucket.getRate());
+    	return Curve.getFactory().createRateLatency(rate,
+    			Num.getUtils(Calculator.getInstance().getNumBackend()).div(
+    					Num.getUtils(Calculator.getInstance().getNumBackend()).add(token_bucket.getBurst(),
+    							Num.getUtils(Calculator.getInstance().getNumBackend()).mult(rate_latency.getRate(), rate_latency.getLatency())),
+    					rate));
+    }
     
     /**
      * Try to compute the left-over service curve for special arrival or service curve values like zero or infinite.
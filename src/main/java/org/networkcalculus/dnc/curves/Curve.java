@@ -26,7 +26,6 @@
 package org.networkcalculus.dnc.curves;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 
 import org.networkcalculus.dnc.Calculator;
@@ -153,61 +152,16 @@ public interface Curve {
         return curve_copy;
     }
 
+    /**
+     * Removes unreal discontinuities, joins co-linear segments and sets the gradient of
+     * zero-length segments to zero. The curve is normalized in place in a single pass.
+     * Its decompositions into rate latency and token bucket curves are only discarded if
+     * they do not match the resulting segments anymore.
+     *
+     * @param c the curve to normalize.
+     */
     static void beautify(Curve c) {
-        // Remove unreal discontinuity.
-        for (int i = 0; i < c.getSegmentCount() - 1; i++) {
-            if (c.isUnrealDiscontinuity(i)) {
-                c.getSegment(i + 1).setLeftopen(c.getSegment(i).isLeftopen());
-                c.removeSegment(i);
-                continue;
-            }
-            i++;
-        }
-
-        // Join colinear segments.
-        for (int i = 0; i < c.getSegmentCount() - 1; i++) {
-            if(!(c.getSegment(i).getGrad().eq(c.getSegment(i + 1).getGrad()))) {
-            	continue;
-            }
-
-            Num secondArg = Num.getUtils(Calculator.getInstance().getNumBackend()).sub(c.getSegment(i + 1).getX(), c.getSegment(i).getX());
-            secondArg = Num.getUtils(Calculator.getInstance().getNumBackend()).mult(secondArg, c.getSegment(i).getGrad());
-            secondArg = Num.getUtils(Calculator.getInstance().getNumBackend()).add(c.getSegment(i).getY(), secondArg);
-            if(!(secondArg.eq(c.getSegment(i + 1).getY()))) {
-            	continue;
-            }
-
-            c.removeSegment(i + 1);
-            if (i + 1 < c.getSegmentCount() && !c.getSegment(i + 1).isLeftopen()) {
-                Num resultPt1 = Num.getUtils(Calculator.getInstance().getNumBackend()).sub(c.getSegment(i + 1).getY(), c.getSegment(i).getY());
-                Num resultPt2 = Num.getUtils(Calculator.getInstance().getNumBackend()).sub(c.getSegment(i + 1).getX(), c.getSegment(i).getX());
-
-                c.getSegment(i).setGrad(Num.getUtils(Calculator.getInstance().getNumBackend()).div(resultPt1, resultPt2));
-            }
-            continue;
-        }
-
-        for (int i = 0; i < c.getSegmentCount() - 1; i++) {
-            if (c.getSegment(i).getX().equals(c.getSegment(i + 1).getX())) {
-                c.getSegment(i).setGrad(Num.getFactory(Calculator.getInstance().getNumBackend()).createZero());
-            }
-        }
-
-        // Remove rate of tb arrival curves' first segment.
-        if (c.getSegmentCount() > 1 && c.getSegment(0).getX() == Num.getFactory(Calculator.getInstance().getNumBackend()).getZero()
-                && c.getSegment(0).getY() != Num.getFactory(Calculator.getInstance().getNumBackend()).getZero()
-                && c.getSegment(1).getX() == Num.getFactory(Calculator.getInstance().getNumBackend()).getZero()
-                && c.getSegment(1).getY() != Num.getFactory(Calculator.getInstance().getNumBackend()).getZero()) {
-            c.getSegment(0).setGrad(Num.getFactory(Calculator.getInstance().getNumBackend()).createZero());
-        }
-
-        c.setTB_MetaInfo(false);
-        c.setTokenBucket(false);
-        c.setTB_Components(new LinkedList<>());
-
-        c.setRL_MetaInfo(false);
-        c.setRateLateny(false);
-        c.setRL_Components(new LinkedList<>());
+        c.compactSegments();
     }
 
     /**
@@ -273,16 +227,197 @@ public interface Curve {
         Num burst_c2 = c2.fLimitRight(Num.getFactory(Calculator.getInstance().getNumBackend()).getZero());
         Num result = Num.getUtils(Calculator.getInstance().getNumBackend()).diff(burst_c1, burst_c2);
 
-        ArrayList<Num> xcoords = computeInflectionPointsX(c1, c2);
-        for (int i = 0; i < xcoords.size(); i++) {
-            Num ip_x = xcoords.get(i);
+        return getMaxVerticalDeviationAtInflectionPoints(c1, c2, result);
+    }
+
+    /**
+     * Returns the maximum of <code>initial</code> and the vertical deviations
+     * <code>c1.f(x) - c2.f(x)</code> at all x-coordinates of
+     * {@link #computeInflectionPointsX(Curve, Curve)}.
+     * <p>
+     * Walks both segment lists once with a cursor per curve instead of
+     * searching the defining segment for every x-coordinate, i.e., it takes
+     * linear instead of quadratic time in the number of segments.
+     *
+     * @param c1      the first curve.
+     * @param c2      the second curve.
+     * @param initial the lower bound of the result.
+     * @return the maximum vertical deviation at the common inflection points.
+     */
+    static Num getMaxVerticalDeviationAtInflectionPoints(Curve c1, Curve c2, Num initial) {
+        Num result = initial;
 
-            Num backlog = Num.getUtils(Calculator.getInstance().getNumBackend()).sub(c1.f(ip_x), c2.f(ip_x));
+        int n1 = c1.getSegmentCount();
+        int n2 = c2.getSegmentCount();
+        int i1 = 0;
+        int i2 = 0;
+        int seg_c1 = -1;
+        int seg_c2 = -1;
+        while (i1 < n1 || i2 < n2) {
+            Num ip_x;
+            if (i1 >= n1) {
+                ip_x = c2.getSegment(i2++).getX();
+            } else if (i2 >= n2) {
+                ip_x = c1.getSegment(i1++).getX();
+            } else {
+                Num x1 = c1.getSegment(i1).getX();
+                Num x2 = c2.getSegment(i2).getX();
+                if (x1.lt(x2)) {
+                    ip_x = x1;
+                    i1++;
+                } else if (x1.gt(x2)) {
+                    ip_x = x2;
+                    i2++;
+                } else {
+                    ip_x = x1;
+                    i1++;
+                    i2++;
+                }
+            }
+
+            seg_c1 = getSegmentDefining(c1, ip_x, seg_c1);
+            seg_c2 = getSegmentDefining(c2, ip_x, seg_c2);
+            Num backlog = Num.getUtils(Calculator.getInstance().getNumBackend()).sub(
+                    fAtSegment(c1, ip_x, seg_c1), fAtSegment(c2, ip_x, seg_c2));
             result = Num.getUtils(Calculator.getInstance().getNumBackend()).max(result, backlog);
         }
         return result;
     }
 
+    /**
+     * Returns the maximum horizontal deviation
+     * <code>c2.f_inv(y, true) - c1.f_inv(y, false)</code> over all y-coordinates
+     * where either curve has an inflection point, or negative infinity if none
+     * of the curves has a segment.
+     * <p>
+     * Both lists of y-coordinates are merged with two pointers and the segments
+     * reaching the respective value are tracked with a cursor per curve, i.e.,
+     * the computation takes linear time in the number of segments for
+     * non-decreasing curves.
+     *
+     * @param c1 the first curve, e.g., an arrival curve.
+     * @param c2 the second curve, e.g., a service curve.
+     * @return the maximum horizontal deviation at the inflection points.
+     */
+    static Num getMaxHorizontalDeviationAtInflectionPoints(Curve c1, Curve c2) {
+        Num result = Num.getFactory(Calculator.getInstance().getNumBackend()).createNegativeInfinity();
+
+        int n1 = c1.getSegmentCount();
+        int n2 = c2.getSegmentCount();
+        int i1 = 0;
+        int i2 = 0;
+        int seg_c1 = 0;
+        int seg_c2 = 0;
+        Num ip_y_prev = null;
+        while (i1 < n1 || i2 < n2) {
+            Num ip_y;
+            if (i1 >= n1) {
+                ip_y = c2.getSegment(i2++).getY();
+            } else if (i2 >= n2) {
+                ip_y = c1.getSegment(i1++).getY();
+            } else {
+                Num y1 = c1.getSegment(i1).getY();
+                Num y2 = c2.getSegment(i2).getY();
+                if (y1.leq(y2)) {
+                    ip_y = y1;
+                    i1++;
+                } else {
+                    ip_y = y2;
+                    i2++;
+                }
+            }
+
+            // Cursors are only valid for non-decreasing values, restart otherwise.
+            if (ip_y_prev != null && ip_y.lt(ip_y_prev)) {
+                seg_c1 = 0;
+                seg_c2 = 0;
+            }
+            ip_y_prev = ip_y;
+
+            int seg_first_c1 = getSegmentFirstAtValue(c1, ip_y, seg_c1);
+            int seg_first_c2 = getSegmentFirstAtValue(c2, ip_y, seg_c2);
+            Num delay = Num.getUtils(Calculator.getInstance().getNumBackend()).sub(
+                    fInvAtSegment(c2, ip_y, true, seg_first_c2), fInvAtSegment(c1, ip_y, false, seg_first_c1));
+            result = Num.getUtils(Calculator.getInstance().getNumBackend()).max(result, delay);
+
+            // A failed search does not move the cursor.
+            seg_c1 = Math.max(seg_c1, seg_first_c1);
+            seg_c2 = Math.max(seg_c2, seg_first_c2);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the index of the segment defining the curve at <code>x</code>
+     * as {@link #getSegmentDefining(Num)} does, but starts the search at
+     * <code>i_start</code>. Valid if <code>i_start</code> is the result for an
+     * x-coordinate not larger than <code>x</code>.
+     */
+    private static int getSegmentDefining(Curve c, Num x, int i_start) {
+        int i = i_start;
+        while (i + 1 < c.getSegmentCount()) {
+            LinearSegment s = c.getSegment(i + 1);
+            if (s.isLeftopen() ? s.getX().lt(x) : s.getX().leq(x)) {
+                i++;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Returns the index of the first segment at which the curve reaches the
+     * value <code>y</code>, or -1 if there is none, starting the search at
+     * <code>i_start</code>. Valid if <code>i_start</code> is the result for a
+     * value not larger than <code>y</code>.
+     */
+    private static int getSegmentFirstAtValue(Curve c, Num y, int i_start) {
+        int n = c.getSegmentCount();
+        if (n == 0 || c.getSegment(0).getY().gt(y)) {
+            return -1;
+        }
+        int i = i_start;
+        while (i < n - 1 && c.getSegment(i + 1).getY().lt(y)) {
+            i++;
+        }
+        if (i < n - 1
+                || c.getSegment(i).getGrad().gt(Num.getFactory(Calculator.getInstance().getNumBackend()).getZero())) {
+            return i;
+        }
+        return -1;
+    }
+
+    private static Num fAtSegment(Curve c, Num x, int i) {
+        if (i < 0) {
+            return Num.getFactory(Calculator.getInstance().getNumBackend()).createNaN();
+        }
+        return c.getSegment(i).f(x);
+    }
+
+    private static Num fInvAtSegment(Curve c, Num y, boolean rightmost, int i) {
+        if (i < 0) {
+            return Num.getFactory(Calculator.getInstance().getNumBackend()).createNaN();
+        }
+        Num zero = Num.getFactory(Calculator.getInstance().getNumBackend()).getZero();
+        if (rightmost) {
+            while (i < c.getSegmentCount() && c.getSegment(i).getGrad().equals(zero)) {
+                i++;
+            }
+            if (i >= c.getSegmentCount()) {
+                return Num.getFactory(Calculator.getInstance().getNumBackend()).createPositiveInfinity();
+            }
+        }
+        LinearSegment s = c.getSegment(i);
+        if (!s.getGrad().equals(zero)) {
+            return Num.getUtils(Calculator.getInstance().getNumBackend()).add(s.getX(),
+                    Num.getUtils(Calculator.getInstance().getNumBackend()).div(
+                            Num.getUtils(Calculator.getInstance().getNumBackend()).sub(y, s.getY()), s.getGrad()));
+        } else {
+            return s.getX();
+        }
+    }
+
     static Num getXIntersection(Curve curve1, Curve curve2) {
         Num x_int = Num.getFactory(Calculator.getInstance().getNumBackend()).getPositiveInfinity(); // No need to create an object as this value is
         // only set for initial comparison in the loop.
@@ -813,6 +948,11 @@ public interface Curve {
     
     void removeSegment(int pos);
 
+    /**
+     * In-place normalization used by beautify(curve).
+     */
+    void compactSegments();
+
     boolean isDelayedInfiniteBurst();
 
     boolean isDiscontinuity(int pos);
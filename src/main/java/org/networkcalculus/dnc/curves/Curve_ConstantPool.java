@@ -25,8 +25,8 @@
 
 package org.networkcalculus.dnc.curves;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.networkcalculus.dnc.AlgDncBackend;
 import org.networkcalculus.dnc.Calculator;
@@ -71,7 +71,7 @@ public enum Curve_ConstantPool {
         }
     };
     
-    private final Map<String, Curve> pool = new HashMap<>();
+    private final Map<String, Curve> pool = new ConcurrentHashMap<>();
 
     /**
      * Returns the value of the constant from the pool.
@@ -83,7 +83,10 @@ public enum Curve_ConstantPool {
         Curve result = pool.get(key);
         if (result == null) {
             result = createCurve();
-            pool.put(key, result);
+            Curve result_pooled = pool.putIfAbsent(key, result);
+            if (result_pooled != null) {
+                result = result_pooled;
+            }
          }
        return (T) result;
      }
@@ -196,6 +196,61 @@ public class LinearSegment_Disco implements LinearSegment {
                 Num.getUtils(Calculator.getInstance().getNumBackend()).sub(this.grad, other.getGrad()));
     }
 
+    /**
+     * Normalizes the segments of a curve in place: unreal discontinuities are removed,
+     * co-linear segments are joined and segments of zero length get a zero gradient.
+     * The function defined by the segments does not change.
+     * <p>
+     * Runs in a single pass and moves the remaining segments to the front of the array.
+     * Entries behind them are left unchanged, the caller is expected to truncate the array.
+     *
+     * @param segments the segments of a curve ordered by their x-coordinate.
+     * @return the number of segments remaining at the front of the array.
+     */
+    public static int compact(LinearSegment_Disco[] segments) {
+        if (segments.length == 0) {
+            return 0;
+        }
+
+        int last = 0;
+        for (int i = 1; i < segments.length; i++) {
+            LinearSegment_Disco s_last = segments[last];
+            LinearSegment_Disco s_i = segments[i];
+
+            // Unreal discontinuity, s_last only defines a point that s_i defines as well.
+            if (s_i.getX().eq(s_last.getX()) && s_i.getY().eq(s_last.getY())) {
+                s_i.setLeftopen(s_last.isLeftopen());
+                segments[last] = s_i;
+                if (last > 0 && isColinearContinuation(segments[last - 1], s_i)) {
+                    last--;
+                }
+                continue;
+            }
+
+            if (isColinearContinuation(s_last, s_i)) {
+                continue;
+            }
+
+            last++;
+            segments[last] = s_i;
+        }
+
+        for (int i = 0; i < last; i++) {
+            if (segments[i].getX().eq(segments[i + 1].getX()) && !segments[i].getGrad().eqZero()) {
+                segments[i].setGrad(Num.getFactory(Calculator.getInstance().getNumBackend()).createZero());
+            }
+        }
+
+        return last + 1;
+    }
+
+    private static boolean isColinearContinuation(LinearSegment_Disco segment, LinearSegment_Disco next) {
+        if (!segment.getGrad().eq(next.getGrad())) {
+            return false;
+        }
+        return segment.f(next.getX()).eq(next.getY());
+    }
+
     /**
      * Returns a copy of this instance.
      *
@@ -0,0 +1,130 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2017 - 2018 The DiscoDNC contributors
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.curves.disco.affine;
+
+import org.networkcalculus.dnc.curves.Curve;
+import org.networkcalculus.dnc.curves.LinearSegment;
+import org.networkcalculus.num.Num;
+
+/**
+ * The parameters of a token bucket or a rate-latency curve, read from the curve's segments.
+ * <p>
+ * Closed-form bounds of these shapes only need their parameters. Reading the parameters
+ * neither decomposes the curve nor creates component curves, unlike isTokenBucket() and isRateLatency().
+ * Curves are still built and operated on as segment curves, the parameters are no replacement for them.
+ * The shapes are the ones created by createTokenBucket(...) and createRateLatency(...)
+ * as well as the zero curve, i.e., curves of at most two segments. Token buckets with
+ * a peak rate and delayed infinite bursts are not covered.
+ * The parameters are the curve's values, not copies, and must not be modified.
+ */
+public final class AffineParameters {
+	private final Num rate;
+	private final Num burst;
+	private final Num latency;
+
+	private AffineParameters( Num rate, Num burst, Num latency ) {
+		this.rate = rate;
+		this.burst = burst;
+		this.latency = latency;
+	}
+
+	/**
+	 * @param curve The curve.
+	 * @return The rate and burst with zero latency, null if the curve is not a token bucket.
+	 */
+	public static AffineParameters ofTokenBucket( Curve curve ) {
+		if( curve.isDelayedInfiniteBurst() ) {
+			return null;
+		}
+
+		switch( curve.getSegmentCount() ) {
+		case 1:
+			LinearSegment segment = curve.getSegment( 0 );
+			if( segment.getX().eqZero() && segment.getY().eqZero() && segment.getGrad().isFinite() ) {
+				return new AffineParameters( segment.getGrad(), segment.getY(), segment.getX() );
+			}
+			return null;
+		case 2:
+			LinearSegment segment_0 = curve.getSegment( 0 );
+			LinearSegment segment_1 = curve.getSegment( 1 );
+			if( segment_0.getX().eqZero() && segment_0.getY().eqZero() && segment_0.getGrad().eqZero()
+					&& segment_1.getX().eqZero() && segment_1.getY().geqZero() && segment_1.getY().isFinite()
+					&& segment_1.getGrad().geqZero() && segment_1.getGrad().isFinite() ) {
+				return new AffineParameters( segment_1.getGrad(), segment_1.getY(), segment_1.getX() );
+			}
+			return null;
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * @param curve The curve.
+	 * @return The rate and latency with zero burst, null if the curve is not a rate-latency curve.
+	 */
+	public static AffineParameters ofRateLatency( Curve curve ) {
+		if( curve.isDelayedInfiniteBurst() ) {
+			return null;
+		}
+
+		switch( curve.getSegmentCount() ) {
+		case 1:
+			LinearSegment segment = curve.getSegment( 0 );
+			if( segment.getX().eqZero() && segment.getY().eqZero() && segment.getGrad().isFinite() ) {
+				return new AffineParameters( segment.getGrad(), segment.getY(), segment.getX() );
+			}
+			return null;
+		case 2:
+			LinearSegment segment_0 = curve.getSegment( 0 );
+			LinearSegment segment_1 = curve.getSegment( 1 );
+			if( segment_0.getX().eqZero() && segment_0.getY().eqZero() && segment_0.getGrad().eqZero()
+					&& segment_1.getX().geqZero() && segment_1.getX().isFinite() && segment_1.getY().eqZero()
+					&& segment_1.getGrad().geqZero() && segment_1.getGrad().isFinite() ) {
+				return new AffineParameters( segment_1.getGrad(), segment_1.getY(), segment_1.getX() );
+			}
+			return null;
+		default:
+			return null;
+		}
+	}
+
+	public Num getRate() {
+		return rate;
+	}
+
+	public Num getBurst() {
+		return burst;
+	}
+
+	public Num getLatency() {
+		return latency;
+	}
+
+	@Override
+	public String toString() {
+		return "rate=" + rate + ", burst=" + burst + ", latency=" + latency;
+	}
+}
@@ -67,6 +67,10 @@ public class Curve_Disco_Affine implements Curve_Affine {
 	protected boolean has_token_bucket_meta_info = false;
 	protected List<Curve_Disco_Affine> token_buckets = new LinkedList<Curve_Disco_Affine>();
 
+	// The segments the decompositions were derived from, see compactSegments().
+	protected LinearSegment_Disco[] rate_latency_meta_info_segments = null;
+	protected LinearSegment_Disco[] token_bucket_meta_info_segments = null;
+
 	/**
 	 * Creates a <code>Curve_Disco_Affine</code> instance with 1 segment of type LinearSegment.
 	 * 
@@ -367,6 +371,17 @@ public class Curve_Disco_Affine implements Curve_Affine {
 		has_rate_latency_meta_info = false;
 		is_rate_latency = false;
 		rate_latencies = new LinkedList<Curve_Disco_Affine>();
+
+		rate_latency_meta_info_segments = null;
+		token_bucket_meta_info_segments = null;
+	}
+
+	private LinearSegment_Disco[] copySegments() {
+		LinearSegment_Disco[] segments_copy = new LinearSegment_Disco[segments.length];
+		for (int i = 0; i < segments.length; i++) {
+			segments_copy[i] = segments[i].copy();
+		}
+		return segments_copy;
 	}
 
 	/**
@@ -629,6 +644,33 @@ public class Curve_Disco_Affine implements Curve_Affine {
 		clearMetaInfo();
 	}
 
+	/**
+	 * Normalizes the segments in place and truncates them at most once,
+	 * see LinearSegment_Disco.compact(segments).
+	 * The decompositions into rate latency and token bucket curves are kept
+	 * if they were derived from the resulting segments.
+	 */
+	public void compactSegments() {
+		int segment_count = LinearSegment_Disco.compact(segments);
+		if (segment_count < segments.length) {
+			segments = Arrays.copyOf(segments, segment_count);
+		}
+
+		if (!Arrays.equals(segments, rate_latency_meta_info_segments)) {
+			has_rate_latency_meta_info = false;
+			is_rate_latency = false;
+			rate_latencies = new LinkedList<Curve_Disco_Affine>();
+			rate_latency_meta_info_segments = null;
+		}
+
+		if (!Arrays.equals(segments, token_bucket_meta_info_segments)) {
+			has_token_bucket_meta_info = false;
+			is_token_bucket = false;
+			token_buckets = new LinkedList<Curve_Disco_Affine>();
+			token_bucket_meta_info_segments = null;
+		}
+	}
+
 	/**
 	 * Removes the segment at position <code>pos</code>.
 	 *
@@ -1208,6 +1250,7 @@ public class Curve_Disco_Affine implements Curve_Affine {
 				rate_latencies.add(createRateLatency(segments[0].getGrad(), segments[0].getX()));
 				is_rate_latency = true;
 				has_rate_latency_meta_info = true;
+				rate_latency_meta_info_segments = copySegments();
 			}
 			break;
 		case 2:
@@ -1220,6 +1263,7 @@ public class Curve_Disco_Affine implements Curve_Affine {
 				rate_latencies.add(createRateLatency(segments[1].getGrad(), segments[1].getX()));
 				is_rate_latency = true;
 				has_rate_latency_meta_info = true;
+				rate_latency_meta_info_segments = copySegments();
 			}
 			break;
 		default:
@@ -1283,6 +1327,7 @@ public class Curve_Disco_Affine implements Curve_Affine {
 				token_buckets.add(createTokenBucket(segments[0].getGrad(), segments[0].getY()));
 				is_token_bucket = true;
 				has_token_bucket_meta_info = true;
+				token_bucket_meta_info_segments = copySegments();
 			}
 			break;
 		case 2:
@@ -1295,6 +1340,7 @@ public class Curve_Disco_Affine implements Curve_Affine {
 				token_buckets.add(createTokenBucket(segments[1].getGrad(), segments[1].getY()));
 				is_token_bucket = true;
 				has_token_bucket_meta_info = true;
+				token_bucket_meta_info_segments = copySegments();
 			}
 			break;
 		default:
@@ -69,6 +69,10 @@ public class Curve_Disco_PwAffine implements Curve_PwAffine {
 	protected boolean has_token_bucket_meta_info = false;
 	protected List<Curve_Disco_PwAffine> token_buckets = new LinkedList<Curve_Disco_PwAffine>();
 
+	// The segments the decompositions were derived from, see compactSegments().
+	protected LinearSegment_Disco[] rate_latency_meta_info_segments = null;
+	protected LinearSegment_Disco[] token_bucket_meta_info_segments = null;
+
 	/**
 	 * Creates a <code>CurveDNC</code> instance with a single segment on the x-axis.
 	 */
@@ -239,6 +243,17 @@ public class Curve_Disco_PwAffine implements Curve_PwAffine {
 		has_rate_latency_meta_info = false;
 		is_rate_latency = false;
 		rate_latencies = new LinkedList<Curve_Disco_PwAffine>();
+
+		rate_latency_meta_info_segments = null;
+		token_bucket_meta_info_segments = null;
+	}
+
+	private LinearSegment_Disco[] copySegments() {
+		LinearSegment_Disco[] segments_copy = new LinearSegment_Disco[segments.length];
+		for (int i = 0; i < segments.length; i++) {
+			segments_copy[i] = segments[i].copy();
+		}
+		return segments_copy;
 	}
 
 	/**
@@ -439,6 +454,33 @@ public class Curve_Disco_PwAffine implements Curve_PwAffine {
 		clearMetaInfo();
 	}
 
+	/**
+	 * Normalizes the segments in place and truncates them at most once,
+	 * see LinearSegment_Disco.compact(segments).
+	 * The decompositions into rate latency and token bucket curves are kept
+	 * if they were derived from the resulting segments.
+	 */
+	public void compactSegments() {
+		int segment_count = LinearSegment_Disco.compact(segments);
+		if (segment_count < segments.length) {
+			segments = Arrays.copyOf(segments, segment_count);
+		}
+
+		if (!Arrays.equals(segments, rate_latency_meta_info_segments)) {
+			has_rate_latency_meta_info = false;
+			is_rate_latency = false;
+			rate_latencies = new LinkedList<Curve_Disco_PwAffine>();
+			rate_latency_meta_info_segments = null;
+		}
+
+		if (!Arrays.equals(segments, token_bucket_meta_info_segments)) {
+			has_token_bucket_meta_info = false;
+			is_token_bucket = false;
+			token_buckets = new LinkedList<Curve_Disco_PwAffine>();
+			token_bucket_meta_info_segments = null;
+		}
+	}
+
 	/**
 	 * Removes the segment at position <code>pos</code>.
 	 *
@@ -965,6 +1007,7 @@ public class Curve_Disco_PwAffine implements Curve_PwAffine {
 		is_rate_latency = rate_latencies.size() == 1;
 
 		has_rate_latency_meta_info = true;
+		rate_latency_meta_info_segments = copySegments();
 	}
 
 	public void setTokenBucket(boolean is_token_bucket) {
@@ -1022,6 +1065,7 @@ public class Curve_Disco_PwAffine implements Curve_PwAffine {
 		is_token_bucket = token_buckets.size() == 1;
 
 		has_token_bucket_meta_info = true;
+		token_bucket_meta_info_segments = copySegments();
 	}
 
 	// --------------------------------------------------------------------------------------------------------------
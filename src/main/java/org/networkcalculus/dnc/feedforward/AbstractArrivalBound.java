@@ -26,12 +26,25 @@
 
 package org.networkcalculus.dnc.feedforward;
 
+import java.util.HashSet;
+import java.util.Set;
+
+import org.networkcalculus.dnc.AlgDncBackend_DNC_Affine;
 import org.networkcalculus.dnc.AnalysisConfig;
+import org.networkcalculus.dnc.Calculator;
+import org.networkcalculus.dnc.curves.ArrivalCurve;
+import org.networkcalculus.dnc.curves.Curve;
+import org.networkcalculus.dnc.curves.disco.affine.AffineParameters;
+import org.networkcalculus.dnc.network.server_graph.Server;
 import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+import org.networkcalculus.dnc.tandem.AnalysisBudget;
+import org.networkcalculus.dnc.utils.Diagnostics;
+import org.networkcalculus.num.Num;
 
 public abstract class AbstractArrivalBound implements ArrivalBound {
     protected ServerGraph server_graph;
     protected AnalysisConfig configuration;
+    protected AnalysisBudget budget = null;
 
     public ServerGraph getServerGraph() {
         return server_graph;
@@ -48,4 +61,61 @@ public abstract class AbstractArrivalBound implements ArrivalBound {
     public void setConfiguration(AnalysisConfig configuration) {
         this.configuration = configuration;
     }
+
+    public AnalysisBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * @param budget The budget of the analysis the arrival bounds are derived for,
+     *               <code>null</code> for exhaustive nested analyses.
+     */
+    public void setBudget(AnalysisBudget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Caps the burst of arrival bounds of flows leaving the server at the server's backlog bound,
+     * see AnalysisConfig.serverBacklogArrivalBound(). The backlog bound is computed once per
+     * server and shared among all arrival bounds, see ArrivalBoundDispatch.computeServerBacklogBound(...).
+     * <p>
+     * The cap only works for token-bucket arrival bounds. It disregards the potential shift in
+     * inflection points of other curves, e.g., of peak-rate limited ones. Affine arrival bounds
+     * are capped in-place, single token buckets of other backends are replaced by the capped
+     * token bucket and all other arrival bounds are not capped.
+     *
+     * @param last_hop_xtx The server the flows leave.
+     * @param arrival_bounds The arrival bounds of the flows after leaving the server.
+     * @return The capped arrival bounds.
+     * @throws Exception If the server's backlog bound cannot be computed.
+     */
+    protected Set<ArrivalCurve> capBurstsAtServerBacklog(Server last_hop_xtx, Set<ArrivalCurve> arrival_bounds) throws Exception {
+        Num backlog_bound = ArrivalBoundDispatch.computeServerBacklogBound(server_graph, configuration, last_hop_xtx, budget);
+
+        if (Calculator.getInstance().getDncBackend() == AlgDncBackend_DNC_Affine.DISCO_AFFINE) {
+            // Reduce the burst: Here's the limitation.
+            // It disregards the potential shift in inflection points not present in this burst cap variant.
+            for (ArrivalCurve arrival_bound : arrival_bounds) {
+                if (arrival_bound.getBurst().gt(backlog_bound)) {
+                    // If the burst is >0 then there are at least two segments and the second holds the burst as its y-axis value.
+                    arrival_bound.getSegment(1).setY(backlog_bound);
+                }
+            }
+            return arrival_bounds;
+        }
+
+        Set<ArrivalCurve> arrival_bounds_capped = new HashSet<ArrivalCurve>();
+        for (ArrivalCurve arrival_bound : arrival_bounds) {
+            AffineParameters token_bucket = AffineParameters.ofTokenBucket(arrival_bound);
+            if (token_bucket == null) {
+                Diagnostics.report(Diagnostics.Event.BURST_CAPPING_SKIPPED, () -> "Capping output burstiness was not executed as it currently only works for token-bucket arrival bounds.");
+                arrival_bounds_capped.add(arrival_bound);
+            } else if (token_bucket.getBurst().gt(backlog_bound)) {
+                arrival_bounds_capped.add(Curve.getFactory().createTokenBucket(token_bucket.getRate(), backlog_bound));
+            } else {
+                arrival_bounds_capped.add(arrival_bound);
+            }
+        }
+        return arrival_bounds_capped;
+    }
 }
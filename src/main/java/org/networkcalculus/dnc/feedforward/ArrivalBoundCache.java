@@ -27,27 +27,135 @@
 package org.networkcalculus.dnc.feedforward;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.networkcalculus.dnc.AnalysisConfig;
 import org.networkcalculus.dnc.Calculator;
+import org.networkcalculus.dnc.AnalysisConfig.MaxScEnforcement;
+import org.networkcalculus.dnc.AnalysisConfig.MultiplexingEnforcement;
 import org.networkcalculus.dnc.curves.ArrivalCurve;
+import org.networkcalculus.dnc.curves.Curve;
+import org.networkcalculus.dnc.curves.LinearSegment;
 import org.networkcalculus.dnc.network.server_graph.Flow;
 import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.dnc.network.server_graph.ServerGraph;
 import org.networkcalculus.dnc.network.server_graph.Turn;
+import org.networkcalculus.num.Num;
+import org.networkcalculus.num.NumBackend;
 
+/**
+ * The cache is safe to be used by concurrent arrival bound computations,
+ * e.g., the ones of a single topological level in {@link ArrivalBoundPropagation}.
+ * Concurrent computations of the same entry may both store their result,
+ * lookups then return either one as both are valid bounds.
+ * <p>
+ * The cache can be bounded by a maximum number of entries and a maximum
+ * estimated size in bytes. Entries are evicted in least-recently-used order,
+ * an entry's size is estimated by the segment count of its arrival bounds.
+ * The cached server backlog bounds are entries of a constant size.
+ * <p>
+ * Entries are distinguished by the settings that affect the arrival bound,
+ * including the upstream servers' settings if they are enforced server-locally,
+ * see computeRegionFingerprint(...).
+ */
 public class ArrivalBoundCache {
-	private Map<Server,Set<CacheEntryServer>> map__server__entries = new HashMap<Server,Set<CacheEntryServer>>();
-	private Map<Turn,Set<CacheEntryTurn>> map__turn__entries = new HashMap<Turn,Set<CacheEntryTurn>>();
+	private Map<Server,Set<CacheEntryServer>> map__server__entries = new ConcurrentHashMap<Server,Set<CacheEntryServer>>();
+	private Map<Turn,Set<CacheEntryTurn>> map__turn__entries = new ConcurrentHashMap<Turn,Set<CacheEntryTurn>>();
+	
+	// A single number per server and setting, subject to the size limits like the arrival bounds.
+	private Map<ServerBacklogKey,CacheEntryServerBacklog> map__server_key__backlog_bound = new ConcurrentHashMap<ServerBacklogKey,CacheEntryServerBacklog>();
+	
+	// Rough estimates of the heap usage of an entry's objects. 
+	private static final long BYTES_PER_ENTRY = 256;
+	private static final long BYTES_PER_FLOW = 48;
+	private static final long BYTES_PER_SEGMENT = 112;
+	
+	// Access-ordered, i.e., the first entry is the least recently used one.
+	// Adding and removing entries is done while holding the cache's lock. 
+	private LinkedHashMap<CacheEntry,Long> lru__entry__bytes = new LinkedHashMap<CacheEntry,Long>( 16, 0.75f, true );
+	private long bytes = 0;
+	private int max_entries = Integer.MAX_VALUE;
+	private long max_bytes = Long.MAX_VALUE;
+	
+	private AtomicLong hits = new AtomicLong();
+	private AtomicLong misses = new AtomicLong();
+	private AtomicLong evictions = new AtomicLong();
 	
 	protected ArrivalBoundCache() {};
 	
-	protected void clearCache() {
-		map__server__entries = new HashMap<Server,Set<CacheEntryServer>>();
-		map__turn__entries = new HashMap<Turn,Set<CacheEntryTurn>>();
+	protected synchronized void clearCache() {
+		map__server__entries = new ConcurrentHashMap<Server,Set<CacheEntryServer>>();
+		map__turn__entries = new ConcurrentHashMap<Turn,Set<CacheEntryTurn>>();
+		map__server_key__backlog_bound = new ConcurrentHashMap<ServerBacklogKey,CacheEntryServerBacklog>();
+		lru__entry__bytes = new LinkedHashMap<CacheEntry,Long>( 16, 0.75f, true );
+		bytes = 0;
+	}
+	
+	/**
+	 * Limits the cache size. Excess entries are evicted immediately.
+	 * 
+	 * @param max_entries
+	 *            Maximum number of entries, Integer.MAX_VALUE for no limit.
+	 * @param max_bytes
+	 *            Maximum estimated size of all entries, Long.MAX_VALUE for no limit.
+	 */
+	protected synchronized void setLimits( int max_entries, long max_bytes ) {
+		this.max_entries = max_entries;
+		this.max_bytes = max_bytes;
+		evict();
+	}
+	
+	public synchronized Statistics getStatistics() {
+		return new Statistics( hits.get(), misses.get(), evictions.get(), lru__entry__bytes.size(), bytes );
+	}
+	
+	// Requires the cache's lock.
+	private void addEntry( CacheEntry entry ) {
+		long entry_bytes = entry.estimateBytes();
+		entry.link();
+		lru__entry__bytes.put( entry, entry_bytes );
+		bytes += entry_bytes;
+		evict();
+	}
+	
+	// Requires the cache's lock.
+	private void removeEntry( CacheEntry entry ) {
+		entry.unlink();
+		Long entry_bytes = lru__entry__bytes.remove( entry );
+		if ( entry_bytes != null ) {
+			bytes -= entry_bytes;
+		}
+	}
+	
+	// Requires the cache's lock.
+	private void evict() {
+		Iterator<Map.Entry<CacheEntry,Long>> lru_iter = lru__entry__bytes.entrySet().iterator();
+		while ( ( lru__entry__bytes.size() > max_entries || bytes > max_bytes ) 
+				&& lru_iter.hasNext() ) {
+			Map.Entry<CacheEntry,Long> lru_entry = lru_iter.next();
+			lru_entry.getKey().unlink();
+			bytes -= lru_entry.getValue();
+			lru_iter.remove();
+			evictions.incrementAndGet();
+		}
+	}
+	
+	private void recordLookup( CacheEntry entry ) {
+		if ( entry == null ) {
+			misses.incrementAndGet();
+			return;
+		}
+		hits.incrementAndGet();
+		synchronized( this ) {
+			lru__entry__bytes.get( entry ); // Moves the entry to the end of the access order.
+		}
 	}
 
 	/**
@@ -61,6 +169,7 @@ public class ArrivalBoundCache {
 	 * @param server
 	 * @param bounded_flows
 	 * @param flow_of_interest
+	 * @param region_fingerprint
 	 * @param arrival_bounds
 	 * @return
 	 * @throws Exception
@@ -69,6 +178,7 @@ public class ArrivalBoundCache {
 												  Server server,
 												  Set<Flow> bounded_flows,
 												  Flow flow_of_interest,
+												  long region_fingerprint,
 												  Set<ArrivalCurve> arrival_bounds ) throws Exception {
 		if( bounded_flows.contains( flow_of_interest )
 				|| bounded_flows.isEmpty()
@@ -76,34 +186,34 @@ public class ArrivalBoundCache {
 			return;
 		}
 		
-		// Remove possible old entry
-		CacheEntryServer entry = getCacheEntry( configuration, server, bounded_flows, flow_of_interest ); 
-		if ( entry != null ) {
-			// get(...) cannot return null as the entry was already confirmed to exist.
-			map__server__entries.get( server ).remove( entry );
-		}
-		
 		Set<ArrivalCurve> arrival_bounds_stored;
 		
 		// Create arrival bound to store
 		if( configuration.convolveAlternativeArrivalBounds() ) {	// Convolve given bounds into one.
-			arrival_bounds_stored = Collections.singleton( Calculator.getInstance().getMinPlus().convolve( arrival_bounds ) );
+			arrival_bounds_stored = Collections.singleton( Calculator.getInstance().getMinPlus().convolve( arrival_bounds ).copy() );
 		} else { 													// Take them as they are.
-			arrival_bounds_stored = new HashSet<ArrivalCurve>( arrival_bounds );
+			arrival_bounds_stored = new HashSet<ArrivalCurve>();
+			for ( ArrivalCurve arrival_bound : arrival_bounds ) {
+				arrival_bounds_stored.add( arrival_bound.copy() );
+			}
 		}
-		entry = new CacheEntryServer( configuration.copy(), server, new HashSet<Flow>( bounded_flows ), flow_of_interest, arrival_bounds_stored );
 		
-		// No need to check if the maps has entries for the server or the flow of interest.
-		// If missing they were created by the call to getCacheEntry(...) above.
-		map__server__entries.get( server ).add( entry );
+		synchronized( this ) {
+			// Remove possible old entry
+			CacheEntryServer entry = findCacheEntry( configuration, server, bounded_flows, flow_of_interest, region_fingerprint ); 
+			if ( entry != null ) {
+				removeEntry( entry );
+			}
+			addEntry( new CacheEntryServer( configuration.copy(), server, new HashSet<Flow>( bounded_flows ), flow_of_interest, region_fingerprint, arrival_bounds_stored ) );
+		}
 	}
 	
-	protected Set<ArrivalCurve> getArrivalBounds( AnalysisConfig configuration, Server server, Set<Flow> bounded_flows, Flow flow_of_interest ) {
-		CacheEntryServer entry = getCacheEntry( configuration, server, bounded_flows, flow_of_interest );
+	protected Set<ArrivalCurve> getArrivalBounds( AnalysisConfig configuration, Server server, Set<Flow> bounded_flows, Flow flow_of_interest, long region_fingerprint ) {
+		CacheEntryServer entry = getCacheEntry( configuration, server, bounded_flows, flow_of_interest, region_fingerprint );
 		if ( entry == null ) {
 			return new HashSet<ArrivalCurve>();
 		} else {
-			return new HashSet<ArrivalCurve>( entry.arrival_bounds );
+			return entry.copyArrivalBounds();
 		}
 	}
 	
@@ -118,14 +228,21 @@ public class ArrivalBoundCache {
 	 * @param server
 	 * @param bounded_flows
 	 * @param flow_of_interest
+	 * @param region_fingerprint
 	 * @return
 	 */
-	protected CacheEntryServer getCacheEntry( AnalysisConfig configuration, Server server, Set<Flow> bounded_flows, Flow flow_of_interest ) {
+	protected CacheEntryServer getCacheEntry( AnalysisConfig configuration, Server server, Set<Flow> bounded_flows, Flow flow_of_interest, long region_fingerprint ) {
+		CacheEntryServer entry = findCacheEntry( configuration, server, bounded_flows, flow_of_interest, region_fingerprint );
+		recordLookup( entry );
+		return entry;
+	}
+	
+	private CacheEntryServer findCacheEntry( AnalysisConfig configuration, Server server, Set<Flow> bounded_flows, Flow flow_of_interest, long region_fingerprint ) {
 		// Most important feature is an efficient search
 		boolean return_null = false;
 		Set<CacheEntryServer> entries_s = map__server__entries.get( server );
 		if ( entries_s == null ) {
-			map__server__entries.put( server, new HashSet<CacheEntryServer>() );
+			map__server__entries.putIfAbsent( server, ConcurrentHashMap.newKeySet() );
 			return_null = true;
 		}
 		
@@ -141,6 +258,7 @@ public class ArrivalBoundCache {
 				&& entry.configuration.enforceMaxScOutputRate() == configuration.enforceMaxScOutputRate()
 				&& entry.bounded_flows.size() == bounded_flows.size()
 				&& entry.flow_of_interest.getId() == flow_of_interest.getId()
+				&& entry.region_fingerprint == region_fingerprint
 				&& entry.bounded_flows.containsAll( bounded_flows ) // should be the most expensive operation so do it last 
 			) {
 				return entry;
@@ -160,6 +278,7 @@ public class ArrivalBoundCache {
 	 * @param server
 	 * @param bounded_flows
 	 * @param flow_of_interest
+	 * @param region_fingerprint
 	 * @param arrival_bounds
 	 * @return
 	 * @throws Exception
@@ -168,6 +287,7 @@ public class ArrivalBoundCache {
 												  Turn turn,
 												  Set<Flow> bounded_flows,
 												  Flow flow_of_interest,
+												  long region_fingerprint,
 												  Set<ArrivalCurve> arrival_bounds ) throws Exception {
 		if( bounded_flows.contains( flow_of_interest )
 				|| bounded_flows.isEmpty()
@@ -175,41 +295,49 @@ public class ArrivalBoundCache {
 			return;
 		}
 		
-		// Remove possible old entry
-		CacheEntryTurn entry = getCacheEntry( configuration, turn, bounded_flows, flow_of_interest ); 
-		if ( entry != null ) {
-			// get(...) cannot return null as the entry was already confirmed to exist.
-			map__turn__entries.get( turn ).remove( entry );
-		}
-		
 		Set<ArrivalCurve> arrival_bounds_stored;
 		
 		// Create arrival bound to store
 		if( configuration.convolveAlternativeArrivalBounds() ) {	// Convolve given bounds into one.
-			arrival_bounds_stored = Collections.singleton( Calculator.getInstance().getMinPlus().convolve( arrival_bounds ) );
+			arrival_bounds_stored = Collections.singleton( Calculator.getInstance().getMinPlus().convolve( arrival_bounds ).copy() );
 		} else { 													// Take them as they are.
-			arrival_bounds_stored = new HashSet<ArrivalCurve>( arrival_bounds );
+			arrival_bounds_stored = new HashSet<ArrivalCurve>();
+			for ( ArrivalCurve arrival_bound : arrival_bounds ) {
+				arrival_bounds_stored.add( arrival_bound.copy() );
+			}
 		}
-		entry = new CacheEntryTurn(configuration, turn, new HashSet<Flow>( bounded_flows ), flow_of_interest, arrival_bounds_stored );
 		
-		map__turn__entries.get( turn ).add( entry );
+		synchronized( this ) {
+			// Remove possible old entry
+			CacheEntryTurn entry = findCacheEntry( configuration, turn, bounded_flows, flow_of_interest, region_fingerprint ); 
+			if ( entry != null ) {
+				removeEntry( entry );
+			}
+			addEntry( new CacheEntryTurn( configuration, turn, new HashSet<Flow>( bounded_flows ), flow_of_interest, region_fingerprint, arrival_bounds_stored ) );
+		}
 	}
 	
-	protected Set<ArrivalCurve> getArrivalBounds( AnalysisConfig configuration, Turn turn, Set<Flow> bounded_flows, Flow flow_of_interest ) {
-		CacheEntryTurn entry = getCacheEntry( configuration, turn, bounded_flows, flow_of_interest );
+	protected Set<ArrivalCurve> getArrivalBounds( AnalysisConfig configuration, Turn turn, Set<Flow> bounded_flows, Flow flow_of_interest, long region_fingerprint ) {
+		CacheEntryTurn entry = getCacheEntry( configuration, turn, bounded_flows, flow_of_interest, region_fingerprint );
 		if ( entry == null ) {
 			return new HashSet<ArrivalCurve>();
 		} else {
-			return new HashSet<ArrivalCurve>( entry.arrival_bounds );
+			return entry.copyArrivalBounds();
 		}
 	}
 	
-	protected CacheEntryTurn getCacheEntry( AnalysisConfig configuration, Turn turn, Set<Flow> bounded_flows, Flow flow_of_interest ) {
+	protected CacheEntryTurn getCacheEntry( AnalysisConfig configuration, Turn turn, Set<Flow> bounded_flows, Flow flow_of_interest, long region_fingerprint ) {
+		CacheEntryTurn entry = findCacheEntry( configuration, turn, bounded_flows, flow_of_interest, region_fingerprint );
+		recordLookup( entry );
+		return entry;
+	}
+	
+	private CacheEntryTurn findCacheEntry( AnalysisConfig configuration, Turn turn, Set<Flow> bounded_flows, Flow flow_of_interest, long region_fingerprint ) {
 		// Most important feature is an efficient search
 		boolean return_null = false;
 		Set<CacheEntryTurn> entries_l = map__turn__entries.get( turn );
 		if ( entries_l == null ) {
-			map__turn__entries.put( turn, new HashSet<CacheEntryTurn>() );
+			map__turn__entries.putIfAbsent( turn, ConcurrentHashMap.newKeySet() );
 			return_null = true;
 		}
 		
@@ -225,6 +353,7 @@ public class ArrivalBoundCache {
 				&& entry.configuration.enforceMaxScOutputRate() == configuration.enforceMaxScOutputRate()
 				&& entry.bounded_flows.size() == bounded_flows.size()
 				&& entry.flow_of_interest.getId() == flow_of_interest.getId()
+				&& entry.region_fingerprint == region_fingerprint
 				&& entry.bounded_flows.containsAll( bounded_flows ) // should be the most expensive operation so do it last 
 			) {
 				return entry;
@@ -233,23 +362,333 @@ public class ArrivalBoundCache {
 		return null;
 	}
 	
+	// Server backlog bounds
+	/**
+	 * The backlog bound of all flows at a server, as used to cap the burstiness of arrival bounds
+	 * of flows leaving the server, see AnalysisConfig.serverBacklogArrivalBound().
+	 * 
+	 * @param configuration
+	 * @param server
+	 * @param region_fingerprint
+	 *            Fingerprint of the server's and its upstream servers' settings.
+	 * @return The cached backlog bound, null if there is none.
+	 */
+	protected Num getServerBacklogBound( AnalysisConfig configuration, Server server, long region_fingerprint ) {
+		CacheEntryServerBacklog entry = map__server_key__backlog_bound.get( new ServerBacklogKey( configuration, server, region_fingerprint ) );
+		recordLookup( entry );
+		if ( entry == null ) {
+			return null;
+		}
+		return entry.backlog_bound.copy();
+	}
+	
+	protected void addServerBacklogBound( AnalysisConfig configuration, Server server, long region_fingerprint, Num backlog_bound ) {
+		ServerBacklogKey key = new ServerBacklogKey( configuration, server, region_fingerprint );
+		synchronized( this ) {
+			// Remove possible old entry
+			CacheEntryServerBacklog entry = map__server_key__backlog_bound.get( key );
+			if ( entry != null ) {
+				removeEntry( entry );
+			}
+			addEntry( new CacheEntryServerBacklog( key, backlog_bound.copy() ) );
+		}
+	}
+	
+	private static class ServerBacklogKey {
+		private Server server;
+		private MultiplexingEnforcement enforce_multiplexing;
+		private MaxScEnforcement enforce_max_sc;
+		private MaxScEnforcement enforce_max_sc_output_rate;
+		private long region_fingerprint;
+		
+		private ServerBacklogKey( AnalysisConfig configuration, Server server, long region_fingerprint ) {
+			this.server = server;
+			this.enforce_multiplexing = configuration.enforceMultiplexing();
+			this.enforce_max_sc = configuration.enforceMaxSC();
+			this.enforce_max_sc_output_rate = configuration.enforceMaxScOutputRate();
+			this.region_fingerprint = region_fingerprint;
+		}
+		
+		@Override
+		public boolean equals( Object obj ) {
+			if ( !( obj instanceof ServerBacklogKey ) ) {
+				return false;
+			}
+			ServerBacklogKey other = (ServerBacklogKey) obj;
+			return server == other.server
+					&& enforce_multiplexing == other.enforce_multiplexing
+					&& enforce_max_sc == other.enforce_max_sc
+					&& enforce_max_sc_output_rate == other.enforce_max_sc_output_rate
+					&& region_fingerprint == other.region_fingerprint;
+		}
+		
+		@Override
+		public int hashCode() {
+			return Objects.hash( server, enforce_multiplexing, enforce_max_sc, enforce_max_sc_output_rate, region_fingerprint );
+		}
+	}
+	
+	// Region fingerprints
+	/**
+	 * With server-local enforcement of multiplexing or max service curves, 
+	 * an arrival bound depends on the according settings of the servers upstream of its location.
+	 * These can be changed between analyses of the same server graph.
+	 * The fingerprint of these settings thus becomes part of the cache key.
+	 * 
+	 * @param server_graph
+	 * @param configuration
+	 * @param server
+	 *            The server seeing the arrival bound, it does not depend on the server's own settings.
+	 * @return The fingerprint of the upstream servers' settings, 0 without server-local enforcement.
+	 */
+	protected static long computeRegionFingerprint( ServerGraph server_graph, AnalysisConfig configuration, Server server ) {
+		if( !dependsOnServerSettings( configuration ) ) {
+			return 0;
+		}
+		return computeRegionFingerprint( server_graph.getAncestors( server ) );
+	}
+	
+	protected static long computeRegionFingerprint( ServerGraph server_graph, AnalysisConfig configuration, Turn turn ) {
+		if( !dependsOnServerSettings( configuration ) ) {
+			return 0;
+		}
+		Set<Server> region = server_graph.getAncestors( turn.getSource() );
+		region.add( turn.getSource() );
+		return computeRegionFingerprint( region );
+	}
+	
+	/**
+	 * Like computeRegionFingerprint( server_graph, configuration, server ) but
+	 * including the settings of the server itself, e.g., for its backlog bound.
+	 */
+	protected static long computeRegionFingerprintIncluding( ServerGraph server_graph, AnalysisConfig configuration, Server server ) {
+		if( !dependsOnServerSettings( configuration ) ) {
+			return 0;
+		}
+		Set<Server> region = server_graph.getAncestors( server );
+		region.add( server );
+		return computeRegionFingerprint( region );
+	}
+	
+	private static boolean dependsOnServerSettings( AnalysisConfig configuration ) {
+		return configuration.enforceMultiplexing() == MultiplexingEnforcement.SERVER_LOCAL
+				|| configuration.enforceMaxSC() == MaxScEnforcement.SERVER_LOCAL
+				|| configuration.enforceMaxScOutputRate() == MaxScEnforcement.SERVER_LOCAL;
+	}
+	
+	private static long computeRegionFingerprint( Set<Server> region ) {
+		// Summing up the servers' hashes makes the fingerprint independent of the iteration order.
+		long fingerprint = region.size();
+		for ( Server server : region ) {
+			fingerprint += spread( hashServerSettings( server ) );
+		}
+		return fingerprint;
+	}
+	
+	/**
+	 * Like computeRegionFingerprint( server_graph, configuration, turn ) but independent of the configuration
+	 * and including the region's content, i.e., the servers' curves as well as the arrival curves of the flows
+	 * crossing the region and their paths within the region and to the turn's destination.
+	 * Hashes of curves do not depend on the JVM run, e.g., to key persistently stored bounds.
+	 * 
+	 * @param server_graph
+	 * @param turn
+	 * @param flows_to_bound
+	 *            The flows bounded at the turn, they are part of the fingerprint even if they are not crossing the region.
+	 * @return The fingerprint of the region's settings and content.
+	 */
+	protected static long computeRegionContentFingerprint( ServerGraph server_graph, Turn turn, Set<Flow> flows_to_bound ) {
+		Set<Server> region = server_graph.getAncestors( turn.getSource() );
+		region.add( turn.getSource() );
+		return computeRegionContentFingerprint( server_graph, region, turn.getDest(), flows_to_bound );
+	}
+	
+	/**
+	 * @see #computeRegionContentFingerprint(ServerGraph, Turn, Set)
+	 */
+	protected static long computeRegionContentFingerprint( ServerGraph server_graph, Server server, Set<Flow> flows_to_bound ) {
+		// The arrivals at the server do not depend on the server itself.
+		return computeRegionContentFingerprint( server_graph, server_graph.getAncestors( server ), server, flows_to_bound );
+	}
+	
+	private static long computeRegionContentFingerprint( ServerGraph server_graph, Set<Server> region, Server location_server, Set<Flow> flows_to_bound ) {
+		long fingerprint = region.size();
+		Set<Flow> region_flows = new HashSet<Flow>( flows_to_bound );
+		for ( Server server : region ) {
+			long server_hash = hashServerSettings( server );
+			server_hash = server_hash * 31 + hashCurve( server.getServiceCurve() );
+			server_hash = server_hash * 31 + hashCurve( server.getStoredMaxSC() );
+			fingerprint += spread( server_hash );
+			
+			region_flows.addAll( server_graph.getFlows( server ) );
+		}
+		
+		long flows_fingerprint = region_flows.size();
+		for ( Flow flow : region_flows ) {
+			long flow_hash = flow.getId();
+			flow_hash = flow_hash * 31 + hashCurve( flow.getArrivalCurve() );
+			for ( Server server : flow.getServersOnPath() ) {
+				if( region.contains( server ) || server == location_server ) {
+					flow_hash = flow_hash * 31 + server.getId();
+				}
+			}
+			flows_fingerprint += spread( flow_hash );
+		}
+		return fingerprint * 31 + flows_fingerprint;
+	}
+	
+	private static long hashServerSettings( Server server ) {
+		long server_hash = server.getId();
+		server_hash = server_hash * 31 + server.multiplexing().ordinal();
+		server_hash = server_hash * 31 + ( server.useMaxSC() ? 1 : 0 );
+		server_hash = server_hash * 31 + ( server.useMaxScRate() ? 1 : 0 );
+		return server_hash;
+	}
+	
+	private static long hashCurve( Curve curve ) {
+		if( curve == null ) {
+			return 0;
+		}
+		long curve_hash = curve.getSegmentCount();
+		for ( int i = 0; i < curve.getSegmentCount(); i++ ) {
+			LinearSegment segment = curve.getSegment( i );
+			curve_hash = curve_hash * 31 + hashNum( segment.getX() );
+			curve_hash = curve_hash * 31 + hashNum( segment.getY() );
+			curve_hash = curve_hash * 31 + hashNum( segment.getGrad() );
+			curve_hash = curve_hash * 31 + ( segment.isLeftopen() ? 1 : 0 );
+		}
+		return curve_hash;
+	}
+	
+	private static long hashNum( Num num ) {
+		// Other backends than doubles would lose precision, their string representation's hash is stable as well.
+		if( Calculator.getInstance().getNumBackend() == NumBackend.REAL_DOUBLE_PRECISION ) {
+			return Double.doubleToLongBits( num.doubleValue() );
+		}
+		return num.toString().hashCode();
+	}
+	
+	/**
+	 * Spreads the bits (splitmix64 finalizer) before the hashes are summed up.
+	 */
+	private static long spread( long hash ) {
+		hash = ( hash ^ ( hash >>> 30 ) ) * 0xbf58476d1ce4e5b9L;
+		hash = ( hash ^ ( hash >>> 27 ) ) * 0x94d049bb133111ebL;
+		return hash ^ ( hash >>> 31 );
+	}
+	
+	// Cache statistics
+	public static class Statistics {
+		private long hits;
+		private long misses;
+		private long evictions;
+		private int entries;
+		private long bytes;
+		
+		protected Statistics( long hits, long misses, long evictions, int entries, long bytes ) {
+			this.hits = hits;
+			this.misses = misses;
+			this.evictions = evictions;
+			this.entries = entries;
+			this.bytes = bytes;
+		}
+		
+		/**
+		 * @return The statistics of both caches combined, e.g., of the shared and a separate cache for the same methods.
+		 */
+		protected Statistics add( Statistics other ) {
+			return new Statistics( hits + other.hits, misses + other.misses, evictions + other.evictions,
+					entries + other.entries, bytes + other.bytes );
+		}
+		
+		/**
+		 * @return The statistics of a dropped cache, i.e., without the entries that are gone.
+		 */
+		protected Statistics withoutEntries() {
+			return new Statistics( hits, misses, evictions, 0, 0 );
+		}
+		
+		public long getHits() {
+			return hits;
+		}
+		
+		public long getMisses() {
+			return misses;
+		}
+		
+		public long getEvictions() {
+			return evictions;
+		}
+		
+		public int getEntries() {
+			return entries;
+		}
+		
+		/**
+		 * @return The estimated size of all entries in bytes.
+		 */
+		public long getBytes() {
+			return bytes;
+		}
+		
+		@Override
+		public String toString() {
+			return "ArrivalBoundCache.Statistics(hits=" + hits + ", misses=" + misses + ", evictions=" + evictions
+					+ ", entries=" + entries + ", bytes=" + bytes + ")";
+		}
+	}
+	
 	// Cache entry types
-	class CacheEntry {
+	abstract class CacheEntry {
 		protected AnalysisConfig configuration;
 		protected Set<Flow> bounded_flows;
 		protected Flow flow_of_interest;
+		protected long region_fingerprint;
 		protected Set<ArrivalCurve> arrival_bounds;
 		
 		protected CacheEntry( AnalysisConfig configuration,
 							  Set<Flow> bounded_flows,
 							  Flow flow_of_interest,
+							  long region_fingerprint,
 							  Set<ArrivalCurve> arrival_bounds ) {
 			this.configuration = configuration;
 			this.bounded_flows = bounded_flows;
 			this.flow_of_interest = flow_of_interest;
+			this.region_fingerprint = region_fingerprint;
 			this.arrival_bounds = arrival_bounds;
 		}
 		
+		/**
+		 * @return The estimated heap usage of the entry in bytes, counted against the cache's size limit.
+		 */
+		protected long estimateBytes() {
+			long segments = 0;
+			for ( ArrivalCurve arrival_bound : arrival_bounds ) {
+				segments += arrival_bound.getSegmentCount();
+			}
+			return BYTES_PER_ENTRY + BYTES_PER_FLOW * bounded_flows.size() + BYTES_PER_SEGMENT * segments;
+		}
+		
+		// Add to or remove from the per server/turn entry sets.
+		protected abstract void link();
+		
+		protected abstract void unlink();
+		
+		/**
+		 * Curves are not safe to be shared among concurrent computations,
+		 * e.g., Curve.beautify( ... ) works in-place.
+		 * Cache lookups therefore return copies of the stored arrival bounds.
+		 * 
+		 * @return A new set of copies of the stored arrival bounds.
+		 */
+		protected Set<ArrivalCurve> copyArrivalBounds() {
+			Set<ArrivalCurve> arrival_bounds_copy = new HashSet<ArrivalCurve>();
+			for ( ArrivalCurve arrival_bound : arrival_bounds ) {
+				arrival_bounds_copy.add( arrival_bound.copy() );
+			}
+			return arrival_bounds_copy;
+		}
+		
 		@Override
 		public String toString() {
 			String result = "CacheEntry(";
@@ -287,11 +726,25 @@ public class ArrivalBoundCache {
 									Server server,
 									Set<Flow> bounded_flows,
 									Flow flow_of_interest,
+									long region_fingerprint,
 									Set<ArrivalCurve> arrival_bounds ) {
-			super( configuration, bounded_flows, flow_of_interest, arrival_bounds );
+			super( configuration, bounded_flows, flow_of_interest, region_fingerprint, arrival_bounds );
 			this.server = server;
 		}
 		
+		@Override
+		protected void link() {
+			map__server__entries.computeIfAbsent( server, s -> ConcurrentHashMap.newKeySet() ).add( this );
+		}
+		
+		@Override
+		protected void unlink() {
+			Set<CacheEntryServer> entries_s = map__server__entries.get( server );
+			if ( entries_s != null ) {
+				entries_s.remove( this );
+			}
+		}
+		
 		@Override
 		public String toString() {
 			String superclass = super.toString();
@@ -312,11 +765,24 @@ public class ArrivalBoundCache {
 	class CacheEntryTurn extends CacheEntry {
 		protected Turn turn;
 		
-		protected CacheEntryTurn( AnalysisConfig configuration, Turn turn, Set<Flow> bounded_flows, Flow flow_of_interest, Set<ArrivalCurve> arrival_bounds ) {
-			super( configuration, bounded_flows, flow_of_interest, arrival_bounds );
+		protected CacheEntryTurn( AnalysisConfig configuration, Turn turn, Set<Flow> bounded_flows, Flow flow_of_interest, long region_fingerprint, Set<ArrivalCurve> arrival_bounds ) {
+			super( configuration, bounded_flows, flow_of_interest, region_fingerprint, arrival_bounds );
 			this.turn = turn;
 		}
 		
+		@Override
+		protected void link() {
+			map__turn__entries.computeIfAbsent( turn, l -> ConcurrentHashMap.newKeySet() ).add( this );
+		}
+		
+		@Override
+		protected void unlink() {
+			Set<CacheEntryTurn> entries_l = map__turn__entries.get( turn );
+			if ( entries_l != null ) {
+				entries_l.remove( this );
+			}
+		}
+		
 		@Override
 		public String toString() {
 			String superclass = super.toString();
@@ -334,4 +800,38 @@ public class ArrivalBoundCache {
 			return result + superclass;
 		}
 	}
-}
\ No newline at end of file
+
+	class CacheEntryServerBacklog extends CacheEntry {
+		protected ServerBacklogKey key;
+		protected Num backlog_bound;
+		
+		protected CacheEntryServerBacklog( ServerBacklogKey key, Num backlog_bound ) {
+			super( null, Collections.<Flow>emptySet(), Flow.NULL_FLOW, key.region_fingerprint, Collections.<ArrivalCurve>emptySet() );
+			this.key = key;
+			this.backlog_bound = backlog_bound;
+		}
+		
+		@Override
+		protected long estimateBytes() {
+			return BYTES_PER_ENTRY;
+		}
+		
+		@Override
+		protected void link() {
+			map__server_key__backlog_bound.put( key, this );
+		}
+		
+		@Override
+		protected void unlink() {
+			map__server_key__backlog_bound.remove( key, this );
+		}
+		
+		@Override
+		public String toString() {
+			return "CacheEntryServerBacklog(" + key.server.toString() + "; " + backlog_bound.toString() + "; "
+					+ key.enforce_multiplexing + "; " 
+					+ key.enforce_max_sc + "; "
+					+ key.enforce_max_sc_output_rate + ")";
+		}
+	}
+}
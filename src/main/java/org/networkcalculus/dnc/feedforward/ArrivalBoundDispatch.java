@@ -27,17 +27,30 @@
 package org.networkcalculus.dnc.feedforward;
 
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.math3.util.Pair;
 
 import org.networkcalculus.dnc.AnalysisConfig;
 import org.networkcalculus.dnc.Calculator;
 import org.networkcalculus.dnc.AnalysisConfig.ArrivalBoundMethod;
-import org.networkcalculus.dnc.AnalysisConfig.MultiplexingEnforcement;
 import org.networkcalculus.dnc.curves.ArrivalCurve;
 import org.networkcalculus.dnc.curves.Curve;
 import org.networkcalculus.dnc.curves.Curve_ConstantPool;
@@ -47,39 +60,235 @@ import org.networkcalculus.dnc.feedforward.arrivalbounds.AggregatePboo_PerServer
 import org.networkcalculus.dnc.feedforward.arrivalbounds.AggregatePmoo;
 import org.networkcalculus.dnc.feedforward.arrivalbounds.AggregateTandemMatching;
 import org.networkcalculus.dnc.network.server_graph.Flow;
+import org.networkcalculus.dnc.network.server_graph.Path;
 import org.networkcalculus.dnc.network.server_graph.Server;
 import org.networkcalculus.dnc.network.server_graph.ServerGraph;
 import org.networkcalculus.dnc.network.server_graph.Turn;
+import org.networkcalculus.dnc.tandem.AnalysisBudget;
 import org.networkcalculus.dnc.tandem.analyses.PmooAnalysis;
 import org.networkcalculus.dnc.tandem.analyses.SeparateFlowAnalysis;
 import org.networkcalculus.dnc.tandem.analyses.TandemMatchingAnalysis;
+import org.networkcalculus.dnc.tandem.analyses.TotalFlowAnalysis;
+import org.networkcalculus.dnc.utils.Diagnostics;
 import org.networkcalculus.dnc.utils.SetUtils;
+import org.networkcalculus.num.Num;
 
 public abstract class ArrivalBoundDispatch {
 	// --------------------------------------------------------------------------------------------------------------
 	// Arrival Bound Cache
 	// --------------------------------------------------------------------------------------------------------------
-	protected static Map<Set<ArrivalBoundMethod>,ArrivalBoundCache> ab_caches = new HashMap<Set<ArrivalBoundMethod>,ArrivalBoundCache>();
+	protected static Map<Set<ArrivalBoundMethod>,ArrivalBoundCache> ab_caches = new ConcurrentHashMap<Set<ArrivalBoundMethod>,ArrivalBoundCache>();
+	private static volatile int cache_max_entries = Integer.MAX_VALUE;
+	private static volatile long cache_max_bytes = Long.MAX_VALUE;
+	private static ArrivalBoundStore ab_store = null;
 	
-	private static ArrivalBoundCache getCache( Set<ArrivalBoundMethod> ab_methods ) {
-		for ( Entry<Set<ArrivalBoundMethod>,ArrivalBoundCache> cache_entry : ab_caches.entrySet() ) {
-			if( cache_entry.getKey().size() == ab_methods.size()
-					&& cache_entry.getKey().containsAll( ab_methods ) ) {
-				return cache_entry.getValue();
-			}
+	// --------------------------------------------------------------------------------------------------------------
+	// Arrival Bound Race
+	// --------------------------------------------------------------------------------------------------------------
+	// Bounded as races only start outside of races, the arrival bounds a racing method depends on are computed inline.
+	private static ExecutorService ab_race_executor = Executors.newFixedThreadPool( Runtime.getRuntime().availableProcessors(), runnable -> {
+		Thread ab_race_thread = new Thread( runnable, "dnc-arrival-bound-race" );
+		ab_race_thread.setDaemon( true );
+		return ab_race_thread;
+	} );
+	
+	/**
+	 * The budget of a racing method, cancelled once the method lost the race.
+	 * It marks the method's computations as part of a race, i.e., they do not race again.
+	 */
+	private static class ArrivalBoundRaceBudget extends AnalysisBudget {
+		private ArrivalBoundRaceBudget( AnalysisBudget budget ) {
+			super( budget );
+		}
+	}
+
+	private static Set<ArrivalBoundMethod> ab_race_cancellable = Collections.unmodifiableSet( EnumSet.of(
+			ArrivalBoundMethod.AGGR_TM, ArrivalBoundMethod.SEGR_PMOO, ArrivalBoundMethod.SEGR_TM ) );
+	
+	// --------------------------------------------------------------------------------------------------------------
+	// Method-granular Arrival Bounds
+	// --------------------------------------------------------------------------------------------------------------
+	private static Set<ArrivalBoundMethod> ab_methods_segregated = Collections.unmodifiableSet( EnumSet.of(
+			ArrivalBoundMethod.SEGR_PBOO, ArrivalBoundMethod.SEGR_PMOO, ArrivalBoundMethod.SEGR_TM ) );
+	// Keys the segregated bounds, they are stored as derived and combined according to the caller's configuration.
+	private static AnalysisConfig ab_segregated_configuration = createSegregatedConfiguration();
+	
+	private static AnalysisConfig createSegregatedConfiguration() {
+		AnalysisConfig configuration = new AnalysisConfig();
+		configuration.setConvolveAlternativeArrivalBounds( false );
+		return configuration;
+	}
+	
+	// Server graphs with caches of their own, see useSeparateCaches( server_graph ).
+	private static Map<ServerGraph,Map<Set<ArrivalBoundMethod>,ArrivalBoundCache>> map__server_graph__ab_caches = new ConcurrentHashMap<ServerGraph,Map<Set<ArrivalBoundMethod>,ArrivalBoundCache>>();
+	
+	// Statistics of the separate caches that were released, see releaseSeparateCaches( server_graph ).
+	private static Map<Set<ArrivalBoundMethod>,ArrivalBoundCache.Statistics> map__ab_methods__released_statistics = new ConcurrentHashMap<Set<ArrivalBoundMethod>,ArrivalBoundCache.Statistics>();
+	
+	// Sets compare by their elements, i.e., any set of the same methods finds the cache.
+	// Lookups do not lock, concurrent analyses only contend for the caches themselves.
+	private static ArrivalBoundCache getCache( ServerGraph server_graph, Set<ArrivalBoundMethod> ab_methods ) {
+		Map<Set<ArrivalBoundMethod>,ArrivalBoundCache> ab_caches_server_graph = map__server_graph__ab_caches.get( server_graph );
+		if( ab_caches_server_graph == null ) {
+			ab_caches_server_graph = ab_caches;
 		}
 		
-		// Reaching this code here means that there is
-		// no cache for this set of ab_methods in the set of caches yet.
-		// So we create one, add it to the map and return it.
-		ArrivalBoundCache new_ab_cache = new ArrivalBoundCache();
-		ab_caches.put( ab_methods, new_ab_cache );
+		ArrivalBoundCache ab_cache = ab_caches_server_graph.get( ab_methods );
+		if( ab_cache != null ) {
+			return ab_cache;
+		}
 		
-		return new_ab_cache;
+		// The key must not change with the caller's set.
+		return ab_caches_server_graph.computeIfAbsent( Collections.unmodifiableSet( new HashSet<ArrivalBoundMethod>( ab_methods ) ), key -> {
+			ArrivalBoundCache new_ab_cache = new ArrivalBoundCache();
+			new_ab_cache.setLimits( cache_max_entries, cache_max_bytes );
+			return new_ab_cache;
+		} );
 	}
 	
 	public static void clearAllCaches() {
 		ab_caches.clear();
+		for ( Map<Set<ArrivalBoundMethod>,ArrivalBoundCache> ab_caches_server_graph : map__server_graph__ab_caches.values() ) {
+			ab_caches_server_graph.clear();
+		}
+		map__ab_methods__released_statistics.clear();
+	}
+	
+	/**
+	 * Arrival bounds computed in the given server graph are cached in caches of its own
+	 * instead of the shared ones until releaseSeparateCaches( server_graph ) is called.
+	 * Server graphs that are analyzed concurrently, e.g., the components of a ServerGraphPartition,
+	 * then neither contend for nor evict each other's entries.
+	 * 
+	 * @param server_graph
+	 *            The server graph to get separate caches.
+	 * @return <code>false</code> if the server graph already used separate caches.
+	 */
+	public static boolean useSeparateCaches( ServerGraph server_graph ) {
+		return map__server_graph__ab_caches.putIfAbsent( server_graph, new ConcurrentHashMap<Set<ArrivalBoundMethod>,ArrivalBoundCache>() ) == null;
+	}
+	
+	/**
+	 * Drops the separate caches of the given server graph. Its arrival bounds are cached
+	 * in the shared caches again afterwards. The hits, misses and evictions of the dropped caches
+	 * remain part of getCacheStatistics().
+	 * 
+	 * @param server_graph
+	 *            The server graph whose separate caches are dropped.
+	 * @return The statistics of the dropped caches per set of arrival bound methods.
+	 */
+	public static Map<Set<ArrivalBoundMethod>,ArrivalBoundCache.Statistics> releaseSeparateCaches( ServerGraph server_graph ) {
+		Map<Set<ArrivalBoundMethod>,ArrivalBoundCache.Statistics> statistics = new HashMap<Set<ArrivalBoundMethod>,ArrivalBoundCache.Statistics>();
+		Map<Set<ArrivalBoundMethod>,ArrivalBoundCache> ab_caches_server_graph = map__server_graph__ab_caches.remove( server_graph );
+		if( ab_caches_server_graph == null ) {
+			return statistics;
+		}
+		
+		for ( Entry<Set<ArrivalBoundMethod>,ArrivalBoundCache> cache_entry : ab_caches_server_graph.entrySet() ) {
+			ArrivalBoundCache.Statistics statistics_cache = cache_entry.getValue().getStatistics();
+			statistics.put( cache_entry.getKey(), statistics_cache );
+			map__ab_methods__released_statistics.merge( cache_entry.getKey(), statistics_cache.withoutEntries(), ArrivalBoundCache.Statistics::add );
+		}
+		return statistics;
+	}
+	
+	/**
+	 * Bounds every arrival bound cache, i.e., the one per set of arrival bound methods.
+	 * Least recently used entries are evicted first. By default, the caches are unbounded.
+	 * 
+	 * @param max_entries
+	 *            Maximum number of entries per cache, Integer.MAX_VALUE for no limit.
+	 * @param max_bytes
+	 *            Maximum estimated size per cache, derived from the segment counts of the cached curves.
+	 *            Long.MAX_VALUE for no limit.
+	 */
+	public static synchronized void setCacheLimits( int max_entries, long max_bytes ) {
+		cache_max_entries = max_entries;
+		cache_max_bytes = max_bytes;
+		for ( ArrivalBoundCache ab_cache : ab_caches.values() ) {
+			ab_cache.setLimits( max_entries, max_bytes );
+		}
+		for ( Map<Set<ArrivalBoundMethod>,ArrivalBoundCache> ab_caches_server_graph : map__server_graph__ab_caches.values() ) {
+			for ( ArrivalBoundCache ab_cache : ab_caches_server_graph.values() ) {
+				ab_cache.setLimits( max_entries, max_bytes );
+			}
+		}
+	}
+	
+	/**
+	 * Sets a persistent store that is consulted before computing an arrival bound
+	 * that was not found in the in-memory cache. Computed arrival bounds are added to it.
+	 * Like the in-memory cache, it is only used if the configuration allows for caching arrival bounds.
+	 * 
+	 * @param store
+	 *            The store to use, null to disable persistence.
+	 */
+	public static void setArrivalBoundStore( ArrivalBoundStore store ) {
+		ab_store = store;
+	}
+	
+	/**
+	 * @return The statistics per set of arrival bound methods, including the server backlog bounds.
+	 *         The separate caches of server graphs, see useSeparateCaches( server_graph ),
+	 *         are added to the shared cache's statistics of the same set of methods.
+	 *         Released separate caches still count their hits, misses and evictions.
+	 */
+	public static Map<Set<ArrivalBoundMethod>,ArrivalBoundCache.Statistics> getCacheStatistics() {
+		Map<Set<ArrivalBoundMethod>,ArrivalBoundCache.Statistics> statistics = new HashMap<Set<ArrivalBoundMethod>,ArrivalBoundCache.Statistics>();
+		for ( Entry<Set<ArrivalBoundMethod>,ArrivalBoundCache> cache_entry : ab_caches.entrySet() ) {
+			statistics.put( cache_entry.getKey(), cache_entry.getValue().getStatistics() );
+		}
+		for ( Map<Set<ArrivalBoundMethod>,ArrivalBoundCache> ab_caches_server_graph : map__server_graph__ab_caches.values() ) {
+			for ( Entry<Set<ArrivalBoundMethod>,ArrivalBoundCache> cache_entry : ab_caches_server_graph.entrySet() ) {
+				statistics.merge( cache_entry.getKey(), cache_entry.getValue().getStatistics(), ArrivalBoundCache.Statistics::add );
+			}
+		}
+		for ( Entry<Set<ArrivalBoundMethod>,ArrivalBoundCache.Statistics> released_entry : map__ab_methods__released_statistics.entrySet() ) {
+			statistics.merge( released_entry.getKey(), released_entry.getValue(), ArrivalBoundCache.Statistics::add );
+		}
+		return statistics;
+	}
+	
+	/**
+	 * The minimum TFA backlog bound of all flows at the server. All computations of an analysis,
+	 * e.g., the burst caps of arrival bounds leaving this server, share the bound via the
+	 * arrival bound cache if the configuration allows for caching arrival bounds.
+	 * 
+	 * @param server_graph
+	 * @param configuration
+	 * @param server
+	 * @return The server's backlog bound.
+	 * @throws Exception
+	 *             Potential exception raised in the total flow analysis.
+	 */
+	public static Num computeServerBacklogBound( ServerGraph server_graph, AnalysisConfig configuration, Server server ) throws Exception {
+		return computeServerBacklogBound( server_graph, configuration, server, null );
+	}
+	
+	/**
+	 * @param budget
+	 *            The budget of the analysis the bound is derived for, <code>null</code> if there is none.
+	 *            Bounds derived after it was exhausted are not cached.
+	 */
+	public static Num computeServerBacklogBound( ServerGraph server_graph, AnalysisConfig configuration, Server server, AnalysisBudget budget ) throws Exception {
+		long region_fingerprint = 0;
+		if( configuration.useArrivalBoundsCache() ) {
+			region_fingerprint = ArrivalBoundCache.computeRegionFingerprintIncluding( server_graph, configuration, server );
+			Num backlog_bound = getCache( server_graph, configuration.arrivalBoundMethods() ).getServerBacklogBound( configuration, server, region_fingerprint );
+			if( backlog_bound != null ) {
+				return backlog_bound;
+			}
+		}
+		
+		// For the DNC, it is easiest to use TFA to compute the server's backlog bound.
+		TotalFlowAnalysis tfa = new TotalFlowAnalysis( server_graph, configuration );
+		tfa.setBudget( budget );
+		Num backlog_bound = tfa.deriveBoundsAtServer( server ).getSecond();
+		
+		if( configuration.useArrivalBoundsCache() && isCacheable( budget ) ) {
+			getCache( server_graph, configuration.arrivalBoundMethods() ).addServerBacklogBound( configuration, server, region_fingerprint, backlog_bound );
+		}
+		return backlog_bound;
 	}
 	
 	// --------------------------------------------------------------------------------------------------------------
@@ -91,6 +300,11 @@ public abstract class ArrivalBoundDispatch {
 		return computeArrivalBounds(server_graph, configuration, server, server_graph.getFlows(server), Flow.NULL_FLOW);
 	}
 
+	public static Set<ArrivalCurve> computeArrivalBounds(ServerGraph server_graph, AnalysisConfig configuration, Server server,
+			AnalysisBudget budget) throws Exception {
+		return computeArrivalBounds(server_graph, configuration, server, server_graph.getFlows(server), Flow.NULL_FLOW, budget);
+	}
+
 	/**
 	 * The flow_of_interest low priority supersedes the wish to bound all flows in
 	 * flows_to_bound, i.e., if flow_of_interest will be removed from flows_to_bound
@@ -113,6 +327,17 @@ public abstract class ArrivalBoundDispatch {
 	 */
 	public static Set<ArrivalCurve> computeArrivalBounds(ServerGraph server_graph, AnalysisConfig configuration, Server server,
 															Set<Flow> flows_to_bound, Flow flow_of_interest) throws Exception {
+		return computeArrivalBounds(server_graph, configuration, server, flows_to_bound, flow_of_interest, null);
+	}
+
+	/**
+	 * @param budget
+	 *            The budget of the analysis the arrival bound is derived for, checked by the nested analyses.
+	 *            Arrival bounds derived after it was exhausted may be less tight, they are not cached.
+	 * @see #computeArrivalBounds(ServerGraph, AnalysisConfig, Server, Set, Flow)
+	 */
+	public static Set<ArrivalCurve> computeArrivalBounds(ServerGraph server_graph, AnalysisConfig configuration, Server server,
+															Set<Flow> flows_to_bound, Flow flow_of_interest, AnalysisBudget budget) throws Exception {
 		flows_to_bound.remove(flow_of_interest);
 		Set<ArrivalCurve> arrival_bounds = new HashSet<ArrivalCurve>(
 				Collections.singleton(Curve_ConstantPool.ZERO_ARRIVAL_CURVE.get()));
@@ -126,14 +351,15 @@ public abstract class ArrivalBoundDispatch {
 			return arrival_bounds;
 		}
 		
-		if( configuration.useArrivalBoundsCache() 
-				&& configuration.enforceMultiplexing() != MultiplexingEnforcement.SERVER_LOCAL ) { // Do not cache in that case. Too many variables, the cache does not check all of them.
-			ArrivalBoundCache.CacheEntryServer entry = getCache( configuration.arrivalBoundMethods() ).getCacheEntry( configuration, server, flows_to_bound, flow_of_interest );
+		long region_fingerprint = 0;
+		if( configuration.useArrivalBoundsCache() ) {
+			region_fingerprint = ArrivalBoundCache.computeRegionFingerprint( server_graph, configuration, server );
+			ArrivalBoundCache.CacheEntryServer entry = getCache( server_graph, configuration.arrivalBoundMethods() ).getCacheEntry( configuration, server, flows_to_bound, flow_of_interest, region_fingerprint );
 			if( entry != null && !entry.arrival_bounds.isEmpty()
 					&& !(entry.arrival_bounds.size() > 1 && configuration.convolveAlternativeArrivalBounds()) // Inconsistency between current cache content and current setting.
 					) {
-				// Be cautious here! By using the original cache entry instead of the getArrivalBounds function, we need to repack the result in a new set manually!
-				return new HashSet<ArrivalCurve>( entry.arrival_bounds );
+				// Be cautious here! By using the original cache entry instead of the getArrivalBounds function, we need to repack the result (copies of the curves) in a new set manually!
+				return entry.copyArrivalBounds();
 			}
 		}
 
@@ -149,6 +375,17 @@ public abstract class ArrivalBoundDispatch {
 				return arrival_bounds;
 			}
 		}
+		
+		ArrivalBoundStore ab_store_used = ab_store;
+		byte[] ab_store_key = null;
+		if( ab_store_used != null && configuration.useArrivalBoundsCache() ) {
+			ab_store_key = ArrivalBoundStore.computeKey( server_graph, configuration, server, flows_to_bound, flow_of_interest );
+			Set<ArrivalCurve> arrival_bounds_stored = ab_store_used.get( ab_store_key );
+			if( arrival_bounds_stored != null ) {
+				getCache( server_graph, configuration.arrivalBoundMethods() ).addArrivalBounds( configuration, server, flows_to_bound, flow_of_interest, region_fingerprint, arrival_bounds_stored );
+				return arrival_bounds_stored;
+			}
+		}
 
 		// Get cross-traffic from each predecessor. Call per turn in order to get
 		// splitting points.
@@ -166,7 +403,7 @@ public abstract class ArrivalBoundDispatch {
 				continue;
 			}
 
-			arrival_bounds_turn = computeArrivalBounds(server_graph, configuration, in_l, f_xfcaller_in_l, flow_of_interest);
+			arrival_bounds_turn = computeArrivalBounds(server_graph, configuration, in_l, f_xfcaller_in_l, flow_of_interest, budget);
 
 			// Add the new bounds to the others:
 			// * Consider all the permutations of different bounds per in turn.
@@ -188,11 +425,13 @@ public abstract class ArrivalBoundDispatch {
 			arrival_bounds = new HashSet<ArrivalCurve>( Collections.singleton( Calculator.getInstance().getMinPlus().convolve( arrival_bounds ) ) );
 		} 
 		
-		if( configuration.useArrivalBoundsCache() 
-				&& configuration.enforceMultiplexing() != MultiplexingEnforcement.SERVER_LOCAL ) { // Do not cache in that case. Too many variables, the cache does not check all of them.
+		if( configuration.useArrivalBoundsCache() && isCacheable( budget ) ) {
 			
 			// As we checked for an existing cache entry at the beginning (and returned it of present), we do not hav to care about the potential overwriting of a cache entry here. 
-			getCache( configuration.arrivalBoundMethods() ).addArrivalBounds( configuration, server, flows_to_bound, flow_of_interest, arrival_bounds );
+			getCache( server_graph, configuration.arrivalBoundMethods() ).addArrivalBounds( configuration, server, flows_to_bound, flow_of_interest, region_fingerprint, arrival_bounds );
+		}
+		if( ab_store_key != null && isCacheable( budget ) ) {
+			ab_store_used.put( ab_store_key, arrival_bounds );
 		}
 		
 		return new HashSet<ArrivalCurve>( arrival_bounds );
@@ -200,122 +439,317 @@ public abstract class ArrivalBoundDispatch {
 
 	public static Set<ArrivalCurve> computeArrivalBounds(ServerGraph server_graph, AnalysisConfig configuration, Turn turn,
 			Set<Flow> flows_to_bound, Flow flow_of_interest) throws Exception {
+		return computeArrivalBounds(server_graph, configuration, turn, flows_to_bound, flow_of_interest, null);
+	}
+
+	/**
+	 * @param budget
+	 *            The budget of the analysis the arrival bound is derived for, checked by the nested analyses.
+	 *            Arrival bounds derived after it was exhausted may be less tight, they are not cached.
+	 */
+	public static Set<ArrivalCurve> computeArrivalBounds(ServerGraph server_graph, AnalysisConfig configuration, Turn turn,
+			Set<Flow> flows_to_bound, Flow flow_of_interest, AnalysisBudget budget) throws Exception {
 		flows_to_bound.remove(flow_of_interest);
 		if (flows_to_bound.isEmpty()) {
 			return new HashSet<ArrivalCurve>(Collections.singleton(Curve_ConstantPool.ZERO_ARRIVAL_CURVE.get()));
 		}
 		
-		if( configuration.useArrivalBoundsCache() && configuration.enforceMultiplexing() != MultiplexingEnforcement.SERVER_LOCAL ) { // Do not cache in that case. Too many variables.
-			ArrivalBoundCache.CacheEntryTurn entry = getCache( configuration.arrivalBoundMethods() ).getCacheEntry( configuration, turn, flows_to_bound, flow_of_interest );
+		long region_fingerprint = 0;
+		if( configuration.useArrivalBoundsCache() ) {
+			region_fingerprint = ArrivalBoundCache.computeRegionFingerprint( server_graph, configuration, turn );
+			ArrivalBoundCache.CacheEntryTurn entry = getCache( server_graph, configuration.arrivalBoundMethods() ).getCacheEntry( configuration, turn, flows_to_bound, flow_of_interest, region_fingerprint );
 			if( entry != null && !entry.arrival_bounds.isEmpty()
 					&& !(entry.arrival_bounds.size() > 1 && configuration.convolveAlternativeArrivalBounds()) // Inconsistency between current cache content and current setting.
 					) {
-				// Be cautious here! By using the original cache entry instead of the getArrivalBounds function, we need to repack the result in a new set manually!
-				return new HashSet<ArrivalCurve>( entry.arrival_bounds );
+				// Be cautious here! By using the original cache entry instead of the getArrivalBounds function, we need to repack the result (copies of the curves) in a new set manually!
+				return entry.copyArrivalBounds();
+			}
+		}
+		
+		ArrivalBoundStore ab_store_used = ab_store;
+		byte[] ab_store_key = null;
+		if( ab_store_used != null && configuration.useArrivalBoundsCache() ) {
+			ab_store_key = ArrivalBoundStore.computeKey( server_graph, configuration, turn, flows_to_bound, flow_of_interest );
+			Set<ArrivalCurve> arrival_bounds_stored = ab_store_used.get( ab_store_key );
+			if( arrival_bounds_stored != null ) {
+				getCache( server_graph, configuration.arrivalBoundMethods() ).addArrivalBounds( configuration, turn, flows_to_bound, flow_of_interest, region_fingerprint, arrival_bounds_stored );
+				return arrival_bounds_stored;
 			}
 		}
 
 		Set<ArrivalCurve> arrival_bounds_xfcaller = new HashSet<ArrivalCurve>();
+		boolean arrival_bounds_complete = true;
 		
-		for (AnalysisConfig.ArrivalBoundMethod arrival_bound_method : configuration.arrivalBoundMethods()) {
-			Set<ArrivalCurve> arrival_bounds_tmp = new HashSet<ArrivalCurve>();
-
-			switch (arrival_bound_method) {
-			case AGGR_PBOO_PER_SERVER:
-				AggregatePboo_PerServer aggr_pboo_per_server = AggregatePboo_PerServer.getInstance();
-				aggr_pboo_per_server.setServerGraph(server_graph);
-				aggr_pboo_per_server.setConfiguration(configuration);
-				arrival_bounds_tmp = aggr_pboo_per_server.computeArrivalBound(turn, flows_to_bound, flow_of_interest);
-				break;
-
-			case AGGR_PBOO_CONCATENATION:
-				AggregatePboo_Concatenation aggr_pboo_concatenation = AggregatePboo_Concatenation.getInstance();
-				aggr_pboo_concatenation.setServerGraph(server_graph);
-				aggr_pboo_concatenation.setConfiguration(configuration);
-				arrival_bounds_tmp = aggr_pboo_concatenation.computeArrivalBound(turn, flows_to_bound, flow_of_interest);
-				break;
-
-			case AGGR_PMOO:
-				AggregatePmoo aggr_pmoo = AggregatePmoo.getInstance();
-				aggr_pmoo.setServerGraph(server_graph);
-				aggr_pmoo.setConfiguration(configuration);
-				arrival_bounds_tmp = aggr_pmoo.computeArrivalBound(turn, flows_to_bound, flow_of_interest);
-				break;
-
-			/* 
-			 * There are no functional tests for Tandem Matching-based arrival bounding
-			 * or segregate arrival bounding methods. 
-			 */
-				
-			case AGGR_TM:
-				AggregateTandemMatching aggr_tm = AggregateTandemMatching.getInstance();
-				aggr_tm.setServerGraph(server_graph);
-				aggr_tm.setConfiguration(configuration);
-				arrival_bounds_tmp = aggr_tm.computeArrivalBound(turn, flows_to_bound, flow_of_interest);
-				break;
-
-			// This arrival bound is known to be inferior to PMOO and the PBOO_* variants.
-			case SEGR_PBOO:
-				for (Flow flow : flows_to_bound) {
-					SeparateFlowAnalysis sfa = new SeparateFlowAnalysis(server_graph);
-					sfa.performAnalysis(flow, flow.getSubPath(flow.getSource(), turn.getSource()));
-
-					arrival_bounds_tmp = getPermutations(arrival_bounds_tmp,
-							singleFlowABs(configuration, flow.getArrivalCurve(), sfa.getLeftOverServiceCurves()));
-				}
-				break;
-
-			// This arrival bound can yield better results than PMOO and the PBOO_* variants. See:
-			/*
-			 * Catching Corner Cases in Network Calculus - Flow Segregation Can Improve Accuracy.
-			 * Steffen Bondorf, Paul Nikolaus and Jens B. Schmitt,
-			 * In Proceedings of 19th International GI/ITG Conference on 
-			 * Measurement, Modelling and Evaluation of Computing Systems (MMB), 2018.
-			 */
-			case SEGR_PMOO:
-				for (Flow flow : flows_to_bound) {
-					PmooAnalysis pmoo = new PmooAnalysis(server_graph);
-					pmoo.performAnalysis(flow, flow.getSubPath(flow.getSource(), turn.getSource()));
-
-					arrival_bounds_tmp = getPermutations(arrival_bounds_tmp,
-							singleFlowABs(configuration, flow.getArrivalCurve(), pmoo.getLeftOverServiceCurves()));
-				}
-				break;
-
-			case SEGR_TM:
-				for (Flow flow : flows_to_bound) {
-					TandemMatchingAnalysis tma = new TandemMatchingAnalysis(server_graph);
-					tma.performAnalysis(flow, flow.getSubPath(flow.getSource(), turn.getSource()));
-
-					arrival_bounds_tmp = getPermutations(arrival_bounds_tmp,
-							singleFlowABs(configuration, flow.getArrivalCurve(), tma.getLeftOverServiceCurves()));
-				}
-				break;
-
-			default:
-				System.out.println("Executing default arrival bounding: AGGR_PBOO_CONCATENATION");
-				AggregatePboo_Concatenation default_ab = new AggregatePboo_Concatenation(server_graph, configuration);
-				arrival_bounds_tmp = default_ab.computeArrivalBound(turn, flows_to_bound, flow_of_interest);
-				break;
+		if( configuration.raceArrivalBoundMethods() && configuration.arrivalBoundMethods().size() > 1
+				&& !(budget instanceof ArrivalBoundRaceBudget) ) {
+			Map<ArrivalBoundMethod,Set<ArrivalCurve>> map__ab_method__arrival_bounds = raceArrivalBoundMethods( server_graph, configuration, turn, flows_to_bound, flow_of_interest, budget );
+			for ( Set<ArrivalCurve> arrival_bounds_method : map__ab_method__arrival_bounds.values() ) {
+				arrival_bounds_xfcaller.addAll( arrival_bounds_method );
+			}
+			arrival_bounds_complete = map__ab_method__arrival_bounds.size() == configuration.arrivalBoundMethods().size();
+		} else {
+			for (AnalysisConfig.ArrivalBoundMethod arrival_bound_method : configuration.arrivalBoundMethods()) {
+				arrival_bounds_xfcaller.addAll( computeArrivalBounds( arrival_bound_method, server_graph, configuration, turn, flows_to_bound, flow_of_interest, budget ) );
 			}
-
-			arrival_bounds_xfcaller.addAll( arrival_bounds_tmp );
 		}
 		
 		if( configuration.convolveAlternativeArrivalBounds() ) {
 			arrival_bounds_xfcaller = new HashSet<ArrivalCurve>( Collections.singleton( Calculator.getInstance().getMinPlus().convolve( arrival_bounds_xfcaller ) ) );
 		}
 		
-		if( configuration.useArrivalBoundsCache() 
-				&& configuration.enforceMultiplexing() != MultiplexingEnforcement.SERVER_LOCAL ) { // Do not cache in that case. Too many variables, the cache does not check all of them.
+		// Bounds of a race with cancelled methods or of an exhausted budget are sound
+		// but may be worse than the configured methods' ones, do not cache them.
+		arrival_bounds_complete = arrival_bounds_complete && isCacheable( budget );
+		if( configuration.useArrivalBoundsCache() && arrival_bounds_complete ) {
 			
 			// As we checked for an existing cache entry before the for-loop (and returned it of present), we do not hav to care about the potential overwriting of a cache entry here. 
-			getCache( configuration.arrivalBoundMethods() ).addArrivalBounds( configuration, turn, flows_to_bound, flow_of_interest, arrival_bounds_xfcaller );
+			getCache( server_graph, configuration.arrivalBoundMethods() ).addArrivalBounds( configuration, turn, flows_to_bound, flow_of_interest, region_fingerprint, arrival_bounds_xfcaller );
+		}
+		if( ab_store_key != null && arrival_bounds_complete ) {
+			ab_store_used.put( ab_store_key, arrival_bounds_xfcaller );
 		}
 		
 		return arrival_bounds_xfcaller;
 	}
 
+	/**
+	 * Segregated arrival bounds analyze each flow with a default configuration, i.e.,
+	 * they neither depend on the configured set of methods nor on the flow of interest.
+	 * They are cached per flow with the single method's cache, see computeSegregatedArrivalBounds(...),
+	 * and shared by all method sets containing the method, e.g., the ones compared in CompFFApresets.
+	 * The aggregate methods bound the upstream flows with the whole configured set of methods,
+	 * their bounds are only cached with the set's cache.
+	 */
+	private static Set<ArrivalCurve> computeArrivalBounds(ArrivalBoundMethod arrival_bound_method, ServerGraph server_graph, AnalysisConfig configuration, Turn turn,
+			Set<Flow> flows_to_bound, Flow flow_of_interest, AnalysisBudget budget) throws Exception {
+		Set<ArrivalCurve> arrival_bounds_tmp = new HashSet<ArrivalCurve>();
+
+		// Each arrival bound gets its own instance instead of the reconfigured singletons,
+		// concurrent dispatching must not share the server graph and configuration fields.
+		switch (arrival_bound_method) {
+		case AGGR_PBOO_PER_SERVER:
+			AggregatePboo_PerServer aggr_pboo_per_server = new AggregatePboo_PerServer(server_graph, configuration, budget);
+			arrival_bounds_tmp = aggr_pboo_per_server.computeArrivalBound(turn, flows_to_bound, flow_of_interest);
+			break;
+
+		case AGGR_PBOO_CONCATENATION:
+			AggregatePboo_Concatenation aggr_pboo_concatenation = new AggregatePboo_Concatenation(server_graph, configuration, budget);
+			arrival_bounds_tmp = aggr_pboo_concatenation.computeArrivalBound(turn, flows_to_bound, flow_of_interest);
+			break;
+
+		case AGGR_PMOO:
+			AggregatePmoo aggr_pmoo = new AggregatePmoo(server_graph, configuration, budget);
+			arrival_bounds_tmp = aggr_pmoo.computeArrivalBound(turn, flows_to_bound, flow_of_interest);
+			break;
+
+		/* 
+		 * There are no functional tests for Tandem Matching-based arrival bounding
+		 * or segregate arrival bounding methods. 
+		 */
+			
+		case AGGR_TM:
+			AggregateTandemMatching aggr_tm = new AggregateTandemMatching(server_graph, configuration, budget);
+			arrival_bounds_tmp = aggr_tm.computeArrivalBound(turn, flows_to_bound, flow_of_interest);
+			break;
+
+		// This arrival bound is known to be inferior to PMOO and the PBOO_* variants.
+		case SEGR_PBOO:
+		// This arrival bound can yield better results than PMOO and the PBOO_* variants. See:
+		/*
+		 * Catching Corner Cases in Network Calculus - Flow Segregation Can Improve Accuracy.
+		 * Steffen Bondorf, Paul Nikolaus and Jens B. Schmitt,
+		 * In Proceedings of 19th International GI/ITG Conference on 
+		 * Measurement, Modelling and Evaluation of Computing Systems (MMB), 2018.
+		 */
+		case SEGR_PMOO:
+		case SEGR_TM:
+			arrival_bounds_tmp = computeSegregatedArrivalBounds( server_graph, configuration, arrival_bound_method, turn, flows_to_bound, budget );
+			break;
+
+		default:
+			Diagnostics.report( Diagnostics.Event.DEFAULT_ARRIVAL_BOUNDING, () -> "Executing default arrival bounding: AGGR_PBOO_CONCATENATION" );
+			AggregatePboo_Concatenation default_ab = new AggregatePboo_Concatenation(server_graph, configuration, budget);
+			arrival_bounds_tmp = default_ab.computeArrivalBound(turn, flows_to_bound, flow_of_interest);
+			break;
+		}
+
+		return arrival_bounds_tmp;
+	}
+
+	/**
+	 * Computes the arrival bound methods concurrently and collects their results as they finish.
+	 * Once the configured budget is exceeded and only expensive methods are left,
+	 * these are cancelled via their budgets that their nested analyses check.
+	 * At least one method's bounds are always awaited.
+	 * Methods cancelled while running do not cache the bounds they derive after the cancellation.
+	 * 
+	 * @return The bounds of the methods that finished.
+	 */
+	private static Map<ArrivalBoundMethod,Set<ArrivalCurve>> raceArrivalBoundMethods( ServerGraph server_graph, AnalysisConfig configuration, Turn turn,
+			Set<Flow> flows_to_bound, Flow flow_of_interest, AnalysisBudget budget ) throws Exception {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos( configuration.arrivalBoundRaceBudget() );
+		
+		CompletionService<Pair<ArrivalBoundMethod,Set<ArrivalCurve>>> ab_race = new ExecutorCompletionService<Pair<ArrivalBoundMethod,Set<ArrivalCurve>>>( ab_race_executor );
+		List<Future<Pair<ArrivalBoundMethod,Set<ArrivalCurve>>>> ab_race_futures = new LinkedList<Future<Pair<ArrivalBoundMethod,Set<ArrivalCurve>>>>();
+		Map<ArrivalBoundMethod,ArrivalBoundRaceBudget> map__ab_method__race_budget = new HashMap<ArrivalBoundMethod,ArrivalBoundRaceBudget>();
+		Set<ArrivalBoundMethod> ab_methods_pending = configuration.arrivalBoundMethods();
+		for ( ArrivalBoundMethod arrival_bound_method : ab_methods_pending ) {
+			Set<Flow> flows_to_bound_copy = new HashSet<Flow>( flows_to_bound );
+			ArrivalBoundRaceBudget race_budget = new ArrivalBoundRaceBudget( budget );
+			map__ab_method__race_budget.put( arrival_bound_method, race_budget );
+			ab_race_futures.add( ab_race.submit( () -> new Pair<ArrivalBoundMethod,Set<ArrivalCurve>>( arrival_bound_method,
+					computeArrivalBounds( arrival_bound_method, server_graph, configuration, turn, flows_to_bound_copy, flow_of_interest, race_budget ) ) ) );
+		}
+		
+		Map<ArrivalBoundMethod,Set<ArrivalCurve>> map__ab_method__arrival_bounds = new HashMap<ArrivalBoundMethod,Set<ArrivalCurve>>();
+		try {
+			while( !ab_methods_pending.isEmpty() ) {
+				Future<Pair<ArrivalBoundMethod,Set<ArrivalCurve>>> ab_race_done;
+				if( map__ab_method__arrival_bounds.isEmpty() || !ab_race_cancellable.containsAll( ab_methods_pending ) ) {
+					ab_race_done = ab_race.take();
+				} else {
+					ab_race_done = ab_race.poll( Math.max( 0, deadline - System.nanoTime() ), TimeUnit.NANOSECONDS );
+					if( ab_race_done == null ) { // Budget exceeded.
+						break;
+					}
+				}
+				
+				Pair<ArrivalBoundMethod,Set<ArrivalCurve>> ab_method_result;
+				try {
+					ab_method_result = ab_race_done.get();
+				} catch ( ExecutionException e ) {
+					if( e.getCause() instanceof Exception ) {
+						throw (Exception) e.getCause();
+					}
+					throw e;
+				}
+				map__ab_method__arrival_bounds.put( ab_method_result.getFirst(), ab_method_result.getSecond() );
+				ab_methods_pending.remove( ab_method_result.getFirst() );
+			}
+		} finally {
+			// Running methods stop at their next budget check, queued ones do not start.
+			for ( ArrivalBoundMethod arrival_bound_method : ab_methods_pending ) {
+				map__ab_method__race_budget.get( arrival_bound_method ).cancel();
+			}
+			for ( Future<Pair<ArrivalBoundMethod,Set<ArrivalCurve>>> ab_race_future : ab_race_futures ) {
+				ab_race_future.cancel( false );
+			}
+		}
+		
+		return map__ab_method__arrival_bounds;
+	}
+
+	/**
+	 * Bounds the given flows at the turn individually and sums up their bounds.
+	 * The flows are bounded concurrently and their bounds are summed up as they complete.
+	 * The individual bounds do not depend on the other flows, they are cached per flow
+	 * such that flow sets sharing flows at the turn reuse them.
+	 * 
+	 * @param server_graph The server graph.
+	 * @param configuration The configuration, only its cache setting is relevant.
+	 * @param arrival_bound_method SEGR_PBOO, SEGR_PMOO or SEGR_TM.
+	 * @param turn The turn to bound the flows at.
+	 * @param flows_to_bound The flows to bound.
+	 * @return All permutations of the sums of the flows' alternative bounds.
+	 * @throws Exception If the method is not a segregated one or bounding a flow fails.
+	 */
+	public static Set<ArrivalCurve> computeSegregatedArrivalBounds( ServerGraph server_graph, AnalysisConfig configuration, ArrivalBoundMethod arrival_bound_method,
+			Turn turn, Set<Flow> flows_to_bound ) throws Exception {
+		return computeSegregatedArrivalBounds( server_graph, configuration, arrival_bound_method, turn, flows_to_bound, null );
+	}
+	
+	/**
+	 * @param budget
+	 *            The budget of the analysis the arrival bounds are derived for, checked by the flows' analyses.
+	 *            Bounds derived after it was exhausted are not cached.
+	 * @see #computeSegregatedArrivalBounds(ServerGraph, AnalysisConfig, ArrivalBoundMethod, Turn, Set)
+	 */
+	public static Set<ArrivalCurve> computeSegregatedArrivalBounds( ServerGraph server_graph, AnalysisConfig configuration, ArrivalBoundMethod arrival_bound_method,
+			Turn turn, Set<Flow> flows_to_bound, AnalysisBudget budget ) throws Exception {
+		if( !ab_methods_segregated.contains( arrival_bound_method ) ) {
+			throw new Exception( arrival_bound_method + " is not a segregated arrival bound method" );
+		}
+		if( flows_to_bound.isEmpty() ) {
+			return new HashSet<ArrivalCurve>( Collections.singleton( Curve_ConstantPool.ZERO_ARRIVAL_CURVE.get() ) );
+		}
+		
+		AtomicReference<Set<ArrivalCurve>> arrival_bounds_sum = new AtomicReference<Set<ArrivalCurve>>( new HashSet<ArrivalCurve>() );
+		List<Exception> exceptions = Collections.synchronizedList( new LinkedList<Exception>() );
+		
+		flows_to_bound.parallelStream().forEach( flow -> {
+			try {
+				Set<ArrivalCurve> arrival_bounds_flow = computeSegregatedArrivalBound( server_graph, configuration, arrival_bound_method, turn, flow, budget );
+				synchronized( arrival_bounds_sum ) {
+					arrival_bounds_sum.set( getPermutations( arrival_bounds_sum.get(), arrival_bounds_flow ) );
+				}
+			} catch ( Exception e ) {
+				exceptions.add( e );
+			}
+		} );
+		
+		if( !exceptions.isEmpty() ) {
+			throw exceptions.get( 0 );
+		}
+		return arrival_bounds_sum.get();
+	}
+	
+	private static Set<ArrivalCurve> computeSegregatedArrivalBound( ServerGraph server_graph, AnalysisConfig configuration, ArrivalBoundMethod arrival_bound_method,
+			Turn turn, Flow flow, AnalysisBudget budget ) throws Exception {
+		Set<Flow> flow_to_bound = Collections.singleton( flow );
+		ArrivalBoundCache ab_cache_method = null;
+		long region_fingerprint = 0;
+		if( configuration.useArrivalBoundsCache() ) {
+			ab_cache_method = getCache( server_graph, Collections.singleton( arrival_bound_method ) );
+			region_fingerprint = ArrivalBoundCache.computeRegionFingerprint( server_graph, ab_segregated_configuration, turn );
+			ArrivalBoundCache.CacheEntryTurn entry = ab_cache_method.getCacheEntry( ab_segregated_configuration, turn, flow_to_bound, Flow.NULL_FLOW, region_fingerprint );
+			if( entry != null ) {
+				return entry.copyArrivalBounds();
+			}
+		}
+		
+		Path path = flow.getSubPath( flow.getSource(), turn.getSource() );
+		Set<ServiceCurve> betas_lo;
+		switch ( arrival_bound_method ) {
+		case SEGR_PBOO:
+			SeparateFlowAnalysis sfa = new SeparateFlowAnalysis( server_graph );
+			sfa.setBudget( budget );
+			sfa.performAnalysis( flow, path );
+			betas_lo = sfa.getLeftOverServiceCurves();
+			break;
+			
+		case SEGR_PMOO:
+			PmooAnalysis pmoo = new PmooAnalysis( server_graph );
+			pmoo.setBudget( budget );
+			pmoo.performAnalysis( flow, path );
+			betas_lo = pmoo.getLeftOverServiceCurves();
+			break;
+			
+		case SEGR_TM:
+			TandemMatchingAnalysis tma = new TandemMatchingAnalysis( server_graph );
+			tma.setBudget( budget );
+			tma.performAnalysis( flow, path );
+			betas_lo = tma.getLeftOverServiceCurves();
+			break;
+			
+		default:
+			throw new Exception( arrival_bound_method + " is not a segregated arrival bound method" );
+		}
+		
+		Set<ArrivalCurve> arrival_bounds_flow = singleFlowABs( configuration, flow.getArrivalCurve(), betas_lo );
+		if( ab_cache_method != null && isCacheable( budget ) ) {
+			ab_cache_method.addArrivalBounds( ab_segregated_configuration, turn, flow_to_bound, Flow.NULL_FLOW, region_fingerprint, arrival_bounds_flow );
+		}
+		return arrival_bounds_flow;
+	}
+
+	/**
+	 * Exhausted budgets truncate the nested analyses' enumerations. Their bounds are sound
+	 * but not necessarily as tight as exhaustively derived ones, i.e., they must not be cached.
+	 */
+	private static boolean isCacheable( AnalysisBudget budget ) {
+		return budget == null || !budget.isExhausted();
+	}
+
 	private static Set<ArrivalCurve> singleFlowABs(AnalysisConfig configuration, ArrivalCurve alpha,
 			Set<ServiceCurve> betas_lo) throws Exception {
 		Set<ArrivalCurve> arrival_bounds_f = new HashSet<ArrivalCurve>();
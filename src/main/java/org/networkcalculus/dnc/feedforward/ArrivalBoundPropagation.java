@@ -0,0 +1,459 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2013 - 2018 Steffen Bondorf
+ * Copyright (C) 2017 - 2018 The DiscoDNC contributors
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.feedforward;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.networkcalculus.dnc.AnalysisConfig;
+import org.networkcalculus.dnc.AnalysisConfig.ArrivalBoundMethod;
+import org.networkcalculus.dnc.curves.ArrivalCurve;
+import org.networkcalculus.dnc.network.server_graph.Flow;
+import org.networkcalculus.dnc.network.server_graph.Path;
+import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+import org.networkcalculus.dnc.network.server_graph.Turn;
+import org.networkcalculus.dnc.utils.SetUtils;
+
+/**
+ * Wavefront propagation of arrival bounds through a feed-forward server graph.
+ * <p>
+ * Servers are grouped into topological levels, i.e., a server's level is the length
+ * of the longest path from any source of the server graph to it. All servers of a
+ * level only depend on servers of lower levels.
+ * <p>
+ * Before anything is bounded, the arrival bounds that the recursive arrival bounding will
+ * request are discovered, i.e., the server or turn, the flows to bound and the flow of interest
+ * of each call of the ArrivalBoundDispatch. Starting from the aggregate arrival bounds of all
+ * servers and their in-turns, a worklist expands each request into the ones it depends on.
+ * The discovery mirrors the server-level dispatching and the PBOO arrival bounds
+ * (AGGR_PBOO_CONCATENATION and AGGR_PBOO_PER_SERVER). The nested requests of the other
+ * methods are not discovered, they are derived on demand during the propagation.
+ * <p>
+ * The discovered arrival bounds are then derived bottom-up, one level at a time and the
+ * requests of a level in parallel. As every request only depends on requests of its own
+ * server's in-turns and of lower levels, the recursion of a request finds the bounds it
+ * depends on in the arrival bound cache instead of descending towards the sources of the server graph.
+ * <p>
+ * If the configuration does not allow for caching, the propagation derives the bounds with
+ * caching enabled in separate caches of the server graph that are released afterwards.
+ * Only the bounds in the maps of this propagation remain, subsequent analyses cannot reuse them.
+ */
+public class ArrivalBoundPropagation {
+	private ServerGraph server_graph;
+	private AnalysisConfig configuration;
+
+	private List<Set<Server>> levels;
+	private Map<Server,Set<ArrivalCurve>> map__server__arrival_bounds = new ConcurrentHashMap<Server,Set<ArrivalCurve>>();
+	private Map<Turn,Set<ArrivalCurve>> map__turn__arrival_bounds = new ConcurrentHashMap<Turn,Set<ArrivalCurve>>();
+
+	@SuppressWarnings("unused")
+	private ArrivalBoundPropagation() {
+	}
+
+	public ArrivalBoundPropagation(ServerGraph server_graph, AnalysisConfig configuration) {
+		this.server_graph = server_graph;
+		this.configuration = configuration;
+	}
+
+	/**
+	 * Kahn's algorithm, one level at a time.
+	 *
+	 * @param server_graph
+	 *            The server graph to sort.
+	 * @return The servers grouped by level, starting with the server graph's source set.
+	 * @throws Exception
+	 *             If the server graph is not feed-forward.
+	 */
+	public static List<Set<Server>> computeTopologicalLevels(ServerGraph server_graph) throws Exception {
+		Map<Server,Integer> map__server__unprocessed_predecessors = new HashMap<Server,Integer>();
+		for (Server server : server_graph.getServers()) {
+			map__server__unprocessed_predecessors.put(server, server_graph.getPredecessors(server).size());
+		}
+
+		List<Set<Server>> levels = new LinkedList<Set<Server>>();
+		Set<Server> level_current = server_graph.getSourceSet();
+		int servers_leveled = 0;
+
+		while (!level_current.isEmpty()) {
+			levels.add(level_current);
+			servers_leveled += level_current.size();
+
+			Set<Server> level_next = new HashSet<Server>();
+			for (Server server : level_current) {
+				for (Server successor : server_graph.getSuccessors(server)) {
+					int unprocessed_predecessors = map__server__unprocessed_predecessors.get(successor) - 1;
+					map__server__unprocessed_predecessors.put(successor, unprocessed_predecessors);
+					if (unprocessed_predecessors == 0) {
+						level_next.add(successor);
+					}
+				}
+			}
+			level_current = level_next;
+		}
+
+		if (servers_leveled != server_graph.numServers()) {
+			throw new Exception("Cannot sort the server graph topologically, it is not feed-forward.");
+		}
+		return levels;
+	}
+
+	/**
+	 * Propagates the aggregate arrival bounds of all servers and their in-turns.
+	 * The first exception raised by a request of a level is rethrown
+	 * after all requests of this level finished.
+	 *
+	 * @throws Exception
+	 *             If the server graph is not feed-forward or if the arrival bounding fails.
+	 */
+	public void propagate() throws Exception {
+		propagate(Flow.NULL_FLOW);
+	}
+
+	/**
+	 * Propagates the aggregate arrival bounds of all servers and their in-turns as well as the
+	 * arrival bounds of the cross-traffic a separate flow analysis of the flow of interest requests.
+	 *
+	 * @param flow_of_interest
+	 *            The flow to be analyzed afterwards, Flow.NULL_FLOW if there is none.
+	 * @throws Exception
+	 *             If the server graph is not feed-forward or if the arrival bounding fails.
+	 */
+	public void propagate(Flow flow_of_interest) throws Exception {
+		levels = computeTopologicalLevels(server_graph);
+
+		Set<ArrivalBoundRequest> requests_aggregate = new HashSet<ArrivalBoundRequest>();
+		for (Server server : server_graph.getServers()) {
+			requests_aggregate.add(new ArrivalBoundRequest(server, server_graph.getFlows(server), Flow.NULL_FLOW));
+			for (Turn in_turn : server_graph.getInTurns(server)) {
+				Set<Flow> f_in_turn = server_graph.getFlows(in_turn);
+				if (!f_in_turn.isEmpty()) {
+					requests_aggregate.add(new ArrivalBoundRequest(in_turn, f_in_turn, Flow.NULL_FLOW));
+				}
+			}
+		}
+
+		Set<ArrivalBoundRequest> requests = new HashSet<ArrivalBoundRequest>(requests_aggregate);
+		if (flow_of_interest.getId() != -1) {
+			requests.addAll(getSeparateFlowAnalysisRequests(flow_of_interest));
+		}
+		Set<Server> servers_backlog_bounds = new HashSet<Server>();
+		discoverRequests(requests, servers_backlog_bounds);
+
+		AnalysisConfig configuration_propagation = configuration;
+		boolean separate_caches = false;
+		if (!configuration.useArrivalBoundsCache()) {
+			configuration_propagation = configuration.copy();
+			configuration_propagation.setUseArrivalBoundsCache(true);
+			separate_caches = ArrivalBoundDispatch.useSeparateCaches(server_graph);
+		}
+
+		try {
+			derive(configuration_propagation, requests, requests_aggregate, servers_backlog_bounds);
+		} finally {
+			if (separate_caches) {
+				ArrivalBoundDispatch.releaseSeparateCaches(server_graph);
+			}
+		}
+	}
+
+	private Set<ArrivalBoundRequest> getSeparateFlowAnalysisRequests(Flow flow_of_interest) throws Exception {
+		Set<ArrivalBoundRequest> requests = new HashSet<ArrivalBoundRequest>();
+
+		Path foi_path = flow_of_interest.getPath();
+		for (Server server : foi_path.getServers()) {
+			Set<Flow> f_xxfoi_server = server_graph.getFlows(server);
+			f_xxfoi_server.remove(flow_of_interest);
+
+			Set<Flow> f_xxfoi_server_onpath = new HashSet<Flow>();
+			if (!foi_path.isSource(server)) {
+				Turn turn_from_prev_s = server_graph.findTurn(foi_path.getPrecedingServer(server), server);
+				f_xxfoi_server_onpath = SetUtils.getIntersection(f_xxfoi_server, server_graph.getFlows(turn_from_prev_s));
+			}
+			f_xxfoi_server.removeAll(f_xxfoi_server_onpath);
+			f_xxfoi_server.removeAll(server_graph.getSourceFlows(server));
+
+			if (!f_xxfoi_server_onpath.isEmpty()) {
+				requests.add(new ArrivalBoundRequest(server, f_xxfoi_server_onpath, flow_of_interest));
+			}
+			if (!f_xxfoi_server.isEmpty()) {
+				requests.add(new ArrivalBoundRequest(server, f_xxfoi_server, Flow.NULL_FLOW));
+			}
+		}
+
+		return requests;
+	}
+
+	/**
+	 * Adds the requests the given ones depend on until no new request is found.
+	 */
+	private void discoverRequests(Set<ArrivalBoundRequest> requests, Set<Server> servers_backlog_bounds) throws Exception {
+		boolean expand_pboo = configuration.arrivalBoundMethods().contains(ArrivalBoundMethod.AGGR_PBOO_CONCATENATION)
+				|| configuration.arrivalBoundMethods().contains(ArrivalBoundMethod.AGGR_PBOO_PER_SERVER);
+
+		LinkedList<ArrivalBoundRequest> worklist = new LinkedList<ArrivalBoundRequest>(requests);
+		while (!worklist.isEmpty()) {
+			ArrivalBoundRequest request = worklist.removeFirst();
+
+			List<ArrivalBoundRequest> requests_nested;
+			if (request.server != null) {
+				requests_nested = getNestedRequests(request.server, request.flows, request.flow_of_interest);
+			} else if (expand_pboo) {
+				requests_nested = getNestedRequestsPboo(request.turn, request.flows, request.flow_of_interest);
+				if (configuration.serverBacklogArrivalBound()) {
+					servers_backlog_bounds.add(request.turn.getSource());
+				}
+			} else {
+				continue;
+			}
+
+			for (ArrivalBoundRequest request_nested : requests_nested) {
+				if (requests.add(request_nested)) {
+					worklist.add(request_nested);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Mirrors ArrivalBoundDispatch.computeArrivalBounds(server_graph, configuration, server, flows_to_bound, flow_of_interest).
+	 */
+	private List<ArrivalBoundRequest> getNestedRequests(Server server, Set<Flow> flows_to_bound, Flow flow_of_interest) throws Exception {
+		List<ArrivalBoundRequest> requests = new LinkedList<ArrivalBoundRequest>();
+
+		Set<Flow> f_xfcaller_server = SetUtils.getIntersection(server_graph.getFlows(server), flows_to_bound);
+		f_xfcaller_server.remove(flow_of_interest);
+		if (f_xfcaller_server.isEmpty()
+				|| server_graph.getSourceFlows(server).containsAll(f_xfcaller_server)) {
+			return requests;
+		}
+
+		for (Turn in_l : server_graph.getInTurns(server)) {
+			Set<Flow> f_xfcaller_in_l = SetUtils.getIntersection(server_graph.getFlows(in_l), f_xfcaller_server);
+			if (!f_xfcaller_in_l.isEmpty()) {
+				requests.add(new ArrivalBoundRequest(in_l, f_xfcaller_in_l, flow_of_interest));
+			}
+		}
+		return requests;
+	}
+
+	/**
+	 * Mirrors AggregatePboo_Concatenation and AggregatePboo_PerServer, they request the same arrival bounds.
+	 */
+	private List<ArrivalBoundRequest> getNestedRequestsPboo(Turn turn, Set<Flow> flows_to_bound, Flow flow_of_interest) throws Exception {
+		List<ArrivalBoundRequest> requests = new LinkedList<ArrivalBoundRequest>();
+
+		Set<Flow> f_xfcaller = new HashSet<Flow>(flows_to_bound);
+		f_xfcaller.remove(flow_of_interest);
+
+		Server loi = turn.getDest();
+		Set<Flow> f_xfcaller_loi = SetUtils.getIntersection(server_graph.getFlows(loi), f_xfcaller);
+		if (f_xfcaller_loi.isEmpty()) {
+			return requests;
+		}
+
+		Server common_subpath_src = server_graph.findSplittingServer(loi, f_xfcaller_loi);
+		Path common_subpath = f_xfcaller_loi.iterator().next().getSubPath(common_subpath_src, turn.getSource());
+
+		Turn turn_from_prev_s;
+		Path foi_path = flow_of_interest.getPath();
+		for (Server server : common_subpath.getServers()) {
+			try {
+				turn_from_prev_s = server_graph.findTurn(foi_path.getPrecedingServer(server), server);
+			} catch (Exception e) { // Reached the path's first server
+				turn_from_prev_s = null;
+			}
+
+			Set<Flow> f_xxfcaller_server = server_graph.getFlows(server);
+			f_xxfcaller_server.removeAll(f_xfcaller);
+			f_xxfcaller_server.remove(flow_of_interest);
+
+			Set<Flow> f_xxfcaller_server_path = SetUtils.getIntersection(f_xxfcaller_server,
+					server_graph.getFlows(turn_from_prev_s));
+			f_xxfcaller_server.removeAll(f_xxfcaller_server_path);
+
+			if (!f_xxfcaller_server_path.isEmpty()) {
+				requests.add(new ArrivalBoundRequest(server, f_xxfcaller_server_path, flow_of_interest));
+			}
+			if (!f_xxfcaller_server.isEmpty()) {
+				requests.add(new ArrivalBoundRequest(server, f_xxfcaller_server, Flow.NULL_FLOW));
+			}
+		}
+
+		requests.add(new ArrivalBoundRequest(common_subpath_src, f_xfcaller, flow_of_interest));
+		return requests;
+	}
+
+	/**
+	 * Per level, the requests at its servers come first, they only depend on lower levels.
+	 * The servers' backlog bounds depend on them and the requests at the servers' out-turns depend on both.
+	 */
+	private void derive(AnalysisConfig configuration_propagation, Set<ArrivalBoundRequest> requests,
+			Set<ArrivalBoundRequest> requests_aggregate, Set<Server> servers_backlog_bounds) throws Exception {
+		Map<Server,Integer> map__server__level = new HashMap<Server,Integer>();
+		int level_idx = 0;
+		for (Set<Server> level : levels) {
+			for (Server server : level) {
+				map__server__level.put(server, level_idx);
+			}
+			level_idx++;
+		}
+
+		List<List<ArrivalBoundRequest>> requests_servers = new LinkedList<List<ArrivalBoundRequest>>();
+		List<List<ArrivalBoundRequest>> requests_turns = new LinkedList<List<ArrivalBoundRequest>>();
+		List<Set<Server>> backlog_bounds = new LinkedList<Set<Server>>();
+		for (int i = 0; i < levels.size(); i++) {
+			requests_servers.add(new LinkedList<ArrivalBoundRequest>());
+			requests_turns.add(new LinkedList<ArrivalBoundRequest>());
+			backlog_bounds.add(new HashSet<Server>());
+		}
+		for (ArrivalBoundRequest request : requests) {
+			if (request.server != null) {
+				requests_servers.get(map__server__level.get(request.server)).add(request);
+			} else {
+				requests_turns.get(map__server__level.get(request.turn.getSource())).add(request);
+			}
+		}
+		for (Server server : servers_backlog_bounds) {
+			backlog_bounds.get(map__server__level.get(server)).add(server);
+		}
+
+		for (int i = 0; i < levels.size(); i++) {
+			List<Exception> exceptions = Collections.synchronizedList(new LinkedList<Exception>());
+
+			requests_servers.get(i).parallelStream().forEach(request -> {
+				try {
+					Set<ArrivalCurve> arrival_bounds = ArrivalBoundDispatch.computeArrivalBounds(server_graph, configuration_propagation,
+							request.server, new HashSet<Flow>(request.flows), request.flow_of_interest);
+					if (requests_aggregate.contains(request)) {
+						map__server__arrival_bounds.put(request.server, arrival_bounds);
+					}
+				} catch (Exception e) {
+					exceptions.add(e);
+				}
+			});
+			if (!exceptions.isEmpty()) {
+				throw exceptions.get(0);
+			}
+
+			backlog_bounds.get(i).parallelStream().forEach(server -> {
+				try {
+					ArrivalBoundDispatch.computeServerBacklogBound(server_graph, configuration_propagation, server);
+				} catch (Exception e) {
+					exceptions.add(e);
+				}
+			});
+			if (!exceptions.isEmpty()) {
+				throw exceptions.get(0);
+			}
+
+			requests_turns.get(i).parallelStream().forEach(request -> {
+				try {
+					Set<ArrivalCurve> arrival_bounds = ArrivalBoundDispatch.computeArrivalBounds(server_graph, configuration_propagation,
+							request.turn, new HashSet<Flow>(request.flows), request.flow_of_interest);
+					if (requests_aggregate.contains(request)) {
+						map__turn__arrival_bounds.put(request.turn, arrival_bounds);
+					}
+				} catch (Exception e) {
+					exceptions.add(e);
+				}
+			});
+			if (!exceptions.isEmpty()) {
+				throw exceptions.get(0);
+			}
+		}
+	}
+
+	public List<Set<Server>> getLevels() {
+		return levels;
+	}
+
+	/**
+	 * @return The aggregate arrival bounds of all flows crossing a server.
+	 */
+	public Map<Server,Set<ArrivalCurve>> getServerArrivalBoundsMap() {
+		return map__server__arrival_bounds;
+	}
+
+	/**
+	 * @return The aggregate arrival bounds of all flows crossing a turn,
+	 *         i.e., the output bounds of these flows at the turn's source.
+	 */
+	public Map<Turn,Set<ArrivalCurve>> getTurnArrivalBoundsMap() {
+		return map__turn__arrival_bounds;
+	}
+
+	/**
+	 * A call of the ArrivalBoundDispatch, either at a server or at a turn.
+	 */
+	private static final class ArrivalBoundRequest {
+		private final Server server;
+		private final Turn turn;
+		private final Set<Flow> flows;
+		private final Flow flow_of_interest;
+
+		private ArrivalBoundRequest(Server server, Set<Flow> flows, Flow flow_of_interest) {
+			this(server, null, flows, flow_of_interest);
+		}
+
+		private ArrivalBoundRequest(Turn turn, Set<Flow> flows, Flow flow_of_interest) {
+			this(null, turn, flows, flow_of_interest);
+		}
+
+		private ArrivalBoundRequest(Server server, Turn turn, Set<Flow> flows, Flow flow_of_interest) {
+			this.server = server;
+			this.turn = turn;
+			// The dispatch removes the flow of interest before looking up the cache.
+			this.flows = new HashSet<Flow>(flows);
+			this.flows.remove(flow_of_interest);
+			this.flow_of_interest = flow_of_interest;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof ArrivalBoundRequest)) {
+				return false;
+			}
+
+			ArrivalBoundRequest request = (ArrivalBoundRequest) obj;
+			return Objects.equals(server, request.server) && Objects.equals(turn, request.turn)
+					&& flows.equals(request.flows) && flow_of_interest == request.flow_of_interest;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(server, turn, flows, flow_of_interest);
+		}
+	}
+}
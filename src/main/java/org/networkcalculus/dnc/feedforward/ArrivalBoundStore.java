@@ -0,0 +1,327 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2013 - 2018 Steffen Bondorf
+ * Copyright (C) 2017 - 2018 The DiscoDNC contributors
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.feedforward;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.networkcalculus.dnc.AnalysisConfig;
+import org.networkcalculus.dnc.Calculator;
+import org.networkcalculus.dnc.AnalysisConfig.ArrivalBoundMethod;
+import org.networkcalculus.dnc.curves.ArrivalCurve;
+import org.networkcalculus.dnc.curves.Curve;
+import org.networkcalculus.dnc.curves.LinearSegment;
+import org.networkcalculus.dnc.network.server_graph.Flow;
+import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+import org.networkcalculus.dnc.network.server_graph.Turn;
+import org.networkcalculus.num.Num;
+import org.networkcalculus.num.NumBackend;
+
+/**
+ * Persistent arrival bound cache backing the in-memory {@link ArrivalBoundCache}
+ * across runs, see ArrivalBoundDispatch.setArrivalBoundStore(...).
+ * <p>
+ * An arrival bound is stored under a content hash (SHA-256) of everything it depends on:
+ * The curve and number backends, the analysis configuration,
+ * the bounded flows and the flow of interest as well as the fingerprint of the server graph region upstream of
+ * the bound's location, i.e., of the servers' curves, multiplexing and max service curve flags
+ * and the arrival curves and paths of all flows crossing this region,
+ * see ArrivalBoundCache.computeRegionContentFingerprint(...).
+ * Changes downstream of the location or in other parts of the server graph
+ * therefore do not invalidate the stored bound.
+ * Server and flow ids are part of the hash, i.e., the server graph needs to be created
+ * in the same order to reuse stored bounds.
+ * <p>
+ * The bounds are appended to a memory-mapped file:
+ * A header (magic number, version, end of the last record) is followed by records
+ * consisting of the key, the payload length and the payload.
+ * With the REAL_DOUBLE_PRECISION backend, the payload stores the segments' coordinates as doubles.
+ * Other backends store the curves' string representation in order to not lose precision.
+ */
+public class ArrivalBoundStore {
+	private static final int MAGIC = 0x444e4341;
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 16; // magic, version, end
+	private static final int KEY_BYTES = 32;
+	private static final int INITIAL_CAPACITY = 1 << 20;
+
+	private static final byte ENCODING_DOUBLE = 0;
+	private static final byte ENCODING_STRING = 1;
+
+	private File file;
+	private FileChannel channel;
+	private MappedByteBuffer buffer;
+	private int end;
+
+	// Payload offset per key.
+	private Map<ByteBuffer,Integer> map__key__offset = new HashMap<ByteBuffer,Integer>();
+
+	@SuppressWarnings("unused")
+	private ArrivalBoundStore() {
+	}
+
+	/**
+	 * Opens the store, the file is created if it does not exist.
+	 *
+	 * @param file
+	 *            The store's file.
+	 * @throws Exception
+	 *             The file cannot be mapped or is not an arrival bound store.
+	 */
+	public ArrivalBoundStore(File file) throws Exception {
+		this.file = file;
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+
+		long size = channel.size();
+		if (size > Integer.MAX_VALUE) {
+			throw new Exception("Arrival bound store " + file + " exceeds the maximum size.");
+		}
+		map((int) Math.max(size, INITIAL_CAPACITY));
+
+		if (size == 0) {
+			buffer.putInt(0, MAGIC);
+			buffer.putInt(4, VERSION);
+			end = HEADER_BYTES;
+			buffer.putLong(8, end);
+			return;
+		}
+
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			throw new Exception(file + " is not an arrival bound store of version " + VERSION + ".");
+		}
+		end = (int) buffer.getLong(8);
+
+		int offset = HEADER_BYTES;
+		while (offset < end) {
+			byte[] key = new byte[KEY_BYTES];
+			ByteBuffer record = buffer.duplicate();
+			record.position(offset);
+			record.get(key);
+			int payload_length = record.getInt();
+
+			map__key__offset.put(ByteBuffer.wrap(key), record.position());
+			offset = record.position() + payload_length;
+		}
+	}
+
+	private void map(int capacity) throws Exception {
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+	}
+
+	public synchronized int size() {
+		return map__key__offset.size();
+	}
+
+	/**
+	 * @param key
+	 *            The content hash created by computeKey(...).
+	 * @return The stored arrival bounds or null if there are none for this key.
+	 * @throws Exception
+	 *             Curves could not be decoded.
+	 */
+	public synchronized Set<ArrivalCurve> get(byte[] key) throws Exception {
+		Integer offset = map__key__offset.get(ByteBuffer.wrap(key));
+		if (offset == null) {
+			return null;
+		}
+
+		ByteBuffer payload = buffer.duplicate();
+		payload.position(offset);
+
+		byte encoding = payload.get();
+		int curve_count = payload.getInt();
+		Set<ArrivalCurve> arrival_bounds = new HashSet<ArrivalCurve>();
+
+		for (int i = 0; i < curve_count; i++) {
+			if (encoding == ENCODING_DOUBLE) {
+				int segment_count = payload.getInt();
+				List<LinearSegment> segments = new ArrayList<LinearSegment>(segment_count);
+				for (int j = 0; j < segment_count; j++) {
+					Num x = decodeNum(payload.getDouble());
+					Num y = decodeNum(payload.getDouble());
+					Num grad = decodeNum(payload.getDouble());
+					segments.add(LinearSegment.createLinearSegment(x, y, grad, payload.get() != 0));
+				}
+				arrival_bounds.add(Curve.getFactory().createArrivalCurve(Curve.getFactory().createCurve(segments)));
+			} else {
+				byte[] curve_str = new byte[payload.getInt()];
+				payload.get(curve_str);
+				arrival_bounds.add(Curve.getFactory().createArrivalCurve(new String(curve_str, StandardCharsets.UTF_8)));
+			}
+		}
+		return arrival_bounds;
+	}
+
+	/**
+	 * Appends the arrival bounds to the store.
+	 * Nothing is written if there are already arrival bounds stored for this key.
+	 *
+	 * @param key
+	 *            The content hash created by computeKey(...).
+	 * @param arrival_bounds
+	 *            The arrival bounds to store.
+	 * @throws Exception
+	 *             The file could not be extended.
+	 */
+	public synchronized void put(byte[] key, Set<ArrivalCurve> arrival_bounds) throws Exception {
+		if (arrival_bounds.isEmpty() || map__key__offset.containsKey(ByteBuffer.wrap(key))) {
+			return;
+		}
+
+		ByteArrayOutputStream payload_bytes = new ByteArrayOutputStream();
+		DataOutputStream payload = new DataOutputStream(payload_bytes);
+
+		boolean encode_double = Calculator.getInstance().getNumBackend() == NumBackend.REAL_DOUBLE_PRECISION;
+		payload.writeByte(encode_double ? ENCODING_DOUBLE : ENCODING_STRING);
+		payload.writeInt(arrival_bounds.size());
+
+		for (ArrivalCurve arrival_bound : arrival_bounds) {
+			if (encode_double) {
+				payload.writeInt(arrival_bound.getSegmentCount());
+				for (int i = 0; i < arrival_bound.getSegmentCount(); i++) {
+					LinearSegment segment = arrival_bound.getSegment(i);
+					payload.writeDouble(segment.getX().doubleValue());
+					payload.writeDouble(segment.getY().doubleValue());
+					payload.writeDouble(segment.getGrad().doubleValue());
+					payload.writeBoolean(segment.isLeftopen());
+				}
+			} else {
+				byte[] curve_str = arrival_bound.toString().getBytes(StandardCharsets.UTF_8);
+				payload.writeInt(curve_str.length);
+				payload.write(curve_str);
+			}
+		}
+		payload.flush();
+
+		long record_end = (long) end + KEY_BYTES + 4 + payload_bytes.size();
+		if (record_end > Integer.MAX_VALUE) {
+			throw new Exception("Arrival bound store " + file + " exceeds the maximum size.");
+		}
+		if (record_end > buffer.capacity()) {
+			map((int) Math.min(Integer.MAX_VALUE, Math.max(record_end, 2L * buffer.capacity())));
+		}
+
+		ByteBuffer record = buffer.duplicate();
+		record.position(end);
+		record.put(key);
+		record.putInt(payload_bytes.size());
+		map__key__offset.put(ByteBuffer.wrap(key.clone()), record.position());
+		record.put(payload_bytes.toByteArray());
+
+		end = (int) record_end;
+		buffer.putLong(8, end);
+	}
+
+	public synchronized void close() throws Exception {
+		buffer.force();
+		channel.close();
+	}
+
+	private static Num decodeNum(double value) {
+		if (value == Double.POSITIVE_INFINITY) {
+			return Num.getFactory(Calculator.getInstance().getNumBackend()).createPositiveInfinity();
+		}
+		if (value == Double.NEGATIVE_INFINITY) {
+			return Num.getFactory(Calculator.getInstance().getNumBackend()).createNegativeInfinity();
+		}
+		return Num.getFactory(Calculator.getInstance().getNumBackend()).create(value);
+	}
+
+	// --------------------------------------------------------------------------------------------------------------
+	// Keys
+	// --------------------------------------------------------------------------------------------------------------
+	public static byte[] computeKey(ServerGraph server_graph, AnalysisConfig configuration, Server server,
+			Set<Flow> bounded_flows, Flow flow_of_interest) throws Exception {
+		return computeKey(configuration, "s" + server.getId(),
+				ArrivalBoundCache.computeRegionContentFingerprint(server_graph, server, bounded_flows),
+				bounded_flows, flow_of_interest);
+	}
+
+	public static byte[] computeKey(ServerGraph server_graph, AnalysisConfig configuration, Turn turn,
+			Set<Flow> bounded_flows, Flow flow_of_interest) throws Exception {
+		return computeKey(configuration, "t" + turn.getSource().getId() + "-" + turn.getDest().getId(),
+				ArrivalBoundCache.computeRegionContentFingerprint(server_graph, turn, bounded_flows),
+				bounded_flows, flow_of_interest);
+	}
+
+	private static byte[] computeKey(AnalysisConfig configuration, String location, long region_fingerprint,
+			Set<Flow> bounded_flows, Flow flow_of_interest) throws Exception {
+		StringBuilder content = new StringBuilder();
+
+		content.append(Calculator.getInstance().getNumBackend());
+		content.append(";");
+		content.append(Calculator.getInstance().getDncBackend());
+		content.append(";");
+
+		List<ArrivalBoundMethod> ab_methods = new ArrayList<ArrivalBoundMethod>(configuration.arrivalBoundMethods());
+		ab_methods.sort(Comparator.naturalOrder());
+		content.append(ab_methods);
+		content.append(configuration.enforceMultiplexing());
+		content.append(configuration.enforceMaxSC());
+		content.append(configuration.enforceMaxScOutputRate());
+		content.append(configuration.convolveAlternativeArrivalBounds());
+		content.append(configuration.serverBacklogArrivalBound());
+		content.append(configuration.useFlowProlongation());
+		content.append(";");
+
+		content.append(location);
+		content.append(";");
+		for (Flow flow : sortById(bounded_flows)) {
+			content.append(flow.getId());
+			content.append(",");
+		}
+		content.append(flow_of_interest.getId());
+		content.append(";");
+
+		content.append(region_fingerprint);
+
+		return MessageDigest.getInstance("SHA-256").digest(content.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static List<Flow> sortById(Set<Flow> flows) {
+		List<Flow> flows_sorted = new LinkedList<Flow>(flows);
+		flows_sorted.sort(Comparator.comparingInt(Flow::getId));
+		return flows_sorted;
+	}
+}
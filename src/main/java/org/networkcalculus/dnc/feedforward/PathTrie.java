@@ -0,0 +1,164 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2013 - 2018 Steffen Bondorf
+ * Copyright (C) 2017 - 2018 The DiscoDNC contributors
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+
+package org.networkcalculus.dnc.feedforward;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.networkcalculus.dnc.network.server_graph.Path;
+import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+
+/**
+ * Interns the paths traced backwards from a sink in a suffix trie.
+ * <p>
+ * The root is the empty path. A node's children are its prefixes extended by
+ * exactly one server, i.e., the parent of a node is its suffix without the first
+ * server. Each node has an integer id in the order of creation and its
+ * {@link Path} is created only once, when the node is added to the trie.
+ */
+public class PathTrie {
+	private final ServerGraph server_graph;
+	private final List<Node> nodes = new ArrayList<Node>();
+	private final Node root;
+
+	public PathTrie( ServerGraph server_graph, Path empty_path ) {
+		this.server_graph = server_graph;
+		root = new Node( null, null, empty_path );
+	}
+
+	public Node getRoot() {
+		return root;
+	}
+
+	/**
+	 * Returns the node of the path <code>server</code> + <code>suffix</code>,
+	 * adding it to the trie if it was not traced before.
+	 *
+	 * @param suffix The node of the path to extend.
+	 * @param server The server to prepend.
+	 * @return The interned node.
+	 * @throws Exception The resulting path does not exist in the server graph.
+	 */
+	public Node prepend( Node suffix, Server server ) throws Exception {
+		Node node = suffix.prefixes.get( server );
+		if( node == null ) {
+			LinkedList<Server> servers = suffix.path.getServers();
+			servers.addFirst( server );
+			node = new Node( suffix, server, server_graph.createPathFromServers( servers ) );
+			suffix.prefixes.put( server, node );
+		}
+		return node;
+	}
+
+	public Node getNode( int id ) {
+		return nodes.get( id );
+	}
+
+	/**
+	 * Walks the trie from the root along the path's servers in reverse order.
+	 *
+	 * @param path A path that was interned in this trie.
+	 * @return The path's node or <code>null</code> if it was not interned.
+	 */
+	public Node getNode( Path path ) {
+		Node node = root;
+		Iterator<Server> server_iter = path.getServers().descendingIterator();
+		while( node != null && server_iter.hasNext() ) {
+			node = node.prefixes.get( server_iter.next() );
+		}
+		return node;
+	}
+
+	public int size() {
+		return nodes.size();
+	}
+
+	public class Node {
+		private final int id;
+		private final int length;
+		private final Server server;
+		private final Node suffix;
+		private final Path path;
+		private final Map<Server,Node> prefixes = new HashMap<Server,Node>();
+
+		private Node( Node suffix, Server server, Path path ) {
+			this.id = nodes.size();
+			this.length = suffix == null ? 0 : suffix.length + 1;
+			this.server = server;
+			this.suffix = suffix;
+			this.path = path;
+
+			nodes.add( this );
+		}
+
+		public int getId() {
+			return id;
+		}
+
+		public int getLength() {
+			return length;
+		}
+
+		/**
+		 * @return The first server of the path, <code>null</code> for the empty path.
+		 */
+		public Server getServer() {
+			return server;
+		}
+
+		/**
+		 * @return The path without its first server, <code>null</code> for the empty path.
+		 */
+		public Node getSuffix() {
+			return suffix;
+		}
+
+		public Path getPath() {
+			return path;
+		}
+
+		public boolean isEmptyPath() {
+			return suffix == null;
+		}
+
+		@Override
+		public int hashCode() {
+			return id;
+		}
+
+		@Override
+		public String toString() {
+			return path.toShortString();
+		}
+	}
+}
@@ -27,6 +27,7 @@
 package org.networkcalculus.dnc.feedforward;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -35,18 +36,22 @@ import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.math3.util.Pair;
 
 import org.networkcalculus.dnc.Calculator;
-import org.networkcalculus.dnc.curves.ArrivalCurve;
 import org.networkcalculus.dnc.linear_constraints.FlowLocationTime;
+import org.networkcalculus.dnc.linear_constraints.LinearProgramFormat;
+import org.networkcalculus.dnc.linear_constraints.LinearProgramWriter;
 import org.networkcalculus.dnc.linear_constraints.LogicalConstraint;
 import org.networkcalculus.dnc.linear_constraints.NumericalConstraint;
 import org.networkcalculus.dnc.linear_constraints.NumericalTerm;
@@ -58,6 +63,7 @@ import org.networkcalculus.dnc.network.server_graph.Path;
 import org.networkcalculus.dnc.network.server_graph.Server;
 import org.networkcalculus.dnc.network.server_graph.ServerGraph;
 import org.networkcalculus.dnc.network.server_graph.Turn;
+import org.networkcalculus.dnc.utils.Diagnostics;
 import org.networkcalculus.dnc.utils.SetUtils;
 import org.networkcalculus.num.Num;
 
@@ -96,19 +102,22 @@ public class UniqueLinearProgram {
 	boolean debug = false;
 	boolean print_debug = false;
 	
-	static String lp_file_output_path = System.getProperty("user.dir") + 
-										"/src/main/java/org/networkcalculus/dnc/feedforward/ulp_output/";
+	// Directory of the debug output, can be set with the system property dnc.ulp.output.
+	static String lp_file_output_path = System.getProperty( "dnc.ulp.output", 
+										System.getProperty("user.dir") + "/src/main/java/org/networkcalculus/dnc/feedforward/ulp_output/" );
 	
-	HashMap<Path,Integer> map__path__id;
+	// The traced paths, interned with integer ids. All of the below refer to the trie's nodes.
+	PathTrie path_trie;
 	
-	HashMap<Server,HashSet<Path>> map__j__jpi;
-	HashMap<Server,HashSet<Pair<Path,Path>>> map__j__pair_jpi_pi;
-	HashMap<Flow,HashSet<Path>> pi_flow;
-	HashMap<Pair<Flow,Server>,HashSet<Path>> pi_flow_server;
+	HashMap<Server,HashSet<PathTrie.Node>> map__j__jpi;
+	HashMap<Server,HashSet<Pair<PathTrie.Node,PathTrie.Node>>> map__j__pair_jpi_pi;
+	HashMap<Flow,HashSet<PathTrie.Node>> pi_flow;
+	HashMap<Pair<Flow,Server>,HashSet<PathTrie.Node>> pi_flow_server;
 
 	HashSet<TemporalConstraint> temp_constraints; // Used for optional non-decreasing constraints at source and for the LP output.
-	HashSet<TemporalConstraint> temp_constraints_transClosed;
-	HashMap<Path,HashSet<TemporalConstraint>> map__path__temp_constraints_transClosed;
+	// Transitive closure of the temporal constraints over the trie's path ids:
+	// Bit pi of the set at index jpi is set iff t{jpi} <= t{pi}. 
+	ArrayList<BitSet> temp_constraints_transClosed;
 
 	HashSet<NumericalConstraint> s2c_constraints;
 	HashSet<LogicalConstraint> startBP_constraints;
@@ -139,24 +148,24 @@ public class UniqueLinearProgram {
 		sink_of_interest = flow_of_interest.getSink();
 		explicit_src = Server.createExplicitSourceServer();
 		empty_path = Path.createEmptyPath(); // $t_{\emptyset}$
+		path_trie = new PathTrie( network, empty_path );
 		
-		map__j__jpi = new HashMap<Server,HashSet<Path>>();
-		map__j__pair_jpi_pi = new HashMap<Server,HashSet<Pair<Path,Path>>>();
+		map__j__jpi = new HashMap<Server,HashSet<PathTrie.Node>>();
+		map__j__pair_jpi_pi = new HashMap<Server,HashSet<Pair<PathTrie.Node,PathTrie.Node>>>();
 		
 		temp_constraints = new HashSet<TemporalConstraint>();
-		temp_constraints_transClosed = new HashSet<TemporalConstraint>();
-		map__path__temp_constraints_transClosed = new HashMap<Path,HashSet<TemporalConstraint>>(); // Used in the search the relation between two pis.
-		map__path__temp_constraints_transClosed.put( empty_path, new HashSet<TemporalConstraint>() );
+		temp_constraints_transClosed = new ArrayList<BitSet>(); // Used in the search the relation between two pis.
+		setTempConstraintsTransClosed( path_trie.getRoot(), new BitSet() );
 
 		Writer w = null;
 		PrintWriter pw = null;
 		if( debug && print_debug ) {
 			File file = new File( lp_file_output_path + "LP_debug.txt" );
-	 		w = new OutputStreamWriter( new FileOutputStream(file), "UTF-8" );
+	 		w = new BufferedWriter( new OutputStreamWriter( new FileOutputStream(file), "UTF-8" ) );
 	 		pw = new PrintWriter( w );
 		}
 
-		derivePi( flow_of_interest, sink_of_interest, Path.createEmptyPath() );
+		derivePi( flow_of_interest, sink_of_interest, path_trie.getRoot() );
 		
 		if( debug ) {
 			System.out.println();
@@ -170,10 +179,10 @@ public class UniqueLinearProgram {
 			System.out.println( "Temporal constraints (\"neighbors\" only)\n" + temp_constraints );
 			System.out.println();
 			
-			System.out.println( "Temporal constraints (transitive closure)\n" + temp_constraints_transClosed );
+			System.out.println( "Temporal constraints (transitive closure)\n" + getTempConstraintsTransClosed() );
 			System.out.println();
 			
-			System.out.println( "Map: Path -> Constraints (transitive closure)\n" + map__path__temp_constraints_transClosed );
+			System.out.println( "Path id -> Path ids (transitive closure)\n" + temp_constraints_transClosed );
 			System.out.println();
 			
 			if( print_debug ) {
@@ -187,18 +196,18 @@ public class UniqueLinearProgram {
 				pw.println( "Temporal constraints (\"neighbors\" only)\n" + temp_constraints );
 				pw.println();
 				
-				pw.println( "Temporal constraints (transitive closure)\n" + temp_constraints_transClosed );
+				pw.println( "Temporal constraints (transitive closure)\n" + getTempConstraintsTransClosed() );
 				pw.println();
 				
-				pw.println( "Map: Path -> Constraints (transitive closure)\n" + map__path__temp_constraints_transClosed );
+				pw.println( "Path id -> Path ids (transitive closure)\n" + temp_constraints_transClosed );
 				pw.println();
 				
 				pw.flush();
 			}
 		}
 		
-		pi_flow = new HashMap<Flow,HashSet<Path>>();
-		pi_flow_server = new HashMap<Pair<Flow,Server>,HashSet<Path>>();
+		pi_flow = new HashMap<Flow,HashSet<PathTrie.Node>>();
+		pi_flow_server = new HashMap<Pair<Flow,Server>,HashSet<PathTrie.Node>>();
 		
 		derivePiFlow();
 
@@ -339,19 +348,18 @@ public class UniqueLinearProgram {
 		}
 	}
 
-	private void derivePi( Flow flow_to_trace, Server tracing_start, Path suffix ) throws Exception {
+	private void derivePi( Flow flow_to_trace, Server tracing_start, PathTrie.Node suffix ) throws Exception {
 		Path path_to_trace = flow_to_trace.getSubPath( flow_to_trace.getSource(), tracing_start );
 		
 		if( debug ) {
 			System.out.println( "ftt\t" + flow_to_trace.getAlias() );
-			System.out.println( "suffix\t" + suffix.toShortString() );
+			System.out.println( "suffix\t" + suffix.toString() );
 			System.out.println( "ptt\t" + path_to_trace.toShortString() );
 		}
 		
 		Server current_server;
-		Path suffix_new = new Path( suffix );
+		PathTrie.Node suffix_new = suffix;
 		Set<Flow> flows_to_trace_next;
-		LinkedList<Server> suffix_ftt_servers;
 		
 		for ( Iterator<Server> servers_reverse_iter = path_to_trace.getServers().descendingIterator(); servers_reverse_iter.hasNext(); ) {
 			current_server = servers_reverse_iter.next();
@@ -359,9 +367,7 @@ public class UniqueLinearProgram {
 			deriveConstraints( current_server, suffix_new ); // Need to use suffix_new because it gets updated in the loop.
 
 			// Given flow to trace.
-			suffix_ftt_servers = suffix_new.getServers();
-			suffix_ftt_servers.addFirst( current_server );
-			suffix_new = server_graph.createPathFromServers( suffix_ftt_servers );
+			suffix_new = path_trie.prepend( suffix_new, current_server );
 			
 			if( debug ) {
 				System.out.println( "server\t" + current_server.getAlias() );
@@ -387,84 +393,88 @@ public class UniqueLinearProgram {
 	 *  map__j__jpi
 	 *  map__j__pair_jpi_pi
 	 *  
-	 *  map__path__temp_constraints_transClosed
-	 *  
 	 */
-	private void deriveConstraints( Server s, Path pi ) throws Exception {
-		if( pi.getServers().isEmpty() ) { // Catches the special case at the flow of interest's sink.
-			Path s_as_path = server_graph.createPathFromServers( new LinkedList<Server>( Collections.singleton( sink_of_interest ) ) );
+	private void deriveConstraints( Server s, PathTrie.Node pi ) throws Exception {
+		if( pi.isEmptyPath() ) { // Catches the special case at the flow of interest's sink.
+			PathTrie.Node s_as_path = path_trie.prepend( pi, sink_of_interest );
 
 			// Add the relation to the empty path.
-			TemporalConstraint soi_le_empty_path = new TemporalConstraint( s_as_path, Relation.LE, empty_path );
+			TemporalConstraint soi_le_empty_path = new TemporalConstraint( s_as_path.getPath(), Relation.LE, empty_path );
 					
 			temp_constraints.add( soi_le_empty_path );
-			temp_constraints_transClosed.add( soi_le_empty_path );
-			map__path__temp_constraints_transClosed.put( s_as_path, new HashSet<TemporalConstraint>( Collections.singleton( soi_le_empty_path  ) ) );
+			BitSet closure_soi = new BitSet();
+			closure_soi.set( pi.getId() );
+			setTempConstraintsTransClosed( s_as_path, closure_soi );
 					
-			map__j__pair_jpi_pi.put( sink_of_interest, new HashSet<Pair<Path,Path>>( Collections.singleton( new Pair<Path,Path>( s_as_path, empty_path ) ) ) );
-			map__j__jpi.put( sink_of_interest, new HashSet<Path>( Collections.singleton( s_as_path ) ) );
+			map__j__pair_jpi_pi.put( sink_of_interest, new HashSet<Pair<PathTrie.Node,PathTrie.Node>>( Collections.singleton( new Pair<PathTrie.Node,PathTrie.Node>( s_as_path, pi ) ) ) );
+			map__j__jpi.put( sink_of_interest, new HashSet<PathTrie.Node>( Collections.singleton( s_as_path ) ) );
 			
 			return;
 		}
 		// Construct jpi.
-		LinkedList<Server> jpi_servers = pi.getServers();
-		jpi_servers.addFirst( s );
-		
-		Path jpi = server_graph.createPathFromServers( jpi_servers );
+		PathTrie.Node jpi = path_trie.prepend( pi, s );
 		
 		// Mapping j -> jpi.
-		HashSet<Path> new_jpi = new HashSet<Path>( Collections.singleton( jpi ) );
-		HashSet<Path> prev_jpi = map__j__jpi.put( s, new_jpi );
-		if( prev_jpi != null ) {
-			new_jpi.addAll( prev_jpi );
+		HashSet<PathTrie.Node> set_jpi = map__j__jpi.get( s );
+		if( set_jpi == null ) {
+			set_jpi = new HashSet<PathTrie.Node>();
+			map__j__jpi.put( s, set_jpi );
 		}
+		set_jpi.add( jpi );
 
 		// Mapping j -> (jpi,pi).
-		HashSet<Pair<Path,Path>> new_pair_jpi_pi = new HashSet<Pair<Path,Path>>( Collections.singleton( new Pair<Path,Path>( jpi, pi ) ) );
-		HashSet<Pair<Path,Path>> prev_pair_jpi_pi = map__j__pair_jpi_pi.put( s, new_pair_jpi_pi );
-		if( prev_pair_jpi_pi != null ) {
-			new_pair_jpi_pi.addAll( prev_pair_jpi_pi );
+		HashSet<Pair<PathTrie.Node,PathTrie.Node>> set_pair_jpi_pi = map__j__pair_jpi_pi.get( s );
+		if( set_pair_jpi_pi == null ) {
+			set_pair_jpi_pi = new HashSet<Pair<PathTrie.Node,PathTrie.Node>>();
+			map__j__pair_jpi_pi.put( s, set_pair_jpi_pi );
 		}
+		set_pair_jpi_pi.add( new Pair<PathTrie.Node,PathTrie.Node>( jpi, pi ) );
 		
 		// Temporal constraints.
-		TemporalConstraint jpi_le_pi = new TemporalConstraint( jpi, Relation.LE, pi );
+		TemporalConstraint jpi_le_pi = new TemporalConstraint( jpi.getPath(), Relation.LE, pi.getPath() );
 		temp_constraints.add( jpi_le_pi );
 		
 		// Temporal constraints, transitively closed.
-		Iterator<Server> pi_reverse_iter = pi.getServers().descendingIterator();
-		Server pi_partial_src = pi_reverse_iter.next(); // skip the sink
-		Server pi_partial_snk = pi.getSink();
-		
-		LinkedList<Server> pi_partial_servers = new LinkedList<Server>( Collections.singleton( pi_partial_snk ) );
-		Path pi_partial = server_graph.createPathFromServers( pi_partial_servers );
-		
-		TemporalConstraint jpi_le_pi_partial = new TemporalConstraint( jpi, Relation.LE, pi_partial );
-		temp_constraints_transClosed.add( jpi_le_pi_partial );
-
-		TemporalConstraint jpi_le_empty_path = new TemporalConstraint( jpi, Relation.LE, empty_path );
-		temp_constraints_transClosed.add( jpi_le_empty_path );
-		
-			// Store constraints for efficient search
-			HashSet<TemporalConstraint> constraints_with_current_path = map__path__temp_constraints_transClosed.get( jpi );
-			if( constraints_with_current_path == null ) {
-				constraints_with_current_path = new HashSet<TemporalConstraint>( Collections.singleton( jpi_le_pi_partial ) );
-				map__path__temp_constraints_transClosed.put( jpi, constraints_with_current_path );
-			} else {
-				constraints_with_current_path.add( jpi_le_pi_partial );
+		// pi is jpi's suffix in the trie and, like all paths traced so far, already has its closure.
+		// Thus, jpi is before pi and before everything pi is before.
+		if( getTempConstraintsTransClosed( jpi ) != null ) {
+			return;
+		}
+		BitSet closure_jpi = (BitSet) getTempConstraintsTransClosed( pi ).clone();
+		closure_jpi.set( pi.getId() );
+		setTempConstraintsTransClosed( jpi, closure_jpi );
+	}
+	
+	private BitSet getTempConstraintsTransClosed( PathTrie.Node path ) {
+		if( path.getId() >= temp_constraints_transClosed.size() ) {
+			return null;
+		}
+		return temp_constraints_transClosed.get( path.getId() );
+	}
+	
+	private void setTempConstraintsTransClosed( PathTrie.Node path, BitSet closure ) {
+		while( temp_constraints_transClosed.size() <= path.getId() ) {
+			temp_constraints_transClosed.add( null );
+		}
+		temp_constraints_transClosed.set( path.getId(), closure );
+	}
+	
+	/**
+	 * @return The transitive closure of the temporal constraints, created from the internal representation.
+	 */
+	public HashSet<TemporalConstraint> getTempConstraintsTransClosed() {
+		HashSet<TemporalConstraint> constraints = new HashSet<TemporalConstraint>();
+		for( int jpi_id = 0; jpi_id < temp_constraints_transClosed.size(); jpi_id++ ) {
+			BitSet closure_jpi = temp_constraints_transClosed.get( jpi_id );
+			if( closure_jpi == null ) {
+				continue;
+			}
+			Path jpi = path_trie.getNode( jpi_id ).getPath();
+			for( int pi_id = closure_jpi.nextSetBit( 0 ); pi_id >= 0; pi_id = closure_jpi.nextSetBit( pi_id + 1 ) ) {
+				constraints.add( new TemporalConstraint( jpi, Relation.LE, path_trie.getNode( pi_id ).getPath() ) );
 			}
-			constraints_with_current_path.add( jpi_le_empty_path );
-		
-		for ( ; pi_reverse_iter.hasNext(); ) {
-			pi_partial_src = pi_reverse_iter.next();
-			pi_partial_servers.addFirst( pi_partial_src );
-			pi_partial = server_graph.createPathFromServers( pi_partial_servers );
-			
-			jpi_le_pi_partial = new TemporalConstraint( jpi, Relation.LE, pi_partial );
-			temp_constraints_transClosed.add( jpi_le_pi_partial );
-			
-				// Store constraints for efficient search.
-				constraints_with_current_path.add( jpi_le_pi_partial );
 		}
+		return constraints;
 	}
 
 	// PI_i^(j) and PI_i
@@ -473,30 +483,30 @@ public class UniqueLinearProgram {
 		// Therefore, we can iterate over all the flows in in network.getFlows().
 		
 		for( Flow flow : server_graph.getFlows() ){
-			HashSet<Path> set_flow_jpis_pis = new HashSet<Path>();
+			HashSet<PathTrie.Node> set_flow_jpis_pis = new HashSet<PathTrie.Node>();
 			
 			for( Server j : flow.getServersOnPath() ) {
-				HashSet<Pair<Path,Path>> paths_jpi_pi = map__j__pair_jpi_pi.get( j );
+				HashSet<Pair<PathTrie.Node,PathTrie.Node>> paths_jpi_pi = map__j__pair_jpi_pi.get( j );
 				Pair<Flow,Server> pair_flow_j = new Pair<Flow,Server>( flow, j );
 
 				if( paths_jpi_pi == null ) {
 					if( j == sink_of_interest ) {
-						set_flow_jpis_pis.add( empty_path );
-						pi_flow_server.put( pair_flow_j, new HashSet<Path>( Collections.singleton( empty_path ) ) );
+						set_flow_jpis_pis.add( path_trie.getRoot() );
+						pi_flow_server.put( pair_flow_j, new HashSet<PathTrie.Node>( Collections.singleton( path_trie.getRoot() ) ) );
 					}
 					continue;
 				}
 				
-				HashSet<Path> set_jpis_pis = new HashSet<Path>();
-				for( Pair<Path,Path> jpi_pi : paths_jpi_pi ) {
+				HashSet<PathTrie.Node> set_jpis_pis = new HashSet<PathTrie.Node>();
+				for( Pair<PathTrie.Node,PathTrie.Node> jpi_pi : paths_jpi_pi ) {
 					set_jpis_pis.add( jpi_pi.getFirst() );
 					set_jpis_pis.add( jpi_pi.getSecond() );
 				}
 
-				// Create HashMap<Flow,HashSet<Path>> pi_flow.
+				// Create HashMap<Flow,HashSet<PathTrie.Node>> pi_flow.
 				set_flow_jpis_pis.addAll( set_jpis_pis );
 								
-				// Create HashMap<Pair<Flow,Server>,HashSet<Path>> pi_flow_server.
+				// Create HashMap<Pair<Flow,Server>,HashSet<PathTrie.Node>> pi_flow_server.
 				pi_flow_server.put( pair_flow_j, set_jpis_pis );
 			}
 			
@@ -507,75 +517,54 @@ public class UniqueLinearProgram {
 	}
 	
 	public Relation getTempConstraintRelation( Path path1, Path path2 ) {
-		HashSet<TemporalConstraint> constraints_path1 = map__path__temp_constraints_transClosed.get( path1 );
-		HashSet<TemporalConstraint> constraints_path2 = map__path__temp_constraints_transClosed.get( path2 );
-		
-		TemporalConstraint constr_path1 = null;
-		for( TemporalConstraint constr : constraints_path1 ) {
-			if( constr.getPath2().equals( path2 ) ) {
-				constr_path1 = constr;
-				break;
-			}
-		}
-
-		TemporalConstraint constr_path2 = null;
-		for( TemporalConstraint constr : constraints_path2 ) {
-			if( constr.getPath2().equals( path1 ) ) {
-				constr_path2 = constr;
-				break;
-			}
+		PathTrie.Node node_path1 = path_trie.getNode( path1 );
+		PathTrie.Node node_path2 = path_trie.getNode( path2 );
+		if( node_path1 == null || node_path2 == null ) {
+			return null;
 		}
+		return getTempConstraintRelation( node_path1, node_path2 );
+	}
+	
+	private Relation getTempConstraintRelation( PathTrie.Node node_path1, PathTrie.Node node_path2 ) {
+		// All temporal constraints are of the form t{jpi} <= t{pi}.
+		BitSet closure_path1 = getTempConstraintsTransClosed( node_path1 );
+		BitSet closure_path2 = getTempConstraintsTransClosed( node_path2 );
+		boolean path1_le_path2 = closure_path1 != null && closure_path1.get( node_path2.getId() );
+		boolean path2_le_path1 = closure_path2 != null && closure_path2.get( node_path1.getId() );
 		
-		if ( constr_path1 != null && constr_path2 != null ) {
-			System.out.println( "Ambiguity: More than one constraint for" );
-			System.out.println( "path1: " + path1.toShortString() );
-			System.out.println( "constraint_path1: " + constr_path1.toString() );
-			System.out.println( "path2: " + path2.toShortString() );
-			System.out.println( "constraint_path2: " + constr_path2.toString() );
-			System.exit( 0 );
+		if ( path1_le_path2 && path2_le_path1 ) {
+			String ambiguity = "Ambiguity: More than one constraint for"
+					+ "\npath1: " + node_path1.getPath().toShortString()
+					+ "\nconstraint_path1: " + new TemporalConstraint( node_path1.getPath(), Relation.LE, node_path2.getPath() ).toString()
+					+ "\npath2: " + node_path2.getPath().toShortString()
+					+ "\nconstraint_path2: " + new TemporalConstraint( node_path2.getPath(), Relation.LE, node_path1.getPath() ).toString();
+			Diagnostics.report( Diagnostics.Event.TEMPORAL_CONSTRAINT_AMBIGUITY, () -> ambiguity );
+			throw new RuntimeException( ambiguity );
 		}
 		// This here happens with rejoining flows when constructing the ULP because there is no total order between parallel paths.
-		if ( constr_path1 == null && constr_path2 == null ) {
+		if ( !path1_le_path2 && !path2_le_path1 ) {
 			return null;
 		}
 		
-		TemporalConstraint constraint;
-		if ( constr_path1 != null ) {
-			constraint = constr_path1;
-		} else {
-			constraint = constr_path2;
-		}
-		
-		Relation relation = constraint.getRelation();
-		if( constraint.getPath1().equals( path1 ) 
-				|| relation == Relation.E ) {
-			return relation;
+		if( path1_le_path2 ) {
+			return Relation.LE;
 		} else {
 			// Opposite relation!
-			switch( relation ) {
-				case L:
-					return Relation.G;
-				case LE:
-				default:
-					return Relation.GE;
-				case GE:
-					return Relation.LE;
-				case G:
-					return Relation.L;
-			}
+			return Relation.GE;
 		}
 	}
 	
 	private void s2cConstraints() {
 		for( Server server_j : server_graph.getServers() ) {
-			HashSet<Pair<Path,Path>> set_pair_jpi_pi = map__j__pair_jpi_pi.get( server_j );
+			HashSet<Pair<PathTrie.Node,PathTrie.Node>> set_pair_jpi_pi = map__j__pair_jpi_pi.get( server_j );
 			if( set_pair_jpi_pi == null ) {
 				continue;
 			}
 			
 			Num num_operations_factory = Num.getFactory(Calculator.getInstance().getNumBackend());
 			
-			for( Pair<Path,Path> pair_jpi_pi : set_pair_jpi_pi ) {
+			for( Pair<PathTrie.Node,PathTrie.Node> pair_node_jpi_pi : set_pair_jpi_pi ) {
+				Pair<Path,Path> pair_jpi_pi = new Pair<Path,Path>( pair_node_jpi_pi.getFirst().getPath(), pair_node_jpi_pi.getSecond().getPath() );
 				
 				// Create left side: "flow shapes".
 				HashSet<Pair<Operator,FlowLocationTime>> left_side = new HashSet<Pair<Operator,FlowLocationTime>>();
@@ -629,19 +618,19 @@ public class UniqueLinearProgram {
 			 * 		Therefore, the following code will never be executed and the exception was never raised.
 			 * It should be fixed nonetheless.
 			 */
-			HashSet<Pair<Path,Path>> path_pairs_to_check_against = new HashSet<Pair<Path,Path>>();
-			Pair<Path,Path> current_path_pair;
+			HashSet<Pair<PathTrie.Node,PathTrie.Node>> path_pairs_to_check_against = new HashSet<Pair<PathTrie.Node,PathTrie.Node>>();
+			Pair<PathTrie.Node,PathTrie.Node> current_path_pair;
 			
-			HashSet<Pair<Path,Path>> pairs_jpi_pi = map__j__pair_jpi_pi.get( server_j );
+			HashSet<Pair<PathTrie.Node,PathTrie.Node>> pairs_jpi_pi = map__j__pair_jpi_pi.get( server_j );
 			if( pairs_jpi_pi != null && pairs_jpi_pi.size() > 1 ) {
-				Iterator<Pair<Path,Path>> pairs_iter = pairs_jpi_pi.iterator();
+				Iterator<Pair<PathTrie.Node,PathTrie.Node>> pairs_iter = pairs_jpi_pi.iterator();
 				path_pairs_to_check_against.add( pairs_iter.next() );
 				
 				Relation relation;
 				while( pairs_iter.hasNext() ) {
 					current_path_pair = pairs_iter.next();
 					
-					for( Pair<Path,Path> other_path_pair : path_pairs_to_check_against ) {
+					for( Pair<PathTrie.Node,PathTrie.Node> other_path_pair : path_pairs_to_check_against ) {
 						
 						// Check if the jpis' relation.
 						relation = getTempConstraintRelation( current_path_pair.getFirst(), other_path_pair.getFirst() );
@@ -664,13 +653,13 @@ public class UniqueLinearProgram {
 							case LE:
 							default:
 								// Switch t{...}s
-								path1 = other_path_pair.getSecond();
-								path2 = current_path_pair.getSecond();
+								path1 = other_path_pair.getSecond().getPath();
+								path2 = current_path_pair.getSecond().getPath();
 								break;
 							case GE:
 							case G:
-								path1 = current_path_pair.getSecond();
-								path2 = other_path_pair.getSecond();
+								path1 = current_path_pair.getSecond().getPath();
+								path2 = other_path_pair.getSecond().getPath();
 								break;
 						}
 
@@ -714,11 +703,12 @@ public class UniqueLinearProgram {
 	
 	private void backloggedPeriodsConstraints() {
 		for( Server server_j : server_graph.getServers() ) {
-			HashSet<Path> set_jpi = map__j__jpi.get( server_j );
+			HashSet<PathTrie.Node> set_jpi = map__j__jpi.get( server_j );
 			if( set_jpi == null ) {
 				continue;
 			}
-			for( Path jpi : set_jpi ) {
+			for( PathTrie.Node node_jpi : set_jpi ) {
+				Path jpi = node_jpi.getPath();
 				for( Flow flow : server_graph.getFlows( server_j ) ) {
 					Server prec_j;
 					try {
@@ -738,11 +728,12 @@ public class UniqueLinearProgram {
 	private void flowConstraints() {
 		for( Flow flow : pi_flow.keySet() ) {
 			for( Server server_j : flow.getServersOnPath() ) {
-				HashSet<Pair<Path,Path>> set_pair_jpi_pi = map__j__pair_jpi_pi.get( server_j );
+				HashSet<Pair<PathTrie.Node,PathTrie.Node>> set_pair_jpi_pi = map__j__pair_jpi_pi.get( server_j );
 				if( set_pair_jpi_pi == null ) {
 					continue;
 				}
-				for( Pair<Path,Path> pair_jpi_pi : set_pair_jpi_pi ) {
+				for( Pair<PathTrie.Node,PathTrie.Node> pair_node_jpi_pi : set_pair_jpi_pi ) {
+					Pair<Path,Path> pair_jpi_pi = new Pair<Path,Path>( pair_node_jpi_pi.getFirst().getPath(), pair_node_jpi_pi.getSecond().getPath() );
 					flow_constraints.add( new LogicalConstraint( flow,
 																	server_j, pair_jpi_pi.getFirst(),
 																	Relation.LE,
@@ -761,11 +752,12 @@ public class UniqueLinearProgram {
 	private void flowConstraintsHdr() {
 		for( Flow flow : pi_flow.keySet() ) {
 			for( Server server_j : flow.getServersOnPath() ) {
-				HashSet<Pair<Path,Path>> set_pair_jpi_pi = map__j__pair_jpi_pi.get( server_j );
+				HashSet<Pair<PathTrie.Node,PathTrie.Node>> set_pair_jpi_pi = map__j__pair_jpi_pi.get( server_j );
 				if( set_pair_jpi_pi == null ) {
 					continue;
 				}
-				for( Pair<Path,Path> pair_jpi_pi : set_pair_jpi_pi ) {
+				for( Pair<PathTrie.Node,PathTrie.Node> pair_node_jpi_pi : set_pair_jpi_pi ) {
+					Pair<Path,Path> pair_jpi_pi = new Pair<Path,Path>( pair_node_jpi_pi.getFirst().getPath(), pair_node_jpi_pi.getSecond().getPath() );
 					Server precj;
 					try{ // server_j is not the flow's source, then we also need to add the relations to the source.
 						precj = flow.getPath().getPrecedingServer( server_j );
@@ -799,24 +791,24 @@ public class UniqueLinearProgram {
 	}
 	
 	private void nonDecreasingConstraints() {
-		HashSet<Path> paths_to_check_against = new HashSet<Path>();
-		Path current_path;
+		HashSet<PathTrie.Node> paths_to_check_against = new HashSet<PathTrie.Node>();
+		PathTrie.Node current_path;
 		
 		for( Flow flow : pi_flow.keySet() ) {
 			for( Server server_j : flow.getServersOnPath() ) {
 				
 				paths_to_check_against.clear();
-				HashSet<Path> set_paths = pi_flow_server.get( new Pair<Flow,Server>( flow, server_j ) );
+				HashSet<PathTrie.Node> set_paths = pi_flow_server.get( new Pair<Flow,Server>( flow, server_j ) );
 				if( set_paths == null || set_paths.size() < 2 ) {
 					continue;
 				}
 				
-				Iterator<Path> paths_iter = set_paths.iterator();
+				Iterator<PathTrie.Node> paths_iter = set_paths.iterator();
 				paths_to_check_against.add( paths_iter.next() );
 				while( paths_iter.hasNext() ) {
 					current_path = paths_iter.next();
 					
-					for( Path other_path : paths_to_check_against ) {
+					for( PathTrie.Node other_path : paths_to_check_against ) {
 						Relation relation = getTempConstraintRelation( current_path, other_path );
 						if( relation == null ) { // See comment in getTempConstraintRelation.
 							continue;
@@ -841,9 +833,9 @@ public class UniqueLinearProgram {
 						}
 						
 						nonDecreasing_constraints.add( new LogicalConstraint( flow,
-																		server_j, current_path,
+																		server_j, current_path.getPath(),
 																		constraint_relation,
-																		server_j, other_path ) );
+																		server_j, other_path.getPath() ) );
 					}
 					
 					paths_to_check_against.add( current_path );
@@ -864,23 +856,23 @@ public class UniqueLinearProgram {
 	}
 	
 	private void arrivalConstraints() {
-		HashSet<Path> paths_to_check_against = new HashSet<Path>();
-		Path current_path;
+		HashSet<PathTrie.Node> paths_to_check_against = new HashSet<PathTrie.Node>();
+		PathTrie.Node current_path;
 		
 		for( Flow flow : pi_flow.keySet() ) {
 			
 			paths_to_check_against.clear();
-			HashSet<Path> set_paths = pi_flow.get( flow );
+			HashSet<PathTrie.Node> set_paths = pi_flow.get( flow );
 			if( set_paths == null || set_paths.size() < 2 ) {
 				continue;
 			}
 			
-			Iterator<Path> paths_iter = set_paths.iterator();
+			Iterator<PathTrie.Node> paths_iter = set_paths.iterator();
 			paths_to_check_against.add( paths_iter.next() );
 			while( paths_iter.hasNext() ) {
 				current_path = paths_iter.next();
 				
-				for( Path other_path : paths_to_check_against ) {
+				for( PathTrie.Node other_path : paths_to_check_against ) {
 					
 					Relation relation = getTempConstraintRelation( current_path, other_path );
 					if( relation == null ) { // See comment in getTempConstraintRelation.
@@ -896,13 +888,13 @@ public class UniqueLinearProgram {
 						case LE:
 						default:
 							// Switch t{...}s
-							path1 = other_path;
-							path2 = current_path;
+							path1 = other_path.getPath();
+							path2 = current_path.getPath();
 							break;
 						case GE:
 						case G:
-							path1 = current_path;
-							path2 = other_path;
+							path1 = current_path.getPath();
+							path2 = other_path.getPath();
 							break;
 					}
 					
@@ -944,71 +936,7 @@ public class UniqueLinearProgram {
 	 * The LP file created by this function can be read by LpSolve.
 	 */
 	public void saveDelayLPv1( String output_path ) throws Exception {
- 		File file = new File( output_path );
- 		Writer w = new OutputStreamWriter( new FileOutputStream(file), "UTF-8" );
- 		PrintWriter pw = new PrintWriter(w);
- 		
- 		String foi_str = flow_of_interest.getAlias();
-		String foi_expl_src_str = explicit_src.getAlias();
-		String foi_snk_str = flow_of_interest.getSink().getAlias();
-		
-		StringBuffer foi_path_strWr = new StringBuffer();
-		for( Server server : flow_of_interest.getPath().getServers() ) {
-			foi_path_strWr.append( server.getAlias() );
-		}
-		String foi_path_str = foi_path_strWr.toString();
-		
-		ArrivalCurve alpha_foi = flow_of_interest.getArrivalCurve();
-		
-		StringBuffer objective = new StringBuffer();
-		
-		objective.append( "/* Objective: Worst end-to-end delay for flow " + foi_str + " */ \n" );
-		objective.append( "max: t{} - u;" );
-		objective.append( "\n\n" );
-		
-		objective.append( "/* Insertion */ \n" );
-		objective.append( "/* first(" + foi_str + ")-1 = " + foi_expl_src_str + " */ \n" );
-		objective.append( "/* end(" + foi_str + ") = " + foi_snk_str  + " */ \n" );
-		objective.append( "/* path from first to end: " + foi_path_str + " */ \n\n" );
-		
-		objective.append( "/* Position */ \n" );
-		objective.append( "t{" + foi_path_str + "} <= u;" );
-		objective.append( "\n" );
-		objective.append( "u <= t{}; ");
-		objective.append( "\n\n" );
-
-		objective.append( "/* Monotony */ \n" );
-		objective.append( foi_str + "_" + foi_expl_src_str + "_u" );
-		objective.append( " >= " );
-		objective.append( foi_str + "_" + foi_snk_str + "_t{};" );
-		objective.append( "\n\n" );
-
-		objective.append( "/* Arrival curve constraints */ \n" );
-		objective.append( foi_str + "_" + foi_expl_src_str + "_u" );
-		objective.append( " - " );
-		objective.append( foi_str + "_" + foi_expl_src_str + "_t{" + foi_path_str + "}" );
-		objective.append( " <= " );
-		objective.append( alpha_foi.getBurst().toString() );
-		objective.append( " + " );
-		objective.append( alpha_foi.getUltAffineRate() + " u" );
-		objective.append( " - " );
-		objective.append( alpha_foi.getUltAffineRate() + " t{" + foi_path_str + "};\n" );
-		
-		objective.append( foi_str + "_" + foi_expl_src_str + "_t{}" );
-		objective.append( " - " );
-		objective.append( foi_str + "_" + foi_expl_src_str + "_u" );
-		objective.append( " <= " );
-		objective.append( alpha_foi.getBurst().toString() );
-		objective.append( " + " );
-		objective.append( alpha_foi.getUltAffineRate() + "t{}" );
-		objective.append( " - " );
-		objective.append( alpha_foi.getUltAffineRate() + " u;" );
-
- 		pw.println( objective.toString() );
- 		pw.println( "\n" );
- 		pw.print( lpSolveConstraintsString() );
- 		
- 		pw.close();
+		saveDelayLP( output_path, LinearProgramFormat.LP_SOLVE, false );
 	}
 	
 	/**
@@ -1016,231 +944,165 @@ public class UniqueLinearProgram {
 	 * The LP file created by this function can be read by LpSolve.
 	 */
 	public void saveBacklogLPv1( String output_path ) throws Exception {
-		File file = new File( output_path );
- 		Writer w = new OutputStreamWriter( new FileOutputStream(file), "UTF-8" );
- 		PrintWriter pw = new PrintWriter(w);
- 		
- 		Server foi_snk = flow_of_interest.getSink();
-		String foi_snk_str = flow_of_interest.getSink().getAlias();
-		
-		StringBuffer foi_path_strWr = new StringBuffer();
-		for( Server server : flow_of_interest.getPath().getServers() ) {
-			foi_path_strWr.append( server.getAlias() );
-		}
-		
-		StringBuffer objective = new StringBuffer();
-		
-		objective.append( "/* Objective: Backlog bound at server " + foi_snk_str + " */ \n" );
-		objective.append( "max: ");
-		
-		Server prec_i_s;
-		for( Flow f : server_graph.getFlows( foi_snk ) ) {
-			try{
-				prec_i_s = f.getPrecedingServer( foi_snk );
-			} catch (Exception e) { // foi_snk is this flow's source 
-				prec_i_s = explicit_src;
-			}
-			objective.append( " + " + f.getAlias() + "_" + prec_i_s.getAlias() + "_t{}" );
-			objective.append( " - " + f.getAlias() + "_" + foi_snk.getAlias() + "_t{}" );
-		}
-		objective.append( ";\n" );
-
- 		pw.println( objective.toString() );
- 		pw.print( lpSolveConstraintsString() );
- 		
- 		pw.close();
-	}
-	
-	private String lpSolveConstraintsString() {
-		StringBuffer result = new StringBuffer();
- 		
- 		result.append( "/* Temporal constraints */\n" );
- 		for( TemporalConstraint temp_constr : temp_constraints ) {
- 	 		result.append( temp_constr.toString() );
- 	 		result.append( ";\n");
- 		}
-
- 		result.append( "\n/* Strict service constraints */\n" );
- 		for( NumericalConstraint s2c_constr : s2c_constraints ) {
- 	 		result.append( s2c_constr.toString() );
- 	 		result.append( ";\n");
- 		}
-
- 		result.append( "\n/* Starts of backlogged periods */\n" );
- 		for( LogicalConstraint startBP_constr : startBP_constraints ) {
- 	 		result.append( startBP_constr.toString() );
- 	 		result.append( ";\n");
- 		}
-
- 		if( flow_constr_hdr ) {
- 	 		result.append( "\n/* Flow constraints HDR*/\n" );
- 	 		for( LogicalConstraint flow_constr : flow_constraints_hdr ) {
- 	 	 		result.append( flow_constr.toString() );
- 	 	 		result.append( ";\n");
- 	 		}
- 		} else {
- 	 		result.append( "\n/* Flow constraints */\n" );
- 	 		for( LogicalConstraint flow_constr : flow_constraints ) {
- 	 	 		result.append( flow_constr.toString() );
- 	 	 		result.append( ";\n");
- 	 		}
- 		}
-
- 		result.append( "\n/* Non-decreasing functions */\n" );
- 		for( LogicalConstraint nonDecr_constr : nonDecreasing_constraints ) {
- 	 		result.append( nonDecr_constr.toString() );
- 	 		result.append( ";\n");
- 		}
-
- 		result.append( "\n/* Non-decreasing functions at sources*/\n" );
- 		for( LogicalConstraint nonDecr_constr : nonDecreasingAtSource_constraints ) {
- 	 		result.append( nonDecr_constr.toString() );
- 	 		result.append( ";\n");
- 		}
-
- 		result.append( "\n/* Arrival constraints */\n" );
- 		for( NumericalConstraint arrival_constr : arrival_constraints ) {
- 	 		result.append( arrival_constr.toString() );
- 	 		result.append( ";\n");
- 		}
-
- 		return result.toString();
+		saveBacklogLP( output_path, LinearProgramFormat.LP_SOLVE, false );
 	}
 
 	/**
 	 * The LP file created by this function can be read by CPLEX and by Gurobi.
 	 */
 	public void saveDelayLPv2( String output_path ) throws Exception {
- 		
- 		File file = new File( output_path );
- 		Writer w = new OutputStreamWriter( new FileOutputStream(file), "UTF-8" );
- 		PrintWriter pw = new PrintWriter(w);
- 		
- 		String foi_str = flow_of_interest.getAlias();
+		saveDelayLP( output_path, LinearProgramFormat.CPLEX, false );
+	}
+	
+	/**
+	 * Writes the linear program for the flow of interest's worst-case end-to-end delay.
+	 * The constraints are streamed to the file without creating the entire model in memory first.
+	 * 
+	 * @param output_path The file to write to.
+	 * @param format The file format.
+	 * @param gzip Compress the file with gzip.
+	 * @throws Exception Writing the file failed.
+	 */
+	public void saveDelayLP( String output_path, LinearProgramFormat format, boolean gzip ) throws Exception {
+		String foi_str = flow_of_interest.getAlias();
 		String foi_expl_src_str = explicit_src.getAlias();
 		String foi_snk_str = flow_of_interest.getSink().getAlias();
 		
-		StringBuffer foi_path_strWr = new StringBuffer();
-		for( Server server : flow_of_interest.getPath().getServers() ) {
-			foi_path_strWr.append( server.getAlias() );
-		}
-		String foi_path_str = foi_path_strWr.toString();
-		
-		ArrivalCurve alpha_foi = flow_of_interest.getArrivalCurve();
+		String t_foi_path = LinearProgramWriter.variableName( flow_of_interest.getPath() );
+		String t_empty_path = LinearProgramWriter.variableName( empty_path );
+		String u = "u";
 		
-		StringBuffer objective = new StringBuffer();
+		String foi_src_u = foi_str + "_" + foi_expl_src_str + "_" + u;
+		String foi_src_t_foi_path = foi_str + "_" + foi_expl_src_str + "_" + t_foi_path;
+		String foi_src_t_empty_path = foi_str + "_" + foi_expl_src_str + "_" + t_empty_path;
+		String foi_snk_t_empty_path = foi_str + "_" + foi_snk_str + "_" + t_empty_path;
 		
-		objective.append( "\\ Objective: Worst end-to-end delay for flow " + foi_str + "\n" );
-		objective.append( "Maximize\n" );
-		objective.append( "t{} - u" );
-		objective.append( "\n\n" );
+		Num alpha_foi_rate = flow_of_interest.getArrivalCurve().getUltAffineRate();
+		Num alpha_foi_burst = flow_of_interest.getArrivalCurve().getBurst();
+		Num zero = Num.getFactory(Calculator.getInstance().getNumBackend()).createZero();
 		
-		objective.append( "Subject To" );
-		objective.append( "\n\n" );
-		
-		objective.append( "\\ Insertion\n" );
-		objective.append( "\\ first(" + foi_str + ")-1 = " + foi_expl_src_str + "\n" );
-		objective.append( "\\ end(" + foi_str + ") = " + foi_snk_str  + "\n" );
-		objective.append( "\\ path from first to end: " + foi_path_str + "\n\n" );
-		
-		objective.append( "\\ Position\n" );
-		objective.append( "t{" + foi_path_str + "} - u <= 0" );
-		objective.append( "\n" );
-		objective.append( "u -t{} <= 0 ");
-		objective.append( "\n\n" );
+		try( LinearProgramWriter lp = LinearProgramWriter.create( output_path, format, gzip ) ) {
+			lp.comment( "Objective: Worst end-to-end delay for flow " + foi_str );
+			Map<String,Num> objective = new LinkedHashMap<String,Num>();
+			LinearProgramWriter.addTerm( objective, t_empty_path, Operator.PLUS );
+			LinearProgramWriter.addTerm( objective, u, Operator.MINUS );
+			lp.objective( true, objective );
+			
+			lp.comment( "Insertion: first(" + foi_str + ")-1 = " + foi_expl_src_str
+							+ ", end(" + foi_str + ") = " + foi_snk_str
+							+ ", path from first to end: " + t_foi_path );
+			
+			lp.comment( "Position" );
+			Map<String,Num> position = new LinkedHashMap<String,Num>();
+			LinearProgramWriter.addTerm( position, t_foi_path, Operator.PLUS );
+			LinearProgramWriter.addTerm( position, u, Operator.MINUS );
+			lp.constraint( position, Relation.LE, zero );
+			
+			position = new LinkedHashMap<String,Num>();
+			LinearProgramWriter.addTerm( position, u, Operator.PLUS );
+			LinearProgramWriter.addTerm( position, t_empty_path, Operator.MINUS );
+			lp.constraint( position, Relation.LE, zero );
 
-		objective.append( "\\ Monotony\n" );
-		objective.append( foi_str + "_" + foi_expl_src_str + "_u" );
-		objective.append( " - " );
-		objective.append( foi_str + "_" + foi_snk_str + "_t{}" );
-		objective.append( " >= " );
-		objective.append( "0" );
-		objective.append( "\n\n" );
+			lp.comment( "Monotony" );
+			Map<String,Num> monotony = new LinkedHashMap<String,Num>();
+			LinearProgramWriter.addTerm( monotony, foi_src_u, Operator.PLUS );
+			LinearProgramWriter.addTerm( monotony, foi_snk_t_empty_path, Operator.MINUS );
+			lp.constraint( monotony, Relation.GE, zero );
 
-		objective.append( "\\ Arrival curve constraints\n" );
-		objective.append( foi_str + "_" + foi_expl_src_str + "_u" );
-		objective.append( " - " );
-		objective.append( foi_str + "_" + foi_expl_src_str + "_t{" + foi_path_str + "}" );
-		objective.append( " - " );
-		objective.append( alpha_foi.getUltAffineRate() + " u" );
-		objective.append( " + " );
-		objective.append( alpha_foi.getUltAffineRate() + " t{" + foi_path_str + "}" );
-		objective.append( " <= " );
-		objective.append( alpha_foi.getBurst().toString() );
-		objective.append( "\n" );
+			lp.comment( "Arrival curve constraints" );
+			Map<String,Num> arrivals = new LinkedHashMap<String,Num>();
+			LinearProgramWriter.addTerm( arrivals, foi_src_u, Operator.PLUS );
+			LinearProgramWriter.addTerm( arrivals, foi_src_t_foi_path, Operator.MINUS );
+			LinearProgramWriter.addTerm( arrivals, u, Operator.MINUS, alpha_foi_rate );
+			LinearProgramWriter.addTerm( arrivals, t_foi_path, Operator.PLUS, alpha_foi_rate );
+			lp.constraint( arrivals, Relation.LE, alpha_foi_burst );
+			
+			arrivals = new LinkedHashMap<String,Num>();
+			LinearProgramWriter.addTerm( arrivals, foi_src_t_empty_path, Operator.PLUS );
+			LinearProgramWriter.addTerm( arrivals, foi_src_u, Operator.MINUS );
+			LinearProgramWriter.addTerm( arrivals, t_empty_path, Operator.MINUS, alpha_foi_rate );
+			LinearProgramWriter.addTerm( arrivals, u, Operator.PLUS, alpha_foi_rate );
+			lp.constraint( arrivals, Relation.LE, alpha_foi_burst );
+			
+			writeConstraints( lp );
+		}
+	}
+	
+	/**
+	 * Writes the linear program for the backlog at the flow of interest's sink.
+	 * The constraints are streamed to the file without creating the entire model in memory first.
+	 * 
+	 * @param output_path The file to write to.
+	 * @param format The file format.
+	 * @param gzip Compress the file with gzip.
+	 * @throws Exception Writing the file failed.
+	 */
+	public void saveBacklogLP( String output_path, LinearProgramFormat format, boolean gzip ) throws Exception {
+		Server foi_snk = flow_of_interest.getSink();
+		String t_empty_path = LinearProgramWriter.variableName( empty_path );
 		
-		objective.append( foi_str + "_" + foi_expl_src_str + "_t{}" );
-		objective.append( " - " );
-		objective.append( foi_str + "_" + foi_expl_src_str + "_u" );
-		objective.append( " - " );
-		objective.append( alpha_foi.getUltAffineRate() + "t{}" );
-		objective.append( " + " );
-		objective.append( alpha_foi.getUltAffineRate() + " u" );
-		objective.append( " <= " );
-		objective.append( alpha_foi.getBurst().toString() );
-
- 		pw.println( objective.toString() );
- 		pw.println( "\n" );
- 		pw.flush();
- 		
- 		pw.println( "\\ Temporal constraints" );
- 		for( TemporalConstraint temp_constr : temp_constraints ) {
- 	 		pw.println( temp_constr.toCPLEXstring() );
- 		}
- 		pw.println();
- 		pw.flush();
-
- 		pw.println( "\\ Strict service constraints" );
- 		for( NumericalConstraint s2c_constr : s2c_constraints ) {
- 	 		pw.println( s2c_constr.toCPLEXstring() );
- 		}
- 		pw.println();
- 		pw.flush();
+		try( LinearProgramWriter lp = LinearProgramWriter.create( output_path, format, gzip ) ) {
+			lp.comment( "Objective: Backlog bound at server " + foi_snk.getAlias() );
+			
+			Map<String,Num> objective = new LinkedHashMap<String,Num>();
+			Server prec_i_s;
+			for( Flow f : server_graph.getFlows( foi_snk ) ) {
+				try{
+					prec_i_s = f.getPrecedingServer( foi_snk );
+				} catch (Exception e) { // foi_snk is this flow's source 
+					prec_i_s = explicit_src;
+				}
+				LinearProgramWriter.addTerm( objective, f.getAlias() + "_" + prec_i_s.getAlias() + "_" + t_empty_path, Operator.PLUS );
+				LinearProgramWriter.addTerm( objective, f.getAlias() + "_" + foi_snk.getAlias() + "_" + t_empty_path, Operator.MINUS );
+			}
+			lp.objective( true, objective );
+			
+			writeConstraints( lp );
+		}
+	}
+	
+	private void writeConstraints( LinearProgramWriter lp ) throws Exception {
+		lp.comment( "Temporal constraints" );
+		for( TemporalConstraint temp_constr : temp_constraints ) {
+			lp.constraint( temp_constr );
+		}
 
- 		pw.println( "\\ Starts of backlogged periods" );
- 		for( LogicalConstraint startBP_constr : startBP_constraints ) {
- 	 		pw.println( startBP_constr.toCPLEXstring() );
- 		}
- 		pw.println();
- 		pw.flush();
+		lp.comment( "Strict service constraints" );
+		for( NumericalConstraint s2c_constr : s2c_constraints ) {
+			lp.constraint( s2c_constr );
+		}
 
- 		if( flow_constr_hdr ) {
- 	 		pw.println( "\\ Flow constraints HDR*/" );
- 	 		for( LogicalConstraint flow_constr : flow_constraints_hdr ) {
- 	 	 		pw.println( flow_constr.toCPLEXstring() );
- 	 		}
- 		} else {
- 	 		pw.println( "\\ Flow constraints" );
- 	 		for( LogicalConstraint flow_constr : flow_constraints ) {
- 	 	 		pw.println( flow_constr.toCPLEXstring() );
- 	 		}
- 		}
- 		pw.println();
- 		pw.flush();
+		lp.comment( "Starts of backlogged periods" );
+		for( LogicalConstraint startBP_constr : startBP_constraints ) {
+			lp.constraint( startBP_constr );
+		}
 
- 		pw.println( "\\ Non-decreasing functions" );
- 		for( LogicalConstraint nonDecr_constr : nonDecreasing_constraints ) {
- 	 		pw.println( nonDecr_constr.toCPLEXstring() );
- 		}
- 		pw.println();
- 		pw.flush();
+		if( flow_constr_hdr ) {
+			lp.comment( "Flow constraints HDR" );
+			for( LogicalConstraint flow_constr : flow_constraints_hdr ) {
+				lp.constraint( flow_constr );
+			}
+		} else {
+			lp.comment( "Flow constraints" );
+			for( LogicalConstraint flow_constr : flow_constraints ) {
+				lp.constraint( flow_constr );
+			}
+		}
 
- 		pw.println( "\\ Non-decreasing functions at sources" );
- 		for( LogicalConstraint nonDecr_constr : nonDecreasingAtSource_constraints ) {
- 	 		pw.println( nonDecr_constr.toCPLEXstring() );
- 		}
- 		pw.println();
- 		pw.flush();
+		lp.comment( "Non-decreasing functions" );
+		for( LogicalConstraint nonDecr_constr : nonDecreasing_constraints ) {
+			lp.constraint( nonDecr_constr );
+		}
 
- 		pw.println( "\\ Arrival constraints" );
- 		for( NumericalConstraint arrival_constr : arrival_constraints ) {
- 	 		pw.println( arrival_constr.toCPLEXstring() );
- 		}
- 		pw.println();
+		lp.comment( "Non-decreasing functions at sources" );
+		for( LogicalConstraint nonDecr_constr : nonDecreasingAtSource_constraints ) {
+			lp.constraint( nonDecr_constr );
+		}
 
- 		pw.println( "End" );
- 		
- 		pw.close();
+		lp.comment( "Arrival constraints" );
+		for( NumericalConstraint arrival_constr : arrival_constraints ) {
+			lp.constraint( arrival_constr );
+		}
 	}
 	
 	public static double cplexDelay( InputStream inputStream ) throws IOException {
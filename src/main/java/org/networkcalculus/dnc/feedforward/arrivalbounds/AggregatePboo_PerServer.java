@@ -30,7 +30,6 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
-import org.networkcalculus.dnc.AlgDncBackend_DNC_Affine;
 import org.networkcalculus.dnc.AnalysisConfig;
 import org.networkcalculus.dnc.Calculator;
 import org.networkcalculus.dnc.curves.ArrivalCurve;
@@ -45,9 +44,9 @@ import org.networkcalculus.dnc.network.server_graph.Path;
 import org.networkcalculus.dnc.network.server_graph.Server;
 import org.networkcalculus.dnc.network.server_graph.ServerGraph;
 import org.networkcalculus.dnc.network.server_graph.Turn;
-import org.networkcalculus.dnc.tandem.analyses.TotalFlowAnalysis;
+import org.networkcalculus.dnc.tandem.AnalysisBudget;
+import org.networkcalculus.dnc.utils.Diagnostics;
 import org.networkcalculus.dnc.utils.SetUtils;
-import org.networkcalculus.num.Num;
 
 public class AggregatePboo_PerServer extends AbstractArrivalBound implements ArrivalBound {
 	private static AggregatePboo_PerServer instance = new AggregatePboo_PerServer();
@@ -60,6 +59,15 @@ public class AggregatePboo_PerServer extends AbstractArrivalBound implements Arr
 		this.configuration = configuration;
 	}
 
+	/**
+	 * @param budget The budget of the analysis this arrival bound is derived for, checked by the nested analyses.
+	 */
+	public AggregatePboo_PerServer(ServerGraph server_graph, AnalysisConfig configuration, AnalysisBudget budget) {
+		this.server_graph = server_graph;
+		this.configuration = configuration;
+		this.budget = budget;
+	}
+
 	public static AggregatePboo_PerServer getInstance() {
 		return instance;
 	}
@@ -97,7 +105,7 @@ public class AggregatePboo_PerServer extends AbstractArrivalBound implements Arr
 		Path common_subpath = f_representative.getSubPath(common_subpath_src, common_subpath_dest);
 
 		alphas_xfcaller = ArrivalBoundDispatch.computeArrivalBounds(server_graph, configuration, common_subpath_src,
-				f_xfcaller, flow_of_interest);
+				f_xfcaller, flow_of_interest, budget);
 
 		// Calculate the left-over service curves for ever server on the sub-path and
 		// convolve the cross-traffics arrival with it
@@ -125,9 +133,9 @@ public class AggregatePboo_PerServer extends AbstractArrivalBound implements Arr
 			// If we are off the path of interest, flow_of_interest is Flow.NULL_FLOW
 			// already.
 			Set<ArrivalCurve> alpha_xxfcaller_path = ArrivalBoundDispatch.computeArrivalBounds(server_graph, configuration,
-					server, f_xxfcaller_server_path, flow_of_interest);
+					server, f_xxfcaller_server_path, flow_of_interest, budget);
 			Set<ArrivalCurve> alpha_xxfcaller_offpath = ArrivalBoundDispatch.computeArrivalBounds(server_graph,
-					configuration, server, f_xxfcaller_server, Flow.NULL_FLOW);
+					configuration, server, f_xxfcaller_server, Flow.NULL_FLOW, budget);
 
 			Set<ArrivalCurve> alphas_xxfcaller_s = new HashSet<ArrivalCurve>();
 			for (ArrivalCurve arrival_curve_path : alpha_xxfcaller_path) {
@@ -143,7 +151,7 @@ public class AggregatePboo_PerServer extends AbstractArrivalBound implements Arr
 			// a null-service curve.
 			if (betas_lo_s.size() == 1
 					&& betas_lo_s.iterator().next().equals(Curve_ConstantPool.ZERO_SERVICE_CURVE.get())) {
-				System.out.println("No service left over during PBOO arrival bounding!");
+				Diagnostics.report(Diagnostics.Event.NO_LEFT_OVER_SERVICE_PBOO, () -> "No service left over during PBOO arrival bounding!");
 				alphas_xfcaller.clear();
 				alphas_xfcaller.add(Curve.getFactory()
 						.createArrivalCurve((Curve)Curve_ConstantPool.INFINITE_SERVICE_CURVE.get()));
@@ -153,35 +161,8 @@ public class AggregatePboo_PerServer extends AbstractArrivalBound implements Arr
 			alphas_xfcaller = Calculator.getInstance().getDncBackend().getBoundingCurves().output(configuration, alphas_xfcaller, server, betas_lo_s);
 		}
 
-		// TODO This implementation only works for token-bucket arrivals. 
-		// It disregards the potential shift in inflection points not present in this burst cap variant.
 		if (configuration.serverBacklogArrivalBound()) {
-			if(Calculator.getInstance().getDncBackend() == AlgDncBackend_DNC_Affine.DISCO_AFFINE) {
-				Server last_hop_xtx = turn.getSource();
-				// For the DNC, it is easiest to use TFA to compute the server's backlog bound. 
-				TotalFlowAnalysis tfa = new TotalFlowAnalysis(server_graph, configuration);
-				tfa.deriveBoundsAtServer(last_hop_xtx);
-	
-				Set<Num> tfa_backlog_bounds = tfa.getServerBacklogBoundMap().get(last_hop_xtx);
-				Num tfa_backlog_bound_min = Num.getFactory(Calculator.getInstance().getNumBackend()).getPositiveInfinity();
-	
-				for (Num tfa_backlog_bound : tfa_backlog_bounds) {
-					if (tfa_backlog_bound.leq(tfa_backlog_bound_min)) {
-						tfa_backlog_bound_min = tfa_backlog_bound;
-					}
-				}
-	
-				// Reduce the burst: Here's the limitation.
-				// It disregards the potential shift in inflection points not present in this burst cap variant.
-				for (ArrivalCurve alpha_xfcaller : alphas_xfcaller) {
-					if (alpha_xfcaller.getBurst().gt(tfa_backlog_bound_min)) {
-						// If the burst is >0 then there are at least two segments and the second holds the burst as its y-axis value.
-						alpha_xfcaller.getSegment(1).setY(tfa_backlog_bound_min);
-					}
-				}
-			} else {
-				System.out.println("INFO: Capping output burstiness was not executed as it currently only works for DISCO_AFFINE curves.");
-			}
+			alphas_xfcaller = capBurstsAtServerBacklog(turn.getSource(), alphas_xfcaller);
 		}
 
 		return alphas_xfcaller;
@@ -47,7 +47,9 @@ import org.networkcalculus.dnc.network.server_graph.Path;
 import org.networkcalculus.dnc.network.server_graph.Server;
 import org.networkcalculus.dnc.network.server_graph.ServerGraph;
 import org.networkcalculus.dnc.network.server_graph.Turn;
+import org.networkcalculus.dnc.tandem.AnalysisBudget;
 import org.networkcalculus.dnc.tandem.analyses.PmooAnalysis;
+import org.networkcalculus.dnc.utils.Diagnostics;
 import org.networkcalculus.dnc.utils.SetUtils;
 
 public class AggregatePmoo extends AbstractArrivalBound implements ArrivalBound {
@@ -61,6 +63,15 @@ public class AggregatePmoo extends AbstractArrivalBound implements ArrivalBound
 		this.configuration = configuration;
 	}
 
+	/**
+	 * @param budget The budget of the analysis this arrival bound is derived for, checked by the nested analyses.
+	 */
+	public AggregatePmoo(ServerGraph server_graph, AnalysisConfig configuration, AnalysisBudget budget) {
+		this.server_graph = server_graph;
+		this.configuration = configuration;
+		this.budget = budget;
+	}
+
 	public static AggregatePmoo getInstance() {
 		return instance;
 	}
@@ -127,7 +138,7 @@ public class AggregatePmoo extends AbstractArrivalBound implements ArrivalBound
 			f_xxfcaller.removeAll(f_xfcaller_soi);
 			f_xxfcaller.remove(flow_of_interest);
 			Set<ArrivalCurve> alphas_xxfcaller = ArrivalBoundDispatch.computeArrivalBounds(server_graph, configuration,
-					common_subpath_src, f_xxfcaller, flow_of_interest);
+					common_subpath_src, f_xxfcaller, flow_of_interest, budget);
 
 			ServiceCurve null_service = Curve_ConstantPool.ZERO_SERVICE_CURVE.get();
 
@@ -140,13 +151,14 @@ public class AggregatePmoo extends AbstractArrivalBound implements ArrivalBound
 			}
 		} else {
 			PmooAnalysis pmoo = new PmooAnalysis(server_graph, configuration);
+			pmoo.setBudget(budget);
 			betas_loxfcaller_subpath = pmoo.getServiceCurves(flow_of_interest, common_subpath, f_xfcaller_soi);
 		}
 
 		// Check if there's any service left on this path. Signaled by at least one
 		// service curve in this set
 		if (betas_loxfcaller_subpath.isEmpty()) {
-			System.out.println("No service left over during PMOO arrival bounding!");
+			Diagnostics.report(Diagnostics.Event.NO_LEFT_OVER_SERVICE_PMOO, () -> "No service left over during PMOO arrival bounding!");
 			alphas_xfcaller.clear();
 			alphas_xfcaller.add(Curve_ConstantPool.INFINITE_ARRIVAL_CURVE.get());
 			return alphas_xfcaller;
@@ -160,7 +172,7 @@ public class AggregatePmoo extends AbstractArrivalBound implements ArrivalBound
 		// Note that flows f_xfcaller that originate in 'common_subpath_src' are covered
 		// by this call of computeArrivalBound
 		Set<ArrivalCurve> alpha_xfcaller_src = ArrivalBoundDispatch.computeArrivalBounds(server_graph, configuration,
-				common_subpath_src, f_xfcaller, flow_of_interest);
+				common_subpath_src, f_xfcaller, flow_of_interest, budget);
 		alphas_xfcaller = Calculator.getInstance().getDncBackend().getBoundingCurves().output(configuration, alpha_xfcaller_src, common_subpath, betas_loxfcaller_subpath);
 
 		return alphas_xfcaller;
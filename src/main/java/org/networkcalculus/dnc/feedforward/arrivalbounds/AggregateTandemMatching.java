@@ -30,7 +30,6 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
-import org.networkcalculus.dnc.AlgDncBackend_DNC_Affine;
 import org.networkcalculus.dnc.AnalysisConfig;
 import org.networkcalculus.dnc.Calculator;
 import org.networkcalculus.dnc.AnalysisConfig.Multiplexing;
@@ -46,10 +45,10 @@ import org.networkcalculus.dnc.network.server_graph.Path;
 import org.networkcalculus.dnc.network.server_graph.Server;
 import org.networkcalculus.dnc.network.server_graph.ServerGraph;
 import org.networkcalculus.dnc.network.server_graph.Turn;
+import org.networkcalculus.dnc.tandem.AnalysisBudget;
 import org.networkcalculus.dnc.tandem.analyses.TandemMatchingAnalysis;
-import org.networkcalculus.dnc.tandem.analyses.TotalFlowAnalysis;
+import org.networkcalculus.dnc.utils.Diagnostics;
 import org.networkcalculus.dnc.utils.SetUtils;
-import org.networkcalculus.num.Num;
 
 public class AggregateTandemMatching extends AbstractArrivalBound implements ArrivalBound {
 	private static AggregateTandemMatching instance = new AggregateTandemMatching();
@@ -62,6 +61,15 @@ public class AggregateTandemMatching extends AbstractArrivalBound implements Arr
 		this.configuration = configuration;
 	}
 
+	/**
+	 * @param budget The budget of the analysis this arrival bound is derived for, checked by the nested analyses.
+	 */
+	public AggregateTandemMatching(ServerGraph server_graph, AnalysisConfig configuration, AnalysisBudget budget) {
+		this.server_graph = server_graph;
+		this.configuration = configuration;
+		this.budget = budget;
+	}
+
 	public static AggregateTandemMatching getInstance() {
 		return instance;
 	}
@@ -106,7 +114,7 @@ public class AggregateTandemMatching extends AbstractArrivalBound implements Arr
 			f_xxfcaller.removeAll(f_xfcaller_soi);
 			f_xxfcaller.remove(flow_of_interest);
 			Set<ArrivalCurve> alphas_xxfcaller = ArrivalBoundDispatch.computeArrivalBounds(server_graph, configuration,
-					common_subpath_src, f_xxfcaller, flow_of_interest);
+					common_subpath_src, f_xxfcaller, flow_of_interest, budget);
 
 			ServiceCurve null_service = Curve_ConstantPool.ZERO_SERVICE_CURVE.get();
 
@@ -119,13 +127,14 @@ public class AggregateTandemMatching extends AbstractArrivalBound implements Arr
 			}
 		} else {
 			TandemMatchingAnalysis tma = new TandemMatchingAnalysis(server_graph, configuration);
+			tma.setBudget(budget);
 			betas_loxfcaller_subpath = tma.getServiceCurves(flow_of_interest, common_subpath, f_xfcaller_soi);
 		}
 
 		// Check if there's any service left on this path. Signaled by at least one
 		// service curve in this set
 		if (betas_loxfcaller_subpath.isEmpty()) {
-			System.out.println( "No service left over during TMA arrival bounding!" );
+			Diagnostics.report( Diagnostics.Event.NO_LEFT_OVER_SERVICE_TMA, () -> "No service left over during TMA arrival bounding!" );
 			return new HashSet<ArrivalCurve>(Collections.singleton(Curve_ConstantPool.INFINITE_ARRIVAL_CURVE.get()));
 		}
 
@@ -137,40 +146,14 @@ public class AggregateTandemMatching extends AbstractArrivalBound implements Arr
 		// Note that flows f_xfcaller that originate in 'common_subpath_src' are covered
 		// by this call of computeArrivalBound
 		Set<ArrivalCurve> alpha_xfcaller_src = ArrivalBoundDispatch.computeArrivalBounds(server_graph, configuration,
-				common_subpath_src, f_xfcaller, flow_of_interest);
+				common_subpath_src, f_xfcaller, flow_of_interest, budget);
 		Set<ArrivalCurve> alphas_xfcaller = Calculator.getInstance().getDncBackend().getBoundingCurves().output(configuration, alpha_xfcaller_src, common_subpath, betas_loxfcaller_subpath);
 
 		// TODO It has not been investigated if the TFA node backlog can improve TM arrival bounds.
-		// TODO This implementation only works for token-bucket arrivals. 
-		// It disregards the potential shift in inflection points not present in this burst cap variant.
-		if (configuration.serverBacklogArrivalBound()) {	
-			if(Calculator.getInstance().getDncBackend() == AlgDncBackend_DNC_Affine.DISCO_AFFINE) {
-				Server last_hop_xtx = turn.getSource();
-				TotalFlowAnalysis tfa = new TotalFlowAnalysis(server_graph, configuration);
-				tfa.deriveBoundsAtServer(last_hop_xtx);
-	
-				Set<Num> tfa_backlog_bounds = tfa.getServerBacklogBoundMap().get(last_hop_xtx);
-				Num tfa_backlog_bound_min = Num.getFactory(Calculator.getInstance().getNumBackend()).getPositiveInfinity();
-	
-				for (Num tfa_backlog_bound : tfa_backlog_bounds) {
-					if (tfa_backlog_bound.leq(tfa_backlog_bound_min)) {
-						tfa_backlog_bound_min = tfa_backlog_bound;
-					}
-				}
-	
-				// Reduce the burst: Here's the limitation.
-				// It disregards the potential shift in inflection points not present in this burst cap variant.
-				for (ArrivalCurve alpha_xfcaller : alphas_xfcaller) {
-					if (alpha_xfcaller.getBurst().gt(tfa_backlog_bound_min)) {
-						// if the burst is >0 then there are at least two segments and the second holds the burst as its y-axis value.
-						alpha_xfcaller.getSegment(1).setY(tfa_backlog_bound_min); 
-					}
-				}
-			} else {
-				System.out.println("INFO: Capping output burstiness was not executed as it currently only works for DISCO_AFFINE curves.");
-			}
+		if (configuration.serverBacklogArrivalBound()) {
+			alphas_xfcaller = capBurstsAtServerBacklog(turn.getSource(), alphas_xfcaller);
 		}
-		
+
 		return alphas_xfcaller;
 	}
 }
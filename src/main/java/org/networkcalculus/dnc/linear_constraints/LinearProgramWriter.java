@@ -0,0 +1,439 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2015 - 2018 Steffen Bondorf
+ * Copyright (C) 2017 - 2018 The DiscoDNC contributors
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+
+package org.networkcalculus.dnc.linear_constraints;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.math3.util.Pair;
+
+import org.networkcalculus.dnc.Calculator;
+import org.networkcalculus.dnc.network.server_graph.Path;
+import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.num.Num;
+
+/**
+ * Streams a linear program to a buffered output in one of the {@link LinearProgramFormat}s.
+ * <p>
+ * The objective has to be set first, constraints are then written one by one as they are handed over.
+ * LP_SOLVE and CPLEX files are written through without keeping the constraints. MPS is column-oriented,
+ * i.e., the coefficients are collected per variable and the file is written when closing the writer.
+ * <p>
+ * All variables are non-negative. Strict relations are written as non-strict ones.
+ * Coefficients and constants are written as their Num.toString(), i.e., like NumericalTerm.toString().
+ */
+public abstract class LinearProgramWriter implements Closeable {
+	private static final int BUFFER_SIZE = 1 << 16;
+	
+	protected final Writer writer;
+	protected int row_count = 0;
+	
+	protected LinearProgramWriter( Writer writer ) {
+		this.writer = writer;
+	}
+
+	/**
+	 * Opens a buffered writer for the given file.
+	 * 
+	 * @param output_path The file to write to.
+	 * @param format The format to write.
+	 * @param gzip Compress the output with gzip.
+	 * @return The writer.
+	 * @throws IOException The file cannot be opened.
+	 */
+	public static LinearProgramWriter create( String output_path, LinearProgramFormat format, boolean gzip ) throws IOException {
+		OutputStream out = new BufferedOutputStream( new FileOutputStream( output_path ), BUFFER_SIZE );
+		if( gzip ) {
+			out = new GZIPOutputStream( out, BUFFER_SIZE );
+		}
+		return create( new BufferedWriter( new OutputStreamWriter( out, StandardCharsets.UTF_8 ), BUFFER_SIZE ), format );
+	}
+
+	public static LinearProgramWriter create( Writer writer, LinearProgramFormat format ) {
+		switch( format ) {
+			case LP_SOLVE:
+			default:
+				return new LpSolveWriter( writer );
+			case CPLEX:
+				return new CplexWriter( writer );
+			case MPS:
+				return new MpsWriter( writer );
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------------------------
+	// Model
+	// --------------------------------------------------------------------------------------------------------------
+
+	public abstract void objective( boolean maximize, Map<String,Num> terms ) throws IOException;
+	
+	public abstract void comment( String comment ) throws IOException;
+	
+	/**
+	 * Writes the constraint <code>lhs relation rhs</code>.
+	 * 
+	 * @param lhs Variable names mapped to their coefficients.
+	 * @param relation The relation.
+	 * @param rhs The constant.
+	 * @throws IOException Writing failed.
+	 */
+	public void constraint( Map<String,Num> lhs, Relation relation, Num rhs ) throws IOException {
+		row_count++;
+		writeConstraint( "R" + row_count, lhs, relation, rhs );
+	}
+	
+	protected abstract void writeConstraint( String name, Map<String,Num> lhs, Relation relation, Num rhs ) throws IOException;
+
+	public void constraint( TemporalConstraint constraint ) throws IOException {
+		Map<String,Num> lhs = new LinkedHashMap<String,Num>();
+		addTerm( lhs, variableName( constraint.getPath1() ), Operator.PLUS );
+		addTerm( lhs, variableName( constraint.getPath2() ), Operator.MINUS );
+		constraint( lhs, constraint.getRelation(), Num.getFactory(Calculator.getInstance().getNumBackend()).createZero() );
+	}
+
+	public void constraint( LogicalConstraint constraint ) throws IOException {
+		Map<String,Num> lhs = new LinkedHashMap<String,Num>();
+		addTerm( lhs, constraint.getFlow1Shape().toString(), Operator.PLUS );
+		addTerm( lhs, constraint.getFlow2Shape().toString(), Operator.MINUS );
+		constraint( lhs, constraint.getRelation(), Num.getFactory(Calculator.getInstance().getNumBackend()).createZero() );
+	}
+
+	public void constraint( NumericalConstraint constraint ) throws IOException {
+		Map<String,Num> lhs = new LinkedHashMap<String,Num>();
+		for( Pair<Operator,FlowLocationTime> flow_term : constraint.getFlowShapeTerms() ) {
+			addTerm( lhs, flow_term.getSecond().toString(), flow_term.getFirst() );
+		}
+		
+		// Terms with time variables move to the left side, constants stay on the right side.
+		Num rhs = null;
+		for( NumericalTerm term : constraint.getNumTerms() ) {
+			if( term.getPath() == null ) {
+				Num value = term.getOperator() == Operator.MINUS ? negate( term.getValue() ) : term.getValue();
+				rhs = rhs == null ? value : Num.getUtils(Calculator.getInstance().getNumBackend()).add( rhs, value );
+			} else {
+				addTerm( lhs, variableName( term.getPath() ), term.getOperator() == Operator.MINUS ? Operator.PLUS : Operator.MINUS, term.getValue() );
+			}
+		}
+		if( rhs == null ) {
+			rhs = Num.getFactory(Calculator.getInstance().getNumBackend()).createZero();
+		}
+		constraint( lhs, constraint.getRelation(), rhs );
+	}
+	
+	public static String variableName( Path path ) {
+		StringBuffer name = new StringBuffer( "t{" );
+		for( Server server : path.getServers() ) {
+			name.append( server.getAlias() );
+		}
+		name.append( "}" );
+		return name.toString();
+	}
+	
+	/**
+	 * Adds the variable with coefficient 1 or -1.
+	 */
+	public static void addTerm( Map<String,Num> terms, String variable, Operator operator ) {
+		addTerm( terms, variable, operator, Num.getFactory(Calculator.getInstance().getNumBackend()).create( 1.0 ) );
+	}
+	
+	public static void addTerm( Map<String,Num> terms, String variable, Operator operator, Num value ) {
+		Num coefficient = operator == Operator.MINUS ? negate( value ) : value.copy();
+		Num existing = terms.get( variable );
+		terms.put( variable, existing == null ? coefficient : Num.getUtils(Calculator.getInstance().getNumBackend()).add( existing, coefficient ) );
+	}
+	
+	protected static Num negate( Num value ) {
+		return Num.getUtils(Calculator.getInstance().getNumBackend()).sub( Num.getFactory(Calculator.getInstance().getNumBackend()).createZero(), value );
+	}
+
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+	
+	// --------------------------------------------------------------------------------------------------------------
+	// Formatting
+	// --------------------------------------------------------------------------------------------------------------
+	
+	protected void writeTerms( Map<String,Num> terms ) throws IOException {
+		boolean first = true;
+		for( Map.Entry<String,Num> term : terms.entrySet() ) {
+			Num coefficient = term.getValue();
+			if( coefficient.eqZero() ) {
+				continue;
+			}
+			if( coefficient.ltZero() ) {
+				writer.write( first ? "-" : " - " );
+				coefficient = negate( coefficient );
+			} else if( !first ) {
+				writer.write( " + " );
+			}
+			if( coefficient.doubleValue() != 1.0 ) {
+				writer.write( coefficient.toString() );
+				writer.write( ' ' );
+			}
+			writer.write( term.getKey() );
+			first = false;
+		}
+		if( first ) {
+			writer.write( "0" );
+		}
+	}
+	
+	protected static String relationString( Relation relation ) {
+		switch( relation ) {
+			case L:
+			case LE:
+			default:
+				return " <= ";
+			case E:
+				return " = ";
+			case GE:
+			case G:
+				return " >= ";
+		}
+	}
+	
+	protected static int countTerms( Map<String,Num> terms ) {
+		int count = 0;
+		for( Num coefficient : terms.values() ) {
+			if( !coefficient.eqZero() ) {
+				count++;
+			}
+		}
+		return count;
+	}
+	
+	private static class LpSolveWriter extends LinearProgramWriter {
+		private LpSolveWriter( Writer writer ) {
+			super( writer );
+		}
+
+		@Override
+		public void objective( boolean maximize, Map<String,Num> terms ) throws IOException {
+			writer.write( maximize ? "max: " : "min: " );
+			writeTerms( terms );
+			writer.write( ";\n\n" );
+		}
+		
+		@Override
+		public void comment( String comment ) throws IOException {
+			writer.write( "\n/* " );
+			writer.write( comment );
+			writer.write( " */\n" );
+		}
+
+		@Override
+		protected void writeConstraint( String name, Map<String,Num> lhs, Relation relation, Num rhs ) throws IOException {
+			// LpSolve reads an unnamed relation with a single variable as a bound.
+			if( countTerms( lhs ) == 1 ) {
+				writer.write( name );
+				writer.write( ": " );
+			}
+			writeTerms( lhs );
+			writer.write( relationString( relation ) );
+			writer.write( rhs.toString() );
+			writer.write( ";\n" );
+		}
+	}
+	
+	private static class CplexWriter extends LinearProgramWriter {
+		private boolean subject_to = false;
+		
+		private CplexWriter( Writer writer ) {
+			super( writer );
+		}
+
+		@Override
+		public void objective( boolean maximize, Map<String,Num> terms ) throws IOException {
+			writer.write( maximize ? "Maximize\n" : "Minimize\n" );
+			writer.write( " obj: " );
+			writeTerms( terms );
+			writer.write( "\n\n" );
+		}
+		
+		@Override
+		public void comment( String comment ) throws IOException {
+			writer.write( "\n\\ " );
+			writer.write( comment );
+			writer.write( "\n" );
+		}
+
+		@Override
+		protected void writeConstraint( String name, Map<String,Num> lhs, Relation relation, Num rhs ) throws IOException {
+			if( !subject_to ) {
+				writer.write( "Subject To\n" );
+				subject_to = true;
+			}
+			writer.write( ' ' );
+			writer.write( name );
+			writer.write( ": " );
+			writeTerms( lhs );
+			writer.write( relationString( relation ) );
+			writer.write( rhs.toString() );
+			writer.write( '\n' );
+		}
+		
+		@Override
+		public void close() throws IOException {
+			if( !subject_to ) {
+				writer.write( "Subject To\n" );
+			}
+			writer.write( "\nEnd\n" );
+			super.close();
+		}
+	}
+	
+	private static class MpsWriter extends LinearProgramWriter {
+		private static final String OBJECTIVE_ROW = "obj";
+		
+		private boolean maximize = false;
+		private final Map<String,Num> objective = new LinkedHashMap<String,Num>();
+		
+		private final List<String> row_names = new ArrayList<String>();
+		private final List<Character> row_types = new ArrayList<Character>();
+		private final List<Num> row_rhs = new ArrayList<Num>();
+		
+		// Column-oriented: Variable -> (row, coefficient) in the order rows were added.
+		private final Map<String,List<Pair<Integer,Num>>> map__variable__coefficients = new LinkedHashMap<String,List<Pair<Integer,Num>>>();
+		
+		private MpsWriter( Writer writer ) {
+			super( writer );
+		}
+
+		@Override
+		public void objective( boolean maximize, Map<String,Num> terms ) throws IOException {
+			this.maximize = maximize;
+			objective.putAll( terms );
+			for( String variable : terms.keySet() ) {
+				getCoefficients( variable );
+			}
+		}
+
+		@Override
+		public void comment( String comment ) throws IOException {
+			// MPS comments cannot be placed next to the rows they refer to.
+		}
+
+		@Override
+		protected void writeConstraint( String name, Map<String,Num> lhs, Relation relation, Num rhs ) throws IOException {
+			int row = row_names.size();
+			row_names.add( name );
+			switch( relation ) {
+				case L:
+				case LE:
+				default:
+					row_types.add( 'L' );
+					break;
+				case E:
+					row_types.add( 'E' );
+					break;
+				case GE:
+				case G:
+					row_types.add( 'G' );
+					break;
+			}
+			row_rhs.add( rhs );
+			
+			for( Map.Entry<String,Num> term : lhs.entrySet() ) {
+				if( !term.getValue().eqZero() ) {
+					getCoefficients( term.getKey() ).add( new Pair<Integer,Num>( row, term.getValue() ) );
+				}
+			}
+		}
+		
+		private List<Pair<Integer,Num>> getCoefficients( String variable ) {
+			List<Pair<Integer,Num>> coefficients = map__variable__coefficients.get( variable );
+			if( coefficients == null ) {
+				coefficients = new ArrayList<Pair<Integer,Num>>();
+				map__variable__coefficients.put( variable, coefficients );
+			}
+			return coefficients;
+		}
+		
+		@Override
+		public void close() throws IOException {
+			writer.write( "NAME ulp\n" );
+			writer.write( "OBJSENSE\n" );
+			writer.write( maximize ? "    MAX\n" : "    MIN\n" );
+			
+			writer.write( "ROWS\n" );
+			writer.write( " N " + OBJECTIVE_ROW + "\n" );
+			for( int row = 0; row < row_names.size(); row++ ) {
+				writer.write( ' ' );
+				writer.write( row_types.get( row ) );
+				writer.write( ' ' );
+				writer.write( row_names.get( row ) );
+				writer.write( '\n' );
+			}
+			
+			writer.write( "COLUMNS\n" );
+			for( Map.Entry<String,List<Pair<Integer,Num>>> column : map__variable__coefficients.entrySet() ) {
+				Num objective_coefficient = objective.get( column.getKey() );
+				if( objective_coefficient != null && !objective_coefficient.eqZero() ) {
+					writeEntry( column.getKey(), OBJECTIVE_ROW, objective_coefficient );
+				}
+				for( Pair<Integer,Num> coefficient : column.getValue() ) {
+					writeEntry( column.getKey(), row_names.get( coefficient.getFirst() ), coefficient.getSecond() );
+				}
+			}
+			
+			writer.write( "RHS\n" );
+			for( int row = 0; row < row_names.size(); row++ ) {
+				if( !row_rhs.get( row ).eqZero() ) {
+					writeEntry( "RHS", row_names.get( row ), row_rhs.get( row ) );
+				}
+			}
+			
+			writer.write( "ENDATA\n" );
+			super.close();
+		}
+		
+		private void writeEntry( String column, String row, Num value ) throws IOException {
+			writer.write( "    " );
+			writer.write( column );
+			writer.write( ' ' );
+			writer.write( row );
+			writer.write( ' ' );
+			writer.write( value.toString() );
+			writer.write( '\n' );
+		}
+	}
+}
@@ -54,6 +54,10 @@ public class Flow {
      * The turn path the flow traverses incl explicit sink
      */
     private Path path;
+    /**
+     * The number of flows aggregated to this flow, see FlowAggregation
+     */
+    private int aggregated_flows_count = 1;
 
     /**
      * @param id    The flow's id (unique).
@@ -118,6 +122,27 @@ public class Flow {
     public Path getPath() {
         return path;
     }
+
+    /**
+     * @return The number of flows aggregated to this flow, 1 for a single flow.
+     */
+    public int getAggregatedFlowsCount() {
+        return aggregated_flows_count;
+    }
+
+    /**
+     * An aggregate's flows are not FIFO among each other,
+     * i.e., it must not be bounded as a single flow under FIFO per micro flow.
+     *
+     * @return True if this flow aggregates multiple flows.
+     */
+    public boolean isAggregate() {
+        return aggregated_flows_count > 1;
+    }
+
+    protected void setAggregatedFlowsCount(int aggregated_flows_count) {
+        this.aggregated_flows_count = aggregated_flows_count;
+    }
     
     // --------------------------------------------------------------------------------------------------------------
     // String Conversions
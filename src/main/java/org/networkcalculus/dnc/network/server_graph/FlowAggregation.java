@@ -0,0 +1,211 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2013 - 2018 Steffen Bondorf
+ * Copyright (C) 2017 - 2018 The DiscoDNC contributors
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+
+package org.networkcalculus.dnc.network.server_graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.networkcalculus.dnc.curves.ArrivalCurve;
+import org.networkcalculus.dnc.curves.Curve;
+
+/**
+ * Copy of a server graph where all cross-flows with identical paths are aggregated to a single flow.
+ * <p>
+ * The aggregate's arrival curve is the sum of its members' arrival curves, i.e., it bounds
+ * the members' aggregate arrivals and analyzing the flow of interest in the reduced server graph
+ * results in valid bounds while set operations and arrival bound cache keys only deal with a
+ * single flow per path. The bounds are not necessarily the same as in the original server graph.
+ * Analyses and arrival bounds that bound flows separately, e.g., the segregated arrival bounds,
+ * now bound the aggregate as a whole, and an aggregate's flows are not FIFO among each other.
+ * Aggregates are therefore marked, see Flow.isAggregate(), such that no analysis bounds them
+ * under FIFO per micro flow.
+ * <p>
+ * The flow of interest is never aggregated. It keeps a flow of its own in the reduced server graph
+ * and the remaining flows on its path are aggregated separately from it.
+ * See AggregatedAnalysis for deriving per-flow bounds this way.
+ */
+public class FlowAggregation {
+	private ServerGraph server_graph;
+	private ServerGraph server_graph_aggregated = new ServerGraph();
+	private Flow flow_of_interest_aggregated = Flow.NULL_FLOW;
+
+	private Map<Server, Server> map__server__server_aggregated = new HashMap<Server, Server>();
+	private Map<Server, Server> map__server_aggregated__server = new HashMap<Server, Server>();
+	private Map<Flow, Flow> map__flow__flow_aggregated = new HashMap<Flow, Flow>();
+	private Map<Flow, Set<Flow>> map__flow_aggregated__flows = new HashMap<Flow, Set<Flow>>();
+
+	@SuppressWarnings("unused")
+	private FlowAggregation() {
+	}
+
+	public FlowAggregation(ServerGraph server_graph) throws Exception {
+		this(server_graph, Flow.NULL_FLOW);
+	}
+
+	/**
+	 * @param server_graph
+	 *            The server graph to aggregate the flows of.
+	 * @param flow_of_interest
+	 *            The flow to keep separate, Flow.NULL_FLOW to aggregate all flows.
+	 * @throws Exception
+	 *             The reduced server graph cannot be created.
+	 */
+	public FlowAggregation(ServerGraph server_graph, Flow flow_of_interest) throws Exception {
+		this.server_graph = server_graph;
+		aggregate(flow_of_interest);
+	}
+
+	private void aggregate(Flow flow_of_interest) throws Exception {
+		List<Server> servers = new ArrayList<Server>(server_graph.getServers());
+		servers.sort(Comparator.comparingInt(Server::getId));
+		for (Server s : servers) {
+			Server s_aggregated = server_graph_aggregated.addServer(s.getAlias(), s.getServiceCurve(),
+					s.getStoredMaxSC(), s.multiplexing(), s.useMaxSC(), s.useMaxScRate());
+			map__server__server_aggregated.put(s, s_aggregated);
+			map__server_aggregated__server.put(s_aggregated, s);
+		}
+
+		List<Turn> turns = new ArrayList<Turn>(server_graph.getTurns());
+		turns.sort(Comparator.comparingInt(Turn::getId));
+		for (Turn t : turns) {
+			server_graph_aggregated.addTurn(t.getAlias(), map__server__server_aggregated.get(t.getSource()),
+					map__server__server_aggregated.get(t.getDest()));
+		}
+
+		List<Flow> flows = new ArrayList<Flow>(server_graph.getFlows());
+		flows.sort(Comparator.comparingInt(Flow::getId));
+
+		// Group the flows by their paths, keeping the order of their first occurrence.
+		Map<Path, List<Flow>> map__path__flows = new LinkedHashMap<Path, List<Flow>>();
+		for (Flow f : flows) {
+			if (f.equals(flow_of_interest)) {
+				continue;
+			}
+			List<Flow> flows_path = map__path__flows.get(f.getPath());
+			if (flows_path == null) {
+				flows_path = new LinkedList<Flow>();
+				map__path__flows.put(f.getPath(), flows_path);
+			}
+			flows_path.add(f);
+		}
+
+		if (flows.contains(flow_of_interest)) {
+			flow_of_interest_aggregated = addAggregateFlow(flow_of_interest.getAlias(), flow_of_interest.getArrivalCurve(),
+					flow_of_interest.getPath(), Collections.singletonList(flow_of_interest));
+		}
+
+		for (List<Flow> flows_path : map__path__flows.values()) {
+			Flow f_first = flows_path.get(0);
+
+			String alias = f_first.getAlias();
+			ArrivalCurve arrival_curve = f_first.getArrivalCurve();
+			if (flows_path.size() > 1) {
+				alias = alias + "+" + Integer.toString(flows_path.size() - 1);
+				for (Flow f : flows_path.subList(1, flows_path.size())) {
+					arrival_curve = Curve.add(arrival_curve, f.getArrivalCurve());
+				}
+			}
+			addAggregateFlow(alias, arrival_curve, f_first.getPath(), flows_path);
+		}
+	}
+
+	private Flow addAggregateFlow(String alias, ArrivalCurve arrival_curve, Path path, List<Flow> members) throws Exception {
+		List<Server> path_aggregated = new LinkedList<Server>();
+		for (Server s : path.getServers()) {
+			path_aggregated.add(map__server__server_aggregated.get(s));
+		}
+
+		Flow f_aggregated = server_graph_aggregated.addFlow(alias, arrival_curve, path_aggregated);
+		int aggregated_flows_count = 0;
+		for (Flow f : members) {
+			aggregated_flows_count += f.getAggregatedFlowsCount();
+		}
+		f_aggregated.setAggregatedFlowsCount(aggregated_flows_count);
+		map__flow_aggregated__flows.put(f_aggregated, Collections.unmodifiableSet(new HashSet<Flow>(members)));
+		for (Flow f : members) {
+			map__flow__flow_aggregated.put(f, f_aggregated);
+		}
+		return f_aggregated;
+	}
+
+	public ServerGraph getServerGraph() {
+		return server_graph;
+	}
+
+	/**
+	 * @return The server graph with aggregated flows to run the analysis in.
+	 */
+	public ServerGraph getAggregatedServerGraph() {
+		return server_graph_aggregated;
+	}
+
+	/**
+	 * @return The flow of interest in the aggregated server graph, Flow.NULL_FLOW if there is none.
+	 */
+	public Flow getFlowOfInterest() {
+		return flow_of_interest_aggregated;
+	}
+
+	public int numFlowsRemoved() {
+		return server_graph.numFlows() - server_graph_aggregated.numFlows();
+	}
+
+	public Server getAggregatedServer(Server server) {
+		return map__server__server_aggregated.get(server);
+	}
+
+	public Server getServer(Server server_aggregated) {
+		return map__server_aggregated__server.get(server_aggregated);
+	}
+
+	/**
+	 * @param flow
+	 *            A flow of the original server graph.
+	 * @return The aggregate flow it belongs to.
+	 */
+	public Flow getAggregatedFlow(Flow flow) {
+		return map__flow__flow_aggregated.get(flow);
+	}
+
+	/**
+	 * @param flow_aggregated
+	 *            A flow of the aggregated server graph.
+	 * @return The flows of the original server graph that it aggregates.
+	 */
+	public Set<Flow> getFlows(Flow flow_aggregated) {
+		return map__flow_aggregated__flows.get(flow_aggregated);
+	}
+}
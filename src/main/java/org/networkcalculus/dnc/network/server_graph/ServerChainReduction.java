@@ -0,0 +1,288 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2013 - 2018 Steffen Bondorf
+ * Copyright (C) 2017 - 2018 The DiscoDNC contributors
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation;
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+
+package org.networkcalculus.dnc.network.server_graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.networkcalculus.dnc.AnalysisConfig.Multiplexing;
+import org.networkcalculus.dnc.AnalysisConfig.MultiplexingEnforcement;
+import org.networkcalculus.dnc.Calculator;
+import org.networkcalculus.dnc.curves.Curve;
+import org.networkcalculus.dnc.curves.MaxServiceCurve;
+import org.networkcalculus.dnc.curves.ServiceCurve;
+
+/**
+ * Copy of a server graph where every chain of pass-through servers is replaced by a single server.
+ * <p>
+ * Two consecutive servers of a flow's path form a chain if no flow leaves the path at the
+ * first one and no flow joins it at the second one, i.e., both are crossed by the very same
+ * flows. A chain is replaced by a single server offering the convolution of the chain's
+ * service curves and the convolution of its maximum service curves.
+ * <p>
+ * The convolution of strict service curves is not strict, yet left-over service curves under
+ * arbitrary multiplexing require strict ones. Therefore, only chains crossed by a single flow
+ * or chains of FIFO multiplexing servers are reduced. The multiplexing enforcement of the
+ * analyses of the reduced server graph has to be given if it differs from the server-local one.
+ * <p>
+ * Each server of the reduced server graph maps back to the chain of servers it replaces.
+ */
+public class ServerChainReduction {
+	private ServerGraph server_graph;
+	private MultiplexingEnforcement multiplexing_enforcement;
+	private ServerGraph server_graph_reduced = new ServerGraph();
+
+	private Map<Server, Server> map__server__server_reduced = new HashMap<Server, Server>();
+	private Map<Server, List<Server>> map__server_reduced__chain = new HashMap<Server, List<Server>>();
+	private Map<Flow, Flow> map__flow__flow_reduced = new HashMap<Flow, Flow>();
+	private Map<Flow, Flow> map__flow_reduced__flow = new HashMap<Flow, Flow>();
+
+	@SuppressWarnings("unused")
+	private ServerChainReduction() {
+	}
+
+	public ServerChainReduction(ServerGraph server_graph) throws Exception {
+		this(server_graph, MultiplexingEnforcement.SERVER_LOCAL);
+	}
+
+	/**
+	 * @param server_graph
+	 *            The server graph to reduce.
+	 * @param multiplexing_enforcement
+	 *            The multiplexing enforcement of the analyses of the reduced server graph.
+	 * @throws Exception
+	 *             If the reduced server graph cannot be created.
+	 */
+	public ServerChainReduction(ServerGraph server_graph, MultiplexingEnforcement multiplexing_enforcement) throws Exception {
+		this.server_graph = server_graph;
+		this.multiplexing_enforcement = multiplexing_enforcement;
+		reduce();
+	}
+
+	private void reduce() throws Exception {
+		List<Flow> flows = new ArrayList<Flow>(server_graph.getFlows());
+		flows.sort(Comparator.comparingInt(Flow::getId));
+
+		// A server can be merged with its successor on a path if the flows leaving the path
+		// at the server and the ones joining it at the successor are both empty.
+		// As all flows at both servers then take the turn between them, the successor is unique.
+		// Several flows require FIFO multiplexing at both servers, see above.
+		Map<Server, Server> map__server__chain_successor = new HashMap<Server, Server>();
+		Set<Server> chain_successors = new HashSet<Server>();
+		for (Flow f : flows) {
+			Path path = f.getPath();
+			if (path.numServers() < 2) {
+				continue;
+			}
+
+			Map<Server, Set<Flow>> map__server__joining_flows = server_graph.getServerJoiningFlowsMap(path);
+			Map<Server, Set<Flow>> map__server__leaving_flows = server_graph.getServerLeavingFlowsMap(path);
+
+			LinkedList<Server> servers = path.getServers();
+			for (int i = 0; i < servers.size() - 1; i++) {
+				Server s_i = servers.get(i);
+				Server s_next = servers.get(i + 1);
+				if (map__server__leaving_flows.get(s_i).isEmpty()
+						&& map__server__joining_flows.get(s_next).isEmpty()
+						&& (isCrossedBySingleFlow(s_i) || (isFifo(s_i) && isFifo(s_next)))) {
+					map__server__chain_successor.put(s_i, s_next);
+					chain_successors.add(s_next);
+				}
+			}
+		}
+
+		List<Server> servers = new ArrayList<Server>(server_graph.getServers());
+		servers.sort(Comparator.comparingInt(Server::getId));
+		for (Server s : servers) {
+			if (chain_successors.contains(s)) {
+				continue;
+			}
+
+			List<Server> chain = new LinkedList<Server>();
+			Server s_chain = s;
+			while (s_chain != null) {
+				chain.add(s_chain);
+				s_chain = map__server__chain_successor.get(s_chain);
+			}
+			addChainServer(chain);
+		}
+
+		List<Turn> turns = new ArrayList<Turn>(server_graph.getTurns());
+		turns.sort(Comparator.comparingInt(Turn::getId));
+		for (Turn t : turns) {
+			Server source_reduced = map__server__server_reduced.get(t.getSource());
+			Server dest_reduced = map__server__server_reduced.get(t.getDest());
+			if (source_reduced != dest_reduced && !server_graph_reduced.getSuccessors(source_reduced).contains(dest_reduced)) {
+				server_graph_reduced.addTurn(t.getAlias(), source_reduced, dest_reduced);
+			}
+		}
+
+		for (Flow f : flows) {
+			List<Server> path_reduced = new LinkedList<Server>();
+			for (Server s : f.getPath().getServers()) {
+				Server s_reduced = map__server__server_reduced.get(s);
+				if (path_reduced.isEmpty() || path_reduced.get(path_reduced.size() - 1) != s_reduced) {
+					path_reduced.add(s_reduced);
+				}
+			}
+
+			Flow f_reduced = server_graph_reduced.addFlow(f.getAlias(), f.getArrivalCurve(), path_reduced);
+			f_reduced.setAggregatedFlowsCount(f.getAggregatedFlowsCount());
+			map__flow__flow_reduced.put(f, f_reduced);
+			map__flow_reduced__flow.put(f_reduced, f);
+		}
+	}
+
+	// Aggregates of several flows do not count as a single flow.
+	private boolean isCrossedBySingleFlow(Server server) {
+		Set<Flow> flows_server = server_graph.getFlows(server);
+		return flows_server.size() == 1 && !flows_server.iterator().next().isAggregate();
+	}
+
+	private boolean isFifo(Server server) {
+		switch (multiplexing_enforcement) {
+		case GLOBAL_FIFO:
+			return true;
+		case GLOBAL_ARBITRARY:
+			return false;
+		case SERVER_LOCAL:
+		default:
+			return server.multiplexing() == Multiplexing.FIFO;
+		}
+	}
+
+	private void addChainServer(List<Server> chain) throws Exception {
+		Server s_first = chain.get(0);
+
+		Server s_reduced;
+		if (chain.size() == 1) {
+			s_reduced = server_graph_reduced.addServer(s_first.getAlias(), s_first.getServiceCurve(),
+					s_first.getStoredMaxSC(), s_first.multiplexing(), s_first.useMaxSC(), s_first.useMaxScRate());
+		} else {
+			List<ServiceCurve> service_curves = new LinkedList<ServiceCurve>();
+			MaxServiceCurve max_service_curve = Curve.getFactory().createZeroDelayInfiniteBurstMSC();
+			boolean use_max_sc = false;
+			boolean use_max_sc_output_rate = false;
+
+			StringBuffer alias = new StringBuffer();
+			for (Server s : chain) {
+				service_curves.add(s.getServiceCurve());
+				// Servers that do not make use of their maximum service curve
+				// contribute the neutral element of the convolution.
+				if (s.useMaxSC() || s.useMaxScRate()) {
+					max_service_curve = Calculator.getInstance().getMinPlus().convolve(max_service_curve, s.getStoredMaxSC());
+				}
+				use_max_sc = use_max_sc || s.useMaxSC();
+				use_max_sc_output_rate = use_max_sc_output_rate || s.useMaxScRate();
+
+				if (alias.length() > 0) {
+					alias.append("-");
+				}
+				alias.append(s.getAlias());
+			}
+
+			s_reduced = server_graph_reduced.addServer(alias.toString(),
+					Calculator.getInstance().getMinPlus().convolve(service_curves), max_service_curve,
+					s_first.multiplexing(), use_max_sc, use_max_sc_output_rate);
+		}
+
+		for (Server s : chain) {
+			map__server__server_reduced.put(s, s_reduced);
+		}
+		map__server_reduced__chain.put(s_reduced, Collections.unmodifiableList(chain));
+	}
+
+	public ServerGraph getServerGraph() {
+		return server_graph;
+	}
+
+	public ServerGraph getReducedServerGraph() {
+		return server_graph_reduced;
+	}
+
+	public int numServersRemoved() {
+		return server_graph.numServers() - server_graph_reduced.numServers();
+	}
+
+	/**
+	 * @param server
+	 *            A server of the original server graph.
+	 * @return The server replacing the chain the given server belongs to.
+	 */
+	public Server getReducedServer(Server server) {
+		return map__server__server_reduced.get(server);
+	}
+
+	/**
+	 * @param server_reduced
+	 *            A server of the reduced server graph.
+	 * @return The chain of original servers it replaces, in the order they are crossed.
+	 */
+	public List<Server> getChain(Server server_reduced) {
+		return map__server_reduced__chain.get(server_reduced);
+	}
+
+	public Flow getReducedFlow(Flow flow) {
+		return map__flow__flow_reduced.get(flow);
+	}
+
+	public Flow getFlow(Flow flow_reduced) {
+		return map__flow_reduced__flow.get(flow_reduced);
+	}
+
+	/**
+	 * Projects per-server results derived in the reduced server graph back to the original servers.
+	 * Each server of a chain is assigned the result of the chain as a whole, e.g., its backlog bound.
+	 * Delay bounds projected this way must not be summed up along a path as every server
+	 * of a chain holds the delay bound of the entire chain.
+	 *
+	 * @param map__server_reduced__value
+	 *            Results for servers of the reduced server graph.
+	 * @return The results for the servers of the original server graph.
+	 */
+	public <T> Map<Server, T> projectServerMap(Map<Server, T> map__server_reduced__value) {
+		Map<Server, T> map__server__value = new HashMap<Server, T>();
+		for (Map.Entry<Server, T> entry : map__server_reduced__value.entrySet()) {
+			List<Server> chain = map__server_reduced__chain.get(entry.getKey());
+			if (chain == null) {
+				continue;
+			}
+			for (Server s : chain) {
+				map__server__value.put(s, entry.getValue());
+			}
+		}
+		return map__server__value;
+	}
+}
@@ -441,6 +441,26 @@ public class ServerGraph {
 		return successors;
 	}
 
+	/**
+	 * Returns a new set consisting of references to the servers.
+	 *
+	 * @param s
+	 *            The server whose transitive predecessors are returned.
+	 * @return All servers that s can be reached from, excluding s.
+	 */
+	public Set<Server> getAncestors(Server s) {
+		Set<Server> ancestors = new HashSet<Server>();
+		LinkedList<Server> queue = new LinkedList<Server>(getPredecessors(s));
+
+		while (!queue.isEmpty()) {
+			Server ancestor = queue.removeFirst();
+			if (ancestors.add(ancestor)) {
+				queue.addAll(getPredecessors(ancestor));
+			}
+		}
+		return ancestors;
+	}
+
 	// --------------------------------------------------------------------------------------------
 	// Turns
 	// --------------------------------------------------------------------------------------------
@@ -1374,7 +1394,8 @@ public class ServerGraph {
 			}
 
 			f_new_path = new Path(f_path_new_s, f_path_new_t);
-			sg_new.addFlowToServerGraph(f_old.getAlias(), f_old.getArrivalCurve(), f_new_path);
+			sg_new.addFlowToServerGraph(f_old.getAlias(), f_old.getArrivalCurve(), f_new_path)
+					.setAggregatedFlowsCount(f_old.getAggregatedFlowsCount());
 		}
 
 		return sg_new;
@@ -0,0 +1,232 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2013 - 2018 Steffen Bondorf
+ * Copyright (C) 2017 - 2018 The DiscoDNC contributors
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+
+package org.networkcalculus.dnc.network.server_graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Partition of a server graph into the connected components of its interference graph.
+ * <p>
+ * Two servers interfere if they are crossed by a common flow. Flows of different components
+ * never share a server, i.e., neither their arrivals nor the arrival bounds of their cross-traffic
+ * depend on each other. Each component is therefore copied to a server graph of its own that
+ * can be analyzed independently of, and concurrently to, the other components.
+ * Servers that are not crossed by any flow do not belong to any component.
+ */
+public class ServerGraphPartition {
+	private ServerGraph server_graph;
+	private List<Component> components = new ArrayList<Component>();
+	private Map<Server, Component> map__server__component = new HashMap<Server, Component>();
+	private Map<Flow, Component> map__flow__component = new HashMap<Flow, Component>();
+
+	@SuppressWarnings("unused")
+	private ServerGraphPartition() {
+	}
+
+	public ServerGraphPartition(ServerGraph server_graph) throws Exception {
+		this.server_graph = server_graph;
+		partition();
+	}
+
+	private void partition() throws Exception {
+		// Union-find over the server ids, joining all servers on a flow's path.
+		Map<Server, Server> map__server__parent = new HashMap<Server, Server>();
+
+		List<Flow> flows = new ArrayList<Flow>(server_graph.getFlows());
+		flows.sort(Comparator.comparingInt(Flow::getId));
+
+		for (Flow f : flows) {
+			Server root_source = find(map__server__parent, f.getSource());
+			for (Server s : f.getPath().getServers()) {
+				Server root_s = find(map__server__parent, s);
+				if (root_s != root_source) {
+					// The root with the lower id prevails to keep the partition deterministic.
+					if (root_s.getId() < root_source.getId()) {
+						map__server__parent.put(root_source, root_s);
+						root_source = root_s;
+					} else {
+						map__server__parent.put(root_s, root_source);
+					}
+				}
+			}
+		}
+
+		List<Server> servers = new ArrayList<Server>(map__server__parent.keySet());
+		servers.sort(Comparator.comparingInt(Server::getId));
+
+		Map<Server, List<Server>> map__root__servers = new HashMap<Server, List<Server>>();
+		Map<Server, List<Flow>> map__root__flows = new HashMap<Server, List<Flow>>();
+		List<Server> roots = new LinkedList<Server>();
+		for (Server s : servers) {
+			Server root = find(map__server__parent, s);
+			if (!map__root__servers.containsKey(root)) {
+				map__root__servers.put(root, new LinkedList<Server>());
+				map__root__flows.put(root, new LinkedList<Flow>());
+				roots.add(root);
+			}
+			map__root__servers.get(root).add(s);
+		}
+		for (Flow f : flows) {
+			map__root__flows.get(find(map__server__parent, f.getSource())).add(f);
+		}
+
+		for (Server root : roots) {
+			Component component = new Component(map__root__servers.get(root), map__root__flows.get(root));
+			components.add(component);
+			for (Server s : map__root__servers.get(root)) {
+				map__server__component.put(s, component);
+			}
+			for (Flow f : map__root__flows.get(root)) {
+				map__flow__component.put(f, component);
+			}
+		}
+	}
+
+	private static Server find(Map<Server, Server> map__server__parent, Server server) {
+		Server parent = map__server__parent.get(server);
+		if (parent == null) {
+			map__server__parent.put(server, server);
+			return server;
+		}
+		if (parent == server) {
+			return server;
+		}
+
+		Server root = find(map__server__parent, parent);
+		map__server__parent.put(server, root);
+		return root;
+	}
+
+	public ServerGraph getServerGraph() {
+		return server_graph;
+	}
+
+	public List<Component> getComponents() {
+		return Collections.unmodifiableList(components);
+	}
+
+	public int numComponents() {
+		return components.size();
+	}
+
+	/**
+	 * @param server
+	 *            A server of the partitioned server graph.
+	 * @return The component containing the server, null if the server is not crossed by any flow.
+	 */
+	public Component getComponent(Server server) {
+		return map__server__component.get(server);
+	}
+
+	/**
+	 * @param flow
+	 *            A flow of the partitioned server graph.
+	 * @return The component containing the flow.
+	 */
+	public Component getComponent(Flow flow) {
+		return map__flow__component.get(flow);
+	}
+
+	/**
+	 * A connected component of the interference graph, copied to a server graph of its own.
+	 * Servers, turns and flows keep their aliases, curves and settings.
+	 */
+	public class Component {
+		private ServerGraph component_server_graph = new ServerGraph();
+
+		private Map<Server, Server> map__server__component_server = new HashMap<Server, Server>();
+		private Map<Server, Server> map__component_server__server = new HashMap<Server, Server>();
+		private Map<Flow, Flow> map__flow__component_flow = new HashMap<Flow, Flow>();
+		private Map<Flow, Flow> map__component_flow__flow = new HashMap<Flow, Flow>();
+
+		private Component(List<Server> servers, List<Flow> flows) throws Exception {
+			for (Server s : servers) {
+				Server s_component = component_server_graph.addServer(s.getAlias(), s.getServiceCurve(),
+						s.getStoredMaxSC(), s.multiplexing(), s.useMaxSC(), s.useMaxScRate());
+				map__server__component_server.put(s, s_component);
+				map__component_server__server.put(s_component, s);
+			}
+
+			List<Turn> turns = new ArrayList<Turn>(server_graph.getTurns());
+			turns.sort(Comparator.comparingInt(Turn::getId));
+			for (Turn t : turns) {
+				Server source_component = map__server__component_server.get(t.getSource());
+				Server dest_component = map__server__component_server.get(t.getDest());
+				if (source_component != null && dest_component != null) {
+					component_server_graph.addTurn(t.getAlias(), source_component, dest_component);
+				}
+			}
+
+			for (Flow f : flows) {
+				List<Server> path_component = new LinkedList<Server>();
+				for (Server s : f.getPath().getServers()) {
+					path_component.add(map__server__component_server.get(s));
+				}
+				Flow f_component = component_server_graph.addFlow(f.getAlias(), f.getArrivalCurve(), path_component);
+				f_component.setAggregatedFlowsCount(f.getAggregatedFlowsCount());
+				map__flow__component_flow.put(f, f_component);
+				map__component_flow__flow.put(f_component, f);
+			}
+		}
+
+		public ServerGraph getServerGraph() {
+			return component_server_graph;
+		}
+
+		public Set<Server> getServers() {
+			return Collections.unmodifiableSet(map__server__component_server.keySet());
+		}
+
+		public Set<Flow> getFlows() {
+			return Collections.unmodifiableSet(map__flow__component_flow.keySet());
+		}
+
+		public Server getComponentServer(Server server) {
+			return map__server__component_server.get(server);
+		}
+
+		public Server getServer(Server component_server) {
+			return map__component_server__server.get(component_server);
+		}
+
+		public Flow getComponentFlow(Flow flow) {
+			return map__flow__component_flow.get(flow);
+		}
+
+		public Flow getFlow(Flow component_flow) {
+			return map__component_flow__flow.get(component_flow);
+		}
+	}
+}
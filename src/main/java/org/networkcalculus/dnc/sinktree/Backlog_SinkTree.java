@@ -26,6 +26,8 @@
 
 package org.networkcalculus.dnc.sinktree;
 
+import java.util.Map;
+
 import org.networkcalculus.dnc.AnalysisConfig;
 import org.networkcalculus.dnc.curves.ArrivalCurve;
 import org.networkcalculus.dnc.curves.Curve;
@@ -62,4 +64,18 @@ public final class Backlog_SinkTree {
 		}
 		return Curve.getMaxVerticalDeviation(arrivals_at_root, server.getServiceCurve()).doubleValue();
 	}
+
+	/**
+	 * Derives the backlog bounds of all servers of the tree in a single traversal,
+	 * see {@link SinkTree_AffineEngine}.
+	 * 
+	 * @param tree The sink tree.
+	 * @return The backlog bound of each server.
+	 * @throws Exception The server graph is not a sink tree.
+	 */
+	public static Map<Server, Double> derivePmooSinkTreeAffine(ServerGraph tree) throws Exception {
+		SinkTree_AffineEngine engine = new SinkTree_AffineEngine(tree);
+		engine.performAnalysis();
+		return engine.getBacklogBoundMap();
+	}
 }
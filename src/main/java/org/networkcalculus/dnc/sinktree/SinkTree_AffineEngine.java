@@ -0,0 +1,165 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2014 - 2018 Steffen Bondorf
+ * Copyright (C) 2017 - 2018 The DiscoDNC contributors
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+
+package org.networkcalculus.dnc.sinktree;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.networkcalculus.dnc.curves.ArrivalCurve;
+import org.networkcalculus.dnc.curves.Curve;
+import org.networkcalculus.dnc.feedforward.ArrivalBoundPropagation;
+import org.networkcalculus.dnc.network.server_graph.Flow;
+import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+
+/**
+ * Computes the PMOO arrival bounds for token-bucket arrivals and rate-latency servers
+ * (see SinkTree_AffineCurves.computeArrivalBoundDirect) and the resulting backlog bounds
+ * for all servers of a sink tree in a single traversal from the leaves to the root.
+ * <p>
+ * Instead of bounding every flow at every turn, each server hands the aggregate rate and
+ * burst of its continuing flows to its successor. The burst grows by the aggregate rate times
+ * the server's latency. Flows ending at a server are removed from the aggregate in constant
+ * time using the latency sums towards the root. Thus, the entire tree is analyzed in
+ * O(servers + flows).
+ */
+public class SinkTree_AffineEngine {
+    private ServerGraph tree;
+
+    private Map<Server, Double> map__server__latency_to_root = new HashMap<Server, Double>();
+    private Map<Server, Double> map__server__in_rate = new HashMap<Server, Double>();
+    private Map<Server, Double> map__server__in_burst = new HashMap<Server, Double>();
+    private Map<Server, Double> map__server__backlog_bound = new HashMap<Server, Double>();
+
+    @SuppressWarnings("unused")
+    private SinkTree_AffineEngine() {
+    }
+
+    public SinkTree_AffineEngine(ServerGraph tree) {
+        this.tree = tree;
+    }
+
+    /**
+     * @throws Exception The server graph is not a sink tree.
+     */
+    public void performAnalysis() throws Exception {
+        List<Set<Server>> levels = ArrivalBoundPropagation.computeTopologicalLevels(tree);
+
+        map__server__latency_to_root.clear();
+        map__server__in_rate.clear();
+        map__server__in_burst.clear();
+        map__server__backlog_bound.clear();
+
+        // Latency sums from a server to the root, root first.
+        for (int i = levels.size() - 1; i >= 0; i--) {
+            for (Server server : levels.get(i)) {
+                Server successor = getSuccessor(server);
+                double latency_to_root = server.getServiceCurve().getLatency().doubleValue();
+                if (successor != null) {
+                    latency_to_root += map__server__latency_to_root.get(successor);
+                }
+                map__server__latency_to_root.put(server, latency_to_root);
+                map__server__in_rate.put(server, 0.0);
+                map__server__in_burst.put(server, 0.0);
+            }
+        }
+
+        Map<Server, List<Flow>> map__server__sink_flows = new HashMap<Server, List<Flow>>();
+        for (Flow f : tree.getFlows()) {
+            map__server__sink_flows.computeIfAbsent(f.getSink(), sink -> new LinkedList<Flow>()).add(f);
+        }
+
+        // Aggregate arrivals, leaves first.
+        for (Set<Server> level : levels) {
+            for (Server server : level) {
+                double in_rate = map__server__in_rate.get(server);
+                double in_burst = map__server__in_burst.get(server);
+
+                ArrivalCurve arrivals = tree.getSourceFlowArrivalCurve(server);
+                if (in_rate != 0.0 || in_burst != 0.0) {
+                    arrivals = Curve.add(arrivals, Curve.getFactory().createTokenBucket(in_rate, in_burst));
+                }
+                map__server__backlog_bound.put(server,
+                        Curve.getMaxVerticalDeviation(arrivals, server.getServiceCurve()).doubleValue());
+
+                Server successor = getSuccessor(server);
+                if (successor == null) {
+                    continue;
+                }
+
+                double out_rate = in_rate;
+                double out_burst = in_burst;
+                for (Flow f : tree.getSourceFlows(server)) {
+                    out_rate += f.getArrivalCurve().getUltAffineRate().doubleValue();
+                    out_burst += f.getArrivalCurve().getBurst().doubleValue();
+                }
+                for (Flow f : map__server__sink_flows.getOrDefault(server, Collections.emptyList())) {
+                    double R = f.getArrivalCurve().getUltAffineRate().doubleValue();
+                    out_rate -= R;
+                    out_burst -= f.getArrivalCurve().getBurst().doubleValue()
+                            + R * (map__server__latency_to_root.get(f.getSource()) - map__server__latency_to_root.get(server));
+                }
+                // Rounding errors of the subtractions must not yield negative token-bucket parameters.
+                out_rate = Math.max(0.0, out_rate);
+                out_burst = Math.max(0.0, out_burst);
+                out_burst += out_rate * server.getServiceCurve().getLatency().doubleValue();
+
+                map__server__in_rate.put(successor, map__server__in_rate.get(successor) + out_rate);
+                map__server__in_burst.put(successor, map__server__in_burst.get(successor) + out_burst);
+            }
+        }
+    }
+
+    private Server getSuccessor(Server server) throws Exception {
+        Set<Server> successors = tree.getSuccessors(server);
+        if (successors.size() > 1) {
+            throw new Exception("Server " + server.getAlias() + " has more than one successor, the server graph is not a sink tree.");
+        }
+        return successors.isEmpty() ? null : successors.iterator().next();
+    }
+
+    /**
+     * @param server A server of the tree.
+     * @return The aggregate arrival bound of all flows arriving at the server from its predecessors.
+     */
+    public ArrivalCurve getArrivalBound(Server server) {
+        return Curve.getFactory().createTokenBucket(map__server__in_rate.get(server), map__server__in_burst.get(server));
+    }
+
+    public double getBacklogBound(Server server) {
+        return map__server__backlog_bound.get(server);
+    }
+
+    public Map<Server, Double> getBacklogBoundMap() {
+        return Collections.unmodifiableMap(map__server__backlog_bound);
+    }
+}
@@ -90,10 +90,7 @@ public class SinkTree_AffineCurves {
         for (Flow f : f_xfcaller_server) {
             arrival_bound_f = ab_cache.getEntry(turn, f);
             if (arrival_bound_f == null) {
-                sc_s_subpath = Curve_ConstantPool.INFINITE_SERVICE_CURVE.get();
-                for (Server s : f.getSubPath(f.getSource(), turn.getSource()).getServers()) {
-                    sc_s_subpath = Calculator.getInstance().getMinPlus().convolve(sc_s_subpath, s.getServiceCurve());
-                }
+                sc_s_subpath = f.getSubPath(f.getSource(), turn.getSource()).getServiceCurve();
                 arrival_bound_f = Calculator.getInstance().getMinPlus().deconvolve(f.getArrivalCurve(), sc_s_subpath);
             }
             ab_cache.addEntry(turn, f, arrival_bound_f);
@@ -40,11 +40,73 @@ public abstract class AbstractTandemAnalysis implements TandemAnalysis {
     protected ServerGraph server_graph;
     protected AnalysisConfig configuration;
     protected TandemAnalysisResults result;
+    private AnalysisBudget budget_set = null;
+    // The budget of the current run, a child of the set one. It is checked by the analysis and passed on to arrival bounding.
+    protected AnalysisBudget budget = null;
 
     public ServerGraph getServerGraph() {
         return server_graph;
     }
 
+    /**
+     * Limits the enumerations of the analysis and of the analyses nested in its arrival bounding.
+     * The bounds derived from the candidates evaluated until the budget is exhausted are returned,
+     * see {@link #isTruncated()}. Arrival bounds derived after that are not cached.
+     *
+     * @param budget The budget, <code>null</code> for an exhaustive analysis.
+     */
+    public void setBudget(AnalysisBudget budget) {
+        this.budget_set = budget;
+        this.budget = budget;
+    }
+
+    public AnalysisBudget getBudget() {
+        return budget_set;
+    }
+
+    /**
+     * @return Whether the last run of the analysis stopped enumerating candidates because its budget was exhausted.
+     */
+    public boolean isTruncated() {
+        return result.isTruncated();
+    }
+
+    /**
+     * To be checked by enumerations before evaluating another candidate.
+     * An exhausted budget marks the result as truncated.
+     *
+     * @return Whether the budget is exhausted.
+     */
+    protected boolean isBudgetExhausted() {
+        if (budget == null || !budget.isExhausted()) {
+            return false;
+        }
+        result.setTruncated(true);
+        budget.markTruncated();
+        return true;
+    }
+
+    /**
+     * Starts a run with the given fresh result, i.e., a reused analysis does not report the previous run's truncation.
+     * The run checks a budget of its own that is exhausted with the set one. It records the truncations
+     * of this run only, including the ones of the analyses nested in arrival bounding.
+     *
+     * @param result The result of the run.
+     */
+    protected void startRun(TandemAnalysisResults result) {
+        this.result = result;
+        this.budget = budget_set == null ? null : new AnalysisBudget(budget_set);
+    }
+
+    /**
+     * Marks the result as truncated if an analysis nested in the run's arrival bounding skipped work.
+     */
+    protected void finishRun() {
+        if (budget != null && budget.isTruncated()) {
+            result.setTruncated(true);
+        }
+    }
+
     @Override
     public String toString() {
         return getClass().getSimpleName();
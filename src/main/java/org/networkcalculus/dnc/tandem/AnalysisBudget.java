@@ -0,0 +1,127 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2013 - 2018 Steffen Bondorf
+ * Copyright (C) 2017 - 2018 The DiscoDNC contributors
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.tandem;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A wall-clock deadline and a cancellation token for analyses that enumerate candidates.
+ * <p>
+ * The enumerations check the budget cooperatively between candidates. Once it is exhausted,
+ * they stop with the candidates evaluated so far. Every candidate yields a sound bound,
+ * the results are only less tight and marked as truncated.
+ * A budget can be shared by several analyses, e.g., to cancel all of them at once.
+ */
+public class AnalysisBudget {
+    private final long deadline_nanos;
+    private final AnalysisBudget parent;
+    private volatile boolean cancelled = false;
+    private volatile boolean truncated = false;
+
+    /**
+     * Creates a budget without deadline that can only be cancelled.
+     */
+    public AnalysisBudget() {
+        this.deadline_nanos = Long.MAX_VALUE;
+        this.parent = null;
+    }
+
+    /**
+     * @param budget_millis The wall-clock time in milliseconds from now on.
+     *                      Budgets too large for a deadline have none.
+     */
+    public AnalysisBudget(long budget_millis) {
+        long now_nanos = System.nanoTime();
+        long budget_nanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, budget_millis)); // Saturates at Long.MAX_VALUE.
+        if (budget_nanos >= Long.MAX_VALUE - Math.max(0, now_nanos)) {
+            this.deadline_nanos = Long.MAX_VALUE;
+        } else {
+            // Never Long.MAX_VALUE, i.e., never mistaken for no deadline.
+            this.deadline_nanos = now_nanos + budget_nanos;
+        }
+        this.parent = null;
+    }
+
+    /**
+     * Creates a budget that can be cancelled on its own and is exhausted with the given one,
+     * e.g., to cancel a part of an analysis.
+     *
+     * @param parent The budget to share the deadline and cancellation of, <code>null</code> if there is none.
+     */
+    public AnalysisBudget(AnalysisBudget parent) {
+        this.deadline_nanos = Long.MAX_VALUE;
+        this.parent = parent;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Records that an analysis checking this budget skipped work because it was exhausted.
+     * The record is passed on to the parent budget unless this budget was cancelled while
+     * the parent is not exhausted, e.g., the skipped work of a cancelled part of an analysis
+     * is not a truncation of the whole analysis.
+     */
+    public void markTruncated() {
+        truncated = true;
+        if (parent != null && (!cancelled || parent.isExhausted())) {
+            parent.markTruncated();
+        }
+    }
+
+    /**
+     * @return Whether an analysis checking this budget or one of its child budgets skipped work.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public boolean isExhausted() {
+        return cancelled
+                || (deadline_nanos != Long.MAX_VALUE && System.nanoTime() - deadline_nanos >= 0)
+                || (parent != null && parent.isExhausted());
+    }
+
+    /**
+     * @return The remaining time in milliseconds, <code>Long.MAX_VALUE</code> without deadline.
+     */
+    public long getRemainingMillis() {
+        if (cancelled) {
+            return 0;
+        }
+        long remaining_millis = parent == null ? Long.MAX_VALUE : parent.getRemainingMillis();
+        if (deadline_nanos == Long.MAX_VALUE) {
+            return remaining_millis;
+        }
+        return Math.min(remaining_millis, Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline_nanos - System.nanoTime())));
+    }
+}
@@ -41,6 +41,8 @@ public class TandemAnalysisResults {
 	public Map<Server, Set<ArrivalCurve>> map__server__alphas;
 	protected Num delay_bound;
 	protected Num backlog_bound;
+	// Whether an exhausted analysis budget stopped the enumeration of candidates.
+	protected volatile boolean truncated = false;
 
 	public TandemAnalysisResults() {
 		this.delay_bound = Num.getFactory(Calculator.getInstance().getNumBackend()).createNaN();
@@ -74,6 +76,14 @@ public class TandemAnalysisResults {
 		this.backlog_bound = backlog_bound;
 	}
 
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	protected void setTruncated(boolean truncated) {
+		this.truncated = truncated;
+	}
+
 	public String getServerAlphasMapString() {
 		if (map__server__alphas.isEmpty()) {
 			return "{}";
@@ -0,0 +1,153 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2013 - 2018 Steffen Bondorf
+ * Copyright (C) 2017 - 2018 The DiscoDNC contributors
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.tandem.analyses;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.networkcalculus.dnc.AnalysisConfig;
+import org.networkcalculus.dnc.feedforward.ArrivalBoundDispatch;
+import org.networkcalculus.dnc.network.server_graph.Flow;
+import org.networkcalculus.dnc.network.server_graph.FlowAggregation;
+import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+import org.networkcalculus.dnc.tandem.TandemAnalysis;
+import org.networkcalculus.num.Num;
+
+/**
+ * Analysis of flows in server graphs where the cross-flows with identical paths are aggregated.
+ * <p>
+ * Each flow of interest is analyzed in a FlowAggregation of its own that separates it from the
+ * other flows on its path. The bounds derived for it in the reduced server graph are mapped back
+ * to the flow of the given server graph. Reduced server graphs use separate arrival bound caches.
+ */
+public class AggregatedAnalysis {
+    private ServerGraph server_graph;
+    private AnalysisConfig configuration;
+
+    private Map<Flow, Num> map__flow__delay_bound = new ConcurrentHashMap<Flow, Num>();
+    private Map<Flow, Num> map__flow__backlog_bound = new ConcurrentHashMap<Flow, Num>();
+
+    @SuppressWarnings("unused")
+    private AggregatedAnalysis() {
+    }
+
+    public AggregatedAnalysis(ServerGraph server_graph) {
+        this(server_graph, new AnalysisConfig());
+    }
+
+    public AggregatedAnalysis(ServerGraph server_graph, AnalysisConfig configuration) {
+        this.server_graph = server_graph;
+        this.configuration = configuration;
+    }
+
+    /**
+     * Bounds the flow of interest with the given analysis in the server graph with aggregated cross-flows.
+     *
+     * @param analysis The analysis to bound the flow with.
+     * @param flow_of_interest A flow of the given server graph.
+     * @throws Exception If the reduced server graph cannot be created or the analysis fails.
+     */
+    public void performAnalysis(TandemAnalysis.Analyses analysis, Flow flow_of_interest) throws Exception {
+        FlowAggregation aggregation = new FlowAggregation(server_graph, flow_of_interest);
+        ServerGraph server_graph_aggregated = aggregation.getAggregatedServerGraph();
+
+        ArrivalBoundDispatch.useSeparateCaches(server_graph_aggregated);
+        try {
+            TandemAnalysis tandem_analysis = createAnalysis(analysis, server_graph_aggregated);
+            tandem_analysis.performAnalysis(aggregation.getFlowOfInterest());
+
+            map__flow__delay_bound.put(flow_of_interest, tandem_analysis.getDelayBound());
+            map__flow__backlog_bound.put(flow_of_interest, tandem_analysis.getBacklogBound());
+        } finally {
+            ArrivalBoundDispatch.releaseSeparateCaches(server_graph_aggregated);
+        }
+    }
+
+    /**
+     * Bounds every flow with the given analysis, the flows in parallel.
+     * The first exception raised is rethrown after all flows were analyzed.
+     *
+     * @param analysis The analysis to bound the flows with.
+     * @throws Exception If the analysis of a flow fails.
+     */
+    public void performAnalysis(TandemAnalysis.Analyses analysis) throws Exception {
+        map__flow__delay_bound.clear();
+        map__flow__backlog_bound.clear();
+
+        List<Exception> exceptions = Collections.synchronizedList(new LinkedList<Exception>());
+
+        server_graph.getFlows().parallelStream().forEach(flow -> {
+            try {
+                performAnalysis(analysis, flow);
+            } catch (Exception e) {
+                exceptions.add(e);
+            }
+        });
+
+        if (!exceptions.isEmpty()) {
+            throw exceptions.get(0);
+        }
+    }
+
+    private TandemAnalysis createAnalysis(TandemAnalysis.Analyses analysis, ServerGraph server_graph_aggregated) throws Exception {
+        switch (analysis) {
+            case TFA:
+                return new TotalFlowAnalysis(server_graph_aggregated, configuration);
+            case SFA:
+                return new SeparateFlowAnalysis(server_graph_aggregated, configuration);
+            case PMOO:
+                return new PmooAnalysis(server_graph_aggregated, configuration);
+            case TMA:
+                return new TandemMatchingAnalysis(server_graph_aggregated, configuration);
+            default:
+                throw new Exception("Analysis " + analysis + " is not supported");
+        }
+    }
+
+    public Num getDelayBound(Flow flow) {
+        return map__flow__delay_bound.get(flow);
+    }
+
+    public Num getBacklogBound(Flow flow) {
+        return map__flow__backlog_bound.get(flow);
+    }
+
+    public Map<Flow, Num> getFlowDelayBoundMap() {
+        return map__flow__delay_bound;
+    }
+
+    public Map<Flow, Num> getFlowBacklogBoundMap() {
+        return map__flow__backlog_bound;
+    }
+
+    public ServerGraph getServerGraph() {
+        return server_graph;
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2013 - 2018 Steffen Bondorf
+ * Copyright (C) 2017 - 2018 The DiscoDNC contributors
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.tandem.analyses;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.networkcalculus.dnc.AnalysisConfig;
+import org.networkcalculus.dnc.AnalysisConfig.Multiplexing;
+import org.networkcalculus.dnc.Calculator;
+import org.networkcalculus.dnc.network.server_graph.Flow;
+import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+import org.networkcalculus.dnc.tandem.TandemAnalysis;
+import org.networkcalculus.num.Num;
+
+/**
+ * Verifies whether a flow meets a delay deadline and/or a backlog budget.
+ * <p>
+ * The analyses are evaluated from the cheapest to the tightest one and the verification stops
+ * as soon as the bounds derived so far prove the requirements. All bounds are sound, i.e.,
+ * the delay bound and the backlog bound may be proven by different analyses.
+ * The Tandem Matching Analysis stops after the first sub-path combination that proves the requirements.
+ * Analyses not available for FIFO multiplexing are skipped if the flow's path multiplexes FIFO.
+ */
+public class BoundVerification {
+    private ServerGraph server_graph;
+    private AnalysisConfig configuration;
+    private List<TandemAnalysis.Analyses> analyses = new LinkedList<TandemAnalysis.Analyses>(
+            Arrays.asList(TandemAnalysis.Analyses.TFA, TandemAnalysis.Analyses.SFA,
+                    TandemAnalysis.Analyses.PMOO, TandemAnalysis.Analyses.TMA));
+
+    private Num delay_bound;
+    private Num backlog_bound;
+    private TandemAnalysis.Analyses last_analysis;
+
+    @SuppressWarnings("unused")
+    private BoundVerification() {
+    }
+
+    public BoundVerification(ServerGraph server_graph) {
+        this(server_graph, new AnalysisConfig());
+    }
+
+    public BoundVerification(ServerGraph server_graph, AnalysisConfig configuration) {
+        this.server_graph = server_graph;
+        this.configuration = configuration;
+    }
+
+    /**
+     * @param analyses The analyses to escalate through, in this order.
+     */
+    public void setAnalyses(List<TandemAnalysis.Analyses> analyses) {
+        this.analyses = new LinkedList<TandemAnalysis.Analyses>(analyses);
+    }
+
+    public List<TandemAnalysis.Analyses> getAnalyses() {
+        return new LinkedList<TandemAnalysis.Analyses>(analyses);
+    }
+
+    public boolean verifyDelay(Flow flow_of_interest, Num delay_deadline) throws Exception {
+        return verify(flow_of_interest, delay_deadline, null);
+    }
+
+    public boolean verifyBacklog(Flow flow_of_interest, Num backlog_budget) throws Exception {
+        return verify(flow_of_interest, null, backlog_budget);
+    }
+
+    /**
+     * @param flow_of_interest The flow to verify.
+     * @param delay_deadline   The delay bound to prove, <code>null</code> if there is none.
+     * @param backlog_budget   The backlog bound to prove, <code>null</code> if there is none.
+     * @return Whether the requirements were proven. <code>false</code> only means that
+     *         none of the analyses derives bounds tight enough.
+     * @throws Exception If an analysis fails.
+     */
+    public boolean verify(Flow flow_of_interest, Num delay_deadline, Num backlog_budget) throws Exception {
+        if (delay_deadline == null && backlog_budget == null) {
+            throw new Exception("Neither a delay deadline nor a backlog budget to verify");
+        }
+
+        delay_bound = Num.getFactory(Calculator.getInstance().getNumBackend()).createPositiveInfinity();
+        backlog_bound = Num.getFactory(Calculator.getInstance().getNumBackend()).createPositiveInfinity();
+        last_analysis = null;
+
+        boolean arbitrary_multiplexing = isArbitraryMultiplexing(flow_of_interest);
+
+        for (TandemAnalysis.Analyses analysis : analyses) {
+            TandemAnalysis tandem_analysis;
+            switch (analysis) {
+                case TFA:
+                    tandem_analysis = new TotalFlowAnalysis(server_graph, configuration);
+                    tandem_analysis.performAnalysis(flow_of_interest);
+                    break;
+                case SFA:
+                    tandem_analysis = new SeparateFlowAnalysis(server_graph, configuration);
+                    tandem_analysis.performAnalysis(flow_of_interest);
+                    break;
+                case PMOO:
+                    if (!arbitrary_multiplexing) {
+                        continue;
+                    }
+                    tandem_analysis = new PmooAnalysis(server_graph, configuration);
+                    tandem_analysis.performAnalysis(flow_of_interest);
+                    break;
+                case TMA:
+                    if (!arbitrary_multiplexing) {
+                        continue;
+                    }
+                    TandemMatchingAnalysis tma = new TandemMatchingAnalysis(server_graph, configuration);
+                    tma.performVerification(flow_of_interest, requirementOrNull(delay_deadline, delay_bound),
+                            requirementOrNull(backlog_budget, backlog_bound));
+                    tandem_analysis = tma;
+                    break;
+                default:
+                    throw new Exception("Analysis " + analysis + " is not supported");
+            }
+            last_analysis = analysis;
+
+            delay_bound = Num.getUtils(Calculator.getInstance().getNumBackend()).min(delay_bound, tandem_analysis.getDelayBound());
+            backlog_bound = Num.getUtils(Calculator.getInstance().getNumBackend()).min(backlog_bound, tandem_analysis.getBacklogBound());
+
+            if (isProven(delay_deadline, backlog_budget)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // A requirement proven by a previous analysis does not need to be proven again.
+    private static Num requirementOrNull(Num requirement, Num bound) {
+        if (requirement == null || bound.leq(requirement)) {
+            return null;
+        }
+        return requirement;
+    }
+
+    private boolean isProven(Num delay_deadline, Num backlog_budget) {
+        return (delay_deadline == null || delay_bound.leq(delay_deadline))
+                && (backlog_budget == null || backlog_bound.leq(backlog_budget));
+    }
+
+    private boolean isArbitraryMultiplexing(Flow flow_of_interest) {
+        switch (configuration.enforceMultiplexing()) {
+            case GLOBAL_FIFO:
+                return false;
+            case GLOBAL_ARBITRARY:
+                return true;
+            default:
+                for (Server server : flow_of_interest.getPath().getServers()) {
+                    if (server.multiplexing() == Multiplexing.FIFO) {
+                        return false;
+                    }
+                }
+                return true;
+        }
+    }
+
+    /**
+     * @return The smallest delay bound derived during the last verification.
+     */
+    public Num getDelayBound() {
+        return delay_bound;
+    }
+
+    /**
+     * @return The smallest backlog bound derived during the last verification.
+     */
+    public Num getBacklogBound() {
+        return backlog_bound;
+    }
+
+    /**
+     * @return The last analysis evaluated during the last verification,
+     *         the one that proved the requirements if they were proven.
+     */
+    public TandemAnalysis.Analyses getLastAnalysis() {
+        return last_analysis;
+    }
+
+    public ServerGraph getServerGraph() {
+        return server_graph;
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2013 - 2018 Steffen Bondorf
+ * Copyright (C) 2017 - 2018 The DiscoDNC contributors
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+
+package org.networkcalculus.dnc.tandem.analyses;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.math3.util.Pair;
+
+import org.networkcalculus.dnc.AnalysisConfig;
+import org.networkcalculus.dnc.Calculator;
+import org.networkcalculus.dnc.feedforward.ArrivalBoundPropagation;
+import org.networkcalculus.dnc.network.server_graph.Flow;
+import org.networkcalculus.dnc.network.server_graph.Server;
+import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+import org.networkcalculus.num.Num;
+
+/**
+ * Total flow analysis of all servers and all flows of a server graph in a single pass.
+ * <p>
+ * Each server is analyzed once. Servers are processed in topological order, one level at a
+ * time and the servers of a level in parallel, such that, if the configuration allows for caching,
+ * the arrival bounds at a server can be computed from the cached arrival bounds of the previous levels.
+ * The arrival bounds these depend on, e.g., the ones of the PBOO arrival bounding's cross-traffic, are
+ * derived on demand. Servers of a level may derive the same ones concurrently and, without caching,
+ * every server derives them anew. Each flow's end-to-end bounds are then assembled
+ * from the bounds of the servers on its path.
+ */
+public class NetworkTotalFlowAnalysis {
+    private ServerGraph server_graph;
+    private AnalysisConfig configuration;
+    private TotalFlowAnalysis tfa;
+
+    private Map<Server, Num> map__server__delay_bound = new ConcurrentHashMap<Server, Num>();
+    private Map<Server, Num> map__server__backlog_bound = new ConcurrentHashMap<Server, Num>();
+    private Map<Flow, Num> map__flow__delay_bound = new HashMap<Flow, Num>();
+    private Map<Flow, Num> map__flow__backlog_bound = new HashMap<Flow, Num>();
+
+    @SuppressWarnings("unused")
+    private NetworkTotalFlowAnalysis() {
+    }
+
+    public NetworkTotalFlowAnalysis(ServerGraph server_graph) {
+        this(server_graph, new AnalysisConfig());
+    }
+
+    public NetworkTotalFlowAnalysis(ServerGraph server_graph, AnalysisConfig configuration) {
+        this.server_graph = server_graph;
+        this.configuration = configuration;
+    }
+
+    /**
+     * Derives the bounds of all servers and all flows.
+     * The first exception raised by a server of a level is rethrown
+     * after all servers of this level finished.
+     *
+     * @throws Exception If the server graph is not feed-forward or if the analysis fails at a server.
+     */
+    public void performAnalysis() throws Exception {
+        tfa = new TotalFlowAnalysis(server_graph, configuration);
+        tfa.useConcurrentResultMaps();
+
+        map__server__delay_bound.clear();
+        map__server__backlog_bound.clear();
+        map__flow__delay_bound.clear();
+        map__flow__backlog_bound.clear();
+
+        for (Set<Server> level : ArrivalBoundPropagation.computeTopologicalLevels(server_graph)) {
+            List<Exception> exceptions = Collections.synchronizedList(new LinkedList<Exception>());
+
+            level.parallelStream().forEach(server -> {
+                try {
+                    Pair<Num,Num> min_D_B = tfa.deriveBoundsAtServer(server);
+                    map__server__delay_bound.put(server, min_D_B.getFirst());
+                    map__server__backlog_bound.put(server, min_D_B.getSecond());
+                } catch (Exception e) {
+                    exceptions.add(e);
+                }
+            });
+
+            if (!exceptions.isEmpty()) {
+                throw exceptions.get(0);
+            }
+        }
+
+        for (Flow flow : server_graph.getFlows()) {
+            Num delay_bound = Num.getFactory(Calculator.getInstance().getNumBackend()).createZero();
+            Num backlog_bound = Num.getFactory(Calculator.getInstance().getNumBackend()).createZero();
+
+            for (Server server : flow.getPath().getServers()) {
+                delay_bound = Num.getUtils(Calculator.getInstance().getNumBackend()).add(delay_bound, map__server__delay_bound.get(server));
+                backlog_bound = Num.getUtils(Calculator.getInstance().getNumBackend()).max(backlog_bound, map__server__backlog_bound.get(server));
+            }
+
+            map__flow__delay_bound.put(flow, delay_bound);
+            map__flow__backlog_bound.put(flow, backlog_bound);
+        }
+    }
+
+    public Num getDelayBound(Flow flow) {
+        return map__flow__delay_bound.get(flow);
+    }
+
+    public Num getBacklogBound(Flow flow) {
+        return map__flow__backlog_bound.get(flow);
+    }
+
+    public Map<Flow, Num> getFlowDelayBoundMap() {
+        return map__flow__delay_bound;
+    }
+
+    public Map<Flow, Num> getFlowBacklogBoundMap() {
+        return map__flow__backlog_bound;
+    }
+
+    /**
+     * @return The minimum delay bound of all aggregate arrival bounds at a server.
+     */
+    public Map<Server, Num> getServerDelayBoundMap() {
+        return map__server__delay_bound;
+    }
+
+    /**
+     * @return The minimum backlog bound of all aggregate arrival bounds at a server.
+     */
+    public Map<Server, Num> getServerBacklogBoundMap() {
+        return map__server__backlog_bound;
+    }
+
+    /**
+     * @return The underlying analysis holding all servers' arrival bounds and candidate bounds.
+     */
+    public TotalFlowAnalysis getTotalFlowAnalysis() {
+        return tfa;
+    }
+}
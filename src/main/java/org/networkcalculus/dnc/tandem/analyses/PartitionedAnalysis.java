@@ -0,0 +1,147 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2013 - 2018 Steffen Bondorf
+ * Copyright (C) 2017 - 2018 The DiscoDNC contributors
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.tandem.analyses;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.networkcalculus.dnc.AnalysisConfig;
+import org.networkcalculus.dnc.feedforward.ArrivalBoundDispatch;
+import org.networkcalculus.dnc.network.server_graph.Flow;
+import org.networkcalculus.dnc.network.server_graph.ServerGraph;
+import org.networkcalculus.dnc.network.server_graph.ServerGraphPartition;
+import org.networkcalculus.dnc.tandem.TandemAnalysis;
+import org.networkcalculus.num.Num;
+
+/**
+ * Analysis of all flows of a server graph, one independent component of its
+ * interference graph at a time and the components in parallel.
+ * <p>
+ * Each component is analyzed in a server graph of its own that uses separate arrival bound caches.
+ * The bounds of the components' flows are mapped back to the flows of the given server graph.
+ */
+public class PartitionedAnalysis {
+    private ServerGraph server_graph;
+    private AnalysisConfig configuration;
+    private ServerGraphPartition partition;
+
+    private Map<Flow, Num> map__flow__delay_bound = new ConcurrentHashMap<Flow, Num>();
+    private Map<Flow, Num> map__flow__backlog_bound = new ConcurrentHashMap<Flow, Num>();
+
+    @SuppressWarnings("unused")
+    private PartitionedAnalysis() {
+    }
+
+    public PartitionedAnalysis(ServerGraph server_graph) throws Exception {
+        this(server_graph, new AnalysisConfig());
+    }
+
+    public PartitionedAnalysis(ServerGraph server_graph, AnalysisConfig configuration) throws Exception {
+        this.server_graph = server_graph;
+        this.configuration = configuration;
+        this.partition = new ServerGraphPartition(server_graph);
+    }
+
+    /**
+     * Bounds every flow with the given analysis. The flows of a component are analyzed one after
+     * another, such that they share the component's cached arrival bounds.
+     * The first exception raised by a component is rethrown after all components finished.
+     *
+     * @param analysis The analysis to bound the flows with.
+     * @throws Exception If the analysis of a flow fails.
+     */
+    public void performAnalysis(TandemAnalysis.Analyses analysis) throws Exception {
+        map__flow__delay_bound.clear();
+        map__flow__backlog_bound.clear();
+
+        List<Exception> exceptions = Collections.synchronizedList(new LinkedList<Exception>());
+
+        partition.getComponents().parallelStream().forEach(component -> {
+            ServerGraph component_server_graph = component.getServerGraph();
+            ArrivalBoundDispatch.useSeparateCaches(component_server_graph);
+            try {
+                for (Flow flow : component.getFlows()) {
+                    TandemAnalysis tandem_analysis = createAnalysis(analysis, component_server_graph);
+                    tandem_analysis.performAnalysis(component.getComponentFlow(flow));
+
+                    map__flow__delay_bound.put(flow, tandem_analysis.getDelayBound());
+                    map__flow__backlog_bound.put(flow, tandem_analysis.getBacklogBound());
+                }
+            } catch (Exception e) {
+                exceptions.add(e);
+            } finally {
+                ArrivalBoundDispatch.releaseSeparateCaches(component_server_graph);
+            }
+        });
+
+        if (!exceptions.isEmpty()) {
+            throw exceptions.get(0);
+        }
+    }
+
+    private TandemAnalysis createAnalysis(TandemAnalysis.Analyses analysis, ServerGraph component_server_graph) throws Exception {
+        switch (analysis) {
+            case TFA:
+                return new TotalFlowAnalysis(component_server_graph, configuration);
+            case SFA:
+                return new SeparateFlowAnalysis(component_server_graph, configuration);
+            case PMOO:
+                return new PmooAnalysis(component_server_graph, configuration);
+            case TMA:
+                return new TandemMatchingAnalysis(component_server_graph, configuration);
+            default:
+                throw new Exception("Analysis " + analysis + " is not supported");
+        }
+    }
+
+    public Num getDelayBound(Flow flow) {
+        return map__flow__delay_bound.get(flow);
+    }
+
+    public Num getBacklogBound(Flow flow) {
+        return map__flow__backlog_bound.get(flow);
+    }
+
+    public Map<Flow, Num> getFlowDelayBoundMap() {
+        return map__flow__delay_bound;
+    }
+
+    public Map<Flow, Num> getFlowBacklogBoundMap() {
+        return map__flow__backlog_bound;
+    }
+
+    public ServerGraph getServerGraph() {
+        return server_graph;
+    }
+
+    public ServerGraphPartition getPartition() {
+        return partition;
+    }
+}
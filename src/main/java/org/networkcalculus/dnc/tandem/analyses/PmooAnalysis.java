@@ -36,6 +36,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.math3.util.Pair;
 
@@ -272,6 +273,7 @@ public class PmooAnalysis extends AbstractTandemAnalysis {
             throw new Exception("PMOO analysis is not available for FIFO multiplexing nodes");
         }
 
+        startRun(new PmooResults());
         ((PmooResults) result).betas_e2e = getServiceCurves(flow_of_interest, path,
                 Collections.singleton(flow_of_interest));
 
@@ -293,6 +295,7 @@ public class PmooAnalysis extends AbstractTandemAnalysis {
                 ((PmooResults) result).setBacklogBound(backlog_bound__beta_e2e);
             }
         }
+        finishRun();
     }
 
     public Set<ServiceCurve> getServiceCurves(Flow flow_of_interest, Path path, Set<Flow> flows_to_serve)
@@ -325,13 +328,14 @@ public class PmooAnalysis extends AbstractTandemAnalysis {
         Map<Set<Flow>, LinkedList<Path>> prolongations = getProlongationsToSubpaths(path, xtx_subpath_grouped_original);
 
         if (prolongations.isEmpty()) {
-            return xtxSubpathBetas(flow_of_interest, path, xtx_subpath_grouped_original);
+            return xtxSubpathBetas(flow_of_interest, path, xtx_subpath_grouped_original, null);
         }
 
         // Create the set of cross-flow groupings, starting from the one for unprolonged
         // flows.
-        Set<Map<Path, Set<Flow>>> xtx_subpath_grouped_incl_prolongation = new HashSet<Map<Path, Set<Flow>>>();
-        xtx_subpath_grouped_incl_prolongation.add(xtx_subpath_grouped_original);
+        InterferencePattern interference_pattern_original = InterferencePattern.of(xtx_subpath_grouped_original);
+        Set<InterferencePattern> xtx_subpath_grouped_incl_prolongation = new HashSet<InterferencePattern>();
+        xtx_subpath_grouped_incl_prolongation.add(interference_pattern_original);
 
         // General way it works:
         // Permutations of all alternatives (see the code below ):
@@ -341,9 +345,14 @@ public class PmooAnalysis extends AbstractTandemAnalysis {
         // exception)
         // - replace results set with temporary one
         // - start over with the outer iteration
+        // Equivalent interference patterns are equal InterferencePatterns, i.e., the set keeps only one of them.
 
         // Move the individual cross flows around the xtx groups.
+        // An exhausted budget stops the search with the patterns found so far.
         for (Entry<Set<Flow>, LinkedList<Path>> xf_prolongations : prolongations.entrySet()) {
+            if (isBudgetExhausted()) {
+                break;
+            }
 
             LinkedList<Path> prolongable_paths = xf_prolongations.getValue();
             if (prolongable_paths.size() == 1) {
@@ -353,83 +362,29 @@ public class PmooAnalysis extends AbstractTandemAnalysis {
             Set<Flow> xfs = xf_prolongations.getKey();
             Path common_path_old = prolongable_paths.getFirst(); // Original path needs to be always first.
             Path common_path_new;
-            Server subpaths_src;
 
             // Every moving is defined by a prolonged flow aggregate's path.
             // Start counting at 1 because the first element (at position 0) is the original
             // interference path.
             for (int i = 1; i <= prolongable_paths.size() - 1; i++) {
+                if (isBudgetExhausted()) {
+                    break;
+                }
                 common_path_new = prolongable_paths.get(i);
 
                 // Each potential move of a flow generates a new set of xtx_subpath_groupings .
                 // They are merged into a temporary results set to prevent concurrent
                 // modification exceptions.
-                // Yes, we need a set of mappings because each mapping will be a unique
-                // interference patter no derive a left-over beta for.
-                Set<Map<Path, Set<Flow>>> xtx_subpath_grouped_incl_prolongation_tmp = new HashSet<Map<Path, Set<Flow>>>();
+                Set<InterferencePattern> xtx_subpath_grouped_incl_prolongation_tmp = new HashSet<InterferencePattern>();
 
                 // At the beginning, only the original interference pattern is in here.
-                for (Map<Path, Set<Flow>> interference_pattern : xtx_subpath_grouped_incl_prolongation) { 
+                for (InterferencePattern interference_pattern : xtx_subpath_grouped_incl_prolongation) {
                     // Prevent the original from getting lost because its sink is not part of
                     // xf_prolongations's Server list.
                     xtx_subpath_grouped_incl_prolongation_tmp.add(interference_pattern);
 
-                    // The general idea is to copy the map and modify the two mappings of interest only.
-                    // Yet, the copy we need is deeper than constructing a new map or using clone()-functionality.
-                    // We need a new map where 
-                    // a) the key can be the same path object as in to old map and
-                    // b) the value is a new map with the old flow objects.
-                    // Constructing this copy will require a loop -- the following loop we use for
-                    // an "in situ" modification we need.
-                    Map<Path, Set<Flow>> interference_pattern_new = new HashMap<Path, Set<Flow>>();
-                    boolean add = true;
-                    for (Entry<Path, Set<Flow>> interference_entry : interference_pattern.entrySet()) {
-
-                        Path key_path = interference_entry.getKey();
-                        Set<Flow> value_flows = new HashSet<Flow>(interference_entry.getValue());
-
-                        if (key_path.equals(common_path_old)) {
-                            if (!value_flows.removeAll(xfs)) { // The flows have already been moved -> skip this one.
-                                add = false;
-                                continue;
-                            }
-                            interference_pattern_new.put(key_path, value_flows);
-                        } else if (key_path.equals(common_path_new)) {
-                            if (value_flows.isEmpty()) { // Prolonging to an empty set will not cause aggregation
-                                // effects.
-                                add = false;
-                                continue;
-                            }
-
-                            boolean aggr_potential = false;
-                            subpaths_src = common_path_new.getSource();
-                            Turn inturn_xfs = xfs.iterator().next().getPrecedingTurn(subpaths_src);
-                            Turn inturn_subpath_flows;
-                            for (Flow f : value_flows) {
-                            	try {
-                                    inturn_subpath_flows = f.getPrecedingTurn(subpaths_src);
-                                    if (inturn_subpath_flows.equals(inturn_xfs)) {
-                                        aggr_potential = true;
-                                        continue;
-                                    }
-                                // There's an exception thrown by getPrecedingTurn if f is originating in subpaths_src
-                                } catch (Exception e) {
-                                } 
-                            }
-
-                            if (!aggr_potential) {
-                                add = false;
-                                continue;
-                            }
-
-                            value_flows.addAll(xfs);
-                            interference_pattern_new.put(key_path, value_flows);
-                        } else {
-                            interference_pattern_new.put(key_path, value_flows);
-                        }
-                    }
-
-                    if (add) {
+                    InterferencePattern interference_pattern_new = interference_pattern.prolong(xfs, common_path_old, common_path_new);
+                    if (interference_pattern_new != null) {
                         xtx_subpath_grouped_incl_prolongation_tmp.add(interference_pattern_new);
                     }
                 }
@@ -438,23 +393,128 @@ public class PmooAnalysis extends AbstractTandemAnalysis {
         }
 
         // Next, get the left-over betas for every prolongation variant.
+        // Different patterns share many cross-flow groups. Their arrival bounds are derived once
+        // and shared among the concurrent workers.
+        Map<Pair<Server, Set<Flow>>, Set<ArrivalCurve>> map__xf_group__alphas = new ConcurrentHashMap<Pair<Server, Set<Flow>>, Set<ArrivalCurve>>();
         Set<ServiceCurve> betas_e2e = Collections.synchronizedSet(new HashSet<ServiceCurve>());
+        List<Exception> exceptions = Collections.synchronizedList(new LinkedList<Exception>());
 
         xtx_subpath_grouped_incl_prolongation.parallelStream().forEach(xtx_subpath_grouped -> {
+            // The unprolonged pattern is always evaluated, the others only within the budget.
+            if (xtx_subpath_grouped != interference_pattern_original && isBudgetExhausted()) {
+                return;
+            }
             try {
-                betas_e2e.addAll(xtxSubpathBetas(flow_of_interest, path, xtx_subpath_grouped));
+                betas_e2e.addAll(xtxSubpathBetas(flow_of_interest, path, xtx_subpath_grouped.map__path__flows, map__xf_group__alphas));
             } catch (Exception e) {
-                System.out.println();
-                e.printStackTrace();
+                exceptions.add(e);
             }
         });
 
+        if (!exceptions.isEmpty()) {
+            throw exceptions.get(0);
+        }
+
         if (betas_e2e.isEmpty()) {
             betas_e2e.add(Curve_ConstantPool.ZERO_SERVICE_CURVE.get());
         }
         return betas_e2e;
     }
 
+    /**
+     * An assignment of cross-flow groups to the subpaths they interfere on.
+     * Groups without flows do not interfere and are not part of the pattern.
+     * Patterns are immutable, prolonging a pattern only copies the two affected groups.
+     */
+    private static final class InterferencePattern {
+        private final Map<Path, Set<Flow>> map__path__flows;
+        private final int hash;
+
+        /**
+         * @param map__path__flows Non-empty, unmodifiable groups only, the map is not copied.
+         */
+        private InterferencePattern(Map<Path, Set<Flow>> map__path__flows) {
+            this.map__path__flows = map__path__flows;
+            this.hash = map__path__flows.hashCode();
+        }
+
+        /**
+         * @return The pattern of the non-empty groups of a grouping, copied.
+         */
+        private static InterferencePattern of(Map<Path, Set<Flow>> map__path__flows) {
+            Map<Path, Set<Flow>> map__path__flows_canonical = new HashMap<Path, Set<Flow>>();
+            for (Entry<Path, Set<Flow>> entry : map__path__flows.entrySet()) {
+                if (!entry.getValue().isEmpty()) {
+                    map__path__flows_canonical.put(entry.getKey(), Collections.unmodifiableSet(new HashSet<Flow>(entry.getValue())));
+                }
+            }
+            return new InterferencePattern(map__path__flows_canonical);
+        }
+
+        /**
+         * @return The pattern with the cross-flows xfs moved from common_path_old to common_path_new,
+         *         null if the move is not possible or has no aggregation effect.
+         */
+        private InterferencePattern prolong(Set<Flow> xfs, Path common_path_old, Path common_path_new) throws Exception {
+            Set<Flow> flows_old = map__path__flows.get(common_path_old);
+            if (flows_old == null || Collections.disjoint(flows_old, xfs)) { // The flows have already been moved.
+                return null;
+            }
+
+            Set<Flow> flows_new = map__path__flows.get(common_path_new);
+            if (flows_new == null) { // Prolonging to an empty set will not cause aggregation effects.
+                return null;
+            }
+
+            boolean aggr_potential = false;
+            Server subpaths_src = common_path_new.getSource();
+            Turn inturn_xfs = xfs.iterator().next().getPrecedingTurn(subpaths_src);
+            for (Flow f : flows_new) {
+                try {
+                    if (f.getPrecedingTurn(subpaths_src).equals(inturn_xfs)) {
+                        aggr_potential = true;
+                        break;
+                    }
+                // There's an exception thrown by getPrecedingTurn if f is originating in subpaths_src
+                } catch (Exception e) {
+                }
+            }
+            if (!aggr_potential) {
+                return null;
+            }
+
+            Set<Flow> flows_old_prolonged = new HashSet<Flow>(flows_old);
+            flows_old_prolonged.removeAll(xfs);
+            Set<Flow> flows_new_prolonged = new HashSet<Flow>(flows_new);
+            flows_new_prolonged.addAll(xfs);
+
+            // Unchanged groups are shared with this pattern.
+            Map<Path, Set<Flow>> map__path__flows_prolonged = new HashMap<Path, Set<Flow>>(map__path__flows);
+            if (flows_old_prolonged.isEmpty()) {
+                map__path__flows_prolonged.remove(common_path_old);
+            } else {
+                map__path__flows_prolonged.put(common_path_old, Collections.unmodifiableSet(flows_old_prolonged));
+            }
+            map__path__flows_prolonged.put(common_path_new, Collections.unmodifiableSet(flows_new_prolonged));
+
+            return new InterferencePattern(map__path__flows_prolonged);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof InterferencePattern)) {
+                return false;
+            }
+            InterferencePattern other = (InterferencePattern) obj;
+            return hash == other.hash && map__path__flows.equals(other.map__path__flows);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
     private Map<Set<Flow>, LinkedList<Path>> getProlongationsToSubpaths(Path path,
                                                                         Map<Path, Set<Flow>> xtx_subpath_grouped_original) throws Exception {
         Map<Server, Set<Path>> paths_starting_in_s = new HashMap<Server, Set<Path>>();
@@ -566,11 +626,16 @@ public class PmooAnalysis extends AbstractTandemAnalysis {
             return new HashSet<ServiceCurve>(Collections.singleton(path.getServiceCurve()));
         }
 
-        return xtxSubpathBetas(flow_of_interest, path, xtx_subpath_grouped);
+        return xtxSubpathBetas(flow_of_interest, path, xtx_subpath_grouped, null);
     }
 
+    /**
+     * @param map__xf_group__alphas Arrival bounds of cross-flow groups already derived by other workers,
+     *                              null to derive all arrival bounds without sharing them.
+     */
     private Set<ServiceCurve> xtxSubpathBetas(Flow flow_of_interest, Path path,
-                                              Map<Path, Set<Flow>> xtx_subpath_grouped) throws Exception {
+                                              Map<Path, Set<Flow>> xtx_subpath_grouped,
+                                              Map<Pair<Server, Set<Flow>>, Set<ArrivalCurve>> map__xf_group__alphas) throws Exception {
         Set<ServiceCurve> betas_e2e = new HashSet<ServiceCurve>();
 
         // Derive the cross-flow substitutes with their arrival bound
@@ -590,8 +655,8 @@ public class PmooAnalysis extends AbstractTandemAnalysis {
             substitute_flow_alias = substitute_flow_alias.concat("}");
 
             // Derive the substitute flow's arrival bound
-            Set<ArrivalCurve> alphas_xf_group = ArrivalBoundDispatch.computeArrivalBounds(server_graph, configuration,
-                    entry.getKey().getSource(), entry.getValue(), Flow.NULL_FLOW);
+            Set<ArrivalCurve> alphas_xf_group = computeArrivalBoundsXfGroup(entry.getKey().getSource(), entry.getValue(),
+                    map__xf_group__alphas);
             // entry.getKey().getSource() because entry.getKey() is the common subpath of
             // path (above variable), i.e., start of interference on path.
             // We are leaving the flow_of_interest's path with this arrival bounding.
@@ -628,16 +693,22 @@ public class PmooAnalysis extends AbstractTandemAnalysis {
             cross_flow_substitutes_set.addAll(arrival_bounds_turn_permutations);
             arrival_bounds_turn_permutations.clear();
 
-            if (result.map__server__alphas.get(entry.getKey().getSource()) == null) {
-                result.map__server__alphas.put(entry.getKey().getSource(), alphas_xf_group);
-            } else {
-                result.map__server__alphas.get(entry.getKey().getSource()).addAll(alphas_xf_group);
+            // Flow prolongation derives the betas of several patterns concurrently.
+            synchronized (result) {
+                if (result.map__server__alphas.get(entry.getKey().getSource()) == null) {
+                    result.map__server__alphas.put(entry.getKey().getSource(), alphas_xf_group);
+                } else {
+                    result.map__server__alphas.get(entry.getKey().getSource()).addAll(alphas_xf_group);
+                }
             }
         }
 
         // Derive the left-over service curves
         ServiceCurve null_service = Curve_ConstantPool.ZERO_SERVICE_CURVE.get();
         for (List<Flow> xtx_substitutes : cross_flow_substitutes_set) {
+            if (!betas_e2e.isEmpty() && isBudgetExhausted()) {
+                break;
+            }
             ServiceCurve beta_e2e = PmooAnalysis.getServiceCurve(path, xtx_substitutes);
 
             if (!beta_e2e.equals(null_service)) {
@@ -651,6 +722,29 @@ public class PmooAnalysis extends AbstractTandemAnalysis {
         return betas_e2e;
     }
 
+    private Set<ArrivalCurve> computeArrivalBoundsXfGroup(Server xf_group_src, Set<Flow> xf_group,
+                                                          Map<Pair<Server, Set<Flow>>, Set<ArrivalCurve>> map__xf_group__alphas) throws Exception {
+        if (map__xf_group__alphas == null) {
+            return ArrivalBoundDispatch.computeArrivalBounds(server_graph, configuration, xf_group_src, xf_group, Flow.NULL_FLOW, budget);
+        }
+
+        // Concurrent workers may both derive the same group's arrival bounds, either result is valid.
+        Pair<Server, Set<Flow>> xf_group_key = new Pair<Server, Set<Flow>>(xf_group_src, xf_group);
+        Set<ArrivalCurve> alphas_xf_group = map__xf_group__alphas.get(xf_group_key);
+        if (alphas_xf_group == null) {
+            alphas_xf_group = ArrivalBoundDispatch.computeArrivalBounds(server_graph, configuration, xf_group_src,
+                    new HashSet<Flow>(xf_group), Flow.NULL_FLOW, budget);
+            map__xf_group__alphas.putIfAbsent(xf_group_key, alphas_xf_group);
+        }
+
+        // Curves are modified in-place later on, e.g., by Curve.beautify(...).
+        Set<ArrivalCurve> alphas_xf_group_copy = new HashSet<ArrivalCurve>();
+        for (ArrivalCurve alpha : alphas_xf_group) {
+            alphas_xf_group_copy.add(alpha.copy());
+        }
+        return alphas_xf_group_copy;
+    }
+
     public Set<ServiceCurve> getLeftOverServiceCurves() {
         return ((PmooResults) result).betas_e2e;
     }
@@ -49,6 +49,7 @@ import org.networkcalculus.dnc.network.server_graph.Server;
 import org.networkcalculus.dnc.network.server_graph.ServerGraph;
 import org.networkcalculus.dnc.network.server_graph.Turn;
 import org.networkcalculus.dnc.tandem.AbstractTandemAnalysis;
+import org.networkcalculus.dnc.tandem.AnalysisBudget;
 import org.networkcalculus.dnc.utils.SetUtils;
 import org.networkcalculus.num.Num;
 
@@ -92,7 +93,9 @@ public class SeparateFlowAnalysis extends AbstractTandemAnalysis {
     }
 
     public void performAnalysis(Flow flow_of_interest, Path path) throws Exception {
-        result = tandemAnalysis(server_graph, flow_of_interest, path, Collections.singleton(flow_of_interest), configuration);
+        startRun(new SeparateFlowResults());
+        result = tandemAnalysis(server_graph, flow_of_interest, path, Collections.singleton(flow_of_interest), configuration, budget);
+        finishRun();
 
         Num delay_bound__beta_e2e;
         Num backlog_bound__beta_e2e;
@@ -121,6 +124,14 @@ public class SeparateFlowAnalysis extends AbstractTandemAnalysis {
 
     public static SeparateFlowResults tandemAnalysis(ServerGraph server_graph, Flow flow_of_interest, Path path, Set<Flow> flows_to_serve, AnalysisConfig configuration)
             throws Exception {
+        return tandemAnalysis(server_graph, flow_of_interest, path, flows_to_serve, configuration, null);
+    }
+
+    /**
+     * @param budget The budget checked by the analyses nested in arrival bounding, <code>null</code> if there is none.
+     */
+    public static SeparateFlowResults tandemAnalysis(ServerGraph server_graph, Flow flow_of_interest, Path path, Set<Flow> flows_to_serve, AnalysisConfig configuration,
+                                                     AnalysisBudget budget) throws Exception {
     	SeparateFlowResults result = new SeparateFlowResults();
         Set<ServiceCurve> betas_lo_path = new HashSet<ServiceCurve>();
         Set<ServiceCurve> betas_lo_server;
@@ -189,14 +200,14 @@ public class SeparateFlowAnalysis extends AbstractTandemAnalysis {
         	
         	if(!f_xxfcaller_server_onpath.isEmpty()) {
         		ac_sets_to_combine.add(
-        				ArrivalBoundDispatch.computeArrivalBounds(server_graph, configuration ,server, f_xxfcaller_server_onpath, flow_of_interest));
+        				ArrivalBoundDispatch.computeArrivalBounds(server_graph, configuration ,server, f_xxfcaller_server_onpath, flow_of_interest, budget));
         	}
         	
         	// If, during this method's use in arrival bounding, we already left the foi's path,
 			// flow_of_interest was set to Flow.NULL_FLOW before. If not, do it again now, that won't harm.
         	if(!f_xxfcaller_server.isEmpty()) {
         		ac_sets_to_combine.add(
-        			ArrivalBoundDispatch.computeArrivalBounds(server_graph, configuration, server, f_xxfcaller_server, Flow.NULL_FLOW));
+        			ArrivalBoundDispatch.computeArrivalBounds(server_graph, configuration, server, f_xxfcaller_server, Flow.NULL_FLOW, budget));
         	}
         	
         	if( ac_sets_to_combine.isEmpty() ) {
@@ -26,7 +26,9 @@
 
 package org.networkcalculus.dnc.tandem.analyses;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -51,6 +53,7 @@ import org.networkcalculus.dnc.network.server_graph.Server;
 import org.networkcalculus.dnc.network.server_graph.ServerGraph;
 import org.networkcalculus.dnc.network.server_graph.Turn;
 import org.networkcalculus.dnc.tandem.AbstractTandemAnalysis;
+import org.networkcalculus.dnc.utils.Diagnostics;
 import org.networkcalculus.num.Num;
 
 public class TandemMatchingAnalysis extends AbstractTandemAnalysis {
@@ -86,6 +89,61 @@ public class TandemMatchingAnalysis extends AbstractTandemAnalysis {
 
 	public void performAnalysis( Flow flow_of_interest, Path path ) throws Exception
 	{
+		checkMultiplexing( path );
+		
+		startRun( new TandemMatchingResults() );
+		((TandemMatchingResults) result).betas_e2e = getServiceCurves( flow_of_interest, path, Collections.singleton( flow_of_interest ) );
+
+        ((TandemMatchingResults) result).setDelayBound(Num.getFactory(Calculator.getInstance().getNumBackend()).createPositiveInfinity());
+        ((TandemMatchingResults) result).setBacklogBound(Num.getFactory(Calculator.getInstance().getNumBackend()).createPositiveInfinity());
+		
+		deriveBounds( flow_of_interest, ((TandemMatchingResults) result).betas_e2e );
+		finishRun();
+	}
+	
+	/**
+	 * Performs a Tandem Matching Analysis for the <code>flow_of_interest</code> that stops 
+	 * as soon as the left-over service curves of the sub-path combinations evaluated so far
+	 * prove the given bounds. The results hold these curves and the bounds derived from them.
+	 * 
+	 * @param flow_of_interest
+	 *            the flow for which the end-to-end service curve shall be computed.
+	 * @param delay_deadline
+	 *            the delay bound to prove, <code>null</code> if there is none.
+	 * @param backlog_budget
+	 *            the backlog bound to prove, <code>null</code> if there is none.
+	 * @return Whether the bounds meet the deadline and the backlog budget.
+	 */
+	public boolean performVerification( Flow flow_of_interest, Num delay_deadline, Num backlog_budget ) throws Exception
+	{
+		Path path = flow_of_interest.getPath();
+		checkMultiplexing( path );
+		
+		startRun( new TandemMatchingResults() );
+		((TandemMatchingResults) result).betas_e2e = new HashSet<ServiceCurve>();
+        ((TandemMatchingResults) result).setDelayBound(Num.getFactory(Calculator.getInstance().getNumBackend()).createPositiveInfinity());
+        ((TandemMatchingResults) result).setBacklogBound(Num.getFactory(Calculator.getInstance().getNumBackend()).createPositiveInfinity());
+		
+		Set<Flow> flows_to_serve = Collections.singleton( flow_of_interest );
+		for ( List<Path> combination : getSubPathCombinationsOrdered( path ) ) {
+			if( !((TandemMatchingResults) result).betas_e2e.isEmpty() && isBudgetExhausted() ) {
+				break;
+			}
+			Set<ServiceCurve> betas_e2e_combination = getServiceCurves( flow_of_interest, combination, flows_to_serve );
+			((TandemMatchingResults) result).betas_e2e.addAll( betas_e2e_combination );
+			deriveBounds( flow_of_interest, betas_e2e_combination );
+			
+			if( ( delay_deadline == null || result.getDelayBound().leq( delay_deadline ) )
+					&& ( backlog_budget == null || result.getBacklogBound().leq( backlog_budget ) ) ) {
+				finishRun();
+				return true;
+			}
+		}
+		finishRun();
+		return false;
+	}
+	
+	private void checkMultiplexing( Path path ) throws Exception {
 		if( configuration.enforceMultiplexing() == MultiplexingEnforcement.GLOBAL_FIFO )
 		{
 			throw new Exception( "Cutting analysis is not available for FIFO multiplexing nodes" );
@@ -98,16 +156,13 @@ public class TandemMatchingAnalysis extends AbstractTandemAnalysis {
 				}
 			}
 		}
-		
-		((TandemMatchingResults) result).betas_e2e = getServiceCurves( flow_of_interest, path, Collections.singleton( flow_of_interest ) );
-
+	}
+	
+	private void deriveBounds( Flow flow_of_interest, Set<ServiceCurve> betas_e2e ) throws Exception {
 		Num delay_bound__beta_e2e;
 		Num backlog_bound__beta_e2e;
-
-        ((TandemMatchingResults) result).setDelayBound(Num.getFactory(Calculator.getInstance().getNumBackend()).createPositiveInfinity());
-        ((TandemMatchingResults) result).setBacklogBound(Num.getFactory(Calculator.getInstance().getNumBackend()).createPositiveInfinity());
 		
-		for( ServiceCurve beta_e2e : ((TandemMatchingResults) result).betas_e2e ) {
+		for( ServiceCurve beta_e2e : betas_e2e ) {
 			delay_bound__beta_e2e = Calculator.getInstance().getDncBackend().getBounds().delayFIFO( flow_of_interest.getArrivalCurve(), beta_e2e ); // Single flow of interest, i.e., fifo per micro flow holds
 			if( delay_bound__beta_e2e.leq(result.getDelayBound()) ) {
 				 ((TandemMatchingResults) result).setDelayBound(delay_bound__beta_e2e);
@@ -150,7 +205,7 @@ public class TandemMatchingAnalysis extends AbstractTandemAnalysis {
 				// from and to are inclusive!
 				sub_paths.add( path.getSubPath( from, to ) );
 			} catch (Exception e) {
-				e.printStackTrace();
+				Diagnostics.report( Diagnostics.Event.SUB_PATH_CONSTRUCTION_FAILED, () -> e.getMessage() );
 			}
 			
 			if( cuts.size() > 1 ) { // otherwise there will only be two sub-paths
@@ -161,7 +216,7 @@ public class TandemMatchingAnalysis extends AbstractTandemAnalysis {
 						// from and to are inclusive!
 						sub_paths.add( path.getSubPath( from, to ) );
 					} catch (Exception e) {
-						e.printStackTrace();
+						Diagnostics.report( Diagnostics.Event.SUB_PATH_CONSTRUCTION_FAILED, () -> e.getMessage() );
 					}
 				}
 			}
@@ -172,7 +227,7 @@ public class TandemMatchingAnalysis extends AbstractTandemAnalysis {
 				// from and to are inclusive!
 				sub_paths.add( path.getSubPath( from, to ) );
 			} catch (Exception e) {
-				e.printStackTrace();
+				Diagnostics.report( Diagnostics.Event.SUB_PATH_CONSTRUCTION_FAILED, () -> e.getMessage() );
 			}
 			
 			sub_path_combinations.add( sub_paths );
@@ -184,21 +239,40 @@ public class TandemMatchingAnalysis extends AbstractTandemAnalysis {
 	public Set<ServiceCurve> getServiceCurves( Flow flow_of_interest, Path path, Set<Flow> flows_to_serve ) throws Exception
 	{
 		// Brute-force: Iterate over all binary combinations
-		List<List<Path>> sub_path_combinations = getAllSubPathCombinations( path );
+		List<List<Path>> sub_path_combinations = getSubPathCombinationsOrdered( path );
 
 		Set<ServiceCurve> betas_e2e = new HashSet<ServiceCurve>();
 		for ( List<Path> combination : sub_path_combinations ) {					// Every sub_path_combination
-			Set<ServiceCurve> betas_e2e_combination = new HashSet<ServiceCurve>();	// will have a set of end-to-end left-over service curves
-			for ( Path sub_path : combination ) {									// computed as the convolution of its partial left-over service curves.
-				betas_e2e_combination = Calculator.getInstance().getMinPlus().convolve( 
-						betas_e2e_combination, getSubTandemServiceCurves( flow_of_interest, sub_path, new HashSet<Flow>( flows_to_serve ) ));
+			// Each combination's left-over service curves are valid on their own.
+			if( !betas_e2e.isEmpty() && isBudgetExhausted() ) {
+				break;
 			}
-			betas_e2e.addAll( betas_e2e_combination );
+			betas_e2e.addAll( getServiceCurves( flow_of_interest, combination, flows_to_serve ) );
 		}
 
 		return betas_e2e;
 	}
 	
+	/**
+	 * Orders the combinations by their number of cuts. Fewer cuts pay bursts only once
+	 * more often, such that an exhausted budget stops the enumeration after the most promising ones.
+	 */
+	private static List<List<Path>> getSubPathCombinationsOrdered( Path path ) {
+		List<List<Path>> sub_path_combinations = new ArrayList<List<Path>>( getAllSubPathCombinations( path ) );
+		sub_path_combinations.sort( Comparator.comparingInt( List::size ) );
+		return sub_path_combinations;
+	}
+	
+	private Set<ServiceCurve> getServiceCurves( Flow flow_of_interest, List<Path> combination, Set<Flow> flows_to_serve ) throws Exception
+	{
+		Set<ServiceCurve> betas_e2e_combination = new HashSet<ServiceCurve>();	// will have a set of end-to-end left-over service curves
+		for ( Path sub_path : combination ) {									// computed as the convolution of its partial left-over service curves.
+			betas_e2e_combination = Calculator.getInstance().getMinPlus().convolve( 
+					betas_e2e_combination, getSubTandemServiceCurves( flow_of_interest, sub_path, new HashSet<Flow>( flows_to_serve ) ));
+		}
+		return betas_e2e_combination;
+	}
+	
 	
 	public Set<ServiceCurve> getSubTandemServiceCurves( Flow flow_of_interest, Path path, Set<Flow> flows_to_serve ) throws Exception {
 		Set<ServiceCurve> betas_e2e = new HashSet<ServiceCurve>();
@@ -242,13 +316,13 @@ public class TandemMatchingAnalysis extends AbstractTandemAnalysis {
 			Path foi_path = flow_of_interest.getPath();
 			
 	 		if( foi_path.getTurns().contains( entry.getKey().getFirst() ) ) {
-	 			alphas_xf_group = ArrivalBoundDispatch.computeArrivalBounds( server_graph, configuration, path_src, entry.getValue(), flow_of_interest );
+	 			alphas_xf_group = ArrivalBoundDispatch.computeArrivalBounds( server_graph, configuration, path_src, entry.getValue(), flow_of_interest, budget );
 	 		} else {
 	 			// We are leaving the flow_of_interest's path with this arrival bounding.
 	 			// Therefore, worst-case arbitrary multiplexing cannot be modeled with 
 				// assigning lowest prioritization to the flow of interest anymore (cf. rejoining flows)
 	 			// and we call computeArrivalBounds with Flow.NULL_FLOW instead of flow_of_interest.
-			 	alphas_xf_group = ArrivalBoundDispatch.computeArrivalBounds( server_graph, configuration, path_src, entry.getValue(), Flow.NULL_FLOW );
+			 	alphas_xf_group = ArrivalBoundDispatch.computeArrivalBounds( server_graph, configuration, path_src, entry.getValue(), Flow.NULL_FLOW, budget );
 	 		}
 
 			// Add the new bounds to the others by creating all the permutations.
@@ -286,6 +360,9 @@ public class TandemMatchingAnalysis extends AbstractTandemAnalysis {
 		// Derive the left-over service curves
 		ServiceCurve null_service = Curve_ConstantPool.ZERO_SERVICE_CURVE.get();
 		for( List<Flow> xtx_substitutes : cross_flow_substitutes_set ) {
+			if( !betas_e2e.isEmpty() && isBudgetExhausted() ) {
+				break;
+			}
 			ServiceCurve beta_e2e = PmooAnalysis.getServiceCurve( path, xtx_substitutes );
 			
 			if( !beta_e2e.equals( null_service ) ) {
@@ -28,9 +28,14 @@
 
 package org.networkcalculus.dnc.tandem.analyses;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.math3.util.Pair;
 
@@ -70,6 +75,8 @@ public class TotalFlowAnalysis extends AbstractTandemAnalysis {
     }
 
     public void performAnalysis(Flow flow_of_interest, Path path) throws Exception {
+        startRun(new TotalFlowResults());
+
         Num delay_bound = Num.getFactory(Calculator.getInstance().getNumBackend()).createZero();
         Num backlog_bound = Num.getFactory(Calculator.getInstance().getNumBackend()).createZero();
 
@@ -82,13 +89,80 @@ public class TotalFlowAnalysis extends AbstractTandemAnalysis {
 
         ((TotalFlowResults) result).setDelayBound(delay_bound);
         ((TotalFlowResults) result).setBacklogBound(backlog_bound);
+        finishRun();
+    }
+
+    public void performAnalysisParallel(Flow flow_of_interest) throws Exception {
+        performAnalysisParallel(flow_of_interest, flow_of_interest.getPath());
+    }
+
+    /**
+     * Derives the bounds at the path's servers concurrently. The per-server results are
+     * independent as the arrival bound computation is thread-safe. The delay bounds are
+     * summed up and the maximum backlog bound is taken in path order afterwards.
+     * The first exception raised at a server is rethrown after all servers finished.
+     *
+     * @param flow_of_interest The flow of interest.
+     * @param path             The path to analyze.
+     * @throws Exception If the derivation fails at a server.
+     */
+    public void performAnalysisParallel(Flow flow_of_interest, Path path) throws Exception {
+        startRun(new TotalFlowResults());
+        useConcurrentResultMaps();
+
+        List<Server> servers = path.getServers();
+        Map<Server, Pair<Num,Num>> map__server__min_D_B = new ConcurrentHashMap<Server, Pair<Num,Num>>();
+        List<Exception> exceptions = Collections.synchronizedList(new LinkedList<Exception>());
+
+        servers.parallelStream().distinct().forEach(server -> {
+            try {
+                map__server__min_D_B.put(server, deriveBoundsAtServer(server));
+            } catch (Exception e) {
+                exceptions.add(e);
+            }
+        });
+
+        if (!exceptions.isEmpty()) {
+            throw exceptions.get(0);
+        }
+
+        Num delay_bound = Num.getFactory(Calculator.getInstance().getNumBackend()).createZero();
+        Num backlog_bound = Num.getFactory(Calculator.getInstance().getNumBackend()).createZero();
+
+        for (Server server : servers) {
+            Pair<Num,Num> min_D_B = map__server__min_D_B.get(server);
+
+            delay_bound = Num.getUtils(Calculator.getInstance().getNumBackend()).add(delay_bound, min_D_B.getFirst());
+            backlog_bound = Num.getUtils(Calculator.getInstance().getNumBackend()).max(backlog_bound, min_D_B.getSecond());
+        }
+
+        ((TotalFlowResults) result).setDelayBound(delay_bound);
+        ((TotalFlowResults) result).setBacklogBound(backlog_bound);
+        finishRun();
+    }
+
+    /**
+     * Replaces the result's per-server maps with concurrent ones such that
+     * {@link #deriveBoundsAtServer(Server)} can be called from multiple threads.
+     */
+    void useConcurrentResultMaps() {
+        TotalFlowResults tfa_result = (TotalFlowResults) result;
+        if (!(tfa_result.map__server__alphas instanceof ConcurrentHashMap)) {
+            tfa_result.map__server__alphas = new ConcurrentHashMap<Server, Set<ArrivalCurve>>(tfa_result.map__server__alphas);
+        }
+        if (!(tfa_result.map__server__D_server instanceof ConcurrentHashMap)) {
+            tfa_result.map__server__D_server = new ConcurrentHashMap<Server, Set<Num>>(tfa_result.map__server__D_server);
+        }
+        if (!(tfa_result.map__server__B_server instanceof ConcurrentHashMap)) {
+            tfa_result.map__server__B_server = new ConcurrentHashMap<Server, Set<Num>>(tfa_result.map__server__B_server);
+        }
     }
 
     public Pair<Num,Num> deriveBoundsAtServer(Server server) throws Exception {
         // Here's the difference to SFA:
         // TFA needs the arrival bound of all flows at the server, including the flow of
         // interest.
-        Set<ArrivalCurve> alphas_server = ArrivalBoundDispatch.computeArrivalBounds(server_graph, configuration, server);
+        Set<ArrivalCurve> alphas_server = ArrivalBoundDispatch.computeArrivalBounds(server_graph, configuration, server, budget);
         // Although the TFA has a flow of interest, DO NOT call
         // computeArrivalBounds(ServerGraph server_graph, AnalysisConfig configuration, Server
         // 							server, Set<Flow> flows_to_bound, Flow flow_of_interest).
@@ -97,35 +171,40 @@ public class TotalFlowAnalysis extends AbstractTandemAnalysis {
         Set<Num> delay_bounds_server = new HashSet<Num>();
         Set<Num> backlog_bounds_server = new HashSet<Num>();
 
+        // According to the call of computeOutputBound there's no left-over service
+        // curve calculation
+        ServiceCurve beta_server = server.getServiceCurve();
+        List<ArrivalCurve> alphas_server_list = new ArrayList<ArrivalCurve>(alphas_server);
+
+        // Is this a single flow, i.e., does fifo per micro flow hold?
+        // An aggregate of flows is not, see FlowAggregation.
+        boolean fifo_per_micro_flow = false;
+        Set<Flow> flows_server = server_graph.getFlows(server);
+        if (flows_server.size() == 1 && !flows_server.iterator().next().isAggregate()) {
+            fifo_per_micro_flow = true;
+        }
+
+        List<Num> backlog_bounds_server_alphas = Calculator.getInstance().getDncBackend().getBounds().backlog(alphas_server_list, beta_server);
+        List<Num> delay_bounds_server_alphas;
+        if (configuration.enforceMultiplexing() == MultiplexingEnforcement.GLOBAL_FIFO
+                || (configuration.enforceMultiplexing() == MultiplexingEnforcement.SERVER_LOCAL
+                && server.multiplexing() == Multiplexing.FIFO)
+                || fifo_per_micro_flow) {
+            delay_bounds_server_alphas = Calculator.getInstance().getDncBackend().getBounds().delayFIFO(alphas_server_list, beta_server);
+        } else {
+            delay_bounds_server_alphas = Calculator.getInstance().getDncBackend().getBounds().delayARB(alphas_server_list, beta_server);
+        }
+
         Num delay_bound_s__min = Num.getFactory(Calculator.getInstance().getNumBackend()).getPositiveInfinity();
         Num backlog_bound_s__min = Num.getFactory(Calculator.getInstance().getNumBackend()).getPositiveInfinity();
-        for (ArrivalCurve alpha_candidate : alphas_server) {
-            // According to the call of computeOutputBound there's no left-over service
-            // curve calculation
-            ServiceCurve beta_server = server.getServiceCurve();
-
-            Num backlog_bound_server_alpha = Calculator.getInstance().getDncBackend().getBounds().backlog(alpha_candidate, beta_server);
+        for (Num backlog_bound_server_alpha : backlog_bounds_server_alphas) {
             backlog_bounds_server.add(backlog_bound_server_alpha);
 
             if (backlog_bound_server_alpha.leq(backlog_bound_s__min)) {
                 backlog_bound_s__min = backlog_bound_server_alpha;
             }
-
-            // Is this a single flow, i.e., does fifo per micro flow hold?
-            boolean fifo_per_micro_flow = false;
-            if (server_graph.getFlows(server).size() == 1) {
-                fifo_per_micro_flow = true;
-            }
-
-            Num delay_bound_server_alpha;
-            if (configuration.enforceMultiplexing() == MultiplexingEnforcement.GLOBAL_FIFO
-                    || (configuration.enforceMultiplexing() == MultiplexingEnforcement.SERVER_LOCAL
-                    && server.multiplexing() == Multiplexing.FIFO)
-                    || fifo_per_micro_flow) {
-                delay_bound_server_alpha = Calculator.getInstance().getDncBackend().getBounds().delayFIFO(alpha_candidate, beta_server);
-            } else {
-                delay_bound_server_alpha = Calculator.getInstance().getDncBackend().getBounds().delayARB(alpha_candidate, beta_server);
-            }
+        }
+        for (Num delay_bound_server_alpha : delay_bounds_server_alphas) {
             delay_bounds_server.add(delay_bound_server_alpha);
 
             if (delay_bound_server_alpha.leq(delay_bound_s__min)) {
@@ -0,0 +1,200 @@
+/*
+ * This file is part of the Deterministic Network Calculator (DNC).
+ *
+ * Copyright (C) 2017 - 2018 The DiscoDNC contributors
+ * Copyright (C) 2019+ The DNC contributors
+ *
+ * http://networkcalculus.org
+ *
+ *
+ * The Deterministic Network Calculator (DNC) is free software;
+ * you can redistribute it and/or modify it under the terms of the 
+ * GNU Lesser General Public License as published by the Free Software Foundation; 
+ * either version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+package org.networkcalculus.dnc.utils;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Diagnostics channel of the analyses that does not block the reporting threads.
+ * <p>
+ * Every reported event is counted. If listeners are registered, a sample of the events is
+ * queued and delivered to them by a single background thread. Events that do not fit
+ * into the queue are dropped and counted instead of waiting for the listeners.
+ * Failures are additionally signaled to the caller by exceptions.
+ */
+public final class Diagnostics {
+	public enum Event {
+		NO_LEFT_OVER_SERVICE_PBOO, NO_LEFT_OVER_SERVICE_PMOO, NO_LEFT_OVER_SERVICE_TMA,
+		BURST_CAPPING_SKIPPED, DEFAULT_ARRIVAL_BOUNDING, SUB_PATH_CONSTRUCTION_FAILED,
+		DECONVOLUTION_FAILED, TEMPORAL_CONSTRAINT_AMBIGUITY
+	}
+
+	public interface Listener {
+		void onEvent( Record record );
+	}
+
+	public static final class Record {
+		private final Event event;
+		private final String message;
+		private final long time_millis;
+		private final String thread_name;
+
+		private Record( Event event, String message ) {
+			this.event = event;
+			this.message = message;
+			this.time_millis = System.currentTimeMillis();
+			this.thread_name = Thread.currentThread().getName();
+		}
+
+		public Event getEvent() {
+			return event;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		public long getTimeMillis() {
+			return time_millis;
+		}
+
+		public String getThreadName() {
+			return thread_name;
+		}
+
+		@Override
+		public String toString() {
+			return event + " [" + thread_name + "]: " + message;
+		}
+	}
+
+	/**
+	 * Prints the events like the analyses used to do before this channel existed.
+	 */
+	public static final Listener CONSOLE = record -> System.out.println( record.toString() );
+
+	private static final int QUEUE_CAPACITY = 4096;
+
+	private static final Map<Event,LongAdder> map__event__count = new EnumMap<Event,LongAdder>( Event.class );
+	static {
+		for ( Event event : Event.values() ) {
+			map__event__count.put( event, new LongAdder() );
+		}
+	}
+	private static final LongAdder dropped_records = new LongAdder();
+
+	private static final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+	private static final BlockingQueue<Record> records = new ArrayBlockingQueue<Record>( QUEUE_CAPACITY );
+	private static volatile double sampling_rate = 1.0;
+	private static Thread dispatcher = null;
+
+	private Diagnostics() {}
+
+	/**
+	 * @param event The event to count and, if sampled, to deliver to the listeners.
+	 * @param message Creates the event's message, only called if the event is delivered.
+	 */
+	public static void report( Event event, Supplier<String> message ) {
+		map__event__count.get( event ).increment();
+
+		if( listeners.isEmpty() ) {
+			return;
+		}
+		double rate = sampling_rate;
+		if( rate < 1.0 && ThreadLocalRandom.current().nextDouble() >= rate ) {
+			return;
+		}
+		if( !records.offer( new Record( event, message.get() ) ) ) {
+			dropped_records.increment();
+		}
+	}
+
+	public static long getCount( Event event ) {
+		return map__event__count.get( event ).sum();
+	}
+
+	public static Map<Event,Long> getCounts() {
+		Map<Event,Long> counts = new EnumMap<Event,Long>( Event.class );
+		for ( Map.Entry<Event,LongAdder> entry : map__event__count.entrySet() ) {
+			counts.put( entry.getKey(), entry.getValue().sum() );
+		}
+		return counts;
+	}
+
+	/**
+	 * @return The number of sampled events that were not delivered because the queue was full.
+	 */
+	public static long getDroppedRecords() {
+		return dropped_records.sum();
+	}
+
+	public static void resetCounts() {
+		for ( LongAdder count : map__event__count.values() ) {
+			count.reset();
+		}
+		dropped_records.reset();
+	}
+
+	/**
+	 * @param rate The fraction of events to deliver to the listeners, in (0,1].
+	 */
+	public static void setSamplingRate( double rate ) {
+		if( !( rate > 0.0 && rate <= 1.0 ) ) {
+			throw new IllegalArgumentException( "The sampling rate must be in (0,1]." );
+		}
+		sampling_rate = rate;
+	}
+
+	public static synchronized void addListener( Listener listener ) {
+		listeners.add( listener );
+
+		if( dispatcher == null ) {
+			dispatcher = new Thread( Diagnostics::dispatch, "dnc-diagnostics" );
+			dispatcher.setDaemon( true );
+			dispatcher.start();
+		}
+	}
+
+	public static void removeListener( Listener listener ) {
+		listeners.remove( listener );
+	}
+
+	private static void dispatch() {
+		while( true ) {
+			Record record;
+			try {
+				record = records.take();
+			} catch ( InterruptedException e ) {
+				return;
+			}
+			for ( Listener listener : listeners ) {
+				try {
+					listener.onEvent( record );
+				} catch ( RuntimeException e ) {
+					// A failing listener must neither stop the delivery to the others nor the dispatcher.
+				}
+			}
+		}
+	}
+}